@@ -5,24 +5,43 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.SeekBar;
 import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.example.demo.astrology.AstrologyInterpreter;
+import com.example.demo.astrology.ChartComputationService;
+import com.example.demo.astrology.ChartStore;
 import com.example.demo.astrology.ChartView;
+import com.example.demo.astrology.HouseSystem;
+import com.example.demo.astrology.InterpretationTemplates;
+import com.example.demo.astrology.ScrubTimeline;
 import com.example.demo.astrology.PlanetCalculator;
-
+import com.example.demo.astrology.StageTimings;
+import com.example.demo.astrology.TimeZoneTable;
+import com.example.demo.gazetteer.Gazetteer;
+import com.example.demo.gazetteer.GazetteerAdapter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 /**
  * 主 Activity：负责接收用户输入（出生年月日、时间、经纬度），调用计算器计算行星黄经与宫位，
@@ -34,30 +53,71 @@ public class MainActivity extends AppCompatActivity {
 
     EditText etName, etDate, etTime;
 
-    private Spinner etLocation;
+    private AutoCompleteTextView etLocation;
+    private Spinner spHouseSystem;
     Button btnGenerate;
+    SeekBar sbScrub;
     ChartView chartView;
     TextView tvAnalysis;
 
     // 记录用户选择的日期与时间
     private int year, month, day, hour, minute;
 
-    private double selectedLongitude = 0.0;
+    // 出生地：默认北京，从地名库中选择后更新
+    private double selectedLongitude = 116.4074;
+    private double selectedLatitude = 39.9042;
+    private String selectedTimeZone = "Asia/Shanghai";
+    private HouseSystem selectedHouseSystem = PlanetCalculator.DEFAULT_HOUSE_SYSTEM;
+
+    // 离线地名库（assets/gazetteer.bin，内存映射）；打开失败时为 null，只能使用默认出生地
+    private Gazetteer gazetteer;
+    // 历史时区表（assets/tzdb.bin）：出生时间按出生地当时的时区换算为 UT；加载失败时为 null，按 UT 计算
+    private TimeZoneTable timeZones;
+
+    // 星盘存档（files/charts.bin，内存映射）：点击“生成”得到的星盘保存下来，同样的输入再次生成、或重启后重新打开时
+    // 直接读出结果，不再计算；在后台线程打开（可能需要 compact 改写整个文件），打开之前与打开失败时为 null，只是不保存
+    private ChartStore chartStore;
+
+    // 后台计算服务：计算与解析不占用主线程，回调切回主线程；缓存 32 张星盘，去抖 150ms
+    private ChartComputationService chartService;
+    // 是否已经生成过星盘（生成后切换城市会立即刷新），以及当时的儒略日
+    private boolean hasChart;
+    private double chartJd;
 
-    // 定义出生地与经度的映射
-    private final Map<String, Double> locationLongitudeMap = new LinkedHashMap<>();
+    // 时间拖动：滑块两端对应出生时刻前后 SCRUB_RANGE_DAYS 天
+    private static final double SCRUB_RANGE_DAYS = 365.25;
+    private ScrubTimeline scrubTimeline;
+    private double scrubTimelineJd;
+    private final ScrubTimeline.FrameStats scrubStats = new ScrubTimeline.FrameStats();
+
+    // 耗时统计（长按星盘开关）：点击“生成”的时刻，结果回调时记入 END_TO_END；0 表示没有待记录的点击
+    private long tapStart;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // 解读模板从 assets/interp/ 按语言读取（第一次生成解读时在后台线程加载）
+        InterpretationTemplates.setSource(language -> {
+            try {
+                return getAssets().open("interp/" + language + ".bin");
+            } catch (FileNotFoundException e) {
+                return null;
+            }
+        });
+
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        chartService = new ChartComputationService(mainHandler::post, 32, 150);
+
         // 绑定控件
         etName = findViewById(R.id.et_name);
         etDate = findViewById(R.id.et_date);
         etTime = findViewById(R.id.et_time);
         etLocation = findViewById(R.id.et_location);
+        spHouseSystem = findViewById(R.id.sp_house_system);
         btnGenerate = findViewById(R.id.btn_generate);
+        sbScrub = findViewById(R.id.sb_scrub);
         chartView = findViewById(R.id.chartView);
         tvAnalysis = findViewById(R.id.tv_analysis);
 
@@ -74,62 +134,115 @@ public class MainActivity extends AppCompatActivity {
         // 点击出生时间框 → 弹出时间选择器
         etTime.setOnClickListener(vv -> showTimePickerDialog());
 
-        // 初始化城市和经度（你可以添加更多）
-        locationLongitudeMap.put("北京 (116.40°E)", 116.40);
-        locationLongitudeMap.put("上海 (121.47°E)", 121.47);
-        locationLongitudeMap.put("广州 (113.27°E)", 113.27);
-        locationLongitudeMap.put("香港 (114.17°E)", 114.17);
-        locationLongitudeMap.put("东京 (139.69°E)", 139.69);
-        locationLongitudeMap.put("伦敦 (0.12°W)", -0.12);
-        locationLongitudeMap.put("纽约 (74.00°W)", -74.00);
-
-        // 将城市填充进 Spinner
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(this,
-                android.R.layout.simple_spinner_item,
-                new ArrayList<>(locationLongitudeMap.keySet()));
-        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        etLocation.setAdapter(adapter);
+        // 出生地：输入时从地名库中查找，下拉列表按人口排序，最多 10 项
+        try {
+            gazetteer = Gazetteer.openAsset(getAssets(), "gazetteer.bin");
+            etLocation.setAdapter(new GazetteerAdapter(this, gazetteer, 10));
+            List<Gazetteer.Place> defaults = gazetteer.search("beijing", 1);
+            if (!defaults.isEmpty()) selectPlace(defaults.get(0));
+        } catch (IOException e) {
+            Log.e("Gazetteer", "无法打开地名库", e);
+            Toast.makeText(this, "无法打开地名库，出生地使用北京", Toast.LENGTH_LONG).show();
+        }
+
+        try {
+            InputStream in = getAssets().open("tzdb.bin");
+            try {
+                timeZones = TimeZoneTable.read(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            Log.e("TimeZoneTable", "无法加载时区表", e);
+            Toast.makeText(this, "无法加载时区表，出生时间按世界时计算", Toast.LENGTH_LONG).show();
+        }
+
+        openChartStore(mainHandler);
 
         // 监听用户选择的城市
-        etLocation.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+        etLocation.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                selectPlace((Gazetteer.Place) parent.getItemAtPosition(position));
+                // 已有星盘时直接按新城市刷新：出生时间按新城市的时区重新换算为 UT；
+                // 换算结果不变（同一时区）时后台流水线只会重算上升点与宫位
+                if (hasChart) {
+                    chartJd = birthJulianDay(etDate.getText().toString().trim(), etTime.getText().toString().trim());
+                    requestChart(false);
+                }
+            }
+        });
+
+
+        // 宫制：默认 PlanetCalculator.DEFAULT_HOUSE_SYSTEM，切换后已有星盘只重算宫位
+        ArrayList<String> houseLabels = new ArrayList<>();
+        for (HouseSystem hs : HouseSystem.VALUES) houseLabels.add(hs.label);
+        ArrayAdapter<String> houseAdapter = new ArrayAdapter<>(this,
+                android.R.layout.simple_spinner_item, houseLabels);
+        houseAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spHouseSystem.setAdapter(houseAdapter);
+        spHouseSystem.setSelection(selectedHouseSystem.ordinal());
+        spHouseSystem.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, android.view.View view, int position, long id) {
-                String selectedCity = (String) parent.getItemAtPosition(position);
-                selectedLongitude = locationLongitudeMap.get(selectedCity);
+                if (HouseSystem.VALUES[position] == selectedHouseSystem) return;
+                selectedHouseSystem = HouseSystem.VALUES[position];
+                if (hasChart) {
+                    requestChart(false);
+                }
             }
 
             @Override
             public void onNothingSelected(AdapterView<?> parent) { }
         });
 
+        sbScrub.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                if (fromUser && scrubTimeline != null) {
+                    chartView.setScrubTime(scrubJd(progress));
+                }
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+                if (scrubTimeline == null) return;
+                // 进入动画模式：之后每帧由插值星历提供位置
+                chartView.setTimeline(scrubTimeline);
+                chartView.setScrubTime(scrubJd(seekBar.getProgress()));
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                if (scrubTimeline == null) return;
+                scrubTimeline.getStats(scrubStats, true);
+                Log.d("ScrubTimeline", scrubStats.toString());
+            }
+        });
+
+        // 长按星盘：打开 / 关闭耗时统计与叠加层，关闭时输出统计
+        chartView.setOnLongClickListener(v -> {
+            toggleTimings();
+            return true;
+        });
 
         btnGenerate.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                tapStart = StageTimings.start();
 
                 String date = etDate.getText().toString().trim(); // "YYYY-MM-DD"
                 String time = etTime.getText().toString().trim(); // "HH:MM"
-                String loc = selectedLongitude+""; // "lon,lat"
-                if (date.isEmpty() || time.isEmpty() || loc.isEmpty()) {
-                    Toast.makeText(MainActivity.this, "请完整填写生日、时间与经纬度", Toast.LENGTH_SHORT).show();
+                if (date.isEmpty() || time.isEmpty()) {
+                    Toast.makeText(MainActivity.this, "请完整填写生日与时间", Toast.LENGTH_SHORT).show();
                     return;
                 }
 
                 try {
-                    // 解析经纬度
-//                    String[] parts = loc.split(",");
-//                    double lon = Double.parseDouble(parts[0].trim());
-//                    double lat = Double.parseDouble(parts[1].trim());
-
-                    // 调用计算器
-                    PlanetCalculator.CalcResult result = PlanetCalculator.calculateFromLocal(date, time, selectedLongitude, selectedLongitude);
-
-                    // 传给 ChartView 渲染
-                    chartView.setResult(result);
-
-                    // 分析文本
-                    String analysis = AstrologyInterpreter.interpret(result, etName.getText().toString());
-                    tvAnalysis.setText(analysis);
+                    // 提交给后台计算（流水线只重算输入变化所影响的阶段）
+                    chartJd = birthJulianDay(date, time);
+                    hasChart = true;
+                    requestChart(true);
 
                 } catch (Exception ex) {
                     Toast.makeText(MainActivity.this, "解析输入时出错: " + ex.getMessage(), Toast.LENGTH_LONG).show();
@@ -139,6 +252,182 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    // 在后台线程打开星盘存档（文件较大或需要 compact 时会阻塞数十毫秒以上，还会 force 落盘），
+    // 打开后回到主线程重新打开最近保存的星盘；Activity 已销毁时直接关闭
+    private void openChartStore(final Handler mainHandler) {
+        new Thread(() -> {
+            final ChartStore store;
+            try {
+                long t0 = System.nanoTime();
+                store = ChartStore.open(new File(getFilesDir(), "charts.bin"));
+                if (store.needsCompaction()) store.compact();
+                Log.i("ChartStore", "打开 " + store.size() + " 张已保存的星盘用时 "
+                        + (System.nanoTime() - t0) / 1000 + " µs");
+            } catch (IOException e) {
+                Log.e("ChartStore", "无法打开星盘存档", e);
+                return;
+            }
+            mainHandler.post(() -> {
+                if (isDestroyed()) {
+                    try {
+                        store.close();
+                    } catch (IOException e) {
+                        Log.e("ChartStore", "关闭星盘存档时出错", e);
+                    }
+                    return;
+                }
+                chartStore = store;
+                // 用户已经自己生成了星盘时不再覆盖输入
+                if (!hasChart) restoreLastChart();
+            });
+        }, "chart-store-open").start();
+    }
+
+    @Override
+    protected void onDestroy() {
+        chartService.shutdown();
+        if (scrubTimeline != null) scrubTimeline.shutdown();
+        if (chartStore != null) {
+            try {
+                chartStore.close();
+            } catch (IOException e) {
+                Log.e("ChartStore", "关闭星盘存档时出错", e);
+            }
+        }
+        super.onDestroy();
+    }
+
+    // 重新打开最近保存的星盘：恢复各输入框与出生地，结果从存档中读出（见 requestChart）
+    private void restoreLastChart() {
+        if (chartStore == null) return;
+        int[] recent = chartStore.recent(1);
+        if (recent.length == 0) return;
+        int saved = recent[0];
+        etName.setText(chartStore.getName(saved));
+        etDate.setText(chartStore.getDate(saved));
+        etTime.setText(chartStore.getTime(saved));
+        selectedLongitude = chartStore.getLongitude(saved);
+        selectedLatitude = chartStore.getLatitude(saved);
+        String zone = chartStore.getZone(saved);
+        if (!zone.isEmpty()) selectedTimeZone = zone;
+        etLocation.setText(chartStore.getPlace(saved), false);
+        selectedHouseSystem = chartStore.getHouseSystem(saved);
+        spHouseSystem.setSelection(selectedHouseSystem.ordinal());
+        chartJd = chartStore.getJulianDay(saved);
+        hasChart = true;
+        requestChart(false);
+    }
+
+    // 出生地当地时间 → UT 的儒略日（按出生地当时的时区，含历史上的夏令时）
+    private double birthJulianDay(String date, String time) {
+        return timeZones != null
+                ? PlanetCalculator.julianDayFromLocal(date, time, selectedTimeZone, timeZones)
+                : PlanetCalculator.julianDayFromLocal(date, time);
+    }
+
+    // 记录选中的出生地（输入框中只显示名称，不再触发查询）
+    private void selectPlace(Gazetteer.Place place) {
+        selectedLongitude = place.longitude;
+        selectedLatitude = place.latitude;
+        selectedTimeZone = place.timeZone;
+        etLocation.setText(place.name, false);
+    }
+
+    private double scrubJd(int progress) {
+        return chartJd + (progress - sbScrub.getMax() / 2) * (2 * SCRUB_RANGE_DAYS / sbScrub.getMax());
+    }
+
+    // 为当前星盘准备时间拖动：出生时刻变化时后台重新采样前后的位置；只换城市时沿用已有采样
+    private void resetScrub() {
+        chartView.setTimeline(null);
+        if (scrubTimeline != null && scrubTimelineJd == chartJd) {
+            scrubTimeline.setLocation(selectedLongitude, selectedLatitude);
+            scrubTimeline.setHouseSystem(selectedHouseSystem);
+        } else {
+            if (scrubTimeline != null) scrubTimeline.shutdown();
+            scrubTimeline = new ScrubTimeline(selectedLongitude, selectedLatitude);
+            scrubTimeline.setHouseSystem(selectedHouseSystem);
+            scrubTimeline.setRange(chartJd - SCRUB_RANGE_DAYS, chartJd + SCRUB_RANGE_DAYS);
+            scrubTimelineJd = chartJd;
+        }
+        sbScrub.setProgress(sbScrub.getMax() / 2);
+        sbScrub.setEnabled(true);
+    }
+
+    // 提交后台计算，完成后在主线程刷新星盘与分析文本；存档中已有同样输入的星盘时直接读出。
+    // save 为 true（点击“生成”）时新算的星盘存入存档；换城市、换宫制引起的重算只显示，不保存
+    private void requestChart(boolean save) {
+        resetScrub();
+        // 输入在提交时取定：回调到达之前用户可能又改了出生地等（未生成时改动不会取代这次请求）
+        final String name = etName.getText().toString();
+        final String place = etLocation.getText().toString();
+        final String zone = selectedTimeZone;
+        final String date = etDate.getText().toString().trim();
+        final String time = etTime.getText().toString().trim();
+        final double jd = chartJd, lon = selectedLongitude, lat = selectedLatitude;
+        final HouseSystem system = selectedHouseSystem;
+        final int saved = chartStore == null ? -1 : chartStore.find(jd, lon, lat, system, name);
+
+        ChartComputationService.Callback callback = new ChartComputationService.Callback() {
+            @Override
+            public void onChartReady(ChartComputationService.Chart chart) {
+                StageTimings.stop(StageTimings.Stage.END_TO_END, tapStart);
+                tapStart = 0;
+                // 传给 ChartView 渲染
+                chartView.setResult(chart.result);
+                // 分析文本
+                tvAnalysis.setText(chart.analysis);
+                if (save && saved < 0 && chartStore != null) {
+                    try {
+                        chartStore.append(name, place, zone, date, time, jd, lon, lat, system, chart.result);
+                    } catch (IOException e) {
+                        Log.e("ChartStore", "无法保存星盘", e);
+                    }
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(MainActivity.this, "计算星盘时出错: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        };
+        if (saved >= 0) {
+            chartService.submitSaved(chartStore.read(saved, new PlanetCalculator.CalcResult()), name, callback);
+        } else {
+            chartService.submit(jd, lon, lat, system, name, callback);
+        }
+    }
+
+    // 打开时清空旧数据；关闭时把各阶段的 p50/p90/p99 输出到 logcat 与 files/stage-timings.txt
+    private void toggleTimings() {
+        boolean on = !StageTimings.isEnabled();
+        if (on) {
+            StageTimings.reset();
+            StageTimings.setEnabled(true);
+        } else {
+            StageTimings.setEnabled(false);
+            dumpTimings();
+        }
+        chartView.setTimingOverlay(on);
+        Toast.makeText(this, on ? "已开始统计耗时" : "耗时统计已输出到 logcat 与 stage-timings.txt", Toast.LENGTH_SHORT).show();
+    }
+
+    private void dumpTimings() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            StageTimings.dump(sb);
+        } catch (IOException e) {
+            // 写入 StringBuilder 不会出错
+        }
+        for (String line : sb.toString().split("\n")) Log.i("StageTimings", line);
+        File file = new File(getFilesDir(), "stage-timings.txt");
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            w.write(sb.toString());
+        } catch (IOException e) {
+            Log.e("StageTimings", "无法写入 " + file, e);
+        }
+    }
+
     // 日期选择对话框
     private void showDatePickerDialog() {
         final Calendar c = Calendar.getInstance();
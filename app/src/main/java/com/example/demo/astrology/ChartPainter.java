@@ -0,0 +1,138 @@
+package com.example.demo.astrology;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * ChartLayout 的 Android Canvas 后端：按版面坐标绘制，不做三角运算、不分配对象
+ *
+ * ChartView 用它画屏幕（静态部分画进缓存 Bitmap，动态部分每帧画）；离线导出图片时用 render 直接画到 Bitmap，
+ * 再由调用方 Bitmap.compress 成 PNG。所有 Paint 在构造时准备好，一个实例只应在一个线程中使用。
+ */
+public class ChartPainter {
+
+    private final Paint paintSignLine;
+    private final Paint paintSignText;
+    private final Paint paintCircle;
+    private final Paint paintHouseLine;
+    private final Paint paintHouseText;
+    private final Paint paintPlanetDot;
+    private final Paint paintPlanetTick;
+    private final Paint paintPlanetText;
+    // 相位线：和谐（六合、三分）、紧张（四分、对分）、自定义相位（下标为 ChartLayout.ASPECT_*）
+    private final Paint[] paintAspect = new Paint[3];
+
+    public ChartPainter() {
+        paintSignLine = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintSignLine.setStrokeWidth(2);
+        paintSignLine.setColor(ChartLayout.COLOR_SIGN_LINE);
+
+        paintSignText = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintSignText.setTextSize(ChartLayout.TEXT_SIZE);
+        paintSignText.setTextAlign(Paint.Align.CENTER);
+        paintSignText.setColor(ChartLayout.COLOR_SIGN_TEXT);
+
+        paintCircle = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintCircle.setStyle(Paint.Style.STROKE);
+        paintCircle.setStrokeWidth(3);
+        paintCircle.setColor(ChartLayout.COLOR_CIRCLE);
+
+        paintHouseLine = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintHouseLine.setStrokeWidth(2);
+        paintHouseLine.setColor(ChartLayout.COLOR_HOUSE_LINE);
+
+        paintHouseText = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintHouseText.setTextSize(ChartLayout.TEXT_SIZE);
+        paintHouseText.setTextAlign(Paint.Align.CENTER);
+        paintHouseText.setColor(ChartLayout.COLOR_HOUSE_TEXT);
+
+        paintPlanetDot = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintPlanetDot.setColor(ChartLayout.COLOR_PLANET);
+
+        paintPlanetTick = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintPlanetTick.setStrokeWidth(2);
+        paintPlanetTick.setColor(ChartLayout.COLOR_PLANET);
+
+        paintPlanetText = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintPlanetText.setTextSize(ChartLayout.TEXT_SIZE);
+        paintPlanetText.setColor(ChartLayout.COLOR_PLANET_TEXT);
+
+        paintAspect[ChartLayout.ASPECT_SOFT] = linePaint(ChartLayout.COLOR_ASPECT_SOFT, 2);
+        paintAspect[ChartLayout.ASPECT_HARD] = linePaint(ChartLayout.COLOR_ASPECT_HARD, 2);
+        paintAspect[ChartLayout.ASPECT_OTHER] = linePaint(ChartLayout.COLOR_ASPECT_OTHER, 1);
+    }
+
+    private static Paint linePaint(int color, float width) {
+        Paint p = new Paint(Paint.ANTI_ALIAS_FLAG);
+        p.setStrokeWidth(width);
+        p.setColor(color);
+        return p;
+    }
+
+    /**
+     * 把整张星盘画成一张 size × size 的 Bitmap（白底），用于离线导出、分享
+     */
+    public static Bitmap render(PlanetCalculator.CalcResult result, int size) {
+        ChartLayout layout = new ChartLayout().setSize(size, size).setResult(result);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(ChartLayout.COLOR_BACKGROUND);
+        new ChartPainter().draw(canvas, layout);
+        return bitmap;
+    }
+
+    public void draw(Canvas canvas, ChartLayout layout) {
+        drawStatic(canvas, layout);
+        drawDynamic(canvas, layout);
+    }
+
+    /**
+     * 外圈、12 星座分割线与星座符号（只与尺寸有关）
+     */
+    public void drawStatic(Canvas canvas, ChartLayout layout) {
+        int radius = layout.getRadius();
+        if (radius <= 0) return;
+        float cx = layout.getCenterX(), cy = layout.getCenterY();
+        canvas.drawCircle(cx, cy, radius, paintCircle);
+        for (int i = 0; i < 12; i++) {
+            canvas.drawLine(cx, cy, layout.spokeX[i], layout.spokeY[i], paintSignLine);
+            canvas.drawText(ZodiacUtils.SYMBOLS[i], layout.signLabelX[i], layout.signLabelY[i], paintSignText);
+        }
+    }
+
+    /**
+     * 相位线、行星与宫位
+     */
+    public void drawDynamic(Canvas canvas, ChartLayout layout) {
+        if (!layout.hasChart()) return;
+
+        // 相位连线（在行星下面）
+        for (int i = 0; i < layout.getLineCount(); i++) {
+            int a = layout.lineBodyA[i], b = layout.lineBodyB[i];
+            canvas.drawLine(layout.aspectX[a], layout.aspectY[a], layout.aspectX[b], layout.aspectY[b],
+                    paintAspect[layout.lineKind[i]]);
+        }
+
+        // 每个行星：外圈上真实位置的刻度、（被推开时）引线、小圆点 + 名称
+        for (int b = 0; b < Body.COUNT; b++) {
+            canvas.drawLine(layout.tickOuterX[b], layout.tickOuterY[b], layout.tickInnerX[b], layout.tickInnerY[b],
+                    paintPlanetTick);
+            if (layout.planetDisplaced[b]) {
+                canvas.drawLine(layout.tickInnerX[b], layout.tickInnerY[b], layout.planetX[b], layout.planetY[b],
+                        paintPlanetTick);
+            }
+            canvas.drawCircle(layout.planetX[b], layout.planetY[b], ChartLayout.PLANET_DOT_RADIUS, paintPlanetDot);
+            canvas.drawText(Body.VALUES[b].key, layout.planetX[b] + 12, layout.planetY[b] + 8, paintPlanetText);
+        }
+
+        // 宫位分隔与宫号
+        if (layout.hasHouses()) {
+            float cx = layout.getCenterX(), cy = layout.getCenterY();
+            for (int i = 0; i < 12; i++) {
+                canvas.drawLine(cx, cy, layout.cuspX[i], layout.cuspY[i], paintHouseLine);
+                canvas.drawText(ChartLayout.HOUSE_LABELS[i], layout.houseLabelX[i], layout.houseLabelY[i], paintHouseText);
+            }
+        }
+    }
+}
@@ -1,26 +1,73 @@
 package com.example.demo.astrology;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.View;
 
-import java.util.Map;
-
 /**
  * 自定义视图：根据计算得到的行星黄经（0-360°）在圆盘上绘制行星符号与连线（角度关系）
  *
  * 说明：
  * - 我使用简单视觉风格：外圈黄道带（12星座分割），中心绘制行星位置（角度映射到圆周）
- * - 宫位采用等分宫：12等份，从上升点（Ascendant）开始顺时针
+ * - 宫位取 CalcResult.houseCusps（按所选宫制计算，见 HouseEngine）；没有宫头数据时按等分宫：12等份，从上升点（Ascendant）开始顺时针
+ * - 坐标由 ChartLayout 计算（与 SvgChartWriter 共用同一版面），本视图只是经 ChartPainter 绘制的 Canvas 后端
+ *
+ * 绘制分两层：
+ * - 静态层（外圈、星座分割线、星座符号）只与尺寸有关，在 onSizeChanged 中画进一张缓存 Bitmap
+ * - 动态层（行星、宫位、相位线）的坐标在 setResult / onSizeChanged 时由 ChartLayout 算好，onDraw 只做绘制
+ * onDraw 中不分配对象、不调用三角函数。
+ *
+ * 动画模式（时间拖动 / 播放）：setTimeline 之后用 setScrubTime 或 play 改变时刻，
+ * 每帧由 ScrubTimeline 插值得到天体位置（不再调用 calculateFromLocal），
+ * 只在时刻变化的那一帧重算动态层坐标，仍然不分配对象。
+ *
+ * 耗时叠加层（setTimingOverlay）：在左上角列出 StageTimings 中每个有数据的阶段的 p50 / p99，
+ * 打开期间每 OVERLAY_REFRESH_MS 刷新一次；onDraw 本身的耗时记入 StageTimings 的 DRAW 阶段（不含叠加层），
+ * 只记录版面或结果变化之后的那一帧，叠加层自身的定时刷新不计入。
  */
 public class ChartView extends View {
 
-    private PlanetCalculator.CalcResult result;
-    private Paint paintLine;
-    private Paint paintText;
-    private Paint paintCircle;
+    private static final long OVERLAY_REFRESH_MS = 500;
+
+    private final ChartLayout layout = new ChartLayout();
+    private final ChartPainter painter = new ChartPainter();
+
+    private Paint paintOverlayText;
+    private Paint paintOverlayBackground;
+
+    // 静态层缓存
+    private Bitmap staticLayer;
+
+    // 动画模式：插值星历、当前时刻与复用的结果对象
+    private ScrubTimeline timeline;
+    private final PlanetCalculator.CalcResult scrubResult = new PlanetCalculator.CalcResult();
+    private double scrubJd = Double.NaN;
+    private boolean scrubDirty;
+    // 版面或结果自上一帧以来有变化（setResult、尺寸变化）；只有这样的帧才记入 DRAW 耗时
+    private boolean chartChanged;
+    // 播放：每秒推进的天数，0 表示未播放
+    private double playDaysPerSecond;
+    private long lastFrameNanos;
+
+    // 耗时叠加层：逐行拼进复用的 StringBuilder，再拷到 char[] 绘制
+    private boolean timingOverlay;
+    private final StringBuilder overlayLine = new StringBuilder(64);
+    private char[] overlayChars = new char[64];
+    private final Choreographer.FrameCallback playCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (playDaysPerSecond == 0 || timeline == null) return;
+            if (lastFrameNanos != 0) {
+                setScrubTime(scrubJd + playDaysPerSecond * (frameTimeNanos - lastFrameNanos) / 1e9);
+            }
+            lastFrameNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
 
     public ChartView(Context context) {
         super(context);
@@ -31,97 +78,177 @@ public class ChartView extends View {
         init();
     }
     private void init() {
-        paintLine = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paintLine.setStrokeWidth(2);
+        paintOverlayText = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintOverlayText.setTextSize(24);
+        paintOverlayText.setColor(0xFF006600);
 
-        paintText = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paintText.setTextSize(28);
+        paintOverlayBackground = new Paint();
+        paintOverlayBackground.setColor(0xCCFFFFFF);
+    }
+
+    /**
+     * 相位引擎（可调整容许度或增加自定义相位，之后调用 setResult 生效）
+     */
+    public AspectEngine getAspectEngine() {
+        return layout.getAspectEngine();
+    }
 
-        paintCircle = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paintCircle.setStyle(Paint.Style.STROKE);
-        paintCircle.setStrokeWidth(3);
+    /**
+     * 版面（坐标与当前结果），可用 SvgChartWriter 导出与屏幕上相同的图
+     */
+    public ChartLayout getLayout() {
+        return layout;
     }
 
     public void setResult(PlanetCalculator.CalcResult r) {
-        this.result = r;
+        layout.setResult(r);
+        chartChanged = true;
         invalidate();
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+    /**
+     * 进入动画模式（传 null 退出）：之后的时刻变化都通过 timeline 插值
+     */
+    public void setTimeline(ScrubTimeline timeline) {
+        stop();
+        this.timeline = timeline;
+        scrubJd = Double.NaN;
+    }
+
+    /**
+     * 动画模式下跳到某一时刻（儒略日），下一帧绘制时插值
+     */
+    public void setScrubTime(double jd) {
+        if (timeline == null) return;
+        scrubJd = jd;
+        scrubDirty = true;
+        postInvalidateOnAnimation();
+    }
 
-        // 背景留白
-        int w = getWidth();
-        int h = getHeight();
-        int size = Math.min(w, h) - 20;
-        int cx = w / 2;
-        int cy = h / 2;
-        int radius = size / 2;
-
-        // 外圈 test
-        paintCircle.setColor(0xFF444444);
-        canvas.drawCircle(cx, cy, radius, paintCircle);
-
-        // 绘制12星座分割线
-        for (int i = 0; i < 12; i++) {
-            double angle = Math.toRadians(i * 30 - 90); // 0°在正右，减90让0在正上
-            float x2 = (float) (cx + Math.cos(angle) * radius);
-            float y2 = (float) (cy + Math.sin(angle) * radius);
-            paintLine.setColor(0xFFBBBBBB);
-            canvas.drawLine(cx, cy, x2, y2, paintLine);
-
-            // 写星座短名（用 ZodiacUtils）
-            String name = ZodiacUtils.SYMBOLS[i]; // 简短符号
-            float tx = (float) (cx + Math.cos(angle + 0.13) * (radius - 30));
-            float ty = (float) (cy + Math.sin(angle + 0.13) * (radius - 30));
-            paintText.setColor(0xFF666666);
-            canvas.drawText(name, tx - 12, ty, paintText);
+    public double getScrubTime() {
+        return scrubJd;
+    }
+
+    /**
+     * 从当前时刻开始按 daysPerSecond 播放（负数倒放）
+     */
+    public void play(double daysPerSecond) {
+        if (timeline == null || Double.isNaN(scrubJd)) return;
+        boolean running = playDaysPerSecond != 0;
+        playDaysPerSecond = daysPerSecond;
+        if (!running && daysPerSecond != 0) {
+            lastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(playCallback);
         }
+    }
 
-        if (result == null) return;
+    public void stop() {
+        if (playDaysPerSecond != 0) {
+            playDaysPerSecond = 0;
+            Choreographer.getInstance().removeFrameCallback(playCallback);
+        }
+    }
 
-        // 绘制每个行星：将黄经映射到圆周
-        Paint pPlanet = new Paint(Paint.ANTI_ALIAS_FLAG);
-        pPlanet.setTextSize(28);
-        int idx = 0;
-        for (Map.Entry<String, Double> e : result.planetLongitudes.entrySet()) {
-            String planet = e.getKey();
-            double lon = e.getValue(); // 0-360
-            double angle = Math.toRadians(lon - 90); // 0 at top
-            float x = (float) (cx + Math.cos(angle) * (radius - 60));
-            float y = (float) (cy + Math.sin(angle) * (radius - 60));
+    /**
+     * 显示或隐藏耗时叠加层（数据来自 StageTimings，需另外 StageTimings.setEnabled(true) 才会有数据）
+     */
+    public void setTimingOverlay(boolean show) {
+        timingOverlay = show;
+        invalidate();
+    }
 
-            // 小圆点
-            pPlanet.setColor(0xFFAA3333);
-            canvas.drawCircle(x, y, 10, pPlanet);
+    public boolean isTimingOverlay() {
+        return timingOverlay;
+    }
 
-            // 名称
-            pPlanet.setColor(0xFF222222);
-            canvas.drawText(planet, x + 12, y + 8, pPlanet);
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layout.setSize(w, h);
+        buildStaticLayer(w, h);
+        chartChanged = true;
+    }
 
-            idx++;
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        stop();
+        if (staticLayer != null) {
+            staticLayer.recycle();
+            staticLayer = null;
         }
+    }
 
-        // 绘制宫位分隔（等分宫），并在上方标注宫号
-        if (result.ascendant != null) {
-            double asc = result.ascendant; // 上升点黄经
-            // 从 asc 开始，顺时针每 30° 为一宫
-            for (int i = 0; i < 12; i++) {
-                double ang = asc + i * 30;
-                double rad = Math.toRadians(ang - 90);
-                float x2 = (float) (cx + Math.cos(rad) * radius);
-                float y2 = (float) (cy + Math.sin(rad) * radius);
-                paintLine.setColor(0xFF5555AA);
-                canvas.drawLine(cx, cy, x2, y2, paintLine);
-
-                // 宫号文本：写在外圈
-                float tx = (float) (cx + Math.cos(rad) * (radius + 10));
-                float ty = (float) (cy + Math.sin(rad) * (radius + 10));
-                paintText.setColor(0xFF333399);
-                canvas.drawText(String.valueOf((i + 1)), tx - 8, ty, paintText);
-            }
+    /**
+     * 把外圈、12 星座分割线与星座符号画进缓存 Bitmap（只在尺寸变化时调用）
+     */
+    private void buildStaticLayer(int w, int h) {
+        if (staticLayer != null) {
+            staticLayer.recycle();
+            staticLayer = null;
         }
+        if (w <= 0 || h <= 0 || layout.getRadius() <= 0) return;
+        staticLayer = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        painter.drawStatic(new Canvas(staticLayer), layout);
     }
-}
 
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        // 叠加层每 OVERLAY_REFRESH_MS 的重绘不是星盘渲染，计入的话 DRAW 的分位数主要反映空闲重绘
+        long t0 = chartChanged || scrubDirty ? StageTimings.start() : 0;
+        chartChanged = false;
+        drawChart(canvas);
+        StageTimings.stop(StageTimings.Stage.DRAW, t0);
+
+        if (timingOverlay) {
+            drawTimingOverlay(canvas);
+            postInvalidateDelayed(OVERLAY_REFRESH_MS);
+        }
+    }
+
+    private void drawChart(Canvas canvas) {
+        if (staticLayer != null) {
+            canvas.drawBitmap(staticLayer, 0, 0, null);
+        }
+
+        // 动画模式：时刻变化后插值出新位置（复用 scrubResult，不分配）
+        if (timeline != null && scrubDirty) {
+            scrubDirty = false;
+            layout.setResult(timeline.evaluate(scrubJd, scrubResult));
+        }
+
+        painter.drawDynamic(canvas, layout);
+    }
+
+    /**
+     * 左上角每个有数据的阶段一行：名称、p50、p99 与样本数（不分配对象）
+     */
+    private void drawTimingOverlay(Canvas canvas) {
+        float lineHeight = paintOverlayText.getTextSize() * 1.3f;
+        int rows = 0;
+        for (StageTimings.Stage stage : StageTimings.Stage.VALUES) {
+            if (StageTimings.histogram(stage).count() > 0) rows++;
+        }
+        if (rows == 0) return;
+        canvas.drawRect(0, 0, getWidth(), rows * lineHeight + 12, paintOverlayBackground);
+
+        float y = lineHeight;
+        for (StageTimings.Stage stage : StageTimings.Stage.VALUES) {
+            StageTimings.Histogram h = StageTimings.histogram(stage);
+            long n = h.count();
+            if (n == 0) continue;
+            overlayLine.setLength(0);
+            overlayLine.append(stage.label).append("  p50 ");
+            StageTimings.appendDuration(overlayLine, h.percentile(0.5));
+            overlayLine.append("  p99 ");
+            StageTimings.appendDuration(overlayLine, h.percentile(0.99));
+            overlayLine.append("  n=").append(n);
+            int len = overlayLine.length();
+            if (len > overlayChars.length) overlayChars = new char[len * 2];
+            overlayLine.getChars(0, len, overlayChars, 0);
+            canvas.drawText(overlayChars, 0, len, 8, y, paintOverlayText);
+            y += lineHeight;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.demo.gazetteer;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 离线地名库（只读，内存映射）
+ *
+ * 说明：
+ * - 数据在构建时由 GazetteerBuilder 编译成 assets/gazetteer.bin（格式见 GazetteerFormat），
+ *   assets 中不压缩该文件，运行时直接 mmap；打开时只校验头部，不解析、不把数据读进 Java 堆
+ * - search 按前缀查找（输入边打字边搜）：先用前两个字节的前缀索引定位检索键表中的一段，
+ *   再在段内二分出前缀匹配的范围，最后取地点下标最小（人口最多）的若干个；只在返回结果时才创建 Place 对象
+ * - 名称、别名（拼音、汉字名等）都是检索键，大小写与变音符号不敏感（Zürich 可用 zurich 搜到）
+ *
+ * 可以在多个线程中同时查询（只使用 ByteBuffer 的绝对位置读取）。
+ */
+public class Gazetteer {
+
+    /**
+     * 一个地点
+     */
+    public static final class Place {
+        // 在地名库中的下标（人口排名）
+        public final int index;
+        public final String name;
+        public final double latitude;
+        public final double longitude;
+        public final String timeZone;
+        public final String country;
+        public final int population;
+
+        Place(int index, String name, double latitude, double longitude, String timeZone, String country, int population) {
+            this.index = index;
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timeZone = timeZone;
+            this.country = country;
+            this.population = population;
+        }
+
+        /**
+         * 自动完成列表中显示的文本
+         */
+        @Override
+        public String toString() {
+            return String.format("%s (%.2f°%s, %.2f°%s)", name,
+                    Math.abs(latitude), latitude >= 0 ? "N" : "S", Math.abs(longitude), longitude >= 0 ? "E" : "W");
+        }
+    }
+
+    private final ByteBuffer buf;
+    private final int placeCount;
+    private final int keyCount;
+    private final int placesOffset;
+    private final int keysOffset;
+    private final int prefixOffset;
+    private final int keyPoolOffset;
+    private final int namePoolOffset;
+    private final String[] zones;
+
+    /**
+     * 映射 assets 中的地名库（该文件在 build.gradle 中设为不压缩，否则无法 openFd）
+     */
+    public static Gazetteer openAsset(AssetManager assets, String name) throws IOException {
+        AssetFileDescriptor afd = assets.openFd(name);
+        try {
+            FileInputStream in = new FileInputStream(afd.getFileDescriptor());
+            try {
+                FileChannel channel = in.getChannel();
+                return new Gazetteer(channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getDeclaredLength()));
+            } finally {
+                // 映射建立后即可关闭文件，映射仍然有效
+                in.close();
+            }
+        } finally {
+            afd.close();
+        }
+    }
+
+    /**
+     * 映射普通文件（构建工具、测试时使用）
+     */
+    public static Gazetteer open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new Gazetteer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    public Gazetteer(ByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.capacity() < GazetteerFormat.HEADER_SIZE || buf.getInt(0) != GazetteerFormat.MAGIC) {
+            throw new IOException("不是地名库文件");
+        }
+        if (buf.getInt(4) != GazetteerFormat.VERSION) {
+            throw new IOException("不支持的地名库版本: " + buf.getInt(4));
+        }
+        placeCount = buf.getInt(GazetteerFormat.H_PLACE_COUNT);
+        keyCount = buf.getInt(GazetteerFormat.H_KEY_COUNT);
+        placesOffset = buf.getInt(GazetteerFormat.H_PLACES);
+        keysOffset = buf.getInt(GazetteerFormat.H_KEYS);
+        prefixOffset = buf.getInt(GazetteerFormat.H_PREFIX);
+        keyPoolOffset = buf.getInt(GazetteerFormat.H_KEY_POOL);
+        namePoolOffset = buf.getInt(GazetteerFormat.H_NAME_POOL);
+        // 前缀索引最后一项必须等于检索键总数，否则文件被截断或不是同一版本生成的
+        if (prefixOffset + (GazetteerFormat.PREFIX_SLOTS + 1) * 4 > buf.capacity()
+                || prefixEntry(GazetteerFormat.PREFIX_SLOTS) != keyCount) {
+            throw new IOException("地名库文件已损坏");
+        }
+        // 时区表只有几百项，直接读出来
+        int zoneCount = buf.getInt(GazetteerFormat.H_ZONE_COUNT);
+        zones = new String[zoneCount];
+        int p = buf.getInt(GazetteerFormat.H_ZONES);
+        for (int i = 0; i < zoneCount; i++) {
+            int len = buf.getShort(p) & 0xFFFF;
+            zones[i] = readUtf8(p + 2, len);
+            p += 2 + len;
+        }
+    }
+
+    public int size() {
+        return placeCount;
+    }
+
+    /**
+     * 第 index 个地点（按人口降序）
+     */
+    public Place get(int index) {
+        if (index < 0 || index >= placeCount) throw new IndexOutOfBoundsException("index " + index);
+        int p = placesOffset + index * GazetteerFormat.PLACE_SIZE;
+        double lat = buf.getInt(p) / GazetteerFormat.COORD_SCALE;
+        double lon = buf.getInt(p + 4) / GazetteerFormat.COORD_SCALE;
+        int population = buf.getInt(p + 8);
+        int nameOffset = namePoolOffset + buf.getInt(p + 12);
+        int zone = buf.getShort(p + 16) & 0xFFFF;
+        String country = new String(new char[]{(char) buf.get(p + 18), (char) buf.get(p + 19)});
+        String name = readUtf8(nameOffset + 2, buf.getShort(nameOffset) & 0xFFFF);
+        return new Place(index, name, lat, lon, zones[zone], country, population);
+    }
+
+    /**
+     * 按前缀查找地点，结果按人口降序，最多 limit 个；前缀为空时返回人口最多的地点
+     */
+    public List<Place> search(CharSequence prefix, int limit) {
+        List<Place> out = new ArrayList<>();
+        if (limit <= 0) return out;
+        byte[] q = GazetteerFormat.normalize(prefix).getBytes(GazetteerFormat.UTF8);
+        if (q.length > GazetteerFormat.MAX_KEY_BYTES) return out;
+
+        // 1. 前缀索引：一个字节时取 b0 开头的全部槽位，两个及以上字节时取 (b0, b1) 这一个槽位
+        if (q.length == 0) {
+            for (int i = 0; i < limit && i < placeCount; i++) out.add(get(i));
+            return out;
+        }
+        int lo, hi;
+        if (q.length == 1) {
+            int b0 = q[0] & 0xFF;
+            lo = prefixEntry(b0 << 8);
+            hi = prefixEntry((b0 + 1) << 8);
+        } else {
+            int slot = GazetteerFormat.prefixSlot(q, q.length);
+            lo = prefixEntry(slot);
+            hi = prefixEntry(slot + 1);
+        }
+
+        // 2. 段内二分：前缀比较 < 0 的在左，== 0（以 q 开头）的在中间
+        if (q.length > 2) {
+            int a = lo, b = hi;
+            while (a < b) {
+                int m = (a + b) >>> 1;
+                if (comparePrefix(m, q) < 0) a = m + 1;
+                else b = m;
+            }
+            lo = a;
+            b = hi;
+            while (a < b) {
+                int m = (a + b) >>> 1;
+                if (comparePrefix(m, q) <= 0) a = m + 1;
+                else b = m;
+            }
+            hi = a;
+        }
+
+        // 3. 取地点下标最小的 limit 个（下标即人口排名），同一地点的多个别名只算一次
+        int[] best = new int[limit];
+        int n = 0;
+        for (int k = lo; k < hi; k++) {
+            int place = buf.getInt(keysOffset + k * GazetteerFormat.KEY_SIZE + 4);
+            if (n == limit && place >= best[n - 1]) continue;
+            int pos = n;
+            boolean duplicate = false;
+            while (pos > 0 && best[pos - 1] >= place) {
+                if (best[pos - 1] == place) {
+                    duplicate = true;
+                    break;
+                }
+                pos--;
+            }
+            if (duplicate) continue;
+            int end = Math.min(n, limit - 1);
+            System.arraycopy(best, pos, best, pos + 1, end - pos);
+            best[pos] = place;
+            if (n < limit) n++;
+        }
+        for (int i = 0; i < n; i++) out.add(get(best[i]));
+        return out;
+    }
+
+    private int prefixEntry(int slot) {
+        return buf.getInt(prefixOffset + slot * 4);
+    }
+
+    /**
+     * 第 k 个检索键与 q 比较（只比较前 q.length 个字节；键以 q 开头时返回 0）
+     */
+    private int comparePrefix(int k, byte[] q) {
+        int p = keyPoolOffset + buf.getInt(keysOffset + k * GazetteerFormat.KEY_SIZE);
+        int len = buf.get(p) & 0xFF;
+        int n = Math.min(len, q.length);
+        for (int i = 0; i < n; i++) {
+            int d = (buf.get(p + 1 + i) & 0xFF) - (q[i] & 0xFF);
+            if (d != 0) return d;
+        }
+        return len >= q.length ? 0 : -1;
+    }
+
+    private String readUtf8(int offset, int len) {
+        byte[] b = new byte[len];
+        for (int i = 0; i < len; i++) b[i] = buf.get(offset + i);
+        return new String(b, GazetteerFormat.UTF8);
+    }
+}
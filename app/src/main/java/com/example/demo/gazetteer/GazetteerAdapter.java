@@ -0,0 +1,54 @@
+package com.example.demo.gazetteer;
+
+import android.content.Context;
+import android.widget.ArrayAdapter;
+import android.widget.Filter;
+
+import java.util.List;
+
+/**
+ * 出生地自动完成的适配器：输入框内容变化时在 Filter 的后台线程中查询地名库
+ *
+ * 下拉列表显示“名称 (纬度, 经度)”，选中后输入框只填入名称。
+ */
+public class GazetteerAdapter extends ArrayAdapter<Gazetteer.Place> {
+
+    private final Gazetteer gazetteer;
+    private final int limit;
+
+    public GazetteerAdapter(Context context, Gazetteer gazetteer, int limit) {
+        super(context, android.R.layout.simple_dropdown_item_1line);
+        this.gazetteer = gazetteer;
+        this.limit = limit;
+    }
+
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+
+    private final Filter filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            FilterResults results = new FilterResults();
+            List<Gazetteer.Place> places = gazetteer.search(constraint == null ? "" : constraint, limit);
+            results.values = places;
+            results.count = places.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            clear();
+            if (results.values != null) addAll((List<Gazetteer.Place>) results.values);
+            if (results.count > 0) notifyDataSetChanged();
+            else notifyDataSetInvalidated();
+        }
+
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            return ((Gazetteer.Place) resultValue).name;
+        }
+    };
+}
@@ -0,0 +1,85 @@
+package com.example.demo.gazetteer;
+
+import java.nio.charset.Charset;
+import java.text.Normalizer;
+
+/**
+ * 地名库二进制文件（gazetteer.bin）的格式定义：构建期的 GazetteerBuilder（buildSrc）与运行时的 Gazetteer 共用这一份
+ *
+ * 所有整数为大端序（ByteBuffer 默认），偏移量都相对于文件开头：
+ * <pre>
+ *   头部（HEADER_SIZE 字节）：
+ *     int MAGIC, int VERSION, int placeCount, int keyCount, int zoneCount,
+ *     int placesOffset, int keysOffset, int prefixOffset, int keyPoolOffset, int namePoolOffset, int zonesOffset
+ *   地点表：placeCount 条，每条 PLACE_SIZE 字节，按人口降序（下标越小越重要）
+ *     int 纬度（1e-5 度）, int 经度（1e-5 度）, int 人口, int 显示名偏移（相对名称池）, short 时区下标, 2 字节国家代码（ASCII）
+ *   检索键表：keyCount 条，每条 KEY_SIZE 字节，按键的 UTF-8 字节（无符号）排序，同一键按地点下标升序
+ *     int 键偏移（相对键池）, int 地点下标
+ *   前缀索引：PREFIX_SLOTS + 1 个 int，第 (b0 << 8 | b1) 项为检索键表中第一个前两个字节不小于 (b0, b1) 的下标；
+ *     只有一个字节的键按 b1 = 0 计
+ *   键池：每个键为 1 字节长度 + 规范化后的 UTF-8（见 normalize）
+ *   名称池：每个显示名为 2 字节长度 + UTF-8
+ *   时区表：zoneCount 个 2 字节长度 + UTF-8 的 IANA 时区名
+ * </pre>
+ */
+public final class GazetteerFormat {
+
+    public static final int MAGIC = 0x475A5431; // "GZT1"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 11 * 4;
+    public static final int PLACE_SIZE = 20;
+    public static final int KEY_SIZE = 8;
+    public static final int PREFIX_SLOTS = 1 << 16;
+    public static final int MAX_KEY_BYTES = 255;
+    // 坐标的定点缩放
+    public static final double COORD_SCALE = 1e5;
+
+    public static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // 头部各字段的偏移
+    static final int H_PLACE_COUNT = 8;
+    static final int H_KEY_COUNT = 12;
+    static final int H_ZONE_COUNT = 16;
+    static final int H_PLACES = 20;
+    static final int H_KEYS = 24;
+    static final int H_PREFIX = 28;
+    static final int H_KEY_POOL = 32;
+    static final int H_NAME_POOL = 36;
+    static final int H_ZONES = 40;
+
+    private GazetteerFormat() {
+    }
+
+    /**
+     * 检索键的规范化：去掉变音符号（Zürich → zurich）、转小写、撇号删除、连字符等标点变为空格并合并空白。
+     * 汉字等其他文字原样保留。
+     */
+    public static String normalize(CharSequence s) {
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK || c == '\'' || c == '’') continue;
+            if (Character.isWhitespace(c) || c == '-' || c == '.' || c == ',' || c == '(' || c == ')') {
+                if (!space) sb.append(' ');
+                space = true;
+                continue;
+            }
+            sb.append(Character.toLowerCase(c));
+            space = false;
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    /**
+     * 前缀索引的槽位：前两个字节（不足两个字节时第二个按 0）
+     */
+    static int prefixSlot(byte[] key, int len) {
+        int b0 = len > 0 ? key[0] & 0xFF : 0;
+        int b1 = len > 1 ? key[1] & 0xFF : 0;
+        return b0 << 8 | b1;
+    }
+}
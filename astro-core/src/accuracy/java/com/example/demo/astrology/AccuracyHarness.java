@@ -0,0 +1,246 @@
+package com.example.demo.astrology;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 精度检查：各精度档位相对出版锚点（见 AnchorTable）与参考星历表快照（见 ReferenceTable）的误差与速度
+ *
+ * 两部分检查：
+ * - 锚点：出版物给出的地心视黄经（Meeus 例题）与合相黄经（出版的合相表，1802–2020 年），检查绝对精度。
+ *   每个锚点自带预算，只对 ANCHORED 中的档位检查（较低的档位有意舍去了项，它们与最精确一档的差距由快照部分衡量）
+ * - 快照：ReferenceTableGenerator 用 SNAPSHOT_TIER（ARCSECOND）档生成的大量随机时刻。这一档相对快照的差
+ *   只反映“与生成快照时相比的变化”，报告中称为漂移而不是误差；较低档位相对快照的差即截断带来的误差
+ *   （月亮与冥王星不分档，各档的差同样只是漂移）
+ *
+ * 对每个档位 × 天体输出最大误差（或漂移）、均方根（角秒）与每秒计算次数（单线程，逐个调用 eclipticLongitude）。
+ * 任一锚点或任一天体的最大误差超出预算时以退出码 1 结束，astro-core 的 check 任务随之失败。
+ *
+ * 档位：
+ * - ARCSECOND、ARCMINUTE、TENTH_DEGREE：PlanetCalculator.eclipticLongitude 的三个 VSOP87 精度档位
+ *   （月亮与冥王星不分档，三档相同）
+ * - CHEBYSHEV：ChebyshevEphemeris 缓存（1900–2100 年，按默认 Spec 现场生成到临时文件），只比较范围内的时刻
+ *
+ * 快照预算按各档位承诺的精度给定（留有余量），不是当前的实测值：改动算法（提速或换引擎）后只要仍在预算内就不算回归。
+ *
+ * 用法：AccuracyHarness [快照资源 [锚点资源]]，默认 /reference/longitudes.csv 与 /reference/anchors.csv
+ */
+public class AccuracyHarness {
+
+    // 相对快照的最大误差预算（角秒），行为档位（与 TIER_NAMES 对应），列为 Body.ordinal()。
+    // 行星取档位名义精度的 1.5 倍（1.5"、1.5'、0.15°）；月亮与冥王星不分档，按各自理论的精度给定；
+    // CHEBYSHEV 的误差是数据源（ARCSECOND）误差加拟合误差（默认 Spec 下远小于 0.1"），沿用 ARCSECOND 的预算
+    //                        太阳  月亮  水星  金星  火星  木星  土星 天王星 海王星 冥王星
+    private static final double[][] BUDGET_ARCSEC = {
+            /* ARCSECOND    */ {1.5, 15, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 60},
+            /* ARCMINUTE    */ {90, 15, 90, 90, 90, 90, 90, 90, 90, 60},
+            /* TENTH_DEGREE */ {540, 15, 540, 540, 540, 540, 540, 540, 540, 60},
+            /* CHEBYSHEV    */ {1.5, 15, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 60},
+    };
+    private static final String[] TIER_NAMES = {"ARCSECOND", "ARCMINUTE", "TENTH_DEGREE", "CHEBYSHEV"};
+    // 生成快照所用的档位（ReferenceTableGenerator），它相对快照的差是漂移
+    private static final int SNAPSHOT_TIER = 0;
+    // 检查锚点的档位：承诺角秒级精度的两档
+    private static final boolean[] ANCHORED = {true, false, false, true};
+
+    // 测速时每个档位 × 天体至少计时的纳秒数
+    private static final long MIN_TIMING_NANOS = 200000000L;
+
+    private interface Engine {
+        boolean covers(double jd);
+
+        double longitude(Body body, double jd);
+    }
+
+    /**
+     * 一个档位 × 天体的结果
+     */
+    private static final class Stats {
+        int count;
+        double max;
+        double worstJd;
+        double sumSquares;
+        double evaluationsPerSecond;
+
+        double rms() {
+            return count == 0 ? 0 : Math.sqrt(sumSquares / count);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String resource = args.length > 0 ? args[0] : "/reference/longitudes.csv";
+        String anchorResource = args.length > 1 ? args[1] : "/reference/anchors.csv";
+        ReferenceTable table = ReferenceTable.load(resource);
+        AnchorTable anchors = AnchorTable.load(anchorResource);
+        System.out.println("锚点表 " + anchorResource + "：" + anchors.anchors.size() + " 个锚点");
+        for (String note : anchors.notes) System.out.println("  " + note);
+        System.out.println("参考星历表快照 " + resource + "：" + table.size() + " 个时刻");
+        for (String note : table.notes) System.out.println("  " + note);
+
+        File cacheFile = File.createTempFile("accuracy", ".eph");
+        cacheFile.deleteOnExit();
+        ChebyshevEphemerisWriter.write(cacheFile,
+                PlanetCalculator.julianDay(1900, 1, 1.0), PlanetCalculator.julianDay(2100, 1, 1.0));
+
+        List<String> failures = new ArrayList<>();
+        try (ChebyshevEphemeris cache = ChebyshevEphemeris.open(cacheFile)) {
+            Engine[] engines = {
+                    vsop(Vsop87.Accuracy.ARCSECOND),
+                    vsop(Vsop87.Accuracy.ARCMINUTE),
+                    vsop(Vsop87.Accuracy.TENTH_DEGREE),
+                    new Engine() {
+                        @Override
+                        public boolean covers(double jd) {
+                            return cache.covers(jd);
+                        }
+
+                        @Override
+                        public double longitude(Body body, double jd) {
+                            return cache.longitude(body, jd);
+                        }
+                    },
+            };
+            for (int t = 0; t < engines.length; t++) {
+                if (!ANCHORED[t]) continue;
+                System.out.println();
+                System.out.printf(Locale.US, "%s：锚点%n", TIER_NAMES[t]);
+                System.out.printf(Locale.US, "  %-16s %16s %12s %10s  %s%n", "天体", "JD", "误差\"", "预算\"", "来源");
+                for (AnchorTable.Anchor a : anchors.anchors) {
+                    double window = a.other == null ? 0 : AnchorTable.CONJUNCTION_WINDOW;
+                    if (!engines[t].covers(a.jd - window) || !engines[t].covers(a.jd + window)) continue;
+                    double lon = anchorLongitude(engines[t], a);
+                    // 找不到合相时 NaN，记为超出预算
+                    double error = Math.abs(ChebyshevEphemerisWriter.wrap180(lon - a.longitude)) * 3600;
+                    boolean ok = error <= a.budgetArcsec;
+                    System.out.printf(Locale.US, "  %-16s %16.6f %12.4f %10.1f  %s%s%n",
+                            a.label(), a.jd, error, a.budgetArcsec, a.source, ok ? "" : "  超出预算");
+                    if (!ok) {
+                        failures.add(String.format(Locale.US, "%s 锚点 %s: 误差 %.4f\" > 预算 %.1f\"（%s）",
+                                TIER_NAMES[t], a.label(), error, a.budgetArcsec, a.source));
+                    }
+                }
+            }
+            for (int t = 0; t < engines.length; t++) {
+                System.out.println();
+                // 生成快照的档位与快照比较的是漂移，其余档位是截断误差
+                String what = t == SNAPSHOT_TIER ? "漂移" : "误差";
+                System.out.printf(Locale.US, "%s：快照%s%n", TIER_NAMES[t], t == SNAPSHOT_TIER ? "（快照即由本档生成）" : "");
+                System.out.printf(Locale.US, "  %-8s %6s %12s %12s %10s %14s %12s%n",
+                        "天体", "时刻数", "最大" + what + "\"", "RMS " + what + "\"", "预算\"", "次/秒", "最差 JD");
+                for (Body body : Body.VALUES) {
+                    Stats s = measure(engines[t], body, table);
+                    double budget = BUDGET_ARCSEC[t][body.ordinal()];
+                    boolean ok = s.max <= budget;
+                    System.out.printf(Locale.US, "  %-8s %6d %12.4f %12.4f %10.1f %14.0f %12.3f%s%n",
+                            body.key, s.count, s.max, s.rms(), budget, s.evaluationsPerSecond, s.worstJd,
+                            ok ? "" : "  超出预算");
+                    if (!ok) {
+                        failures.add(String.format(Locale.US, "%s %s: 最大%s %.4f\" > 预算 %.1f\"（JD %.6f）",
+                                TIER_NAMES[t], body.key, what, s.max, budget, s.worstJd));
+                    }
+                }
+            }
+        }
+
+        System.out.println();
+        if (!failures.isEmpty()) {
+            System.out.println("精度回归：");
+            for (String f : failures) System.out.println("  " + f);
+            System.exit(1);
+        }
+        System.out.println("全部锚点与档位都在误差预算内");
+    }
+
+    /**
+     * 引擎给出的锚点黄经：单个天体直接取 jd 时刻的黄经；合相锚点在 jd ± CONJUNCTION_WINDOW 天内
+     * 找离 jd 最近的合相（两天体黄经差变号处，二分到约 0.1 秒），返回合相时的黄经，找不到时返回 NaN
+     */
+    private static double anchorLongitude(Engine engine, AnchorTable.Anchor a) {
+        if (a.other == null) return engine.longitude(a.body, a.jd);
+        final double step = 0.5;
+        double best = Double.NaN;
+        double bestDistance = Double.MAX_VALUE;
+        double t0 = a.jd - AnchorTable.CONJUNCTION_WINDOW;
+        double f0 = separation(engine, a, t0);
+        for (double t1 = t0 + step; t1 <= a.jd + AnchorTable.CONJUNCTION_WINDOW; t0 = t1, t1 += step) {
+            double f1 = separation(engine, a, t1);
+            // 只认经过 0 的变号（经过 ±180° 的跳变不是合相）
+            if ((f0 <= 0) != (f1 <= 0) && Math.abs(f1 - f0) < 90) {
+                double lo = t0, hi = t1, flo = f0;
+                while (hi - lo > 1e-6) {
+                    double mid = (lo + hi) * 0.5;
+                    double fm = separation(engine, a, mid);
+                    if ((fm <= 0) == (flo <= 0)) {
+                        lo = mid;
+                        flo = fm;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                double t = (lo + hi) * 0.5;
+                if (Math.abs(t - a.jd) < bestDistance) {
+                    bestDistance = Math.abs(t - a.jd);
+                    best = engine.longitude(a.body, t);
+                }
+            }
+            f0 = f1;
+        }
+        return best;
+    }
+
+    private static double separation(Engine engine, AnchorTable.Anchor a, double jd) {
+        return ChebyshevEphemerisWriter.wrap180(engine.longitude(a.body, jd) - engine.longitude(a.other, jd));
+    }
+
+    private static Engine vsop(final Vsop87.Accuracy accuracy) {
+        return new Engine() {
+            @Override
+            public boolean covers(double jd) {
+                return true;
+            }
+
+            @Override
+            public double longitude(Body body, double jd) {
+                return PlanetCalculator.eclipticLongitude(body, jd, accuracy);
+            }
+        };
+    }
+
+    private static Stats measure(Engine engine, Body body, ReferenceTable table) {
+        double[] reference = table.longitude[body.ordinal()];
+        double[] jd = new double[table.size()];
+        int n = 0;
+        Stats s = new Stats();
+        for (int i = 0; i < table.size(); i++) {
+            if (Double.isNaN(reference[i]) || !engine.covers(table.jd[i])) continue;
+            jd[n++] = table.jd[i];
+            double error = Math.abs(ChebyshevEphemerisWriter.wrap180(engine.longitude(body, table.jd[i]) - reference[i])) * 3600;
+            s.count++;
+            s.sumSquares += error * error;
+            if (error > s.max) {
+                s.max = error;
+                s.worstJd = table.jd[i];
+            }
+        }
+        if (n == 0) return s;
+
+        // 先跑一轮预热，再重复整轮直到累计时间足够
+        double sink = 0;
+        for (int i = 0; i < n; i++) sink += engine.longitude(body, jd[i]);
+        long evaluations = 0;
+        long t0 = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < n; i++) sink += engine.longitude(body, jd[i]);
+            evaluations += n;
+            elapsed = System.nanoTime() - t0;
+        } while (elapsed < MIN_TIMING_NANOS);
+        // 防止 JIT 把整个循环当作死代码消除
+        if (sink == 42) System.out.println();
+        s.evaluationsPerSecond = evaluations * 1e9 / elapsed;
+        return s;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 锚点表：出版物中给出的个别地心视黄经，每行带自己的绝对误差预算
+ *
+ * 与 ReferenceTable（当前引擎的快照）不同，锚点不由本项目的代码生成，用来检查绝对精度。
+ * 文本格式（UTF-8），# 开头的行为注释，其余每行：
+ * <pre>
+ *   jd_tt,天体（Body 常量名）,黄经（度）,预算（角秒）,来源说明
+ *   jd_tt,天体A+天体B,合相黄经（度）,预算（角秒）,来源说明
+ * </pre>
+ * 第二种是合相锚点：jd_tt 附近（CONJUNCTION_WINDOW 天以内）两天体黄经相等时的黄经，
+ * 出版的合相表通常只给日期与角分，用它检查无需知道合相的准确时刻。
+ * 来源说明是最后一列，可以含逗号。
+ */
+final class AnchorTable {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // 合相锚点在 jd 前后搜索合相的天数
+    static final double CONJUNCTION_WINDOW = 10;
+
+    static final class Anchor {
+        final double jd;
+        final Body body;
+        // 合相锚点的另一个天体；单个天体的锚点为 null
+        final Body other;
+        final double longitude;
+        final double budgetArcsec;
+        final String source;
+
+        Anchor(double jd, Body body, Body other, double longitude, double budgetArcsec, String source) {
+            this.jd = jd;
+            this.body = body;
+            this.other = other;
+            this.longitude = longitude;
+            this.budgetArcsec = budgetArcsec;
+            this.source = source;
+        }
+
+        String label() {
+            return other == null ? body.key : body.key + "+" + other.key;
+        }
+    }
+
+    final List<Anchor> anchors;
+    // 注释行（数据来源），原样保留用于报告
+    final List<String> notes;
+
+    private AnchorTable(List<Anchor> anchors, List<String> notes) {
+        this.anchors = anchors;
+        this.notes = notes;
+    }
+
+    /**
+     * 从 classpath 读取，例如 "/reference/anchors.csv"
+     */
+    static AnchorTable load(String resource) throws IOException {
+        InputStream in = AnchorTable.class.getResourceAsStream(resource);
+        if (in == null) throw new IOException("找不到锚点表: " + resource);
+        List<String> notes = new ArrayList<>();
+        List<Anchor> anchors = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (line.charAt(0) == '#') {
+                    notes.add(line.substring(1).trim());
+                    continue;
+                }
+                String[] f = line.split(",", 5);
+                if (f.length != 5) throw new IOException(resource + ":" + lineNo + ": 应有 5 列");
+                String[] names = f[1].trim().split("\\+", -1);
+                if (names.length > 2) throw new IOException(resource + ":" + lineNo + ": 最多两个天体 " + f[1]);
+                Body body = body(names[0], resource, lineNo);
+                Body other = names.length == 2 ? body(names[1], resource, lineNo) : null;
+                anchors.add(new Anchor(Double.parseDouble(f[0]), body, other, Double.parseDouble(f[2]),
+                        Double.parseDouble(f[3]), f[4].trim()));
+            }
+        }
+        return new AnchorTable(anchors, notes);
+    }
+
+    private static Body body(String name, String resource, int lineNo) throws IOException {
+        try {
+            return Body.valueOf(name.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(resource + ":" + lineNo + ": 未知天体 " + name);
+        }
+    }
+}
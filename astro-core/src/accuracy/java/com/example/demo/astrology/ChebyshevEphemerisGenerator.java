@@ -0,0 +1,35 @@
+package com.example.demo.astrology;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * 生成切比雪夫星历缓存文件（格式见 ChebyshevEphemeris），并打印各天体的最大拟合误差
+ *
+ * 拟合本身在 ChebyshevEphemerisWriter.write 中；这里只是命令行入口，不随库发布。
+ * Gradle 中用 ./gradlew :astro-core:chebyshevEphemeris 运行。
+ *
+ * 用法：ChebyshevEphemerisGenerator &lt;输出文件&gt; [起始年 结束年]，默认 1900–2100
+ */
+public class ChebyshevEphemerisGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println("用法: ChebyshevEphemerisGenerator <输出文件> [起始年 结束年]");
+            System.exit(2);
+        }
+        int fromYear = args.length > 1 ? Integer.parseInt(args[1]) : 1900;
+        int toYear = args.length > 1 ? Integer.parseInt(args[2]) : 2100;
+        double startJd = PlanetCalculator.julianDay(fromYear, 1, 1.0);
+        double endJd = PlanetCalculator.julianDay(toYear, 12, 31.0);
+
+        File out = new File(args[0]);
+        File dir = out.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建目录: " + dir);
+        long t0 = System.nanoTime();
+        ChebyshevEphemerisWriter.FitReport report = ChebyshevEphemerisWriter.write(out, startJd, endJd);
+        System.out.print(report);
+        System.out.printf(Locale.US, "耗时 %.1f s%n", (System.nanoTime() - t0) / 1e9);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 参考星历表：若干时刻（TT 儒略日）下每个天体的地心视黄经（当日黄道与真春分点，含章动与光行差）
+ *
+ * 文本格式（UTF-8），# 开头的行为注释（说明数据来源），其余每行：
+ * <pre>
+ *   jd_tt,SUN,MOON,MERCURY,...,PLUTO
+ * </pre>
+ * 列的顺序与 Body 一致，单位为度；某个天体没有参考值时该格留空。
+ * 来源不限：ReferenceTableGenerator 生成的快照，或 JPL Horizons 导出（观测者表，QUANTITIES=31，
+ * CENTER=500@399，TIME_TYPE=TT）换算成同样的列。
+ * 随仓库提供的 longitudes.csv 是快照，只用作回归检查；绝对精度由 AnchorTable 中的出版值检查。
+ */
+final class ReferenceTable {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    final double[] jd;
+    // longitude[body.ordinal()][i]，NaN 表示没有参考值
+    final double[][] longitude;
+    // 注释行（数据来源），原样保留用于报告
+    final List<String> notes;
+
+    private ReferenceTable(double[] jd, double[][] longitude, List<String> notes) {
+        this.jd = jd;
+        this.longitude = longitude;
+        this.notes = notes;
+    }
+
+    int size() {
+        return jd.length;
+    }
+
+    /**
+     * 从 classpath 读取，例如 "/reference/longitudes.csv"
+     */
+    static ReferenceTable load(String resource) throws IOException {
+        InputStream in = ReferenceTable.class.getResourceAsStream(resource);
+        if (in == null) throw new IOException("找不到参考星历表: " + resource);
+        List<String> notes = new ArrayList<>();
+        List<double[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (line.charAt(0) == '#') {
+                    notes.add(line.substring(1).trim());
+                    continue;
+                }
+                String[] f = line.split(",", -1);
+                if (f.length != Body.COUNT + 1) {
+                    throw new IOException(resource + ":" + lineNo + ": 应有 " + (Body.COUNT + 1) + " 列");
+                }
+                double[] row = new double[f.length];
+                for (int k = 0; k < f.length; k++) {
+                    row[k] = f[k].isEmpty() ? Double.NaN : Double.parseDouble(f[k]);
+                }
+                rows.add(row);
+            }
+        }
+        double[] jd = new double[rows.size()];
+        double[][] longitude = new double[Body.COUNT][rows.size()];
+        for (int i = 0; i < jd.length; i++) {
+            double[] row = rows.get(i);
+            jd[i] = row[0];
+            for (int b = 0; b < Body.COUNT; b++) longitude[b][i] = row[b + 1];
+        }
+        return new ReferenceTable(jd, longitude, notes);
+    }
+}
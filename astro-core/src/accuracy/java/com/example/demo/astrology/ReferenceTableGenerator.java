@@ -0,0 +1,64 @@
+package com.example.demo.astrology;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 生成参考星历表的快照（格式见 ReferenceTable）
+ *
+ * 用当前最精确的一档（Vsop87.Accuracy.ARCSECOND + 完整月亮级数）在固定种子的随机时刻上计算，
+ * 作为以后各档位、新算法的比较基准。快照本身的绝对精度取决于当时的算法
+ * （行星约 1 角秒、月亮约 10 角秒、冥王星为角分量级），有外部星历（如 JPL Horizons）时应替换为外部数据。
+ *
+ * 用法：ReferenceTableGenerator &lt;输出文件&gt; [起始年 结束年 时刻数]，默认 1600–2400 年、2000 个时刻
+ */
+public class ReferenceTableGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 4) {
+            System.err.println("用法: ReferenceTableGenerator <输出文件> [起始年 结束年 时刻数]");
+            System.exit(2);
+        }
+        int fromYear = args.length > 1 ? Integer.parseInt(args[1]) : 1600;
+        int toYear = args.length > 1 ? Integer.parseInt(args[2]) : 2400;
+        int count = args.length > 1 ? Integer.parseInt(args[3]) : 2000;
+
+        double start = PlanetCalculator.julianDay(fromYear, 1, 1.0);
+        double end = PlanetCalculator.julianDay(toYear, 1, 1.0);
+        double[] jd = new double[count];
+        Random random = new Random(19920412L);
+        for (int i = 0; i < count; i++) {
+            // 先按写出的精度取整，保证读回的时刻与计算用的时刻完全一致（月亮每天移动约 13°）
+            jd[i] = Double.parseDouble(String.format(Locale.US, "%.6f", start + random.nextDouble() * (end - start)));
+        }
+        Arrays.sort(jd);
+
+        File out = new File(args[0]);
+        File dir = out.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建目录: " + dir);
+        try (PrintWriter w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(out), Charset.forName("UTF-8")))) {
+            w.printf(Locale.US, "# 快照：ReferenceTableGenerator，%d–%d 年 %d 个随机时刻（种子固定）%n", fromYear, toYear, count);
+            w.println("# 算法：VSOP87D（Meeus 附录 III 截断版，ARCSECOND 档）+ Meeus 第 47 章月亮级数 + IAU 1980 章动；冥王星为平均轨道根数");
+            w.println("# 绝对精度约为行星 1\"、月亮 10\"、冥王星 1'；用于发现算法改动带来的回归，而非与真实天象比对");
+            w.println("# jd_tt,SUN,MOON,MERCURY,VENUS,MARS,JUPITER,SATURN,URANUS,NEPTUNE,PLUTO");
+            StringBuilder line = new StringBuilder();
+            for (double t : jd) {
+                line.setLength(0);
+                line.append(String.format(Locale.US, "%.6f", t));
+                for (Body body : Body.VALUES) {
+                    double lon = PlanetCalculator.eclipticLongitude(body, t, Vsop87.Accuracy.ARCSECOND);
+                    line.append(',').append(String.format(Locale.US, "%.7f", lon));
+                }
+                w.println(line);
+            }
+        }
+        System.out.println("参考星历表: " + count + " 个时刻 -> " + out);
+    }
+}
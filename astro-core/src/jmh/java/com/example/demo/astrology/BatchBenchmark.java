@@ -0,0 +1,60 @@
+package com.example.demo.astrology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量吞吐量：PlanetCalculator.calculateBatch / calculateBatchParallel，每次调用算 Inputs.SIZE 张星盘，
+ * 得分换算为每秒星盘数
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchBenchmark {
+
+    @Param({"ARCSECOND", "ARCMINUTE"})
+    public Vsop87.Accuracy accuracy;
+
+    private final Inputs inputs = new Inputs();
+    private final double[][] longitudes = new double[Body.COUNT][Inputs.SIZE];
+    private final double[] ascendant = new double[Inputs.SIZE];
+    private final Inputs large = new Inputs(Inputs.PARALLEL_SIZE);
+    private final double[][] largeLongitudes = new double[Body.COUNT][Inputs.PARALLEL_SIZE];
+    private final double[] largeAscendant = new double[Inputs.PARALLEL_SIZE];
+
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public double[][] batch() {
+        PlanetCalculator.calculateBatch(inputs.jd, inputs.lon, inputs.lat, Inputs.SIZE, longitudes, ascendant, accuracy);
+        return longitudes;
+    }
+
+    /**
+     * 只算天体、不算上升点（扫描星历、找事件时的用法）
+     */
+    @Benchmark
+    @OperationsPerInvocation(Inputs.SIZE)
+    public double[][] batchBodiesOnly() {
+        PlanetCalculator.calculateBatch(inputs.jd, null, null, Inputs.SIZE, longitudes, null, accuracy);
+        return longitudes;
+    }
+
+    /**
+     * 并行版本（commonPool），批量加大到 Inputs.PARALLEL_SIZE 才会拆分；得分与 batch 之比即并行加速比
+     */
+    @Benchmark
+    @OperationsPerInvocation(Inputs.PARALLEL_SIZE)
+    public double[][] batchParallel() {
+        PlanetCalculator.calculateBatchParallel(large.jd, large.lon, large.lat, Inputs.PARALLEL_SIZE,
+                largeLongitudes, largeAscendant, accuracy, null);
+        return largeLongitudes;
+    }
+}
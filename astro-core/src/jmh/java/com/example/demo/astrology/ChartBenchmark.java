@@ -0,0 +1,44 @@
+package com.example.demo.astrology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单张星盘的延迟：PlanetCalculator.calculate（十个天体 + 章动 + 上升点、天顶与宫头）
+ *
+ * CalcResult 复用，正常情况下 gc.alloc.rate.norm 应接近 0。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChartBenchmark {
+
+    @Param({"PLACIDUS", "EQUAL"})
+    public HouseSystem houseSystem;
+
+    private final Inputs inputs = new Inputs();
+    private final PlanetCalculator.CalcResult out = new PlanetCalculator.CalcResult();
+    private int next;
+
+    @Benchmark
+    public PlanetCalculator.CalcResult calculate() {
+        int i = next++ & (Inputs.SIZE - 1);
+        return PlanetCalculator.calculate(inputs.jd[i], inputs.lon[i], inputs.lat[i], houseSystem, out);
+    }
+
+    /**
+     * 从出生日期、时间的字符串开始（解析 + 计算），即界面上点一次“计算”的开销
+     */
+    @Benchmark
+    public PlanetCalculator.CalcResult calculateFromLocal() throws Exception {
+        int i = next++ & (Inputs.SIZE - 1);
+        return PlanetCalculator.calculateFromLocal("1990-08-15", "14:30", inputs.lon[i], inputs.lat[i], houseSystem, out);
+    }
+}
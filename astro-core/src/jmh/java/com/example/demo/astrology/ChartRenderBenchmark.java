@@ -0,0 +1,60 @@
+package com.example.demo.astrology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 星盘图的渲染：ChartLayout 计算版面（含行星错开与相位检测），SvgChartWriter 写出 SVG
+ *
+ * 星盘事先算好，这里只测绘图部分；画布 SIZE × SIZE。layout 相当于时间拖动时每帧的开销，
+ * svg 相当于服务端每张星盘附带图片的开销（写入复用的 StringBuilder）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChartRenderBenchmark {
+
+    static final int SIZE = 600;
+
+    private final PlanetCalculator.CalcResult[] charts = new PlanetCalculator.CalcResult[16];
+    private final ChartLayout layout = new ChartLayout().setSize(SIZE, SIZE);
+    private final StringBuilder out = new StringBuilder(8192);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Inputs inputs = new Inputs();
+        for (int i = 0; i < charts.length; i++) {
+            charts[i] = PlanetCalculator.calculate(inputs.jd[i], inputs.lon[i], inputs.lat[i],
+                    PlanetCalculator.DEFAULT_HOUSE_SYSTEM, new PlanetCalculator.CalcResult());
+        }
+    }
+
+    /**
+     * 只算版面
+     */
+    @Benchmark
+    public ChartLayout layout() {
+        return layout.setResult(charts[next++ & (charts.length - 1)]);
+    }
+
+    /**
+     * 算版面并写出整张 SVG
+     */
+    @Benchmark
+    public StringBuilder svg() throws IOException {
+        layout.setResult(charts[next++ & (charts.length - 1)]);
+        out.setLength(0);
+        SvgChartWriter.write(layout, out);
+        return out;
+    }
+}
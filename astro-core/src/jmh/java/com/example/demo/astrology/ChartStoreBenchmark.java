@@ -0,0 +1,92 @@
+package com.example.demo.astrology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 星盘存档：打开 SAVED 张已保存星盘的存档（冷启动时加载历史记录的开销）、按输入查找、读出结果
+ *
+ * 存档在临时目录中生成一次，星盘为 Inputs 中的输入（结果只需有值，直接复用同一份）；
+ * open 每次都重新映射并扫描、建索引，文件本身在页缓存中。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChartStoreBenchmark {
+
+    static final int SAVED = 10000;
+
+    private final Inputs inputs = new Inputs(SAVED);
+    private final PlanetCalculator.CalcResult result = new PlanetCalculator.CalcResult();
+    private File file;
+    private ChartStore store;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("charts", ".bin");
+        file.delete();
+        PlanetCalculator.calculate(inputs.jd[0], inputs.lon[0], inputs.lat[0], HouseSystem.PLACIDUS, result);
+        ChartStore s = ChartStore.open(file);
+        try {
+            for (int i = 0; i < SAVED; i++) {
+                s.append(name(i), "北京", "Asia/Shanghai", "1990-04-12", "08:30",
+                        inputs.jd[i], inputs.lon[i], inputs.lat[i], HouseSystem.PLACIDUS, result);
+            }
+        } finally {
+            s.close();
+        }
+        store = ChartStore.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        file.delete();
+    }
+
+    private static String name(int i) {
+        return "用户" + (i % 1000);
+    }
+
+    /**
+     * 打开并关闭整个存档
+     */
+    @Benchmark
+    public int open() throws IOException {
+        ChartStore s = ChartStore.open(file);
+        try {
+            return s.size();
+        } finally {
+            s.close();
+        }
+    }
+
+    /**
+     * 点击“生成”时按输入查找已保存的星盘
+     */
+    @Benchmark
+    public int find() {
+        int i = next++ % SAVED;
+        return store.find(inputs.jd[i], inputs.lon[i], inputs.lat[i], HouseSystem.PLACIDUS, name(i));
+    }
+
+    /**
+     * 读出一张已保存星盘的结果
+     */
+    @Benchmark
+    public PlanetCalculator.CalcResult read() {
+        return store.read(next++ % SAVED, result);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.astrology;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的输入：固定种子生成的出生时刻与地点，各基准共用，结果可重复
+ *
+ * 时刻取 1900-2100 年之间（UT 儒略日），纬度取 ±60° 以内（Placidus 不会退回 Porphyry）。
+ * 每次调用轮换使用不同的输入，避免 JIT 把结果当作常量。
+ */
+final class Inputs {
+
+    // 单张星盘的基准轮换使用的输入数，也是串行批量的大小（2 的幂，便于取模）
+    static final int SIZE = 1024;
+    // 并行批量的大小：需高于 PlanetCalculator 的并行阈值才会真正拆分
+    static final int PARALLEL_SIZE = 32768;
+
+    final double[] jd;
+    final double[] lon;
+    final double[] lat;
+
+    Inputs() {
+        this(SIZE);
+    }
+
+    Inputs(int size) {
+        jd = new double[size];
+        lon = new double[size];
+        lat = new double[size];
+        Random random = new Random(20240601L);
+        double start = PlanetCalculator.julianDay(1900, 1, 1.0);
+        double end = PlanetCalculator.julianDay(2100, 1, 1.0);
+        for (int i = 0; i < size; i++) {
+            jd[i] = start + random.nextDouble() * (end - start);
+            lon[i] = random.nextDouble() * 360.0 - 180.0;
+            lat[i] = random.nextDouble() * 120.0 - 60.0;
+        }
+    }
+}
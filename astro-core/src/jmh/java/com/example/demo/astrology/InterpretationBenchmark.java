@@ -0,0 +1,65 @@
+package com.example.demo.astrology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解读文本的生成：AstrologyInterpreter 按预编译模板把报告写入 Appendable
+ *
+ * 星盘事先算好，这里只测文本部分（含相位检测）。模板来自 classpath 的 /interp/&lt;语言&gt;.bin。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InterpretationBenchmark {
+
+    @Param({"zh", "en"})
+    public String language;
+
+    private final PlanetCalculator.CalcResult[] charts = new PlanetCalculator.CalcResult[16];
+    private final StringBuilder out = new StringBuilder(4096);
+    private InterpretationTemplates templates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        templates = InterpretationTemplates.forLocale(new Locale(language));
+        Inputs inputs = new Inputs();
+        for (int i = 0; i < charts.length; i++) {
+            charts[i] = PlanetCalculator.calculate(inputs.jd[i], inputs.lon[i], inputs.lat[i],
+                    PlanetCalculator.DEFAULT_HOUSE_SYSTEM, new PlanetCalculator.CalcResult());
+        }
+    }
+
+    /**
+     * 写入复用的 StringBuilder（流式输出的开销）
+     */
+    @Benchmark
+    public StringBuilder render() throws IOException {
+        out.setLength(0);
+        AstrologyInterpreter.interpret(charts[next++ & (charts.length - 1)], "张三", templates, out);
+        return out;
+    }
+
+    /**
+     * 每次新建 StringBuilder 并生成完整的 String，与界面上用的 interpret(result, name) 做法相同
+     * （那个重载按设备语言选模板，这里按参数指定语言）
+     */
+    @Benchmark
+    public String renderString() throws IOException {
+        StringBuilder sb = new StringBuilder(2048);
+        AstrologyInterpreter.interpret(charts[next++ & (charts.length - 1)], "张三", templates, sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.astrology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 月亮黄经的三种实现：
+ * - fiveTerm：旧版 5 项近似（原 PlanetCalculator.moonEclipticLongitude，复制在本类中作为基准）
+ * - direct：完整 Meeus 第 47 章级数，逐项调用 Math.sin（LunarTheory.longitudeDirect）
+ * - recurrence：完整级数 + 倍角递推（LunarTheory.longitudeFromT，当前使用的实现）
+ *
+ * recurrence 与 direct 之比即倍角递推省下的开销；三者都不应分配对象。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LunarBenchmark {
+
+    // 儒略世纪数（自 J2000），由 Inputs 的时刻换算
+    private final double[] ts = new double[Inputs.SIZE];
+    private int next;
+
+    public LunarBenchmark() {
+        Inputs inputs = new Inputs();
+        for (int i = 0; i < Inputs.SIZE; i++) ts[i] = (inputs.jd[i] - 2451545.0) / 36525.0;
+    }
+
+    @Benchmark
+    public double fiveTerm() {
+        return fiveTermLongitude(ts[next++ & (Inputs.SIZE - 1)]);
+    }
+
+    @Benchmark
+    public double direct() {
+        return LunarTheory.longitudeDirect(ts[next++ & (Inputs.SIZE - 1)]);
+    }
+
+    @Benchmark
+    public double recurrence() {
+        return LunarTheory.longitudeFromT(ts[next++ & (Inputs.SIZE - 1)]);
+    }
+
+    /**
+     * 旧版实现：平黄经加 5 个周期项
+     */
+    static double fiveTermLongitude(double T) {
+        double L0 = 218.3164477 + 481267.88123421 * T - 0.0015786 * T * T;
+        double M_moon = 134.9633964 + 477198.8675055 * T;
+        double D = 297.8501921 + 445267.1114034 * T;
+        double lon = L0 + 6.289 * Math.sin(Math.toRadians(M_moon))
+                + 1.274 * Math.sin(Math.toRadians(2 * D - M_moon))
+                + 0.658 * Math.sin(Math.toRadians(2 * D))
+                - 0.214 * Math.sin(Math.toRadians(2 * M_moon))
+                - 0.11 * Math.sin(Math.toRadians(D));
+        return PlanetCalculator.normalizeDegrees(lon);
+    }
+}
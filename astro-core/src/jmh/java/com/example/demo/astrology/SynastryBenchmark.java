@@ -0,0 +1,90 @@
+package com.example.demo.astrology;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合盘匹配吞吐量：SynastryScorer.topMatches 对 POPULATION 张星盘取前 TOP_K，得分换算为每秒打分的星盘数
+ *
+ * 星盘库用固定种子的均匀随机黄经填充（扫描耗时与黄经的分布无关，不必真的计算 26 万张星盘）；
+ * 查询方轮换使用 Inputs 中的星盘。exactScan 逐张调用精确公式，作为对照。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SynastryBenchmark {
+
+    static final int POPULATION = 262144;
+    static final int TOP_K = 100;
+    private static final int QUERIES = 64;
+
+    private final SynastryScorer scorer = new SynastryScorer();
+    private final ChartPopulation population = new ChartPopulation(POPULATION);
+    private final double[][] queries = new double[QUERIES][Body.COUNT];
+    private final double[] other = new double[Body.COUNT];
+    private ForkJoinPool single;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(20240701L);
+        double[] lons = new double[Body.COUNT];
+        for (int i = 0; i < POPULATION; i++) {
+            for (int b = 0; b < Body.COUNT; b++) lons[b] = random.nextDouble() * 360.0;
+            population.add(i, lons);
+        }
+        Inputs inputs = new Inputs(QUERIES);
+        PlanetCalculator.CalcResult r = new PlanetCalculator.CalcResult();
+        for (int q = 0; q < QUERIES; q++) {
+            PlanetCalculator.calculate(inputs.jd[q], inputs.lon[q], inputs.lat[q], HouseSystem.PLACIDUS, r);
+            System.arraycopy(r.longitudes, 0, queries[q], 0, Body.COUNT);
+        }
+        single = new ForkJoinPool(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        single.shutdown();
+    }
+
+    /**
+     * commonPool 并行扫描
+     */
+    @Benchmark
+    @OperationsPerInvocation(POPULATION)
+    public SynastryScorer.Matches topMatches() {
+        return scorer.topMatches(queries[next++ & (QUERIES - 1)], population, TOP_K, null);
+    }
+
+    /**
+     * 单线程扫描；与 topMatches 之比即并行加速比
+     */
+    @Benchmark
+    @OperationsPerInvocation(POPULATION)
+    public SynastryScorer.Matches topMatchesSingleThread() {
+        return scorer.topMatches(queries[next++ & (QUERIES - 1)], population, TOP_K, single);
+    }
+
+    /**
+     * 对照：逐张用精确公式打分（10 × 10 对 × 各相位），只求最高分
+     */
+    @Benchmark
+    @OperationsPerInvocation(POPULATION)
+    public double exactScan() {
+        double[] query = queries[next++ & (QUERIES - 1)];
+        double best = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < POPULATION; i++) best = Math.max(best, scorer.score(query, population.get(i, other)));
+        return best;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.astrology;
+
+/**
+ * 相位检测（天体之间的角度关系）
+ *
+ * 说明：
+ * - 内置合相、六合、四分、三分、对分，也可以用 addAspect 增加自定义相位（例如 150° 梅花相位）
+ * - 容许度按天体设置（太阳、月亮较宽，外行星较窄），两天体之间的容许度取两者平均，再乘以相位自身的比例
+ * - 算法：先把天体按黄经排序一次（插入排序，只排下标），对每种相位用双指针沿黄道扫描，
+ *   只有“前向角距”落在 [相位角 - 最大容许度, 相位角 + 最大容许度] 窗口内的天体对才进一步检查，
+ *   不再逐对用字符串查表
+ * - 输入输出都是原始数组，find 过程中不分配对象；引擎内部有临时数组，一个实例只应在一个线程中使用
+ */
+public class AspectEngine {
+
+    // 内置相位的下标
+    public static final int CONJUNCTION = 0;
+    public static final int SEXTILE = 1;
+    public static final int SQUARE = 2;
+    public static final int TRINE = 3;
+    public static final int OPPOSITION = 4;
+
+    // 默认容许度（度），下标为 Body.ordinal()
+    private static final double[] DEFAULT_ORBS = {10, 10, 7, 7, 7, 6, 6, 5, 5, 5};
+
+    private static final int MAX_ASPECTS = 16;
+
+    // 相位定义：名称、角度（0-180）、容许度比例
+    private final String[] names = new String[MAX_ASPECTS];
+    private final double[] angles = new double[MAX_ASPECTS];
+    private final double[] orbScales = new double[MAX_ASPECTS];
+    private int aspectCount;
+
+    private final double[] orbs = DEFAULT_ORBS.clone();
+
+    // 扫描用的临时数组：按黄经排序后的天体下标，以及“展开两圈”的黄经
+    private final int[] order = new int[Body.COUNT];
+    private final double[] sorted = new double[2 * Body.COUNT];
+
+    /**
+     * 检测结果：第 i 个相位为 bodyA(i) 与 bodyB(i) 之间的 aspect(i)，
+     * deviation(i) 为实际角距减去相位角（度，可正可负）
+     */
+    public static final class AspectList {
+        private static final int CAPACITY = Body.COUNT * (Body.COUNT - 1) / 2 * 2;
+
+        private final int[] bodyA = new int[CAPACITY];
+        private final int[] bodyB = new int[CAPACITY];
+        private final int[] aspect = new int[CAPACITY];
+        private final double[] deviation = new double[CAPACITY];
+        private int size;
+
+        public int size() {
+            return size;
+        }
+
+        public Body bodyA(int i) {
+            return Body.VALUES[bodyA[i]];
+        }
+
+        public Body bodyB(int i) {
+            return Body.VALUES[bodyB[i]];
+        }
+
+        public int aspect(int i) {
+            return aspect[i];
+        }
+
+        public double deviation(int i) {
+            return deviation[i];
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        void add(int a, int b, int type, double dev) {
+            if (size == CAPACITY) return;
+            // 下标小的天体放在前面，输出顺序稳定
+            bodyA[size] = Math.min(a, b);
+            bodyB[size] = Math.max(a, b);
+            aspect[size] = type;
+            deviation[size] = dev;
+            size++;
+        }
+    }
+
+    public AspectEngine() {
+        addAspect("合相", 0, 1.0);
+        addAspect("六合", 60, 0.6);
+        addAspect("四分", 90, 1.0);
+        addAspect("三分", 120, 1.0);
+        addAspect("对分", 180, 1.0);
+    }
+
+    /**
+     * 增加自定义相位
+     *
+     * @param angle    相位角（0-180 度）
+     * @param orbScale 容许度比例（1.0 表示按天体容许度的平均值，次要相位通常更小）
+     * @return 新相位的下标
+     */
+    public int addAspect(String name, double angle, double orbScale) {
+        if (angle < 0 || angle > 180) throw new IllegalArgumentException("相位角必须在 0-180 度之间: " + angle);
+        if (orbScale <= 0) throw new IllegalArgumentException("容许度比例必须为正: " + orbScale);
+        if (aspectCount == MAX_ASPECTS) throw new IllegalStateException("相位种类过多（最多 " + MAX_ASPECTS + " 种）");
+        names[aspectCount] = name;
+        angles[aspectCount] = angle;
+        orbScales[aspectCount] = orbScale;
+        return aspectCount++;
+    }
+
+    public int getAspectCount() {
+        return aspectCount;
+    }
+
+    public String getAspectName(int aspect) {
+        return names[aspect];
+    }
+
+    public double getAspectAngle(int aspect) {
+        return angles[aspect];
+    }
+
+    public double getOrbScale(int aspect) {
+        return orbScales[aspect];
+    }
+
+    /**
+     * 设置某天体的容许度（度）
+     */
+    public AspectEngine setOrb(Body body, double orb) {
+        if (orb < 0) throw new IllegalArgumentException("容许度不能为负: " + orb);
+        orbs[body.ordinal()] = orb;
+        return this;
+    }
+
+    public double getOrb(Body body) {
+        return orbs[body.ordinal()];
+    }
+
+    /**
+     * 检测所有相位，结果写入 out（先清空）
+     *
+     * @param longitudes 各天体黄经，下标为 Body.ordinal()；NaN 的天体不参与
+     */
+    public void find(double[] longitudes, AspectList out) {
+        out.clear();
+
+        // 1. 按黄经排序（只排下标，插入排序；天体数量很少）
+        int n = 0;
+        for (int b = 0; b < Body.COUNT; b++) {
+            double lon = longitudes[b];
+            if (Double.isNaN(lon)) continue;
+            lon = PlanetCalculator.normalizeDegrees(lon);
+            int k = n++;
+            while (k > 0 && sorted[k - 1] > lon) {
+                sorted[k] = sorted[k - 1];
+                order[k] = order[k - 1];
+                k--;
+            }
+            sorted[k] = lon;
+            order[k] = b;
+        }
+        // 第二圈：sorted[n + k] = sorted[k] + 360，前向扫描不必取模
+        for (int k = 0; k < n; k++) sorted[n + k] = sorted[k] + 360.0;
+
+        double maxOrb = 0;
+        for (int k = 0; k < n; k++) maxOrb = Math.max(maxOrb, orbs[order[k]]);
+
+        // 2. 对每种相位，用双指针找前向角距落在窗口内的候选对
+        for (int t = 0; t < aspectCount; t++) {
+            double angle = angles[t];
+            double window = maxOrb * orbScales[t];
+            double lowOffset = angle - window;
+            // 对分的窗口两侧对称：只看前向角距 ≤ 180 的一侧，避免同一对被两端各算一次
+            // 合相的窗口下界为负，前向角距总是 ≥ 0，每对只会被位置靠后的一端（角距小的方向）看到一次
+            double highOffset = angle == 180 ? 180 : angle + window;
+            int lo = 1;
+            for (int i = 0; i < n; i++) {
+                if (lo <= i) lo = i + 1;
+                // lo 单调前移：跳过前向角距小于窗口下界的天体
+                while (lo < i + n && sorted[lo] - sorted[i] < lowOffset) lo++;
+                for (int j = lo; j < i + n && sorted[j] - sorted[i] <= highOffset; j++) {
+                    double d = sorted[j] - sorted[i];
+                    int a = order[i], b = order[j % n];
+                    // 恰好 180° 时两端都会看到这一对，只保留一次
+                    if (d == 180 && a > b) continue;
+                    double dev = d - angle;
+                    double allowed = (orbs[a] + orbs[b]) * 0.5 * orbScales[t];
+                    if (Math.abs(dev) <= allowed) {
+                        out.add(a, b, t, dev);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.astrology;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * 简单的解释器：根据行星所在星座/宫位生成文本解释（非常基础）
+ *
+ * 说明：
+ * - 真正的占星解读需要结合行星、宫位、星座、相位（角度关系）等复杂逻辑。
+ * - 文案不写在代码里：astro-core/interpretation/&lt;语言&gt;.txt 在构建时编译成 天体 × 星座 × 宫位 的模板表
+ *   （见 InterpretationTemplates），这里只负责按顺序把各段写到 Appendable（StringBuilder、Writer 均可），
+ *   长报告可以边生成边写入界面或文件。
+ */
+public class AstrologyInterpreter {
+
+    /**
+     * 按设备语言生成完整文本
+     */
+    public static String interpret(PlanetCalculator.CalcResult result, String name) {
+        StringBuilder sb = new StringBuilder(2048);
+        try {
+            interpret(result, name, InterpretationTemplates.forLocale(Locale.getDefault()), sb);
+        } catch (IOException e) {
+            // 写入 StringBuilder 不会出错，这里只可能是模板读取失败
+            throw new IllegalStateException("无法读取解读模板", e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 把解读写入 out
+     */
+    public static void interpret(PlanetCalculator.CalcResult result, String name,
+                                 InterpretationTemplates templates, Appendable out) throws IOException {
+        long t0 = StageTimings.start();
+        InterpretationTemplates.Args args = new InterpretationTemplates.Args();
+        args.name = name;
+        args.julianDay = result.julianDay;
+        args.houseSystem = result.houseSystem;
+        args.ascendant = result.ascendant;
+        args.midheaven = result.midheaven;
+
+        boolean named = name != null && !name.isEmpty();
+        templates.write(named ? InterpretationFormat.M_HEADER : InterpretationFormat.M_HEADER_ANONYMOUS, args, out);
+
+        // 输出基本信息
+        templates.write(InterpretationFormat.M_JULIAN_DAY, args, out);
+
+        boolean hasHouses = result.houseSystem != null;
+        if (hasHouses) {
+            templates.write(InterpretationFormat.M_HOUSE_SYSTEM, args, out);
+        }
+
+        // 列出每个行星与其星座、宫位（按 Body 固定顺序），随后是该组合的解读
+        for (Body body : Body.VALUES) {
+            args.body = body;
+            args.longitude = result.get(body);
+            args.house = hasHouses ? HouseEngine.houseOf(args.longitude, result.houseCusps) : 0;
+            templates.write(hasHouses ? InterpretationFormat.M_BODY : InterpretationFormat.M_BODY_NO_HOUSE, args, out);
+            templates.writeBody(body, ZodiacUtils.zodiacIndex(args.longitude), args.house, args, out);
+            out.append('\n');
+        }
+
+        // 相位：按 AspectEngine 默认容许度检测
+        AspectEngine engine = new AspectEngine();
+        AspectEngine.AspectList aspects = new AspectEngine.AspectList();
+        engine.find(result.longitudes, aspects);
+        templates.write(InterpretationFormat.M_ASPECTS, args, out);
+        if (aspects.size() == 0) {
+            templates.write(InterpretationFormat.M_ASPECTS_NONE, args, out);
+        }
+        for (int i = 0; i < aspects.size(); i++) {
+            int type = aspects.aspect(i);
+            args.body = aspects.bodyA(i);
+            args.bodyB = aspects.bodyB(i);
+            args.aspect = type;
+            args.aspectName = engine.getAspectName(type);
+            args.deviation = Math.abs(aspects.deviation(i));
+            templates.write(InterpretationFormat.M_ASPECT, args, out);
+            templates.write(type < InterpretationFormat.ASPECT_KEYS.length
+                    ? InterpretationFormat.M_ASPECT_MEANING + type : InterpretationFormat.M_ASPECT_MEANING_OTHER, args, out);
+            out.append('\n');
+        }
+
+        // 上升点、天顶说明
+        templates.write(InterpretationFormat.M_ASCENDANT, args, out);
+        if (!Double.isNaN(result.midheaven)) {
+            templates.write(InterpretationFormat.M_MIDHEAVEN, args, out);
+        }
+
+        templates.write(InterpretationFormat.M_FOOTNOTE, args, out);
+        StageTimings.stop(StageTimings.Stage.INTERPRETATION, t0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.astrology;
+
+/**
+ * 命盘中参与计算的天体。
+ *
+ * 说明：
+ * - ordinal() 即该天体在 CalcResult.longitudes 等 double[] 中的下标，顺序固定（太阳、月亮、水星……冥王星）
+ * - key 保留旧接口使用的字符串名（"Sun"、"Moon" 等），用于兼容 Map 视图与文本输出
+ */
+public enum Body {
+    SUN("Sun"),
+    MOON("Moon"),
+    MERCURY("Mercury"),
+    VENUS("Venus"),
+    MARS("Mars"),
+    JUPITER("Jupiter"),
+    SATURN("Saturn"),
+    URANUS("Uranus"),
+    NEPTUNE("Neptune"),
+    PLUTO("Pluto");
+
+    // values() 每次调用都会复制数组，热路径统一使用这份缓存
+    public static final Body[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+
+    public final String key;
+
+    Body(String key) {
+        this.key = key;
+    }
+
+    /**
+     * 根据旧的字符串名查找天体，找不到返回 null
+     */
+    public static Body fromKey(String key) {
+        if (key == null) return null;
+        for (Body b : VALUES) {
+            if (b.key.equals(key)) return b;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.demo.astrology;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后台星盘计算服务：把星盘计算与文字解析移出 UI 线程
+ *
+ * 说明：
+ * - 只有一个后台工作线程，内部持有一个 ChartPipeline（流水线只在该线程中使用，不需要加锁）
+ * - 去抖：submit 之后等待 debounceMillis 才真正开始计算；期间再次 submit 会取消上一次尚未开始的任务，
+ *   所以任务队列中最多只有一个待执行任务
+ * - 取消：每次 submit 递增代号（generation），正在计算的旧请求算完后发现代号已过期就直接丢弃，不回调
+ * - LRU 缓存：按量化后的 (JD, 纬度, 经度, 宫制, 名字) 缓存已完成的星盘，命中时跳过去抖与计算，立即回调
+ * - 回调总是通过构造时传入的 callbackExecutor 执行（Android 上传入主线程 Handler 的 post）
+ *
+ * 缓存中的 Chart 会被多次回调共享，调用方不要修改其中的 CalcResult。
+ * submit / cancelAll / shutdown 应在同一个线程（通常是主线程）中调用。
+ */
+public class ChartComputationService {
+
+    // 量化步长：JD 按 1 秒，经纬度按 1e-4 度（约 11 米）
+    private static final double JD_QUANTUM = 1.0 / 86400.0;
+    private static final double ANGLE_QUANTUM = 1e-4;
+
+    /**
+     * 计算完成的星盘：数值结果与文字解析
+     */
+    public static final class Chart {
+        public final PlanetCalculator.CalcResult result;
+        public final String analysis;
+
+        Chart(PlanetCalculator.CalcResult result, String analysis) {
+            this.result = result;
+            this.analysis = analysis;
+        }
+    }
+
+    /**
+     * 计算结果回调，在 callbackExecutor 上执行
+     */
+    public interface Callback {
+        void onChartReady(Chart chart);
+
+        void onError(Exception e);
+    }
+
+    private final ScheduledThreadPoolExecutor worker;
+    private final Executor callbackExecutor;
+    private final long debounceMillis;
+    private final ChartPipeline pipeline = new ChartPipeline();
+    private final LruCache cache;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    // 尚未开始执行的去抖任务；只在 submit（调用方线程）中读写
+    private ScheduledFuture<?> pending;
+
+    /**
+     * @param callbackExecutor 回调执行器（例如主线程 Handler::post）
+     * @param cacheSize        LRU 缓存最多保存的星盘数量
+     * @param debounceMillis   去抖延迟（毫秒），0 表示不去抖
+     */
+    public ChartComputationService(Executor callbackExecutor, int cacheSize, long debounceMillis) {
+        if (cacheSize < 1) throw new IllegalArgumentException("cacheSize 必须至少为 1");
+        this.callbackExecutor = callbackExecutor;
+        this.debounceMillis = debounceMillis;
+        this.cache = new LruCache(cacheSize);
+        this.worker = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "chart-compute");
+                t.setDaemon(true);
+                t.setPriority(Thread.NORM_PRIORITY - 1);
+                return t;
+            }
+        });
+        // 被取消的去抖任务立即移出队列，队列长度始终有界
+        worker.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 提交一次计算请求；之前尚未完成的请求都会被取代（不再回调）
+     *
+     * @param jd   儒略日（UT）
+     * @param lon  经度（度，东经为正）
+     * @param lat  纬度（度，北纬为正）
+     * @param name 名字（用于解析文本标题，可为 null）
+     */
+    public void submit(double jd, double lon, double lat, String name, Callback callback) {
+        submit(jd, lon, lat, PlanetCalculator.DEFAULT_HOUSE_SYSTEM, name, callback);
+    }
+
+    /**
+     * 同上，指定宫制
+     */
+    public void submit(double jd, double lon, double lat, HouseSystem houseSystem, String name, Callback callback) {
+        final long gen = generation.incrementAndGet();
+        cancelPending();
+
+        final Key key = new Key(jd, lon, lat, houseSystem, name);
+        Chart cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            deliver(gen, cached, null, callback);
+            return;
+        }
+        misses.incrementAndGet();
+
+        Runnable task = () -> compute(gen, key, jd, lon, lat, houseSystem, name, callback);
+        pending = worker.schedule(task, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 显示已经算好的星盘（例如从 ChartStore 读出的）：不再计算、不去抖，只在工作线程中生成解析文本；
+     * 同样取代之前尚未完成的请求
+     */
+    public void submitSaved(PlanetCalculator.CalcResult result, String name, Callback callback) {
+        final long gen = generation.incrementAndGet();
+        cancelPending();
+        Runnable task = () -> {
+            if (gen != generation.get()) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            try {
+                deliver(gen, new Chart(result, AstrologyInterpreter.interpret(result, name)), null, callback);
+            } catch (Exception e) {
+                deliver(gen, null, e, callback);
+            }
+        };
+        pending = worker.schedule(task, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取消所有尚未回调的请求
+     */
+    public void cancelAll() {
+        generation.incrementAndGet();
+        cancelPending();
+    }
+
+    /**
+     * 停止工作线程；之后不能再 submit
+     */
+    public void shutdown() {
+        cancelAll();
+        worker.shutdownNow();
+    }
+
+    private void cancelPending() {
+        if (pending != null && pending.cancel(false)) {
+            cancelled.incrementAndGet();
+        }
+        pending = null;
+    }
+
+    /**
+     * 在工作线程中执行：开始前与完成后各检查一次代号
+     */
+    private void compute(long gen, Key key, double jd, double lon, double lat, HouseSystem houseSystem,
+                         String name, Callback callback) {
+        if (gen != generation.get()) {
+            cancelled.incrementAndGet();
+            return;
+        }
+        try {
+            PlanetCalculator.CalcResult result = pipeline.setTime(jd).setLocation(lon, lat)
+                    .setHouseSystem(houseSystem).compute(new PlanetCalculator.CalcResult());
+            Chart chart = new Chart(result, AstrologyInterpreter.interpret(result, name));
+            // 即使请求已过期，结果本身仍然有效，照样放进缓存
+            synchronized (cache) {
+                cache.put(key, chart);
+            }
+            deliver(gen, chart, null, callback);
+        } catch (Exception e) {
+            deliver(gen, null, e, callback);
+        }
+    }
+
+    private void deliver(final long gen, final Chart chart, final Exception error, final Callback callback) {
+        callbackExecutor.execute(() -> {
+            // 回调排队期间可能又有新请求，过期的结果不再交给调用方
+            if (gen != generation.get()) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            if (error != null) callback.onError(error);
+            else callback.onChartReady(chart);
+        });
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * 被取代而没有回调的请求数（去抖取消、计算前/后发现过期）
+     */
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 缓存键：量化后的 JD、经纬度、宫制与名字
+     */
+    private static final class Key {
+        final long jd;
+        final long lon;
+        final long lat;
+        final HouseSystem houseSystem;
+        final String name;
+
+        Key(double jd, double lon, double lat, HouseSystem houseSystem, String name) {
+            this.jd = Math.round(jd / JD_QUANTUM);
+            this.lon = Math.round(lon / ANGLE_QUANTUM);
+            this.lat = Math.round(lat / ANGLE_QUANTUM);
+            this.houseSystem = houseSystem;
+            this.name = name == null ? "" : name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return jd == k.jd && lon == k.lon && lat == k.lat && houseSystem == k.houseSystem && name.equals(k.name);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = (int) (jd ^ (jd >>> 32));
+            h = 31 * h + (int) (lon ^ (lon >>> 32));
+            h = 31 * h + (int) (lat ^ (lat >>> 32));
+            h = 31 * h + houseSystem.ordinal();
+            return 31 * h + name.hashCode();
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的 LRU 表（调用方负责同步）
+     */
+    private static final class LruCache extends LinkedHashMap<Key, Chart> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Chart> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
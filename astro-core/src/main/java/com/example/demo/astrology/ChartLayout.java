@@ -0,0 +1,354 @@
+package com.example.demo.astrology;
+
+/**
+ * 星盘圆盘的版面：各元素在画布上的坐标，与绘图后端无关
+ *
+ * 由 ChartView（Android Canvas，经 ChartPainter）与 SvgChartWriter（SVG 文本）共用，两边画出来的是同一张图：
+ * - 静态部分（外圈、12 星座分割线、星座符号）只与尺寸有关，setSize 时算好
+ * - 动态部分（行星、宫头、相位线）在 setResult / update 时算好；后端只按坐标绘制，不做三角运算
+ * - 行星密集时（例如几颗行星挤在同一星座）自动错开：按最小间距把行星标记沿圆周推开（见 spread），
+ *   真实位置用外圈上的短刻度表示，推开了的行星再画一条引线连到刻度
+ * - 相位线只保留要画的（合相两端几乎重合，不画），按和谐 / 紧张 / 其他分类，端点在真实位置
+ *
+ * 坐标单位为像素（SVG 中为用户单位），原点在左上角，y 向下；黄经 0° 在正上方，顺时针增加。
+ * 文字锚点：星座符号与宫号的 x 为文字水平中心、y 为基线；行星名写在标记右侧（后端自行偏移）。
+ * update 不分配对象（时间拖动时每帧调用）；一个实例只应在一个线程中使用。
+ */
+public class ChartLayout {
+
+    // 各圈相对外圈半径的内缩（像素）：星座符号、行星标记、相位线端点；宫号在外圈之外
+    public static final float SIGN_LABEL_INSET = 30;
+    public static final float PLANET_INSET = 60;
+    public static final float ASPECT_INSET = 90;
+    public static final float HOUSE_LABEL_OUTSET = 10;
+    // 外圈上表示真实位置的刻度长度
+    public static final float TICK_LENGTH = 12;
+    // 边距（两侧合计）、行星圆点半径与文字大小
+    public static final int MARGIN = 20;
+    public static final float PLANET_DOT_RADIUS = 10;
+    public static final float TEXT_SIZE = 28;
+
+    // 配色（ARGB），各后端共用
+    public static final int COLOR_BACKGROUND = 0xFFFFFFFF;
+    public static final int COLOR_CIRCLE = 0xFF444444;
+    public static final int COLOR_SIGN_LINE = 0xFFBBBBBB;
+    public static final int COLOR_SIGN_TEXT = 0xFF666666;
+    public static final int COLOR_HOUSE_LINE = 0xFF5555AA;
+    public static final int COLOR_HOUSE_TEXT = 0xFF333399;
+    public static final int COLOR_PLANET = 0xFFAA3333;
+    public static final int COLOR_PLANET_TEXT = 0xFF222222;
+    public static final int COLOR_ASPECT_SOFT = 0xFF3366CC;
+    public static final int COLOR_ASPECT_HARD = 0xFFCC3333;
+    public static final int COLOR_ASPECT_OTHER = 0xFF999999;
+
+    // 相位线分类
+    public static final int ASPECT_SOFT = 0;
+    public static final int ASPECT_HARD = 1;
+    public static final int ASPECT_OTHER = 2;
+
+    // 宫号文字 "1".."12"
+    public static final String[] HOUSE_LABELS = new String[12];
+    // 12 个星座分割线方向（0°在正右，减 90 让 0 在正上）及星座符号位置方向（再偏 0.13 弧度）
+    private static final float[] SPOKE_COS = new float[12];
+    private static final float[] SPOKE_SIN = new float[12];
+    private static final float[] SIGN_LABEL_COS = new float[12];
+    private static final float[] SIGN_LABEL_SIN = new float[12];
+    private static final int MAX_LINES = Body.COUNT * (Body.COUNT - 1);
+
+    static {
+        for (int i = 0; i < 12; i++) {
+            double angle = Math.toRadians(i * 30 - 90);
+            SPOKE_COS[i] = (float) Math.cos(angle);
+            SPOKE_SIN[i] = (float) Math.sin(angle);
+            SIGN_LABEL_COS[i] = (float) Math.cos(angle + 0.13);
+            SIGN_LABEL_SIN[i] = (float) Math.sin(angle + 0.13);
+            HOUSE_LABELS[i] = String.valueOf(i + 1);
+        }
+    }
+
+    private int width, height;
+    // 圆心与外圈半径；半径不大于 0 时没有可画的内容
+    private int cx, cy, radius;
+    // 相邻行星标记之间的最小距离（像素，沿行星所在的圆）
+    private float minPlanetSpacing = TEXT_SIZE;
+
+    // 静态部分：星座分割线外端点、星座符号的锚点
+    public final float[] spokeX = new float[12];
+    public final float[] spokeY = new float[12];
+    public final float[] signLabelX = new float[12];
+    public final float[] signLabelY = new float[12];
+
+    private PlanetCalculator.CalcResult result;
+
+    // 行星（下标 Body.ordinal()）：标记位置（可能被推开）、外圈刻度的两端（真实位置）、相位线端点（真实位置）
+    public final float[] planetX = new float[Body.COUNT];
+    public final float[] planetY = new float[Body.COUNT];
+    public final float[] tickOuterX = new float[Body.COUNT];
+    public final float[] tickOuterY = new float[Body.COUNT];
+    public final float[] tickInnerX = new float[Body.COUNT];
+    public final float[] tickInnerY = new float[Body.COUNT];
+    public final float[] aspectX = new float[Body.COUNT];
+    public final float[] aspectY = new float[Body.COUNT];
+    // 标记被推开（需要画引线：从 tickInner 到 planet）
+    public final boolean[] planetDisplaced = new boolean[Body.COUNT];
+    // 标记所在的黄经（度）
+    public final double[] planetDisplayLongitude = new double[Body.COUNT];
+
+    // 宫头：外圈上的端点（分割线从圆心画到这里）与宫号锚点；hasHouses 为 false 时不画宫位
+    public final float[] cuspX = new float[12];
+    public final float[] cuspY = new float[12];
+    public final float[] houseLabelX = new float[12];
+    public final float[] houseLabelY = new float[12];
+    private boolean hasHouses;
+
+    // 要画的相位线：第 i 条连接 lineBodyA[i] 与 lineBodyB[i]（Body.ordinal()），分类为 lineKind[i]
+    private final AspectEngine aspectEngine = new AspectEngine();
+    private final AspectEngine.AspectList aspects = new AspectEngine.AspectList();
+    public final int[] lineBodyA = new int[MAX_LINES];
+    public final int[] lineBodyB = new int[MAX_LINES];
+    public final int[] lineKind = new int[MAX_LINES];
+    private int lineCount;
+
+    // spread 的临时数组
+    private final int[] order = new int[Body.COUNT];
+    private final double[] unrolled = new double[Body.COUNT];
+    private final int[] clusterStart = new int[Body.COUNT];
+    private final int[] clusterEnd = new int[Body.COUNT];
+    private final double[] clusterSum = new double[Body.COUNT];
+
+    /**
+     * 设置画布尺寸：圆盘居中，直径为短边减去 MARGIN；之后重算全部坐标
+     */
+    public ChartLayout setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int size = Math.min(width, height) - MARGIN;
+        cx = width / 2;
+        cy = height / 2;
+        radius = size / 2;
+        for (int i = 0; i < 12; i++) {
+            spokeX[i] = cx + SPOKE_COS[i] * radius;
+            spokeY[i] = cy + SPOKE_SIN[i] * radius;
+            signLabelX[i] = cx + SIGN_LABEL_COS[i] * (radius - SIGN_LABEL_INSET);
+            signLabelY[i] = cy + SIGN_LABEL_SIN[i] * (radius - SIGN_LABEL_INSET);
+        }
+        update();
+        return this;
+    }
+
+    /**
+     * 相邻行星标记的最小距离（像素，默认为文字大小）；设为 0 则不错开
+     */
+    public ChartLayout setMinPlanetSpacing(float pixels) {
+        if (pixels < 0) throw new IllegalArgumentException("间距不能为负: " + pixels);
+        this.minPlanetSpacing = pixels;
+        update();
+        return this;
+    }
+
+    /**
+     * 设置要画的星盘（可为 null）并重算动态部分；之后 result 内容变化时调用 update
+     */
+    public ChartLayout setResult(PlanetCalculator.CalcResult result) {
+        this.result = result;
+        update();
+        return this;
+    }
+
+    public PlanetCalculator.CalcResult getResult() {
+        return result;
+    }
+
+    /**
+     * 相位引擎（可调整容许度或增加自定义相位，之后调用 update 生效）
+     */
+    public AspectEngine getAspectEngine() {
+        return aspectEngine;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCenterX() {
+        return cx;
+    }
+
+    public int getCenterY() {
+        return cy;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * 是否有可画的星盘（有结果且尺寸有效）
+     */
+    public boolean hasChart() {
+        return result != null && radius > 0;
+    }
+
+    public boolean hasHouses() {
+        return hasHouses;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 按当前结果与尺寸重算行星、宫头与相位线的坐标（不分配对象）
+     */
+    public void update() {
+        hasHouses = false;
+        lineCount = 0;
+        if (!hasChart()) return;
+
+        // 行星标记错开后的黄经
+        float planetRadius = radius - PLANET_INSET;
+        double minDegrees = planetRadius > 0 ? Math.toDegrees(minPlanetSpacing / planetRadius) : 0;
+        spread(result.longitudes, minDegrees, planetDisplayLongitude);
+
+        for (int b = 0; b < Body.COUNT; b++) {
+            // 将黄经映射到圆周（0 在正上方）
+            double angle = Math.toRadians(result.longitudes[b] - 90);
+            double c = Math.cos(angle), s = Math.sin(angle);
+            tickOuterX[b] = (float) (cx + c * radius);
+            tickOuterY[b] = (float) (cy + s * radius);
+            tickInnerX[b] = (float) (cx + c * (radius - TICK_LENGTH));
+            tickInnerY[b] = (float) (cy + s * (radius - TICK_LENGTH));
+            aspectX[b] = (float) (cx + c * (radius - ASPECT_INSET));
+            aspectY[b] = (float) (cy + s * (radius - ASPECT_INSET));
+
+            double shown = planetDisplayLongitude[b];
+            planetDisplaced[b] = Math.abs(PlanetCalculator.normalizeDegrees(shown - result.longitudes[b] + 180) - 180) > 0.01;
+            angle = Math.toRadians(shown - 90);
+            planetX[b] = (float) (cx + Math.cos(angle) * planetRadius);
+            planetY[b] = (float) (cy + Math.sin(angle) * planetRadius);
+        }
+
+        aspectEngine.find(result.longitudes, aspects);
+        for (int i = 0; i < aspects.size(); i++) {
+            int kind = aspectKind(aspects.aspect(i));
+            if (kind < 0) continue;
+            lineBodyA[lineCount] = aspects.bodyA(i).ordinal();
+            lineBodyB[lineCount] = aspects.bodyB(i).ordinal();
+            lineKind[lineCount] = kind;
+            lineCount++;
+        }
+
+        if (Double.isNaN(result.ascendant)) return;
+        boolean equal = Double.isNaN(result.houseCusps[0]);
+        for (int i = 0; i < 12; i++) {
+            // 没有宫头数据时从 asc 开始，顺时针每 30° 为一宫
+            double cusp = equal ? result.ascendant + i * 30 : result.houseCusps[i];
+            double rad = Math.toRadians(cusp - 90);
+            double c = Math.cos(rad), s = Math.sin(rad);
+            cuspX[i] = (float) (cx + c * radius);
+            cuspY[i] = (float) (cy + s * radius);
+            // 宫号写在外圈之外
+            houseLabelX[i] = (float) (cx + c * (radius + HOUSE_LABEL_OUTSET));
+            houseLabelY[i] = (float) (cy + s * (radius + HOUSE_LABEL_OUTSET));
+        }
+        hasHouses = true;
+    }
+
+    /**
+     * 相位的分类；合相返回 -1（不画线）
+     */
+    public static int aspectKind(int aspect) {
+        switch (aspect) {
+            case AspectEngine.CONJUNCTION:
+                return -1;
+            case AspectEngine.SEXTILE:
+            case AspectEngine.TRINE:
+                return ASPECT_SOFT;
+            case AspectEngine.SQUARE:
+            case AspectEngine.OPPOSITION:
+                return ASPECT_HARD;
+            default:
+                return ASPECT_OTHER;
+        }
+    }
+
+    /**
+     * 把各天体的标记沿圆周错开，使相邻两个至少相距 minDegrees，且保持原有的先后顺序
+     *
+     * 做法：按黄经排序后从最大的空隙处剪开，展成一条线；依次把天体加入，相邻“簇”之间放不下时合并，
+     * 每簇以成员真实位置的平均值为中心、按最小间距等距排开（合并后中心移动，可能再与前一簇合并，用栈处理）。
+     * 首尾两簇隔着剪开处也放不下时整体合为一簇。间距超过 360° / 天体数时按后者计算。
+     */
+    private void spread(double[] longitudes, double minDegrees, double[] out) {
+        int n = Body.COUNT;
+        double sep = Math.min(minDegrees, 360.0 / n);
+        for (int b = 0; b < n; b++) {
+            double lon = PlanetCalculator.normalizeDegrees(longitudes[b]);
+            int k = b;
+            while (k > 0 && PlanetCalculator.normalizeDegrees(longitudes[order[k - 1]]) > lon) {
+                order[k] = order[k - 1];
+                k--;
+            }
+            order[k] = b;
+        }
+        if (sep <= 0) {
+            for (int b = 0; b < n; b++) out[b] = PlanetCalculator.normalizeDegrees(longitudes[b]);
+            return;
+        }
+
+        // 最大空隙之后的天体作为起点
+        int cut = 0;
+        double maxGap = -1;
+        for (int k = 0; k < n; k++) {
+            double here = PlanetCalculator.normalizeDegrees(longitudes[order[k]]);
+            double next = PlanetCalculator.normalizeDegrees(longitudes[order[(k + 1) % n]]) + (k == n - 1 ? 360 : 0);
+            if (next - here > maxGap) {
+                maxGap = next - here;
+                cut = (k + 1) % n;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            int j = cut + k;
+            unrolled[k] = PlanetCalculator.normalizeDegrees(longitudes[order[j % n]]) + (j >= n ? 360 : 0);
+        }
+
+        int top = -1;
+        for (int k = 0; k < n; k++) {
+            top++;
+            clusterStart[top] = k;
+            clusterEnd[top] = k;
+            clusterSum[top] = unrolled[k];
+            while (top > 0 && clusterLeft(top, sep) - clusterRight(top - 1, sep) < sep) {
+                clusterEnd[top - 1] = clusterEnd[top];
+                clusterSum[top - 1] += clusterSum[top];
+                top--;
+            }
+        }
+        if (top > 0 && clusterLeft(0, sep) + 360 - clusterRight(top, sep) < sep) {
+            clusterEnd[0] = clusterEnd[top];
+            for (int c = 1; c <= top; c++) clusterSum[0] += clusterSum[c];
+            top = 0;
+        }
+
+        for (int c = 0; c <= top; c++) {
+            double left = clusterLeft(c, sep);
+            for (int k = clusterStart[c]; k <= clusterEnd[c]; k++) {
+                out[order[(cut + k) % n]] = PlanetCalculator.normalizeDegrees(left + (k - clusterStart[c]) * sep);
+            }
+        }
+    }
+
+    private double clusterLeft(int c, double sep) {
+        int count = clusterEnd[c] - clusterStart[c] + 1;
+        return clusterSum[c] / count - (count - 1) * sep * 0.5;
+    }
+
+    private double clusterRight(int c, double sep) {
+        int count = clusterEnd[c] - clusterStart[c] + 1;
+        return clusterSum[c] / count + (count - 1) * sep * 0.5;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.astrology;
+
+/**
+ * 分阶段、带记忆的星盘计算流水线
+ *
+ * 计算被拆成几个阶段，每个阶段记住自己的依赖键（输入值或上游阶段的版本号），
+ * 只有依赖键变化时才重算，否则直接复用上次的结果：
+ *
+ *   时间 jd ──→ T
+ *     ├─→ NUTATION：章动 Δψ/Δε 与真黄赤交角（按日期缓存，键为当天 0h UT 的日序号）
+ *     ├─→ SIDEREAL：格林威治视恒星时（键：jd + NUTATION 版本）
+ *     └─→ BODIES：太阳、月亮与行星的几何黄经（键：jd；在 TT = UT + ΔT 计算，见 DeltaT）
+ *   地点 lon/lat
+ *     └─→ LOCAL：地方恒星时、上升点与天顶（键：lon、lat + SIDEREAL 版本 + NUTATION 版本）
+ *           └─→ HOUSES：宫头（键：LOCAL 版本 + 宫制）
+ *
+ * 所以只换城市时只重算 LOCAL 与 HOUSES，只换宫制时只重算 HOUSES；只拖动时间时地点本身不用重新解析，
+ * 同一天内拖动时间也不会重算章动与黄赤交角。
+ *
+ * 说明：
+ * - 章动与黄赤交角取当天 0h UT 的值，与 PlanetCalculator.calculateFromLocal 逐时刻计算的结果相差不到 0.1″
+ * - 每个阶段的重算次数可通过 getRecomputeCount 查看，便于确认缓存是否生效
+ * - 非线程安全：一个流水线实例只应在一个线程中使用（例如 UI 线程或单个后台工作线程）
+ */
+public class ChartPipeline {
+
+    /**
+     * 流水线中的可缓存阶段
+     */
+    public enum Stage {
+        NUTATION, SIDEREAL, BODIES, LOCAL, HOUSES
+    }
+
+    private final Vsop87 engine;
+    private final long[] recomputeCount = new long[Stage.values().length];
+
+    // 输入
+    private double jd = Double.NaN;
+    private double lon = Double.NaN;
+    private double lat = Double.NaN;
+    private HouseSystem houseSystem = PlanetCalculator.DEFAULT_HOUSE_SYSTEM;
+
+    // NUTATION：键为日序号
+    private long nutationDay = Long.MIN_VALUE;
+    private long nutationVersion;
+    private final double[] nutation = new double[2];
+    private double trueObliquity;
+
+    // SIDEREAL：键为 jd 与 NUTATION 版本
+    private double siderealJd = Double.NaN;
+    private long siderealNutationVersion = -1;
+    private long siderealVersion;
+    private double apparentSidereal;
+
+    // BODIES：键为 jd（几何黄经，不含章动；章动在输出时加上）
+    private double bodiesJd = Double.NaN;
+    private final double[] bodies = new double[Body.COUNT];
+
+    // LOCAL：键为 lon、lat 与上游版本
+    private double localLon = Double.NaN;
+    private double localLat = Double.NaN;
+    private long localSiderealVersion = -1;
+    private long localNutationVersion = -1;
+    private long localVersion;
+    private double localSidereal;
+    private double ascendant;
+    private double midheaven;
+
+    // HOUSES：键为 LOCAL 版本与宫制
+    private long housesLocalVersion = -1;
+    private HouseSystem housesSystem;
+    private HouseSystem housesActualSystem;
+    private final double[] houseCusps = new double[12];
+
+    public ChartPipeline() {
+        this(PlanetCalculator.DEFAULT_ACCURACY);
+    }
+
+    /**
+     * @param accuracy 太阳与行星的 VSOP87 精度档位（时间滑块等高频场景可用较低档位）
+     */
+    public ChartPipeline(Vsop87.Accuracy accuracy) {
+        this.engine = Vsop87.forAccuracy(accuracy);
+    }
+
+    /**
+     * 设置时刻（儒略日，UT）
+     */
+    public ChartPipeline setTime(double jd) {
+        this.jd = jd;
+        return this;
+    }
+
+    /**
+     * 设置地点（度，东经、北纬为正）
+     */
+    public ChartPipeline setLocation(double lon, double lat) {
+        this.lon = lon;
+        this.lat = lat;
+        return this;
+    }
+
+    /**
+     * 设置宫制（默认 PlanetCalculator.DEFAULT_HOUSE_SYSTEM）
+     */
+    public ChartPipeline setHouseSystem(HouseSystem houseSystem) {
+        if (houseSystem == null) throw new IllegalArgumentException("宫制不能为 null");
+        this.houseSystem = houseSystem;
+        return this;
+    }
+
+    public double getTime() {
+        return jd;
+    }
+
+    /**
+     * 按需重算过期的阶段，把结果写入 out 并返回 out
+     *
+     * @throws IllegalStateException 尚未设置时间或地点
+     */
+    public PlanetCalculator.CalcResult compute(PlanetCalculator.CalcResult out) {
+        if (Double.isNaN(jd) || Double.isNaN(lon) || Double.isNaN(lat)) {
+            throw new IllegalStateException("计算前必须先设置时间与地点");
+        }
+        double T = (jd - 2451545.0) / 36525.0;
+
+        // NUTATION（按日）
+        long day = (long) Math.floor(jd - 0.5);
+        if (day != nutationDay) {
+            double dayT = (day + 0.5 - 2451545.0) / 36525.0;
+            PlanetCalculator.nutation(dayT, nutation);
+            trueObliquity = PlanetCalculator.obliquityFromT(dayT) + nutation[1];
+            nutationDay = day;
+            nutationVersion++;
+            recomputeCount[Stage.NUTATION.ordinal()]++;
+        }
+
+        // SIDEREAL
+        if (jd != siderealJd || siderealNutationVersion != nutationVersion) {
+            apparentSidereal = PlanetCalculator.apparentSiderealTime(jd, T, nutation[0], trueObliquity);
+            siderealJd = jd;
+            siderealNutationVersion = nutationVersion;
+            siderealVersion++;
+            recomputeCount[Stage.SIDEREAL.ordinal()]++;
+        }
+
+        // BODIES
+        if (jd != bodiesJd) {
+            double jde = DeltaT.toTt(jd);
+            engine.geocentricLongitudes(jde, bodies);
+            long t0 = StageTimings.start();
+            bodies[Body.MOON.ordinal()] = LunarTheory.longitude(jde);
+            StageTimings.stop(StageTimings.Stage.MOON, t0);
+            bodiesJd = jd;
+            recomputeCount[Stage.BODIES.ordinal()]++;
+        }
+
+        // LOCAL 与 HOUSES 合计为 StageTimings 的 HOUSES 阶段（两者都未重算时不记录）
+        long housesStart = StageTimings.start();
+        boolean housesRecomputed = false;
+        if (lon != localLon || lat != localLat
+                || localSiderealVersion != siderealVersion || localNutationVersion != nutationVersion) {
+            localSidereal = PlanetCalculator.normalizeDegrees(apparentSidereal + lon);
+            ascendant = PlanetCalculator.ascendantFromLst(localSidereal, lat, trueObliquity);
+            midheaven = HouseEngine.midheaven(localSidereal, trueObliquity);
+            localLon = lon;
+            localLat = lat;
+            localSiderealVersion = siderealVersion;
+            localNutationVersion = nutationVersion;
+            localVersion++;
+            recomputeCount[Stage.LOCAL.ordinal()]++;
+            housesRecomputed = true;
+        }
+
+        // HOUSES
+        if (housesLocalVersion != localVersion || housesSystem != houseSystem) {
+            housesActualSystem = HouseEngine.cusps(houseSystem, localSidereal, localLat, trueObliquity, houseCusps);
+            housesLocalVersion = localVersion;
+            housesSystem = houseSystem;
+            recomputeCount[Stage.HOUSES.ordinal()]++;
+            housesRecomputed = true;
+        }
+        if (housesRecomputed) StageTimings.stop(StageTimings.Stage.HOUSES, housesStart);
+
+        out.julianDay = jd;
+        System.arraycopy(bodies, 0, out.longitudes, 0, Body.COUNT);
+        PlanetCalculator.applyNutation(out.longitudes, nutation[0]);
+        out.ascendant = ascendant;
+        out.midheaven = midheaven;
+        out.houseSystem = housesActualSystem;
+        System.arraycopy(houseCusps, 0, out.houseCusps, 0, houseCusps.length);
+        return out;
+    }
+
+    /**
+     * 某阶段自创建（或上次 resetCounters）以来的重算次数
+     */
+    public long getRecomputeCount(Stage stage) {
+        return recomputeCount[stage.ordinal()];
+    }
+
+    public void resetCounters() {
+        for (int i = 0; i < recomputeCount.length; i++) recomputeCount[i] = 0;
+    }
+
+    /**
+     * 丢弃所有缓存（例如切换精度档位之外的全局设置后）
+     */
+    public void invalidate() {
+        nutationDay = Long.MIN_VALUE;
+        siderealJd = Double.NaN;
+        bodiesJd = Double.NaN;
+        localLon = Double.NaN;
+        housesLocalVersion = -1;
+    }
+}
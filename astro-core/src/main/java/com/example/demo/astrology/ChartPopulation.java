@@ -0,0 +1,176 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 大量已存星盘的列式存储：每个天体一列 float[]（黄经，度，[0, 360)），另有一列 long 编号
+ *
+ * 说明：
+ * - 供合盘匹配（SynastryScorer）这类“一张对全体”的扫描使用：同一天体的黄经连续存放，
+ *   扫描时逐列顺序读取，每张星盘只占 Body.COUNT × 4 + 8 字节（50 万张约 24 MB），没有对象头与装箱
+ * - float 的精度约 3e-5 度，对相位判断绰绰有余
+ * - 容量不足时按倍数扩容；只追加，不支持删除（重建即可）
+ * - 追加不是线程安全的；建好后只读，可以在多个线程中同时扫描
+ *
+ * 文件格式（write / read，大端序）：int MAGIC, int VERSION, int size, size 个 long 编号，
+ * 随后按 Body 顺序每个天体 size 个 float
+ */
+public class ChartPopulation {
+
+    public static final int MAGIC = 0x504F5031; // "POP1"
+    public static final int VERSION = 1;
+
+    // addComputed 每次批量计算的星盘数（double 临时数组的大小）
+    private static final int COMPUTE_CHUNK = 65536;
+
+    private long[] ids;
+    private final float[][] longitudes = new float[Body.COUNT][];
+    private int size;
+
+    public ChartPopulation() {
+        this(1024);
+    }
+
+    public ChartPopulation(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        ids = new long[capacity];
+        for (int b = 0; b < Body.COUNT; b++) longitudes[b] = new float[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int index) {
+        return ids[index];
+    }
+
+    public float longitude(Body body, int index) {
+        return longitudes[body.ordinal()][index];
+    }
+
+    /**
+     * 某天体的整列（长度可能大于 size，只有前 size 个有效）；调用方不要修改
+     */
+    float[] column(int body) {
+        return longitudes[body];
+    }
+
+    /**
+     * 取出第 index 张星盘的全部黄经，写入 out（下标为 Body.ordinal()）并返回 out
+     */
+    public double[] get(int index, double[] out) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index);
+        for (int b = 0; b < Body.COUNT; b++) out[b] = longitudes[b][index];
+        return out;
+    }
+
+    /**
+     * 追加一张星盘
+     *
+     * @param longitudes 各天体黄经（度），下标为 Body.ordinal()，必须都是有限数
+     * @return 新星盘的下标
+     */
+    public int add(long id, double[] longitudes) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        for (int b = 0; b < Body.COUNT; b++) this.longitudes[b][size] = toColumn(longitudes[b]);
+        return size++;
+    }
+
+    public int add(long id, PlanetCalculator.CalcResult result) {
+        return add(id, result.longitudes);
+    }
+
+    /**
+     * 批量计算并追加：按 UT 儒略日计算各天体黄经（PlanetCalculator.calculateBatchParallel，不算宫位），
+     * 分段进行，临时数组大小固定
+     *
+     * @param pool 为 null 时使用 ForkJoinPool.commonPool()
+     */
+    public void addComputed(long[] ids, double[] jd, int count, Vsop87.Accuracy accuracy, ForkJoinPool pool) {
+        if (ids.length < count || jd.length < count) throw new IllegalArgumentException("ids / jd 长度不足 " + count);
+        ensureCapacity(size + count);
+        int chunk = Math.min(count, COMPUTE_CHUNK);
+        double[][] rows = new double[Body.COUNT][chunk];
+        double[] chunkJd = new double[chunk];
+        for (int from = 0; from < count; from += chunk) {
+            int n = Math.min(chunk, count - from);
+            System.arraycopy(jd, from, chunkJd, 0, n);
+            PlanetCalculator.calculateBatchParallel(chunkJd, null, null, n, rows, null, accuracy, pool);
+            for (int i = 0; i < n; i++) this.ids[size + i] = ids[from + i];
+            for (int b = 0; b < Body.COUNT; b++) {
+                float[] column = longitudes[b];
+                double[] row = rows[b];
+                for (int i = 0; i < n; i++) column[size + i] = toColumn(row[i]);
+            }
+            size += n;
+        }
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        for (int b = 0; b < Body.COUNT; b++) longitudes[b] = Arrays.copyOf(longitudes[b], newCapacity);
+    }
+
+    /**
+     * 规范到 [0, 360)；舍入成 float 后恰为 360 的记为 0，保证扫描时查表下标不越界
+     */
+    private static float toColumn(double longitude) {
+        if (Double.isNaN(longitude) || Double.isInfinite(longitude)) {
+            throw new IllegalArgumentException("黄经必须是有限数: " + longitude);
+        }
+        float f = (float) PlanetCalculator.normalizeDegrees(longitude);
+        return f >= 360f ? 0f : f;
+    }
+
+    /**
+     * 写出全部星盘（不关闭输出流）
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(size);
+        for (int i = 0; i < size; i++) data.writeLong(ids[i]);
+        for (int b = 0; b < Body.COUNT; b++) {
+            float[] column = longitudes[b];
+            for (int i = 0; i < size; i++) data.writeFloat(column[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * 读取 write 写出的数据（不关闭输入流）
+     */
+    public static ChartPopulation read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (data.readInt() != MAGIC) throw new IOException("不是星盘库文件");
+        int version = data.readInt();
+        if (version != VERSION) throw new IOException("不支持的星盘库版本: " + version);
+        int size = data.readInt();
+        if (size < 0) throw new IOException("星盘库已损坏");
+        ChartPopulation p = new ChartPopulation(size);
+        for (int i = 0; i < size; i++) p.ids[i] = data.readLong();
+        for (int b = 0; b < Body.COUNT; b++) {
+            float[] column = p.longitudes[b];
+            for (int i = 0; i < size; i++) {
+                float v = data.readFloat();
+                if (!(v >= 0f && v < 360f)) throw new IOException("星盘库已损坏: 黄经 " + v);
+                column[i] = v;
+            }
+        }
+        p.size = size;
+        return p;
+    }
+}
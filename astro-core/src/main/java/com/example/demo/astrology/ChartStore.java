@@ -0,0 +1,664 @@
+package com.example.demo.astrology;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * 已保存星盘的存档：定长二进制记录，只追加，内存映射
+ *
+ * 说明：
+ * - 每张星盘一条 RECORD_SIZE 字节的记录，含输入（名字、出生地、时区、当地日期时间、UT 儒略日、经纬度、宫制）
+ *   与计算结果（各天体黄经、上升点、天顶、宫头、实际宫制）；重新打开时直接从映射中读出 CalcResult，不重算、不解析文本
+ * - 只追加：新记录写在末尾，先写各字段、最后写状态字，进程在写到一半时被杀掉，打开时这条记录被当作不存在；
+ *   删除只把状态字改为 DELETED（墓碑），空间由 compact 回收
+ * - 打开时顺序扫描一遍记录（每条只读状态、儒略日与保存时算好的名字哈希三个字段），在内存中建立两个索引：
+ *   名字（哈希 → 同名记录链，查询时再比较名字字节）与儒略日（按秒量化后排序的 long 数组，低 SLOT_BITS 位为记录号）
+ * - 文件头记录格式版本与记录长度：字段只在记录末尾增加，旧版本的文件按其记录长度读取（新增字段取默认值），
+ *   打开时发现版本较旧就用 compact 改写为当前格式；版本高于 VERSION 的文件拒绝打开
+ * - 写入不主动落盘（页缓存中的数据在进程崩溃后仍会写回），断电保护需要调用 flush
+ *
+ * 记录用“句柄”（记录号）访问，compact 之后句柄失效，应重新查询；id 在存档内唯一且不变。
+ * 方法都已同步，可以在多个线程中使用。
+ *
+ * 文件格式（大端序）：HEADER_SIZE 字节的文件头（int MAGIC, int VERSION, int 记录长度, int 保留, long 下一个 id, long 保留），
+ * 之后是连续的记录（偏移见 OFF_* 常量），文件末尾预留的空间全为 0（状态字为 0 即日志末尾）。
+ * 宫制按 HouseSystem 的序号保存，天体按 Body 的顺序保存，两者的顺序或数量变化时需要提高 VERSION。
+ */
+public class ChartStore implements Closeable {
+
+    public static final int MAGIC = 0x43485331; // "CHS1"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 448;
+
+    // 文本字段的最大字节数（UTF-8，超出时按字符边界截断）
+    public static final int NAME_BYTES = 64;
+    public static final int PLACE_BYTES = 64;
+    public static final int ZONE_BYTES = 40;
+    public static final int DATE_BYTES = 12;
+    public static final int TIME_BYTES = 12;
+
+    // 记录状态：0 为未使用（日志末尾）
+    private static final int STATE_LIVE = 1;
+    private static final int STATE_DELETED = 2;
+
+    // 文件头中的偏移
+    private static final int HEAD_VERSION = 4;
+    private static final int HEAD_RECORD_SIZE = 8;
+    private static final int HEAD_NEXT_ID = 16;
+
+    // 记录中的偏移
+    private static final int OFF_STATE = 0;
+    private static final int OFF_REQUESTED_SYSTEM = 4;
+    private static final int OFF_RESULT_SYSTEM = 5;
+    private static final int OFF_NAME_LENGTH = 6;
+    private static final int OFF_PLACE_LENGTH = 7;
+    private static final int OFF_ZONE_LENGTH = 8;
+    private static final int OFF_DATE_LENGTH = 9;
+    private static final int OFF_TIME_LENGTH = 10;
+    private static final int OFF_NAME_HASH = 12;
+    private static final int OFF_ID = 16;
+    private static final int OFF_SAVED_AT = 24;
+    private static final int OFF_JD = 32;
+    private static final int OFF_LON = 40;
+    private static final int OFF_LAT = 48;
+    private static final int OFF_RESULT_JD = 56;
+    private static final int OFF_ASC = 64;
+    private static final int OFF_MC = 72;
+    private static final int OFF_LONGITUDES = 80;
+    private static final int OFF_CUSPS = OFF_LONGITUDES + Body.COUNT * 8;
+    private static final int OFF_NAME = OFF_CUSPS + 12 * 8;
+    private static final int OFF_PLACE = OFF_NAME + NAME_BYTES;
+    private static final int OFF_ZONE = OFF_PLACE + PLACE_BYTES;
+    private static final int OFF_DATE = OFF_ZONE + ZONE_BYTES;
+    private static final int OFF_TIME = OFF_DATE + DATE_BYTES;
+
+    static {
+        if (OFF_TIME + TIME_BYTES != RECORD_SIZE) throw new AssertionError("记录布局与 RECORD_SIZE 不一致");
+    }
+
+    // 儒略日索引：键 = 按秒量化的儒略日 << SLOT_BITS | 记录号
+    private static final int SLOT_BITS = 24;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    private static final long MAX_JD_SECONDS = (1L << (63 - SLOT_BITS)) - 1;
+    // 判断“同一张星盘”时经纬度的量化步长（度），与 ChartComputationService 的缓存相同
+    private static final double ANGLE_QUANTUM = 1e-4;
+    private static final int MIN_CAPACITY = 64;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+    // 文件的格式版本与记录长度（旧版本可能短于 RECORD_SIZE，打开后即改写为当前格式）
+    private int version;
+    private int recordSize;
+    private int capacity;
+    private int slotCount;
+    private int liveCount;
+    private long nextId;
+
+    // 名字索引：每条记录同名的上一条记录（-1 表示没有）；开放寻址表 名字哈希 → 最新一条记录号 + 1
+    private int[] prevSameName = new int[0];
+    private int[] nameKeys;
+    private int[] nameHeads;
+    private int nameCount;
+
+    // 儒略日索引（升序，含已删除的记录，查询时跳过）
+    private long[] jdKeys = new long[0];
+
+    // 查询时复用的名字字节
+    private final byte[] scratch = new byte[NAME_BYTES];
+
+    private ChartStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 打开存档（不存在时新建）
+     *
+     * @throws IOException 文件不是星盘存档，或版本高于本程序支持的版本
+     */
+    public static ChartStore open(File file) throws IOException {
+        ChartStore store = new ChartStore(file);
+        try {
+            store.map();
+            if (store.version < VERSION || store.recordSize != RECORD_SIZE) store.compact();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void map() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        long length = raf.length();
+        if (length == 0) {
+            length = HEADER_SIZE + (long) MIN_CAPACITY * RECORD_SIZE;
+            raf.setLength(length);
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buf.putInt(0, MAGIC);
+            buf.putInt(HEAD_VERSION, VERSION);
+            buf.putInt(HEAD_RECORD_SIZE, RECORD_SIZE);
+            buf.putLong(HEAD_NEXT_ID, 1);
+        } else {
+            if (length < HEADER_SIZE) throw new IOException("不是星盘存档: " + file);
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (buf.getInt(0) != MAGIC) throw new IOException("不是星盘存档: " + file);
+        }
+        version = buf.getInt(HEAD_VERSION);
+        if (version > VERSION) throw new IOException("存档版本 " + version + " 高于支持的版本 " + VERSION);
+        recordSize = buf.getInt(HEAD_RECORD_SIZE);
+        // 打开时要读的字段（状态、id、儒略日、名字）在所有版本中都存在
+        if (recordSize < OFF_NAME + NAME_BYTES || recordSize > RECORD_SIZE) {
+            throw new IOException("记录长度不正确: " + recordSize);
+        }
+        capacity = (int) Math.min((length - HEADER_SIZE) / recordSize, 1L << SLOT_BITS);
+        load();
+    }
+
+    /**
+     * 扫描全部记录，重建计数与索引
+     */
+    private void load() {
+        nextId = buf.getLong(HEAD_NEXT_ID);
+        slotCount = 0;
+        liveCount = 0;
+        prevSameName = new int[capacity];
+        int tableSize = 16;
+        while (tableSize < capacity) tableSize <<= 1;
+        nameKeys = new int[tableSize];
+        nameHeads = new int[tableSize];
+        nameCount = 0;
+        long[] keys = new long[capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = offset(slot);
+            int state = buf.getInt(base + OFF_STATE);
+            if (state != STATE_LIVE && state != STATE_DELETED) break;
+            if (state == STATE_LIVE) liveCount++;
+            indexName(slot, buf.getInt(base + OFF_NAME_HASH));
+            keys[slot] = jdKey(buf.getDouble(base + OFF_JD), slot);
+            slotCount++;
+        }
+        // 追加时先写记录、后写文件头，中断时文件头里的下一个 id 可能还是旧的；id 随记录号递增，看最后一条即可
+        if (slotCount > 0) nextId = Math.max(nextId, buf.getLong(offset(slotCount - 1) + OFF_ID) + 1);
+        jdKeys = Arrays.copyOf(keys, Math.max(slotCount, MIN_CAPACITY));
+        Arrays.sort(jdKeys, 0, slotCount);
+    }
+
+    private int offset(int slot) {
+        return HEADER_SIZE + slot * recordSize;
+    }
+
+    /**
+     * 有效的星盘数（不含已删除的）
+     */
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    /**
+     * 已删除而尚未回收的记录数
+     */
+    public synchronized int getDeletedCount() {
+        return slotCount - liveCount;
+    }
+
+    /**
+     * 已删除的记录超过一半（且至少 MIN_CAPACITY 条）时值得 compact
+     */
+    public synchronized boolean needsCompaction() {
+        int deleted = slotCount - liveCount;
+        return deleted >= MIN_CAPACITY && deleted > liveCount;
+    }
+
+    /**
+     * 保存一张星盘，返回句柄
+     *
+     * @param jd     输入的 UT 儒略日
+     * @param system 请求的宫制（实际宫制在 result.houseSystem 中）
+     * @param place  出生地名称，date / time 为当地日期时间的原文（用于重新填写输入框），都可为 null
+     */
+    public synchronized int append(String name, String place, String zone, String date, String time,
+                                   double jd, double lon, double lat, HouseSystem system,
+                                   PlanetCalculator.CalcResult result) throws IOException {
+        checkOpen();
+        if (slotCount == capacity) grow();
+        int slot = slotCount;
+        int base = offset(slot);
+        buf.put(base + OFF_REQUESTED_SYSTEM, (byte) system.ordinal());
+        buf.put(base + OFF_RESULT_SYSTEM, (byte) (result.houseSystem == null ? -1 : result.houseSystem.ordinal()));
+        buf.putLong(base + OFF_ID, nextId);
+        buf.putLong(base + OFF_SAVED_AT, System.currentTimeMillis());
+        buf.putDouble(base + OFF_JD, jd);
+        buf.putDouble(base + OFF_LON, lon);
+        buf.putDouble(base + OFF_LAT, lat);
+        buf.putDouble(base + OFF_RESULT_JD, result.julianDay);
+        buf.putDouble(base + OFF_ASC, result.ascendant);
+        buf.putDouble(base + OFF_MC, result.midheaven);
+        for (int b = 0; b < Body.COUNT; b++) buf.putDouble(base + OFF_LONGITUDES + b * 8, result.longitudes[b]);
+        for (int i = 0; i < 12; i++) buf.putDouble(base + OFF_CUSPS + i * 8, result.houseCusps[i]);
+        int nameHash = putText(base + OFF_NAME, base + OFF_NAME_LENGTH, NAME_BYTES, name);
+        buf.putInt(base + OFF_NAME_HASH, nameHash);
+        putText(base + OFF_PLACE, base + OFF_PLACE_LENGTH, PLACE_BYTES, place);
+        putText(base + OFF_ZONE, base + OFF_ZONE_LENGTH, ZONE_BYTES, zone);
+        putText(base + OFF_DATE, base + OFF_DATE_LENGTH, DATE_BYTES, date);
+        putText(base + OFF_TIME, base + OFF_TIME_LENGTH, TIME_BYTES, time);
+        // 状态字最后写：在此之前中断，这条记录在下次打开时不存在
+        buf.putInt(base + OFF_STATE, STATE_LIVE);
+        buf.putLong(HEAD_NEXT_ID, ++nextId);
+
+        slotCount++;
+        liveCount++;
+        indexName(slot, nameHash);
+        if (slotCount > jdKeys.length) jdKeys = Arrays.copyOf(jdKeys, Math.max(slotCount, jdKeys.length * 2));
+        long key = jdKey(jd, slot);
+        int pos = Arrays.binarySearch(jdKeys, 0, slot, key);
+        pos = -pos - 1;
+        System.arraycopy(jdKeys, pos, jdKeys, pos + 1, slot - pos);
+        jdKeys[pos] = key;
+        return slot;
+    }
+
+    /**
+     * 删除（只写墓碑，compact 时回收空间）；已删除时返回 false
+     */
+    public synchronized boolean delete(int handle) {
+        checkHandle(handle);
+        int base = offset(handle);
+        if (buf.getInt(base + OFF_STATE) != STATE_LIVE) return false;
+        buf.putInt(base + OFF_STATE, STATE_DELETED);
+        liveCount--;
+        return true;
+    }
+
+    /**
+     * 查找与输入相同的已保存星盘（儒略日按秒、经纬度按 1e-4 度比较，宫制与名字须相同），返回最新的一条的句柄，没有时返回 -1
+     */
+    public synchronized int find(double jd, double lon, double lat, HouseSystem system, String name) {
+        checkOpen();
+        long seconds = jdSeconds(jd);
+        int nameLength = encode(name, scratch);
+        long qLon = Math.round(lon / ANGLE_QUANTUM), qLat = Math.round(lat / ANGLE_QUANTUM);
+        int best = -1;
+        int i = lowerBound(seconds << SLOT_BITS);
+        for (; i < slotCount && (jdKeys[i] >>> SLOT_BITS) == seconds; i++) {
+            int slot = (int) (jdKeys[i] & SLOT_MASK);
+            int base = offset(slot);
+            if (slot <= best || buf.getInt(base + OFF_STATE) != STATE_LIVE) continue;
+            if (buf.get(base + OFF_REQUESTED_SYSTEM) != system.ordinal()) continue;
+            if (Math.round(buf.getDouble(base + OFF_LON) / ANGLE_QUANTUM) != qLon
+                    || Math.round(buf.getDouble(base + OFF_LAT) / ANGLE_QUANTUM) != qLat) continue;
+            if (!nameEquals(base, scratch, nameLength)) continue;
+            best = slot;
+        }
+        return best;
+    }
+
+    /**
+     * 名字为 name 的全部星盘，从新到旧
+     */
+    public synchronized int[] findByName(String name) {
+        checkOpen();
+        int length = encode(name, scratch);
+        int h = hash(scratch, length);
+        int count = 0;
+        int[] out = new int[4];
+        for (int slot = nameHead(h); slot >= 0; slot = prevSameName[slot]) {
+            int base = offset(slot);
+            if (buf.getInt(base + OFF_STATE) != STATE_LIVE || !nameEquals(base, scratch, length)) continue;
+            if (count == out.length) out = Arrays.copyOf(out, count * 2);
+            out[count++] = slot;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /**
+     * 儒略日（UT）在 [fromJd, toJd] 之间的全部星盘，按儒略日升序
+     */
+    public synchronized int[] findByJulianDay(double fromJd, double toJd) {
+        checkOpen();
+        long last = jdSeconds(toJd);
+        int count = 0;
+        int[] out = new int[16];
+        for (int i = lowerBound(jdSeconds(fromJd) << SLOT_BITS); i < slotCount && (jdKeys[i] >>> SLOT_BITS) <= last; i++) {
+            int slot = (int) (jdKeys[i] & SLOT_MASK);
+            int base = offset(slot);
+            double jd = buf.getDouble(base + OFF_JD);
+            if (buf.getInt(base + OFF_STATE) != STATE_LIVE || jd < fromJd || jd > toJd) continue;
+            if (count == out.length) out = Arrays.copyOf(out, count * 2);
+            out[count++] = slot;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /**
+     * 最近保存的至多 limit 张星盘，从新到旧
+     */
+    public synchronized int[] recent(int limit) {
+        checkOpen();
+        int[] out = new int[Math.min(limit, liveCount)];
+        int count = 0;
+        for (int slot = slotCount - 1; slot >= 0 && count < out.length; slot--) {
+            if (buf.getInt(offset(slot) + OFF_STATE) == STATE_LIVE) out[count++] = slot;
+        }
+        return out;
+    }
+
+    /**
+     * 按 id 查找（id 随保存顺序递增，记录也按保存顺序排列，二分即可），没有或已删除时返回 -1
+     */
+    public synchronized int findById(long id) {
+        checkOpen();
+        int lo = 0, hi = slotCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midId = buf.getLong(offset(mid) + OFF_ID);
+            if (midId < id) lo = mid + 1;
+            else if (midId > id) hi = mid - 1;
+            else return buf.getInt(offset(mid) + OFF_STATE) == STATE_LIVE ? mid : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * 读出保存的计算结果（不重算）
+     */
+    public synchronized PlanetCalculator.CalcResult read(int handle, PlanetCalculator.CalcResult out) {
+        checkHandle(handle);
+        int base = offset(handle);
+        for (int b = 0; b < Body.COUNT; b++) out.longitudes[b] = buf.getDouble(base + OFF_LONGITUDES + b * 8);
+        for (int i = 0; i < 12; i++) out.houseCusps[i] = buf.getDouble(base + OFF_CUSPS + i * 8);
+        out.ascendant = buf.getDouble(base + OFF_ASC);
+        out.midheaven = buf.getDouble(base + OFF_MC);
+        out.julianDay = buf.getDouble(base + OFF_RESULT_JD);
+        int system = buf.get(base + OFF_RESULT_SYSTEM);
+        out.houseSystem = system < 0 ? null : HouseSystem.VALUES[system];
+        return out;
+    }
+
+    public synchronized long getId(int handle) {
+        checkHandle(handle);
+        return buf.getLong(offset(handle) + OFF_ID);
+    }
+
+    /**
+     * 保存时刻（毫秒，System.currentTimeMillis）
+     */
+    public synchronized long getSavedAt(int handle) {
+        checkHandle(handle);
+        return buf.getLong(offset(handle) + OFF_SAVED_AT);
+    }
+
+    public synchronized double getJulianDay(int handle) {
+        checkHandle(handle);
+        return buf.getDouble(offset(handle) + OFF_JD);
+    }
+
+    public synchronized double getLongitude(int handle) {
+        checkHandle(handle);
+        return buf.getDouble(offset(handle) + OFF_LON);
+    }
+
+    public synchronized double getLatitude(int handle) {
+        checkHandle(handle);
+        return buf.getDouble(offset(handle) + OFF_LAT);
+    }
+
+    /**
+     * 保存时请求的宫制
+     */
+    public synchronized HouseSystem getHouseSystem(int handle) {
+        checkHandle(handle);
+        return HouseSystem.VALUES[buf.get(offset(handle) + OFF_REQUESTED_SYSTEM)];
+    }
+
+    public synchronized String getName(int handle) {
+        return text(handle, OFF_NAME, OFF_NAME_LENGTH);
+    }
+
+    public synchronized String getPlace(int handle) {
+        return text(handle, OFF_PLACE, OFF_PLACE_LENGTH);
+    }
+
+    public synchronized String getZone(int handle) {
+        return text(handle, OFF_ZONE, OFF_ZONE_LENGTH);
+    }
+
+    public synchronized String getDate(int handle) {
+        return text(handle, OFF_DATE, OFF_DATE_LENGTH);
+    }
+
+    public synchronized String getTime(int handle) {
+        return text(handle, OFF_TIME, OFF_TIME_LENGTH);
+    }
+
+    /**
+     * 回收已删除记录的空间（旧版本的文件同时改写为当前格式）：有效记录按原顺序写入临时文件，落盘后替换原文件。
+     * 之后所有句柄失效。返回回收的记录数。
+     */
+    public synchronized int compact() throws IOException {
+        checkOpen();
+        File tmp = new File(file.getPath() + ".tmp");
+        int removed = slotCount - liveCount;
+        RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+        try {
+            FileChannel outChannel = out.getChannel();
+            int newCapacity = MIN_CAPACITY;
+            while (newCapacity < liveCount + liveCount / 4) newCapacity <<= 1;
+            out.setLength(0);
+            out.setLength(HEADER_SIZE + (long) newCapacity * RECORD_SIZE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.putInt(HEAD_VERSION, VERSION);
+            header.putInt(HEAD_RECORD_SIZE, RECORD_SIZE);
+            header.putLong(HEAD_NEXT_ID, nextId);
+            writeFully(outChannel, header, 0);
+
+            // 旧格式的记录短于 RECORD_SIZE，其后新增的字段保持为 0
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            long position = HEADER_SIZE;
+            for (int slot = 0; slot < slotCount; slot++) {
+                int base = offset(slot);
+                if (buf.getInt(base + OFF_STATE) != STATE_LIVE) continue;
+                Arrays.fill(record.array(), (byte) 0);
+                ByteBuffer src = buf.duplicate();
+                src.position(base);
+                src.get(record.array(), 0, recordSize);
+                writeFully(outChannel, record, position);
+                position += RECORD_SIZE;
+            }
+            outChannel.force(true);
+        } finally {
+            out.close();
+        }
+
+        unmap();
+        if (!tmp.renameTo(file)) {
+            // 原文件仍然完整，重新打开即可继续使用
+            map();
+            throw new IOException("无法替换 " + file);
+        }
+        map();
+        return removed;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+        data.clear();
+        while (data.hasRemaining()) position += channel.write(data, position);
+    }
+
+    /**
+     * 把已写入的记录落盘
+     */
+    public synchronized void flush() {
+        if (buf != null) buf.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        unmap();
+    }
+
+    private void unmap() throws IOException {
+        // MappedByteBuffer 无法显式解除映射，置空后由 GC 回收
+        buf = null;
+        if (raf != null) {
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * 容量翻倍并重新映射
+     */
+    private void grow() throws IOException {
+        if (capacity >= (1 << SLOT_BITS)) throw new IOException("存档已满（" + capacity + " 条）");
+        int newCapacity = Math.min(Math.max(capacity * 2, MIN_CAPACITY), 1 << SLOT_BITS);
+        long length = HEADER_SIZE + (long) newCapacity * recordSize;
+        raf.setLength(length);
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        capacity = newCapacity;
+        prevSameName = Arrays.copyOf(prevSameName, newCapacity);
+    }
+
+    private void checkOpen() {
+        if (buf == null) throw new IllegalStateException("存档已关闭");
+    }
+
+    private void checkHandle(int handle) {
+        checkOpen();
+        if (handle < 0 || handle >= slotCount) throw new IndexOutOfBoundsException("句柄 " + handle + "，共 " + slotCount);
+    }
+
+    private static long jdSeconds(double jd) {
+        double seconds = Math.rint(jd * 86400.0);
+        if (!(seconds > 0)) return 0;
+        return Math.min((long) seconds, MAX_JD_SECONDS);
+    }
+
+    private static long jdKey(double jd, int slot) {
+        return jdSeconds(jd) << SLOT_BITS | slot;
+    }
+
+    private int lowerBound(long key) {
+        int lo = 0, hi = slotCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (jdKeys[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // ---- 名字索引 ----
+
+    private void indexName(int slot, int h) {
+        int mask = nameKeys.length - 1;
+        int i = mix(h) & mask;
+        while (nameHeads[i] != 0 && nameKeys[i] != h) i = (i + 1) & mask;
+        if (nameHeads[i] == 0) {
+            nameKeys[i] = h;
+            nameCount++;
+        }
+        prevSameName[slot] = nameHeads[i] - 1;
+        nameHeads[i] = slot + 1;
+        if (nameCount * 2 > nameKeys.length) rehashNames();
+    }
+
+    private int nameHead(int h) {
+        int mask = nameKeys.length - 1;
+        int i = mix(h) & mask;
+        while (nameHeads[i] != 0) {
+            if (nameKeys[i] == h) return nameHeads[i] - 1;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehashNames() {
+        int[] oldKeys = nameKeys;
+        int[] oldHeads = nameHeads;
+        nameKeys = new int[oldKeys.length * 2];
+        nameHeads = new int[oldKeys.length * 2];
+        int mask = nameKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldHeads[j] == 0) continue;
+            int i = mix(oldKeys[j]) & mask;
+            while (nameHeads[i] != 0) i = (i + 1) & mask;
+            nameKeys[i] = oldKeys[j];
+            nameHeads[i] = oldHeads[j];
+        }
+    }
+
+    private boolean nameEquals(int base, byte[] name, int length) {
+        if ((buf.get(base + OFF_NAME_LENGTH) & 0xFF) != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (buf.get(base + OFF_NAME + i) != name[i]) return false;
+        }
+        return true;
+    }
+
+    // FNV-1a 32 位（保存在记录中，格式的一部分，不能改）
+    private static int hash(byte[] b, int length) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < length; i++) h = (h ^ (b[i] & 0xFF)) * 0x01000193;
+        return h;
+    }
+
+    // 开放寻址表的下标：FNV 的低位分布较差，再打散一次
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    // ---- 文本字段 ----
+
+    /**
+     * s 的 UTF-8 编码写入 out（null 视为空串），超出 out 长度时在字符边界截断；返回字节数
+     */
+    private static int encode(String s, byte[] out) {
+        if (s == null || s.isEmpty()) return 0;
+        byte[] bytes = s.getBytes(UTF8);
+        int length = bytes.length;
+        if (length > out.length) {
+            length = out.length;
+            // 不截断在多字节字符中间：退到下一个字符的首字节之前
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) length--;
+        }
+        System.arraycopy(bytes, 0, out, 0, length);
+        return length;
+    }
+
+    /**
+     * 写入文本字段，返回其字节的哈希
+     */
+    private int putText(int offset, int lengthOffset, int max, String s) {
+        byte[] bytes = new byte[max];
+        int length = encode(s, bytes);
+        for (int i = 0; i < max; i++) buf.put(offset + i, bytes[i]);
+        buf.put(lengthOffset, (byte) length);
+        return hash(bytes, length);
+    }
+
+    private String text(int handle, int offset, int lengthOffset) {
+        checkHandle(handle);
+        int base = offset(handle);
+        int length = buf.get(base + lengthOffset) & 0xFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = buf.get(base + offset + i);
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.astrology;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 切比雪夫分段星历缓存（读取端）
+ *
+ * 思路与 JPL DE 星历文件相同：把日期范围切成固定长度的段，每段每个天体存一组切比雪夫系数，
+ * 查询时按 JD 直接算出段号（O(1)），再用 Clenshaw 递推求值，不做任何对象分配。
+ *
+ * 文件由 ChebyshevEphemerisWriter 生成，通过 FileChannel.map 映射到内存，读取不经过堆。
+ *
+ * 文件格式（小端）：
+ * - int magic（"ELCE"）、int version、int bodyCount、int 保留
+ * - double startJd、double endJd
+ * - 每个天体 24 字节：double segmentDays、int segmentCount、int coeffCount、long dataOffset
+ * - 数据区：每个天体 segmentCount * coeffCount 个 double，系数对应“展开后的”连续黄经（度）
+ */
+public class ChebyshevEphemeris implements Closeable {
+
+    static final int MAGIC = 0x454C4345; // "ELCE"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int BODY_ENTRY_BYTES = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final double startJd;
+    private final double endJd;
+    // 以下数组下标均为 Body.ordinal()
+    private final double[] segmentDays;
+    private final int[] segmentCount;
+    private final int[] coeffCount;
+    private final int[] dataOffset;
+
+    private ChebyshevEphemeris(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是切比雪夫星历文件（magic 不匹配）");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("不支持的星历文件版本: " + version);
+        }
+        int bodies = buffer.getInt(8);
+        if (bodies != Body.COUNT) {
+            throw new IOException("星历文件天体数量不匹配: " + bodies);
+        }
+        startJd = buffer.getDouble(16);
+        endJd = buffer.getDouble(24);
+
+        segmentDays = new double[bodies];
+        segmentCount = new int[bodies];
+        coeffCount = new int[bodies];
+        dataOffset = new int[bodies];
+        for (int b = 0; b < bodies; b++) {
+            int p = HEADER_BYTES + b * BODY_ENTRY_BYTES;
+            segmentDays[b] = buffer.getDouble(p);
+            segmentCount[b] = buffer.getInt(p + 8);
+            coeffCount[b] = buffer.getInt(p + 12);
+            long offset = buffer.getLong(p + 16);
+            long end = offset + (long) segmentCount[b] * coeffCount[b] * 8;
+            if (offset < 0 || end > buffer.capacity()) {
+                throw new IOException("星历文件已损坏: " + Body.VALUES[b] + " 的数据越界");
+            }
+            dataOffset[b] = (int) offset;
+        }
+    }
+
+    /**
+     * 只读映射打开星历文件。映射在 close() 之后仍由 GC 负责释放（Java 8 没有公开的 unmap）。
+     */
+    public static ChebyshevEphemeris open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel ch = raf.getChannel();
+        try {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new ChebyshevEphemeris(ch, buf);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public double getStartJd() {
+        return startJd;
+    }
+
+    public double getEndJd() {
+        return endJd;
+    }
+
+    public boolean covers(double jd) {
+        return jd >= startJd && jd <= endJd;
+    }
+
+    /**
+     * 查询某天体在 jd 时刻的黄经（0-360）。jd 超出文件覆盖范围时抛出 IllegalArgumentException。
+     */
+    public double longitude(Body body, double jd) {
+        if (!(jd >= startJd && jd <= endJd)) {
+            throw new IllegalArgumentException("JD " + jd + " 超出星历范围 [" + startJd + ", " + endJd + "]");
+        }
+        int b = body.ordinal();
+        double span = segmentDays[b];
+        int seg = (int) ((jd - startJd) / span);
+        if (seg >= segmentCount[b]) seg = segmentCount[b] - 1; // jd == endJd 时落在最后一段的右端点
+        double x = 2.0 * (jd - startJd - seg * span) / span - 1.0;
+        int n = coeffCount[b];
+        int base = dataOffset[b] + seg * n * 8;
+        return PlanetCalculator.normalizeDegrees(clenshaw(buffer, base, n, x));
+    }
+
+    /**
+     * Clenshaw 递推求 sum(c_j * T_j(x))，系数从映射缓冲区的 base 偏移处连续读取
+     */
+    static double clenshaw(MappedByteBuffer buf, int base, int n, double x) {
+        double b1 = 0, b2 = 0;
+        double x2 = 2.0 * x;
+        for (int j = n - 1; j >= 1; j--) {
+            double b0 = buf.getDouble(base + j * 8) + x2 * b1 - b2;
+            b2 = b1;
+            b1 = b0;
+        }
+        return buf.getDouble(base) + x * b1 - b2;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
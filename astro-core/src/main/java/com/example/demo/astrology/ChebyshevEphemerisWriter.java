@@ -0,0 +1,212 @@
+package com.example.demo.astrology;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+
+/**
+ * 切比雪夫分段星历缓存（生成端）
+ *
+ * 对给定日期范围（例如 1900–2100）逐段采样天体黄经，在切比雪夫节点上做插值拟合，
+ * 把系数写成 ChebyshevEphemeris 可直接映射读取的二进制文件。
+ *
+ * 说明：
+ * - 每个天体可以有自己的分段长度与系数个数（月亮运动快，段要短；外行星可以很长），同 JPL DE 文件的做法
+ * - 拟合的是段内“展开后”的连续黄经，避免 360°→0° 跳变破坏多项式
+ * - 生成时在每段内额外取若干检查点与直接公式比较，报告每个天体的最大拟合误差（角秒）
+ *
+ * 命令行入口在 src/accuracy 的 ChebyshevEphemerisGenerator（./gradlew :astro-core:chebyshevEphemeris）
+ */
+public class ChebyshevEphemerisWriter {
+
+    // 每段用于误差检查的均匀采样点数（不含两个端点）
+    private static final int CHECK_POINTS = 16;
+
+    /**
+     * 采样来源：默认直接调用 PlanetCalculator 的公式
+     */
+    public interface LongitudeSource {
+        double longitude(Body body, double jd);
+    }
+
+    /**
+     * 每个天体的分段长度（天）与系数个数，下标为 Body.ordinal()
+     */
+    public static class Spec {
+        public final double[] segmentDays = new double[Body.COUNT];
+        public final int[] coeffCount = new int[Body.COUNT];
+
+        public Spec set(Body body, double days, int coefficients) {
+            if (days <= 0 || coefficients < 2) {
+                throw new IllegalArgumentException("分段长度必须为正且系数至少 2 个: " + body);
+            }
+            segmentDays[body.ordinal()] = days;
+            coeffCount[body.ordinal()] = coefficients;
+            return this;
+        }
+
+        /**
+         * 默认配置：在 PlanetCalculator 当前算法下，各天体拟合误差都在 0.01 角秒以内
+         */
+        public static Spec defaults() {
+            Spec s = new Spec();
+            s.set(Body.SUN, 32, 12);
+            s.set(Body.MOON, 4, 13);
+            s.set(Body.MERCURY, 8, 12);
+            s.set(Body.VENUS, 16, 12);
+            s.set(Body.MARS, 16, 12);
+            s.set(Body.JUPITER, 32, 12);
+            s.set(Body.SATURN, 32, 12);
+            s.set(Body.URANUS, 32, 12);
+            s.set(Body.NEPTUNE, 32, 12);
+            s.set(Body.PLUTO, 32, 12);
+            return s;
+        }
+    }
+
+    /**
+     * 生成结果：每个天体的最大拟合误差（角秒）及出现误差的 JD
+     */
+    public static class FitReport {
+        public final double[] maxErrorArcsec = new double[Body.COUNT];
+        public final double[] worstJd = new double[Body.COUNT];
+        public long fileBytes;
+
+        public double overallMaxArcsec() {
+            double m = 0;
+            for (double e : maxErrorArcsec) m = Math.max(m, e);
+            return m;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "文件大小: %d 字节\n", fileBytes));
+            for (Body b : Body.VALUES) {
+                sb.append(String.format(Locale.US, "%-8s 最大误差 %.6f\" (JD %.3f)\n",
+                        b.key, maxErrorArcsec[b.ordinal()], worstJd[b.ordinal()]));
+            }
+            return sb.toString();
+        }
+    }
+
+    public static FitReport write(File out, double startJd, double endJd) throws IOException {
+        return write(out, startJd, endJd, Spec.defaults(), PlanetCalculator::eclipticLongitude);
+    }
+
+    public static FitReport write(File out, double startJd, double endJd, Spec spec, LongitudeSource source) throws IOException {
+        if (!(endJd > startJd)) {
+            throw new IllegalArgumentException("结束 JD 必须大于起始 JD");
+        }
+        int[] segments = new int[Body.COUNT];
+        long[] offsets = new long[Body.COUNT];
+        long pos = ChebyshevEphemeris.HEADER_BYTES + (long) Body.COUNT * ChebyshevEphemeris.BODY_ENTRY_BYTES;
+        for (int b = 0; b < Body.COUNT; b++) {
+            if (spec.coeffCount[b] == 0) {
+                throw new IllegalArgumentException("Spec 中缺少 " + Body.VALUES[b] + " 的配置");
+            }
+            segments[b] = (int) Math.ceil((endJd - startJd) / spec.segmentDays[b]);
+            offsets[b] = pos;
+            pos += (long) segments[b] * spec.coeffCount[b] * 8;
+        }
+        if (pos > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("星历文件过大（超过 2GB），请缩短日期范围或减少系数");
+        }
+
+        FitReport report = new FitReport();
+        report.fileBytes = pos;
+
+        try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+            raf.setLength(pos);
+            FileChannel ch = raf.getChannel();
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, pos);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            buf.putInt(0, ChebyshevEphemeris.MAGIC);
+            buf.putInt(4, ChebyshevEphemeris.VERSION);
+            buf.putInt(8, Body.COUNT);
+            buf.putInt(12, 0);
+            buf.putDouble(16, startJd);
+            buf.putDouble(24, endJd);
+            for (int b = 0; b < Body.COUNT; b++) {
+                int p = ChebyshevEphemeris.HEADER_BYTES + b * ChebyshevEphemeris.BODY_ENTRY_BYTES;
+                buf.putDouble(p, spec.segmentDays[b]);
+                buf.putInt(p + 8, segments[b]);
+                buf.putInt(p + 12, spec.coeffCount[b]);
+                buf.putLong(p + 16, offsets[b]);
+            }
+
+            for (Body body : Body.VALUES) {
+                int b = body.ordinal();
+                fitBody(body, startJd, spec.segmentDays[b], segments[b], spec.coeffCount[b],
+                        buf, (int) offsets[b], source, report);
+            }
+            buf.force();
+        }
+        return report;
+    }
+
+    private static void fitBody(Body body, double startJd, double span, int segments, int n,
+                                MappedByteBuffer buf, int offset, LongitudeSource source, FitReport report) {
+        // 节点 x_k = cos(π(k+0.5)/n)，以及拟合用的余弦表 cos(jπ(k+0.5)/n)
+        double[] nodes = new double[n];
+        double[][] cosTable = new double[n][n];
+        for (int k = 0; k < n; k++) {
+            nodes[k] = Math.cos(Math.PI * (k + 0.5) / n);
+            for (int j = 0; j < n; j++) {
+                cosTable[j][k] = Math.cos(Math.PI * j * (k + 0.5) / n);
+            }
+        }
+        double[] samples = new double[n];
+        double[] coeffs = new double[n];
+        int b = body.ordinal();
+
+        for (int seg = 0; seg < segments; seg++) {
+            double segStart = startJd + seg * span;
+
+            // 节点按 x 从小到大（k 从大到小）采样并展开成连续黄经
+            double prevRaw = 0, prev = 0;
+            for (int k = n - 1; k >= 0; k--) {
+                double raw = source.longitude(body, segStart + (nodes[k] + 1.0) * 0.5 * span);
+                double v = (k == n - 1) ? raw : prev + wrap180(raw - prevRaw);
+                samples[k] = v;
+                prevRaw = raw;
+                prev = v;
+            }
+
+            for (int j = 0; j < n; j++) {
+                double sum = 0;
+                for (int k = 0; k < n; k++) sum += samples[k] * cosTable[j][k];
+                coeffs[j] = sum * 2.0 / n;
+            }
+            coeffs[0] *= 0.5;
+
+            int base = offset + seg * n * 8;
+            for (int j = 0; j < n; j++) buf.putDouble(base + j * 8, coeffs[j]);
+
+            // 误差检查：段内均匀点 + 两个端点
+            for (int m = -1; m <= CHECK_POINTS; m++) {
+                double x = m < 0 ? -1.0 : (m == CHECK_POINTS ? 1.0 : -1.0 + 2.0 * (m + 0.5) / CHECK_POINTS);
+                double jd = segStart + (x + 1.0) * 0.5 * span;
+                double fitted = ChebyshevEphemeris.clenshaw(buf, base, n, x);
+                double err = Math.abs(wrap180(fitted - source.longitude(body, jd))) * 3600.0;
+                if (err > report.maxErrorArcsec[b]) {
+                    report.maxErrorArcsec[b] = err;
+                    report.worstJd[b] = jd;
+                }
+            }
+        }
+    }
+
+    /**
+     * 角度差规范到 (-180, 180]
+     */
+    static double wrap180(double deg) {
+        deg = PlanetCalculator.normalizeDegrees(deg);
+        return deg > 180.0 ? deg - 360.0 : deg;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.astrology;
+
+/**
+ * ΔT = TT - UT（秒）：力学时与世界时之差
+ *
+ * 星历（VSOP87、月亮周期项）以力学时 TT 为自变量，恒星时、上升点以世界时 UT 为自变量；
+ * PlanetCalculator / ChartPipeline 等星盘接口接收 UT 的儒略日，计算天体位置前用这里的 ΔT 换算成 TT。
+ *
+ * 说明：
+ * - 2005-2025 年使用 IERS 的年度实测值（线性插值）
+ * - 其余年份使用 Espenak 与 Meeus（NASA, 2006）的分段多项式；2025 年以后线性过渡到 2050 年的外推值
+ * - 现代日期的误差在 1 秒以内（月亮每秒约移动 0.5″）；古代日期误差可达数分钟到数小时
+ */
+public final class DeltaT {
+
+    // 2005.0 - 2025.0 每年年初的 ΔT（秒）
+    private static final double TABLE_START = 2005;
+    private static final double[] TABLE = {
+            64.69, 64.85, 65.15, 65.46, 65.78, 66.07, 66.32, 66.60, 66.91, 67.28,
+            67.64, 68.10, 68.59, 68.97, 69.22, 69.36, 69.36, 69.29, 69.20, 69.18,
+            69.10
+    };
+    private static final double TABLE_END = TABLE_START + TABLE.length - 1;
+
+    private DeltaT() {
+    }
+
+    /**
+     * 某时刻的 ΔT（秒）
+     *
+     * @param jdUt 儒略日（UT）
+     */
+    public static double seconds(double jdUt) {
+        return secondsForYear(2000.0 + (jdUt - 2451545.0) / 365.25);
+    }
+
+    /**
+     * UT 的儒略日换算为 TT 的儒略日（JDE）
+     */
+    public static double toTt(double jdUt) {
+        return jdUt + seconds(jdUt) / 86400.0;
+    }
+
+    /**
+     * 某（小数）年份的 ΔT（秒）
+     */
+    public static double secondsForYear(double y) {
+        if (y >= TABLE_START && y < TABLE_END) {
+            double f = y - TABLE_START;
+            int i = (int) f;
+            return TABLE[i] + (f - i) * (TABLE[i + 1] - TABLE[i]);
+        }
+        if (y >= TABLE_END && y < 2050) {
+            // 实测值末端与 2050 年的外推值之间线性过渡
+            return TABLE[TABLE.length - 1]
+                    + (y - TABLE_END) / (2050 - TABLE_END) * (polynomial(2050) - TABLE[TABLE.length - 1]);
+        }
+        return polynomial(y);
+    }
+
+    /**
+     * Espenak & Meeus 的分段多项式
+     */
+    private static double polynomial(double y) {
+        double t, u;
+        if (y < -500) {
+            u = (y - 1820) / 100;
+            return -20 + 32 * u * u;
+        }
+        if (y < 500) {
+            u = y / 100;
+            return 10583.6 + u * (-1014.41 + u * (33.78311 + u * (-5.952053
+                    + u * (-0.1798452 + u * (0.022174192 + u * 0.0090316521)))));
+        }
+        if (y < 1600) {
+            u = (y - 1000) / 100;
+            return 1574.2 + u * (-556.01 + u * (71.23472 + u * (0.319781
+                    + u * (-0.8503463 + u * (-0.005050998 + u * 0.0083572073)))));
+        }
+        if (y < 1700) {
+            t = y - 1600;
+            return 120 + t * (-0.9808 + t * (-0.01532 + t / 7129));
+        }
+        if (y < 1800) {
+            t = y - 1700;
+            return 8.83 + t * (0.1603 + t * (-0.0059285 + t * (0.00013336 - t / 1174000)));
+        }
+        if (y < 1860) {
+            t = y - 1800;
+            return 13.72 + t * (-0.332447 + t * (0.0068612 + t * (0.0041116 + t * (-0.00037436
+                    + t * (0.0000121272 + t * (-0.0000001699 + t * 0.000000000875))))));
+        }
+        if (y < 1900) {
+            t = y - 1860;
+            return 7.62 + t * (0.5737 + t * (-0.251754 + t * (0.01680668 + t * (-0.0004473624 + t / 233174))));
+        }
+        if (y < 1920) {
+            t = y - 1900;
+            return -2.79 + t * (1.494119 + t * (-0.0598939 + t * (0.0061966 - t * 0.000197)));
+        }
+        if (y < 1941) {
+            t = y - 1920;
+            return 21.20 + t * (0.84493 + t * (-0.076100 + t * 0.0020936));
+        }
+        if (y < 1961) {
+            t = y - 1950;
+            return 29.07 + t * (0.407 + t * (-1.0 / 233 + t / 2547));
+        }
+        if (y < 1986) {
+            t = y - 1975;
+            return 45.45 + t * (1.067 + t * (-1.0 / 260 - t / 718));
+        }
+        if (y < 2005) {
+            t = y - 2000;
+            return 63.86 + t * (0.3345 + t * (-0.060374 + t * (0.0017275 + t * (0.000651814 + t * 0.00002373599))));
+        }
+        if (y < 2050) {
+            t = y - 2000;
+            return 62.92 + t * (0.32217 + t * 0.005589);
+        }
+        u = (y - 1820) / 100;
+        if (y < 2150) {
+            return -20 + 32 * u * u - 0.5628 * (2150 - y);
+        }
+        return -20 + 32 * u * u;
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.demo.astrology;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * 天象事件搜索：换座（ingress）、停滞（station，顺逆转换）与精确相位
+ *
+ * 说明：
+ * - 不做固定步长扫描，而是利用每个天体黄经速度 / 加速度的上界决定步长：
+ *   当前离最近目标（星座边界、相位角、速度为 0）还有 d，而变化率不超过 L，
+ *   那么 d / L 时间之内不可能到达目标，可以直接跳过去
+ * - 某一步前后目标函数变号后，用 Brent 法（二分 + 割线 + 反二次插值）在这一步内求根，
+ *   时间精度 TIME_TOLERANCE（约 0.1 秒）
+ * - 结果以 Iterator 惰性产生，终止时刻可以是 Double.POSITIVE_INFINITY；
+ *   每个 Search 记录自己用了多少次黄经计算（getEvaluationCount）
+ * - 黄经与 calculateFromLocal 一致：视黄经（含光行差与章动），时刻为力学时 TT 的儒略日（比 UT 晚 ΔT，见 DeltaT）
+ *
+ * 限制：步长不小于 MIN_STEP（约 1 小时），所以在一个 MIN_STEP 之内来回穿过同一边界两次
+ * （停滞恰好发生在边界上）时这两次会被漏掉；实际天体几乎不会出现这种情况。
+ *
+ * EventFinder 本身可在多个线程间共享；每个 Search 只应在一个线程中使用。
+ */
+public class EventFinder {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        INGRESS, STATION, ASPECT
+    }
+
+    /**
+     * 找到的事件
+     */
+    public static final class Event {
+        public final Type type;
+        public final Body body;
+        /** ASPECT：另一个天体；其他类型为 null */
+        public final Body other;
+        /** 事件时刻（儒略日） */
+        public final double jd;
+        /** INGRESS：进入的星座下标（与 ZodiacUtils.zodiacIndex 一致）；其他类型为 -1 */
+        public final int sign;
+        /** STATION：true 表示由顺行转为逆行，false 表示由逆行转为顺行；INGRESS：逆行进入 */
+        public final boolean retrograde;
+        /** ASPECT：相位角（度）；其他类型为 NaN */
+        public final double angle;
+
+        Event(Type type, Body body, Body other, double jd, int sign, boolean retrograde, double angle) {
+            this.type = type;
+            this.body = body;
+            this.other = other;
+            this.jd = jd;
+            this.sign = sign;
+            this.retrograde = retrograde;
+            this.angle = angle;
+        }
+
+        @Override
+        public String toString() {
+            switch (type) {
+                case INGRESS:
+                    return String.format(Locale.US, "%.6f %s 进入 %s%s", jd, body.key, ZodiacUtils.NAMES[sign], retrograde ? "（逆行）" : "");
+                case STATION:
+                    return String.format(Locale.US, "%.6f %s %s", jd, body.key, retrograde ? "停滞转逆行" : "停滞转顺行");
+                default:
+                    return String.format(Locale.US, "%.6f %s-%s %.1f°", jd, body.key, other.key, angle);
+            }
+        }
+    }
+
+    // 求根的时间精度（日）与最小步长（日）
+    static final double TIME_TOLERANCE = 1e-6;
+    static final double MIN_STEP = 0.04;
+    // 速度用中心差分，步长（日）
+    private static final double SPEED_STEP = 0.01;
+    private static final int MAX_BRENT_ITERATIONS = 60;
+
+    // 黄经速度上界（度/日）与速度变化率上界（度/日²），下标为 Body.ordinal()；
+    // 按 1800-2200 年逐日采样的最大值再留约 10-20% 余量
+    private static final double[] MAX_SPEED = {1.05, 16.0, 2.3, 1.3, 0.85, 0.26, 0.14, 0.07, 0.045, 0.045};
+    private static final double[] MAX_ACCELERATION = {0.001, 0.6, 0.24, 0.05, 0.018, 0.0042, 0.0023, 0.0012, 0.00075, 0.00075};
+
+    private final Vsop87 engine;
+
+    /**
+     * 视黄经速度的上界（度/日）
+     */
+    static double maxSpeed(Body body) {
+        return MAX_SPEED[body.ordinal()];
+    }
+
+    public EventFinder() {
+        this(PlanetCalculator.DEFAULT_ACCURACY);
+    }
+
+    /**
+     * @param accuracy VSOP87 精度档位（长时间范围的粗略日历可用较低档位）
+     */
+    public EventFinder(Vsop87.Accuracy accuracy) {
+        this.engine = Vsop87.forAccuracy(accuracy);
+    }
+
+    /**
+     * 天体进入各星座的时刻（含逆行退回上一星座）
+     */
+    public Search ingresses(Body body, double startJd, double endJd) {
+        double[] targets = new double[12];
+        for (int i = 0; i < 12; i++) targets[i] = i * 30;
+        return new Search(Type.INGRESS, body, null, startJd, endJd, targets, MAX_SPEED[body.ordinal()]);
+    }
+
+    /**
+     * 行星停滞（黄经速度为 0）的时刻；太阳、月亮没有逆行
+     */
+    public Search stations(Body body, double startJd, double endJd) {
+        if (body == Body.SUN || body == Body.MOON) {
+            throw new IllegalArgumentException(body.key + " 没有停滞");
+        }
+        return new Search(Type.STATION, body, null, startJd, endJd, null, MAX_ACCELERATION[body.ordinal()]);
+    }
+
+    /**
+     * 两个天体之间形成精确相位（黄经差为 ±angle）的时刻
+     *
+     * @param angle 相位角（0-180 度）
+     */
+    public Search aspects(Body a, Body b, double angle, double startJd, double endJd) {
+        if (a == b) throw new IllegalArgumentException("相位需要两个不同的天体");
+        if (angle < 0 || angle > 180) throw new IllegalArgumentException("相位角必须在 0-180 度之间: " + angle);
+        double[] targets = angle == 0 || angle == 180 ? new double[]{angle} : new double[]{angle, 360 - angle};
+        double rate = MAX_SPEED[a.ordinal()] + MAX_SPEED[b.ordinal()];
+        return new Search(Type.ASPECT, a, b, startJd, endJd, targets, rate);
+    }
+
+    /**
+     * 一次事件搜索：按时间顺序惰性产生事件
+     *
+     * INGRESS / ASPECT 的目标函数是“相位角” φ（天体黄经，或两天体黄经之差）与各目标角之差；
+     * STATION 的目标函数是黄经速度。
+     */
+    public final class Search implements Iterator<Event> {
+        private final Type type;
+        private final Body body;
+        private final Body other;
+        private final double endJd;
+        private final double[] targets;
+        // 目标函数变化率的上界（度/日，STATION 为度/日²）
+        private final double rate;
+
+        // 当前扫描位置与该处的函数值（φ 或速度）
+        private double t;
+        private double value;
+        private long evaluations;
+
+        // 同一步内找到的事件（按时间排序后依次输出）
+        private final Event[] pending;
+        private int pendingCount;
+        private int pendingIndex;
+        // Brent 求根当前使用的目标角
+        private double refineTarget;
+
+        Search(Type type, Body body, Body other, double startJd, double endJd, double[] targets, double rate) {
+            if (!(endJd >= startJd)) throw new IllegalArgumentException("结束时刻早于开始时刻");
+            this.type = type;
+            this.body = body;
+            this.other = other;
+            this.endJd = endJd;
+            this.targets = targets;
+            this.rate = rate;
+            this.pending = new Event[targets == null ? 1 : targets.length];
+            this.t = startJd;
+            this.value = evaluate(startJd);
+        }
+
+        /**
+         * 到目前为止计算黄经的次数（速度的一次中心差分计为 2 次）
+         */
+        public long getEvaluationCount() {
+            return evaluations;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pendingIndex == pendingCount) {
+                if (!(t < endJd)) return false;
+                advance();
+            }
+            return true;
+        }
+
+        @Override
+        public Event next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Event e = pending[pendingIndex];
+            pending[pendingIndex++] = null;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * 按变化率上界前进一步；这一步内有变号时求根并放入 pending
+         */
+        private void advance() {
+            pendingCount = 0;
+            pendingIndex = 0;
+
+            double distance;
+            if (targets == null) {
+                distance = Math.abs(value);
+            } else {
+                distance = 180;
+                for (double target : targets) {
+                    distance = Math.min(distance, Math.abs(ChebyshevEphemerisWriter.wrap180(value - target)));
+                }
+            }
+            double step = Math.max(distance / rate, MIN_STEP);
+            double t0 = t, v0 = value;
+            double t1 = Math.min(t0 + step, endJd);
+            double v1 = evaluate(t1);
+
+            if (targets == null) {
+                if (crosses(v0, v1)) {
+                    double root = refine(t0, t1, v0, v1);
+                    // 速度由正变负：开始逆行
+                    pending[pendingCount++] = new Event(type, body, null, root, -1, v0 > 0, Double.NaN);
+                }
+            } else {
+                for (double target : targets) {
+                    double h0 = ChebyshevEphemerisWriter.wrap180(v0 - target);
+                    double h1 = ChebyshevEphemerisWriter.wrap180(v1 - target);
+                    // 一步之内 φ 的变化远小于 90°，两端都靠近目标才算真正穿过（排除 ±180 处的跳变）
+                    if (!crosses(h0, h1) || Math.abs(h0) > 90 || Math.abs(h1) > 90) continue;
+                    refineTarget = target;
+                    double root = refine(t0, t1, h0, h1);
+                    boolean backward = h1 < h0;
+                    if (type == Type.INGRESS) {
+                        // 顺行越过 target 进入以它为起点的星座，逆行则退回前一个星座
+                        int sign = (int) Math.round(target / 30);
+                        if (backward) sign = (sign + 11) % 12;
+                        pending[pendingCount++] = new Event(type, body, null, root, sign, backward, Double.NaN);
+                    } else {
+                        pending[pendingCount++] = new Event(type, body, other, root, -1, false, Math.min(target, 360 - target));
+                    }
+                }
+                sortPending();
+            }
+            t = t1;
+            value = v1;
+        }
+
+        private boolean crosses(double f0, double f1) {
+            return (f0 < 0 && f1 >= 0) || (f0 > 0 && f1 <= 0);
+        }
+
+        private void sortPending() {
+            for (int i = 1; i < pendingCount; i++) {
+                Event e = pending[i];
+                int k = i;
+                while (k > 0 && pending[k - 1].jd > e.jd) {
+                    pending[k] = pending[k - 1];
+                    k--;
+                }
+                pending[k] = e;
+            }
+        }
+
+        /**
+         * 目标函数：INGRESS / ASPECT 返回 φ（度，0-360），STATION 返回黄经速度（度/日）
+         */
+        private double evaluate(double jd) {
+            if (type == Type.STATION) {
+                double d = ChebyshevEphemerisWriter.wrap180(longitude(body, jd + SPEED_STEP) - longitude(body, jd - SPEED_STEP));
+                return d / (2 * SPEED_STEP);
+            }
+            double phi = longitude(body, jd);
+            if (other != null) phi -= longitude(other, jd);
+            return PlanetCalculator.normalizeDegrees(phi);
+        }
+
+        /**
+         * 求根时的有符号函数值
+         */
+        private double signed(double jd) {
+            double v = evaluate(jd);
+            return targets == null ? v : ChebyshevEphemerisWriter.wrap180(v - refineTarget);
+        }
+
+        private double longitude(Body b, double jd) {
+            evaluations++;
+            double T = (jd - 2451545.0) / 36525.0;
+            double lon = b == Body.MOON ? LunarTheory.longitudeFromT(T) : engine.geocentricLongitude(b, jd);
+            return lon + PlanetCalculator.nutationLongitude(T);
+        }
+
+        /**
+         * Brent 法求 [a, b] 内的根，要求 fa、fb 异号（或 fb 为 0）
+         */
+        private double refine(double a, double b, double fa, double fb) {
+            if (fb == 0) return b;
+            double c = a, fc = fa;
+            double d = b - a, e = d;
+            for (int iter = 0; iter < MAX_BRENT_ITERATIONS; iter++) {
+                if (Math.abs(fc) < Math.abs(fb)) {
+                    a = b; b = c; c = a;
+                    fa = fb; fb = fc; fc = fa;
+                }
+                double tol = 2 * Math.ulp(b) + 0.5 * TIME_TOLERANCE;
+                double m = 0.5 * (c - b);
+                if (Math.abs(m) <= tol || fb == 0) return b;
+                if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+                    // 割线（a == c）或反二次插值
+                    double s = fb / fa, p, q;
+                    if (a == c) {
+                        p = 2 * m * s;
+                        q = 1 - s;
+                    } else {
+                        q = fa / fc;
+                        double r = fb / fc;
+                        p = s * (2 * m * q * (q - r) - (b - a) * (r - 1));
+                        q = (q - 1) * (r - 1) * (s - 1);
+                    }
+                    if (p > 0) q = -q;
+                    else p = -p;
+                    if (2 * p < Math.min(3 * m * q - Math.abs(tol * q), Math.abs(e * q))) {
+                        e = d;
+                        d = p / q;
+                    } else {
+                        d = m;
+                        e = m;
+                    }
+                } else {
+                    // 二分
+                    d = m;
+                    e = m;
+                }
+                a = b;
+                fa = fb;
+                b += Math.abs(d) > tol ? d : (m > 0 ? tol : -tol);
+                fb = signed(b);
+                if ((fb > 0) == (fc > 0)) {
+                    c = a;
+                    fc = fa;
+                    d = b - a;
+                    e = d;
+                }
+            }
+            return b;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.demo.astrology;
+
+/**
+ * 宫位计算：由地方恒星时（RAMC）、地理纬度与黄赤交角求 12 个宫头
+ *
+ * 说明：
+ * - 所有角度均为度；cusps[0] 为第 1 宫宫头（上升点），cusps[9] 为第 10 宫宫头
+ * - 象限制只需要算第 11、12、2、3 宫，其余宫头为上升点、天顶及它们的对宫（+180°）
+ * - PLACIDUS：对每个宫头迭代“赤经 = RAMC + 半弧的 1/3 或 2/3”，通常 5-10 次收敛
+ * - KOCH：天顶度数的昼半弧 D 三等分，第 11、12、2、3 宫为 RAMC - 2D/3、-D/3、+D/3、+2D/3 时刻的上升点
+ * - REGIOMONTANUS：赤道每 30° 一段，第 n 宫宫头为极高 atan(tanφ·sin h) 处的上升点
+ * - 纬度超过 90° - ε 时 PLACIDUS / KOCH 没有定义（部分黄道点不升不落），退回 PORPHYRY；
+ *   极圈内天顶可能在地平线以下，此时 PORPHYRY 用天底代替天顶，保证 10 → 1 宫的弧不超过 180°
+ *
+ * 批量计算同一纬度的大量星盘时可使用 HouseTable（预计算 + 插值）。
+ */
+public class HouseEngine {
+
+    private static final int MAX_ITERATIONS = 60;
+    private static final double CONVERGENCE = 1e-9;
+
+    /**
+     * 计算宫头并写入 cusps（长度至少 12）
+     *
+     * @param ramc 地方恒星时（度）
+     * @param lat  地理纬度（度，北纬为正）
+     * @param eps  真黄赤交角（度）
+     * @return 实际使用的宫制（高纬度或迭代不收敛时为 PORPHYRY）
+     */
+    public static HouseSystem cusps(HouseSystem system, double ramc, double lat, double eps, double[] cusps) {
+        if (lat < -90 || lat > 90) throw new IllegalArgumentException("纬度必须在 -90 到 90 度之间: " + lat);
+        // tan(±90°) 为无穷大，两极处稍微往里收一点
+        lat = Math.max(-89.9999, Math.min(89.9999, lat));
+        double asc = PlanetCalculator.ascendantFromLst(ramc, lat, eps);
+        if (system == HouseSystem.EQUAL) {
+            PlanetCalculator.equalHouses(asc, cusps);
+            return system;
+        }
+        double mc = midheaven(ramc, eps);
+        if (!isDefined(system, lat, eps)) system = HouseSystem.PORPHYRY;
+
+        switch (system) {
+            case PLACIDUS:
+                if (placidus(ramc, lat, eps, cusps)) break;
+                system = HouseSystem.PORPHYRY;
+                porphyry(asc, mc, cusps);
+                return system;
+            case KOCH:
+                koch(ramc, lat, eps, mc, cusps);
+                break;
+            case REGIOMONTANUS:
+                regiomontanus(ramc, lat, eps, cusps);
+                break;
+            default:
+                porphyry(asc, mc, cusps);
+                return system;
+        }
+        fillAngles(asc, mc, cusps);
+        return system;
+    }
+
+    /**
+     * 某宫制在该纬度是否有定义
+     */
+    public static boolean isDefined(HouseSystem system, double lat, double eps) {
+        if (system != HouseSystem.PLACIDUS && system != HouseSystem.KOCH) return true;
+        return Math.abs(lat) < 90 - eps;
+    }
+
+    /**
+     * 天顶（MC）黄经：赤经为 RAMC 的黄道点
+     */
+    public static double midheaven(double ramc, double eps) {
+        double r = Math.toRadians(ramc);
+        return PlanetCalculator.normalizeDegrees(Math.toDegrees(
+                Math.atan2(Math.sin(r), Math.cos(r) * Math.cos(Math.toRadians(eps)))));
+    }
+
+    /**
+     * 黄经 lon 落在第几宫（1-12）
+     */
+    public static int houseOf(double lon, double[] cusps) {
+        for (int i = 0; i < 12; i++) {
+            double width = PlanetCalculator.normalizeDegrees(cusps[(i + 1) % 12] - cusps[i]);
+            if (PlanetCalculator.normalizeDegrees(lon - cusps[i]) < width) return i + 1;
+        }
+        return 1;
+    }
+
+    /**
+     * 上升点、天顶及对宫；中间宫头（下标 10、11、1、2）已由各宫制写好
+     */
+    static void fillAngles(double asc, double mc, double[] cusps) {
+        cusps[0] = asc;
+        cusps[9] = mc;
+        cusps[3] = PlanetCalculator.normalizeDegrees(mc + 180);
+        cusps[6] = PlanetCalculator.normalizeDegrees(asc + 180);
+        cusps[4] = PlanetCalculator.normalizeDegrees(cusps[10] + 180);
+        cusps[5] = PlanetCalculator.normalizeDegrees(cusps[11] + 180);
+        cusps[7] = PlanetCalculator.normalizeDegrees(cusps[1] + 180);
+        cusps[8] = PlanetCalculator.normalizeDegrees(cusps[2] + 180);
+    }
+
+    private static void porphyry(double asc, double mc, double[] cusps) {
+        double arc = PlanetCalculator.normalizeDegrees(asc - mc);
+        if (arc > 180) {
+            mc = PlanetCalculator.normalizeDegrees(mc + 180);
+            arc -= 180;
+        }
+        double lower = 180 - arc;
+        cusps[10] = PlanetCalculator.normalizeDegrees(mc + arc / 3);
+        cusps[11] = PlanetCalculator.normalizeDegrees(mc + arc * 2 / 3);
+        cusps[1] = PlanetCalculator.normalizeDegrees(asc + lower / 3);
+        cusps[2] = PlanetCalculator.normalizeDegrees(asc + lower * 2 / 3);
+        fillAngles(asc, mc, cusps);
+    }
+
+    /**
+     * PLACIDUS：第 11、12 宫宫头的赤经为 RAMC + 昼半弧的 1/3、2/3，
+     * 第 2、3 宫为 RAMC + 180° - 夜半弧的 2/3、1/3；半弧取决于宫头自身的赤纬，所以要迭代
+     *
+     * @return 是否全部收敛
+     */
+    private static boolean placidus(double ramc, double lat, double eps, double[] cusps) {
+        double tanLat = Math.tan(Math.toRadians(lat));
+        double sinEps = Math.sin(Math.toRadians(eps));
+        double cosEps = Math.cos(Math.toRadians(eps));
+        return placidusCusp(ramc, 1.0 / 3, true, tanLat, sinEps, cosEps, cusps, 10)
+                && placidusCusp(ramc, 2.0 / 3, true, tanLat, sinEps, cosEps, cusps, 11)
+                && placidusCusp(ramc, 2.0 / 3, false, tanLat, sinEps, cosEps, cusps, 1)
+                && placidusCusp(ramc, 1.0 / 3, false, tanLat, sinEps, cosEps, cusps, 2);
+    }
+
+    private static boolean placidusCusp(double ramc, double fraction, boolean above, double tanLat,
+                                        double sinEps, double cosEps, double[] cusps, int index) {
+        // 初值：赤道上均分（相当于纬度为 0 时的解）
+        double ra = above ? ramc + 90 * fraction : ramc + 180 - 90 * fraction;
+        double lon = eclipticFromRa(ra, cosEps);
+        for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
+            double sinDecl = sinEps * Math.sin(Math.toRadians(lon));
+            double tanDecl = sinDecl / Math.sqrt(1 - sinDecl * sinDecl);
+            double x = -tanLat * tanDecl;
+            if (x < -1 || x > 1) return false;
+            double dsa = Math.toDegrees(Math.acos(x));
+            ra = above ? ramc + fraction * dsa : ramc + 180 - fraction * (180 - dsa);
+            double next = eclipticFromRa(ra, cosEps);
+            double diff = Math.abs(ChebyshevEphemerisWriter.wrap180(next - lon));
+            lon = next;
+            if (diff < CONVERGENCE) {
+                cusps[index] = lon;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 赤经为 ra 的黄道点的黄经
+     */
+    private static double eclipticFromRa(double ra, double cosEps) {
+        double r = Math.toRadians(ra);
+        return PlanetCalculator.normalizeDegrees(Math.toDegrees(Math.atan2(Math.sin(r), Math.cos(r) * cosEps)));
+    }
+
+    private static void koch(double ramc, double lat, double eps, double mc, double[] cusps) {
+        double sinDecl = Math.sin(Math.toRadians(eps)) * Math.sin(Math.toRadians(mc));
+        double tanDecl = sinDecl / Math.sqrt(1 - sinDecl * sinDecl);
+        double x = Math.max(-1, Math.min(1, -Math.tan(Math.toRadians(lat)) * tanDecl));
+        // 天顶度数的昼半弧
+        double d = Math.toDegrees(Math.acos(x));
+        cusps[10] = PlanetCalculator.ascendantFromLst(ramc - d * 2 / 3, lat, eps);
+        cusps[11] = PlanetCalculator.ascendantFromLst(ramc - d / 3, lat, eps);
+        cusps[1] = PlanetCalculator.ascendantFromLst(ramc + d / 3, lat, eps);
+        cusps[2] = PlanetCalculator.ascendantFromLst(ramc + d * 2 / 3, lat, eps);
+    }
+
+    private static void regiomontanus(double ramc, double lat, double eps, double[] cusps) {
+        double tanLat = Math.tan(Math.toRadians(lat));
+        double pole30 = Math.toDegrees(Math.atan(tanLat * 0.5));
+        double pole60 = Math.toDegrees(Math.atan(tanLat * Math.sqrt(0.75)));
+        cusps[10] = PlanetCalculator.ascendantFromLst(ramc - 60, pole30, eps);
+        cusps[11] = PlanetCalculator.ascendantFromLst(ramc - 30, pole60, eps);
+        cusps[1] = PlanetCalculator.ascendantFromLst(ramc + 30, pole60, eps);
+        cusps[2] = PlanetCalculator.ascendantFromLst(ramc + 60, pole30, eps);
+    }
+}
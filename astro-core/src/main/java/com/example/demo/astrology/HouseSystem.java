@@ -0,0 +1,31 @@
+package com.example.demo.astrology;
+
+/**
+ * 宫位制
+ *
+ * 说明：
+ * - EQUAL：从上升点起每 30° 一宫
+ * - PORPHYRY：把上升点与天顶之间的黄道弧三等分（象限制中最简单的一种）
+ * - PLACIDUS / KOCH：按时间划分半弧，需要迭代或额外的恒星时偏移；
+ *   纬度超过 90° - 黄赤交角（极圈内）时没有定义，HouseEngine 会退回 PORPHYRY
+ * - REGIOMONTANUS：把天赤道等分后用过地平南北点的大圆投影到黄道
+ */
+public enum HouseSystem {
+    EQUAL("等宫制", false),
+    PORPHYRY("波菲利宫制", true),
+    PLACIDUS("普拉西度宫制", true),
+    KOCH("科赫宫制", true),
+    REGIOMONTANUS("雷格蒙塔努斯宫制", true);
+
+    public final String label;
+    // 是否为象限制（第 10 宫宫头为天顶）
+    public final boolean quadrant;
+
+    // 缓存的 values() 副本，避免每次调用都复制数组
+    public static final HouseSystem[] VALUES = values();
+
+    HouseSystem(String label, boolean quadrant) {
+        this.label = label;
+        this.quadrant = quadrant;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.astrology;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 预计算的宫头表：按 (RAMC, 纬度) 网格保存上升点、天顶与第 11、12、2、3 宫宫头，查询时双线性插值
+ *
+ * 用途：批量计算（时间拖动、大量星盘）时避免每次都做 Placidus 迭代。
+ *
+ * 说明：
+ * - 网格 RAMC 每 RAMC_STEP 度一列，纬度每 LAT_STEP 度一行；行在第一次用到时才生成（通常只用到一两行）
+ * - 表按构造时的黄赤交角生成；黄赤交角每世纪只变化约 0.013°，前后几十年内可以共用一张表
+ * - 离极限纬度（90° - ε）不到 EDGE_MARGIN 的高纬度地区，宫头随 RAMC 变化太剧烈，插值误差大，
+ *   这里不查表而是直接调用 HouseEngine.cusps，因此超出极圈时与 HouseEngine 一样退回 PORPHYRY
+ * - 插值误差：纬度 40° 以内小于 0.002°，50°-60° 约 0.02°-0.06°（相当于出生时间误差几秒）
+ *
+ * 可以在多个线程中同时查询（并发生成同一行时只是重复计算，结果相同）。
+ */
+public class HouseTable {
+
+    static final double RAMC_STEP = 0.25;
+    static final double LAT_STEP = 0.5;
+    static final double EDGE_MARGIN = 6.0;
+
+    private static final int COLUMNS = (int) Math.round(360 / RAMC_STEP) + 1;
+    private static final int ROWS = (int) Math.round(180 / LAT_STEP) + 1;
+    // 每个网格点保存的量：上升点、天顶、第 11、12、2、3 宫（cusps 下标 0、9、10、11、1、2）
+    private static final int[] STORED = {0, 9, 10, 11, 1, 2};
+    private static final int WIDTH = STORED.length;
+
+    private final HouseSystem system;
+    private final double eps;
+    private final double maxTableLat;
+    private final AtomicReferenceArray<double[]> rows = new AtomicReferenceArray<>(ROWS);
+
+    /**
+     * @param eps 真黄赤交角（度）
+     */
+    public HouseTable(HouseSystem system, double eps) {
+        this.system = system;
+        this.eps = eps;
+        this.maxTableLat = 90 - eps - EDGE_MARGIN;
+    }
+
+    public HouseSystem getSystem() {
+        return system;
+    }
+
+    public double getObliquity() {
+        return eps;
+    }
+
+    /**
+     * 查表求宫头，写入 cusps（长度至少 12）
+     *
+     * @return 实际使用的宫制（同 HouseEngine.cusps）
+     */
+    public HouseSystem lookup(double ramc, double lat, double[] cusps) {
+        if (system == HouseSystem.EQUAL || !(Math.abs(lat) <= maxTableLat)) {
+            return HouseEngine.cusps(system, ramc, lat, eps, cusps);
+        }
+        int i = (int) Math.floor((lat + 90) / LAT_STEP);
+        interpolate(row(i), row(i + 1), i, ramc, lat, cusps);
+        return system;
+    }
+
+    /**
+     * 同 lookup，但不生成缺少的行：所需的行还没有生成（prepare 尚未完成）时返回 null，cusps 不变。
+     * 供每帧都有时间预算的调用方（如 ScrubTimeline.evaluate）使用，生成一行需要上千次 HouseEngine.cusps
+     */
+    public HouseSystem tryLookup(double ramc, double lat, double[] cusps) {
+        if (system == HouseSystem.EQUAL || !(Math.abs(lat) <= maxTableLat)) {
+            return HouseEngine.cusps(system, ramc, lat, eps, cusps);
+        }
+        int i = (int) Math.floor((lat + 90) / LAT_STEP);
+        double[] r0 = rows.get(i);
+        double[] r1 = rows.get(i + 1);
+        if (r0 == null || r1 == null) return null;
+        interpolate(r0, r1, i, ramc, lat, cusps);
+        return system;
+    }
+
+    /**
+     * 在第 i、i+1 行之间双线性插值
+     */
+    private void interpolate(double[] r0, double[] r1, int i, double ramc, double lat, double[] cusps) {
+        double u = (lat + 90) / LAT_STEP - i;
+        double g = PlanetCalculator.normalizeDegrees(ramc) / RAMC_STEP;
+        int j = Math.min((int) g, COLUMNS - 2);
+        double v = g - j;
+
+        int c0 = j * WIDTH, c1 = c0 + WIDTH;
+        for (int k = 0; k < WIDTH; k++) {
+            // 以左下角为基准展开其余三个角，避免 360°→0° 跳变
+            double q00 = r0[c0 + k];
+            double q01 = q00 + ChebyshevEphemerisWriter.wrap180(r0[c1 + k] - q00);
+            double q10 = q00 + ChebyshevEphemerisWriter.wrap180(r1[c0 + k] - q00);
+            double q11 = q00 + ChebyshevEphemerisWriter.wrap180(r1[c1 + k] - q00);
+            double q = (1 - u) * ((1 - v) * q00 + v * q01) + u * ((1 - v) * q10 + v * q11);
+            cusps[STORED[k]] = PlanetCalculator.normalizeDegrees(q);
+        }
+        HouseEngine.fillAngles(cusps[0], cusps[9], cusps);
+    }
+
+    /**
+     * 预先生成纬度 lat 插值所需的行（可在后台线程调用）
+     */
+    public void prepare(double lat) {
+        if (system == HouseSystem.EQUAL || !(Math.abs(lat) <= maxTableLat)) return;
+        int i = (int) Math.floor((lat + 90) / LAT_STEP);
+        row(i);
+        row(i + 1);
+    }
+
+    private double[] row(int i) {
+        double[] r = rows.get(i);
+        if (r != null) return r;
+        r = new double[COLUMNS * WIDTH];
+        double lat = -90 + i * LAT_STEP;
+        double[] tmp = new double[12];
+        for (int j = 0; j < COLUMNS; j++) {
+            HouseEngine.cusps(system, j * RAMC_STEP, lat, eps, tmp);
+            for (int k = 0; k < WIDTH; k++) r[j * WIDTH + k] = tmp[STORED[k]];
+        }
+        rows.set(i, r);
+        return r;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.astrology;
+
+/**
+ * 解读模板文件（interp/&lt;语言&gt;.bin）的格式定义：构建期的 InterpretationCompiler（buildSrc）与运行时的
+ * InterpretationTemplates 共用这一份
+ *
+ * 源文件为 astro-core/interpretation/&lt;语言&gt;.txt，编译后（大端序）：
+ * <pre>
+ *   int MAGIC, int VERSION
+ *   int n, n 个文字片段（DataOutput.writeUTF）
+ *   int m, m 个模板：int k, k 个操作（>= 0 为文字片段下标，< 0 为占位符 -(code + 1)）
+ *   NAME_KEYS.length 个 int：名称（天体、星座、相位、宫制）的文字片段下标
+ *   MESSAGE_KEYS.length 个 int：固定文案的模板下标
+ *   BODY_KEYS.length × SIGN_KEYS.length × HOUSE_SLOTS 个 int：天体 × 星座 × 宫位 的解读模板下标
+ * </pre>
+ * 宫位维度第 0 格用于没有宫位的星盘，第 1-12 格为第 1-12 宫。
+ *
+ * 各键的顺序与 Body、星座下标（ZodiacUtils）、AspectEngine 的相位常量、HouseSystem 一致。
+ */
+public final class InterpretationFormat {
+
+    public static final int MAGIC = 0x49545031; // "ITP1"
+    public static final int VERSION = 1;
+
+    public static final String[] BODY_KEYS = {
+            "SUN", "MOON", "MERCURY", "VENUS", "MARS", "JUPITER", "SATURN", "URANUS", "NEPTUNE", "PLUTO"
+    };
+    public static final String[] SIGN_KEYS = {
+            "ARIES", "TAURUS", "GEMINI", "CANCER", "LEO", "VIRGO",
+            "LIBRA", "SCORPIO", "SAGITTARIUS", "CAPRICORN", "AQUARIUS", "PISCES"
+    };
+    public static final String[] ASPECT_KEYS = {
+            "CONJUNCTION", "SEXTILE", "SQUARE", "TRINE", "OPPOSITION"
+    };
+    public static final String[] SYSTEM_KEYS = {
+            "EQUAL", "PORPHYRY", "PLACIDUS", "KOCH", "REGIOMONTANUS"
+    };
+    public static final int HOUSE_SLOTS = 13;
+
+    // 名称表：body.*、sign.*、aspect.*、system.* 依次排列
+    public static final int NAME_BODY = 0;
+    public static final int NAME_SIGN = NAME_BODY + BODY_KEYS.length;
+    public static final int NAME_ASPECT = NAME_SIGN + SIGN_KEYS.length;
+    public static final int NAME_SYSTEM = NAME_ASPECT + ASPECT_KEYS.length;
+    public static final String[] NAME_KEYS = nameKeys();
+
+    // 固定文案
+    public static final int M_HEADER = 0;
+    public static final int M_HEADER_ANONYMOUS = 1;
+    public static final int M_JULIAN_DAY = 2;
+    public static final int M_HOUSE_SYSTEM = 3;
+    public static final int M_BODY = 4;
+    public static final int M_BODY_NO_HOUSE = 5;
+    public static final int M_ASPECTS = 6;
+    public static final int M_ASPECTS_NONE = 7;
+    public static final int M_ASPECT = 8;
+    // 相位解读：M_ASPECT_MEANING + 相位常量；自定义相位使用 M_ASPECT_MEANING_OTHER
+    public static final int M_ASPECT_MEANING = 9;
+    public static final int M_ASPECT_MEANING_OTHER = M_ASPECT_MEANING + ASPECT_KEYS.length;
+    public static final int M_ASCENDANT = M_ASPECT_MEANING_OTHER + 1;
+    public static final int M_MIDHEAVEN = M_ASCENDANT + 1;
+    public static final int M_FOOTNOTE = M_MIDHEAVEN + 1;
+    public static final String[] MESSAGE_KEYS = {
+            "header", "header.anonymous", "julianDay", "houseSystem", "body", "body.noHouse",
+            "aspects", "aspects.none", "aspect",
+            "aspectMeaning.CONJUNCTION", "aspectMeaning.SEXTILE", "aspectMeaning.SQUARE",
+            "aspectMeaning.TRINE", "aspectMeaning.OPPOSITION", "aspectMeaning.other",
+            "ascendant", "midheaven", "footnote"
+    };
+
+    // 占位符：{name} 等；数值按固定小数位输出
+    public static final int P_NAME = 0;
+    public static final int P_JULIAN_DAY = 1;
+    public static final int P_SYSTEM = 2;
+    public static final int P_BODY = 3;
+    public static final int P_LONGITUDE = 4;
+    public static final int P_SIGN = 5;
+    public static final int P_HOUSE = 6;
+    public static final int P_BODY_B = 7;
+    public static final int P_ASPECT = 8;
+    public static final int P_DEVIATION = 9;
+    public static final int P_ASCENDANT = 10;
+    public static final int P_ASCENDANT_SIGN = 11;
+    public static final int P_MIDHEAVEN = 12;
+    public static final int P_MIDHEAVEN_SIGN = 13;
+    public static final String[] PLACEHOLDERS = {
+            "name", "jd", "system", "body", "lon", "sign", "house", "bodyB", "aspect", "deviation",
+            "asc", "ascSign", "mc", "mcSign"
+    };
+
+    private InterpretationFormat() {
+    }
+
+    /**
+     * 天体 × 星座 × 宫位 表中的下标
+     */
+    public static int cell(int body, int sign, int house) {
+        return (body * SIGN_KEYS.length + sign) * HOUSE_SLOTS + house;
+    }
+
+    private static String[] nameKeys() {
+        String[] keys = new String[NAME_SYSTEM + SYSTEM_KEYS.length];
+        for (int i = 0; i < BODY_KEYS.length; i++) keys[NAME_BODY + i] = "body." + BODY_KEYS[i];
+        for (int i = 0; i < SIGN_KEYS.length; i++) keys[NAME_SIGN + i] = "sign." + SIGN_KEYS[i];
+        for (int i = 0; i < ASPECT_KEYS.length; i++) keys[NAME_ASPECT + i] = "aspect." + ASPECT_KEYS[i];
+        for (int i = 0; i < SYSTEM_KEYS.length; i++) keys[NAME_SYSTEM + i] = "system." + SYSTEM_KEYS[i];
+        return keys;
+    }
+}
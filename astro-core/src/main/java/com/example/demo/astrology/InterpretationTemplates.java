@@ -0,0 +1,260 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 预编译的解读模板（格式见 InterpretationFormat）
+ *
+ * 说明：
+ * - 每种语言一个文件，第一次用到该语言时才从 Source 读入（之后缓存）；找不到时退回 DEFAULT_LANGUAGE
+ * - 模板已在构建时拆成“文字片段 + 占位符”的操作序列，输出时直接逐段写入 Appendable，
+ *   不做字符串拼接、不调用 String.format；数值由 appendFixed 逐位写出，不分配对象
+ * - 天体 × 星座 × 宫位 的解读在构建时就已按优先级选好并合并，运行时只是查表
+ *
+ * 加载后只读，可以在多个线程中同时使用（Args 每个线程各用一个）。
+ */
+public final class InterpretationTemplates {
+
+    public static final String DEFAULT_LANGUAGE = "zh";
+
+    /**
+     * 模板文件的来源：Android 上由 MainActivity 设为 assets，默认从 classpath 的 /interp/ 读取
+     */
+    public interface Source {
+        /**
+         * 打开某语言的模板文件；没有该语言时返回 null
+         */
+        InputStream open(String language) throws IOException;
+    }
+
+    private static final Source CLASSPATH = new Source() {
+        @Override
+        public InputStream open(String language) {
+            return InterpretationTemplates.class.getResourceAsStream("/interp/" + language + ".bin");
+        }
+    };
+
+    private static Source source = CLASSPATH;
+    private static final Map<String, InterpretationTemplates> cache = new HashMap<>();
+
+    /**
+     * 输出模板时占位符的取值；可复用
+     */
+    public static final class Args {
+        public String name;
+        public double julianDay;
+        public HouseSystem houseSystem;
+        public Body body;
+        public double longitude;
+        public int house;
+        public Body bodyB;
+        public int aspect;
+        // aspect 不是内置相位时显示的名称
+        public String aspectName;
+        public double deviation;
+        public double ascendant;
+        public double midheaven;
+    }
+
+    private final String[] literals;
+    private final int[][] templates;
+    private final int[] names;
+    private final int[] messages;
+    private final int[] table;
+
+    public static synchronized void setSource(Source s) {
+        source = s == null ? CLASSPATH : s;
+        cache.clear();
+    }
+
+    /**
+     * 某语言环境的模板（按语言代码查找，如 zh、en）
+     *
+     * @throws IOException 该语言与默认语言的模板都无法读取
+     */
+    public static synchronized InterpretationTemplates forLocale(Locale locale) throws IOException {
+        String language = locale == null ? DEFAULT_LANGUAGE : locale.getLanguage();
+        InterpretationTemplates t = cache.get(language);
+        if (t != null) return t;
+        InputStream in = source.open(language);
+        if (in == null) {
+            if (language.equals(DEFAULT_LANGUAGE)) throw new IOException("找不到解读模板: " + language);
+            t = forLocale(null);
+        } else {
+            try {
+                t = read(in);
+            } finally {
+                in.close();
+            }
+        }
+        cache.put(language, t);
+        return t;
+    }
+
+    public static InterpretationTemplates read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != InterpretationFormat.MAGIC) throw new IOException("不是解读模板文件");
+        int version = data.readInt();
+        if (version != InterpretationFormat.VERSION) throw new IOException("不支持的解读模板版本: " + version);
+        String[] literals = new String[data.readInt()];
+        for (int i = 0; i < literals.length; i++) literals[i] = data.readUTF();
+        int[][] templates = new int[data.readInt()][];
+        for (int i = 0; i < templates.length; i++) {
+            int[] ops = new int[data.readInt()];
+            for (int k = 0; k < ops.length; k++) {
+                ops[k] = data.readInt();
+                int code = -ops[k] - 1;
+                if (ops[k] >= literals.length || code >= InterpretationFormat.PLACEHOLDERS.length) {
+                    throw new IOException("解读模板已损坏");
+                }
+            }
+            templates[i] = ops;
+        }
+        int[] names = readIndices(data, InterpretationFormat.NAME_KEYS.length, literals.length);
+        int[] messages = readIndices(data, InterpretationFormat.MESSAGE_KEYS.length, templates.length);
+        int[] table = readIndices(data, InterpretationFormat.cell(InterpretationFormat.BODY_KEYS.length, 0, 0), templates.length);
+        return new InterpretationTemplates(literals, templates, names, messages, table);
+    }
+
+    private static int[] readIndices(DataInputStream data, int count, int limit) throws IOException {
+        int[] a = new int[count];
+        for (int i = 0; i < count; i++) {
+            a[i] = data.readInt();
+            if (a[i] < 0 || a[i] >= limit) throw new IOException("解读模板已损坏");
+        }
+        return a;
+    }
+
+    private InterpretationTemplates(String[] literals, int[][] templates, int[] names, int[] messages, int[] table) {
+        this.literals = literals;
+        this.templates = templates;
+        this.names = names;
+        this.messages = messages;
+        this.table = table;
+    }
+
+    public String bodyName(Body body) {
+        return literals[names[InterpretationFormat.NAME_BODY + body.ordinal()]];
+    }
+
+    public String signName(int sign) {
+        return literals[names[InterpretationFormat.NAME_SIGN + sign]];
+    }
+
+    public String systemName(HouseSystem system) {
+        return literals[names[InterpretationFormat.NAME_SYSTEM + system.ordinal()]];
+    }
+
+    /**
+     * 输出一条固定文案（InterpretationFormat.M_*）
+     */
+    public void write(int message, Args args, Appendable out) throws IOException {
+        run(templates[messages[message]], args, out);
+    }
+
+    /**
+     * 输出某天体落在某星座、某宫（0 表示不考虑宫位）的解读
+     */
+    public void writeBody(Body body, int sign, int house, Args args, Appendable out) throws IOException {
+        run(templates[table[InterpretationFormat.cell(body.ordinal(), sign, house)]], args, out);
+    }
+
+    private void run(int[] ops, Args a, Appendable out) throws IOException {
+        for (int op : ops) {
+            if (op >= 0) {
+                out.append(literals[op]);
+                continue;
+            }
+            switch (-op - 1) {
+                case InterpretationFormat.P_NAME:
+                    if (a.name != null) out.append(a.name);
+                    break;
+                case InterpretationFormat.P_JULIAN_DAY:
+                    appendFixed(out, a.julianDay, 5);
+                    break;
+                case InterpretationFormat.P_SYSTEM:
+                    if (a.houseSystem != null) out.append(systemName(a.houseSystem));
+                    break;
+                case InterpretationFormat.P_BODY:
+                    out.append(bodyName(a.body));
+                    break;
+                case InterpretationFormat.P_LONGITUDE:
+                    appendFixed(out, a.longitude, 2);
+                    break;
+                case InterpretationFormat.P_SIGN:
+                    out.append(signName(ZodiacUtils.zodiacIndex(a.longitude)));
+                    break;
+                case InterpretationFormat.P_HOUSE:
+                    appendFixed(out, a.house, 0);
+                    break;
+                case InterpretationFormat.P_BODY_B:
+                    out.append(bodyName(a.bodyB));
+                    break;
+                case InterpretationFormat.P_ASPECT:
+                    if (a.aspect >= 0 && a.aspect < InterpretationFormat.ASPECT_KEYS.length) {
+                        out.append(literals[names[InterpretationFormat.NAME_ASPECT + a.aspect]]);
+                    } else if (a.aspectName != null) {
+                        out.append(a.aspectName);
+                    }
+                    break;
+                case InterpretationFormat.P_DEVIATION:
+                    appendFixed(out, a.deviation, 1);
+                    break;
+                case InterpretationFormat.P_ASCENDANT:
+                    appendFixed(out, a.ascendant, 2);
+                    break;
+                case InterpretationFormat.P_ASCENDANT_SIGN:
+                    out.append(signName(ZodiacUtils.zodiacIndex(a.ascendant)));
+                    break;
+                case InterpretationFormat.P_MIDHEAVEN:
+                    appendFixed(out, a.midheaven, 2);
+                    break;
+                case InterpretationFormat.P_MIDHEAVEN_SIGN:
+                    out.append(signName(ZodiacUtils.zodiacIndex(a.midheaven)));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+    };
+
+    // appendFixed 能写出的绝对值上限（不含）
+    public static final double MAX_FIXED = 9e8;
+
+    /**
+     * 按固定小数位（0-9）写出 v（四舍五入），不分配对象；NaN、无穷与 |v| ≥ MAX_FIXED 写为 "-"
+     */
+    public static void appendFixed(Appendable out, double v, int decimals) throws IOException {
+        if (Double.isNaN(v) || Double.isInfinite(v) || Math.abs(v) >= MAX_FIXED) {
+            out.append('-');
+            return;
+        }
+        long scaled = Math.round(Math.abs(v) * POW10[decimals]);
+        if (v < 0 && scaled != 0) out.append('-');
+        appendDigits(out, scaled / POW10[decimals], 1);
+        if (decimals > 0) {
+            out.append('.');
+            appendDigits(out, scaled % POW10[decimals], decimals);
+        }
+    }
+
+    /**
+     * 写出非负整数 n，至少 width 位（不足补 0）
+     */
+    private static void appendDigits(Appendable out, long n, int width) throws IOException {
+        int digits = 1;
+        while (digits < POW10.length && n >= POW10[digits]) digits++;
+        for (int i = digits; i < width; i++) out.append('0');
+        for (int i = digits - 1; i >= 0; i--) out.append((char) ('0' + (n / POW10[i]) % 10));
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.demo.astrology;
+
+/**
+ * 月亮位置（Meeus《Astronomical Algorithms》第 47 章，ELP-2000/82 的截断版本）
+ *
+ * 说明：
+ * - 黄经/距离各 60 项（表 47.A），黄纬 60 项（表 47.B），外加金星、木星摄动与地球扁率的附加项
+ * - 精度约为黄经 10″、黄纬 4″，结果为当日平分点的几何黄经（未加章动）
+ * - 每一项的幅角都是 D、M、M′、F 的小整数倍组合。这里只对四个基本角各求一次 sin/cos，
+ *   倍角用切比雪夫递推 cos(kx) = 2cos(x)cos((k-1)x) - cos((k-2)x) 生成，
+ *   每一项再用和角公式（复数乘法）组合，整张表不再调用 Math.sin
+ * - 含 M 的项要乘以 E^|m|（地球轨道偏心率的变化），这个因子直接并入 M 的倍角表
+ * - 系数打包在 int[] 中，每项连续存放，顺序遍历
+ */
+public final class LunarTheory {
+
+    private LunarTheory() {
+    }
+
+    // 表 47.A：每项 6 个 int —— D、M、M′、F 的倍数，黄经系数（1e-6 度，sin），距离系数（1e-3 km，cos）
+    private static final int[] LR = {
+            0, 0, 1, 0, 6288774, -20905355,
+            2, 0, -1, 0, 1274027, -3699111,
+            2, 0, 0, 0, 658314, -2955968,
+            0, 0, 2, 0, 213618, -569925,
+            0, 1, 0, 0, -185116, 48888,
+            0, 0, 0, 2, -114332, -3149,
+            2, 0, -2, 0, 58793, 246158,
+            2, -1, -1, 0, 57066, -152138,
+            2, 0, 1, 0, 53322, -170733,
+            2, -1, 0, 0, 45758, -204586,
+            0, 1, -1, 0, -40923, -129620,
+            1, 0, 0, 0, -34720, 108743,
+            0, 1, 1, 0, -30383, 104755,
+            2, 0, 0, -2, 15327, 10321,
+            0, 0, 1, 2, -12528, 0,
+            0, 0, 1, -2, 10980, 79661,
+            4, 0, -1, 0, 10675, -34782,
+            0, 0, 3, 0, 10034, -23210,
+            4, 0, -2, 0, 8548, -21636,
+            2, 1, -1, 0, -7888, 24208,
+            2, 1, 0, 0, -6766, 30824,
+            1, 0, -1, 0, -5163, -8379,
+            1, 1, 0, 0, 4987, -16675,
+            2, -1, 1, 0, 4036, -12831,
+            2, 0, 2, 0, 3994, -10445,
+            4, 0, 0, 0, 3861, -11650,
+            2, 0, -3, 0, 3665, 14403,
+            0, 1, -2, 0, -2689, -7003,
+            2, 0, -1, 2, -2602, 0,
+            2, -1, -2, 0, 2390, 10056,
+            1, 0, 1, 0, -2348, 6322,
+            2, -2, 0, 0, 2236, -9884,
+            0, 1, 2, 0, -2120, 5751,
+            0, 2, 0, 0, -2069, 0,
+            2, -2, -1, 0, 2048, -4950,
+            2, 0, 1, -2, -1773, 4130,
+            2, 0, 0, 2, -1595, 0,
+            4, -1, -1, 0, 1215, -3958,
+            0, 0, 2, 2, -1110, 0,
+            3, 0, -1, 0, -892, 3258,
+            2, 1, 1, 0, -810, 2616,
+            4, -1, -2, 0, 759, -1897,
+            0, 2, -1, 0, -713, -2117,
+            2, 2, -1, 0, -700, 2354,
+            2, 1, -2, 0, 691, 0,
+            2, -1, 0, -2, 596, 0,
+            4, 0, 1, 0, 549, -1423,
+            0, 0, 4, 0, 537, -1117,
+            4, -1, 0, 0, 520, -1571,
+            1, 0, -2, 0, -487, -1739,
+            2, 1, 0, -2, -399, 0,
+            0, 0, 2, -2, -381, -4421,
+            1, 1, 1, 0, 351, 0,
+            3, 0, -2, 0, -340, 0,
+            4, 0, -3, 0, 330, 0,
+            2, -1, 2, 0, 327, 0,
+            0, 2, 1, 0, -323, 1165,
+            1, 1, -1, 0, 299, 0,
+            2, 0, 3, 0, 294, 0,
+            2, 0, -1, -2, 0, 8752,
+    };
+
+    // 表 47.B：每项 5 个 int —— D、M、M′、F 的倍数，黄纬系数（1e-6 度，sin）
+    private static final int[] B = {
+            0, 0, 0, 1, 5128122,
+            0, 0, 1, 1, 280602,
+            0, 0, 1, -1, 277693,
+            2, 0, 0, -1, 173237,
+            2, 0, -1, 1, 55413,
+            2, 0, -1, -1, 46271,
+            2, 0, 0, 1, 32573,
+            0, 0, 2, 1, 17198,
+            2, 0, 1, -1, 9266,
+            0, 0, 2, -1, 8822,
+            2, -1, 0, -1, 8216,
+            2, 0, -2, -1, 4324,
+            2, 0, 1, 1, 4200,
+            2, 1, 0, -1, -3359,
+            2, -1, -1, 1, 2463,
+            2, -1, 0, 1, 2211,
+            2, -1, -1, -1, 2065,
+            0, 1, -1, -1, -1870,
+            4, 0, -1, -1, 1828,
+            0, 1, 0, 1, -1794,
+            0, 0, 0, 3, -1749,
+            0, 1, -1, 1, -1565,
+            1, 0, 0, 1, -1491,
+            0, 1, 1, 1, -1475,
+            0, 1, 1, -1, -1410,
+            0, 1, 0, -1, -1344,
+            1, 0, 0, -1, -1335,
+            0, 0, 3, 1, 1107,
+            4, 0, 0, -1, 1021,
+            4, 0, -1, 1, 833,
+            0, 0, 1, -3, 777,
+            4, 0, -2, 1, 671,
+            2, 0, 0, -3, 607,
+            2, 0, 2, -1, 596,
+            2, -1, 1, -1, 491,
+            2, 0, -2, 1, -451,
+            0, 0, 3, -1, 439,
+            2, 0, 2, 1, 422,
+            2, 0, -3, -1, 421,
+            2, 1, -1, 1, -366,
+            2, 1, 0, 1, -351,
+            4, 0, 0, 1, 331,
+            2, -1, 1, 1, 315,
+            2, -2, 0, -1, 302,
+            0, 0, 1, 3, -283,
+            2, 1, 1, -1, -229,
+            1, 1, 0, -1, 223,
+            1, 1, 0, 1, 223,
+            0, 1, -2, -1, -220,
+            2, 1, -1, -1, -220,
+            1, 0, 1, 1, -185,
+            2, -1, -2, -1, 181,
+            0, 1, 2, 1, -177,
+            4, 0, -2, -1, 176,
+            4, -1, -1, -1, 166,
+            1, 0, 1, -1, -164,
+            4, 0, 1, -1, 132,
+            1, 0, -1, -1, -119,
+            4, -1, 0, -1, 115,
+            2, -2, 0, 1, 107,
+    };
+
+    private static final int LR_STRIDE = 6;
+    private static final int B_STRIDE = 5;
+
+    // 倍角表：每个基本角存 k = -4..4 的 cos 与 sin（D、M′ 最大 4 倍，M 最大 2 倍，F 最大 3 倍）
+    private static final int MAX_MULTIPLE = 4;
+    private static final int SPAN = 2 * MAX_MULTIPLE + 1;
+    // 各基本角在表中的起点；下标再加 k + MAX_MULTIPLE
+    private static final int D_ = 0, M_ = SPAN, P_ = 2 * SPAN, F_ = 3 * SPAN;
+    // sin 部分相对 cos 部分的偏移
+    private static final int SIN = 4 * SPAN;
+
+    // 每线程一份倍角表，避免每次计算都分配
+    private static final ThreadLocal<double[]> MULTIPLES = new ThreadLocal<double[]>() {
+        @Override
+        protected double[] initialValue() {
+            return new double[2 * SIN];
+        }
+    };
+
+    /**
+     * 月亮地心黄经（度，0-360）
+     */
+    public static double longitude(double jde) {
+        return longitudeFromT((jde - 2451545.0) / 36525.0);
+    }
+
+    /**
+     * 同上，参数为自 J2000.0 起的儒略世纪数 T（批量计算时 T 已经算好）
+     */
+    public static double longitudeFromT(double T) {
+        double[] m = MULTIPLES.get();
+        fillMultiples(T, m);
+
+        double sl = 0;
+        for (int i = 0; i < LR.length; i += LR_STRIDE) {
+            int d = D_ + LR[i] + MAX_MULTIPLE;
+            int e = M_ + LR[i + 1] + MAX_MULTIPLE;
+            int p = P_ + LR[i + 2] + MAX_MULTIPLE;
+            int f = F_ + LR[i + 3] + MAX_MULTIPLE;
+            // (D 项) × (M 项) × (M′ 项) 得到前三个角的和，最后一步只需要 sin
+            double c = m[d] * m[e] - m[SIN + d] * m[SIN + e];
+            double s = m[SIN + d] * m[e] + m[d] * m[SIN + e];
+            double c2 = c * m[p] - s * m[SIN + p];
+            double s2 = s * m[p] + c * m[SIN + p];
+            sl += LR[i + 4] * (s2 * m[f] + c2 * m[SIN + f]);
+        }
+        return PlanetCalculator.normalizeDegrees(meanLongitude(T) + (sl + longitudeAdditive(T)) * 1e-6);
+    }
+
+    /**
+     * 同时计算黄经、黄纬（度）与地月距离（km），写入 out[0..2]；三者共用同一张倍角表
+     */
+    public static void position(double jde, double[] out) {
+        double T = (jde - 2451545.0) / 36525.0;
+        double[] m = MULTIPLES.get();
+        fillMultiples(T, m);
+
+        double sl = 0, sr = 0;
+        for (int i = 0; i < LR.length; i += LR_STRIDE) {
+            int d = D_ + LR[i] + MAX_MULTIPLE;
+            int e = M_ + LR[i + 1] + MAX_MULTIPLE;
+            int p = P_ + LR[i + 2] + MAX_MULTIPLE;
+            int f = F_ + LR[i + 3] + MAX_MULTIPLE;
+            double c = m[d] * m[e] - m[SIN + d] * m[SIN + e];
+            double s = m[SIN + d] * m[e] + m[d] * m[SIN + e];
+            double c2 = c * m[p] - s * m[SIN + p];
+            double s2 = s * m[p] + c * m[SIN + p];
+            sl += LR[i + 4] * (s2 * m[f] + c2 * m[SIN + f]);
+            sr += LR[i + 5] * (c2 * m[f] - s2 * m[SIN + f]);
+        }
+        double sb = 0;
+        for (int i = 0; i < B.length; i += B_STRIDE) {
+            int d = D_ + B[i] + MAX_MULTIPLE;
+            int e = M_ + B[i + 1] + MAX_MULTIPLE;
+            int p = P_ + B[i + 2] + MAX_MULTIPLE;
+            int f = F_ + B[i + 3] + MAX_MULTIPLE;
+            double c = m[d] * m[e] - m[SIN + d] * m[SIN + e];
+            double s = m[SIN + d] * m[e] + m[d] * m[SIN + e];
+            double c2 = c * m[p] - s * m[SIN + p];
+            double s2 = s * m[p] + c * m[SIN + p];
+            sb += B[i + 4] * (s2 * m[f] + c2 * m[SIN + f]);
+        }
+
+        out[0] = PlanetCalculator.normalizeDegrees(meanLongitude(T) + (sl + longitudeAdditive(T)) * 1e-6);
+        out[1] = (sb + latitudeAdditive(T)) * 1e-6;
+        out[2] = 385000.56 + sr * 1e-3;
+    }
+
+    /**
+     * 填充 D、M、M′、F 的倍角表；M 的 k 倍角同时乘上 E^|k|
+     */
+    private static void fillMultiples(double T, double[] m) {
+        fillAngle(m, D_, Math.toRadians(elongation(T)), 1.0);
+        fillAngle(m, M_, Math.toRadians(sunAnomaly(T)), 1 - 0.002516 * T - 0.0000074 * T * T);
+        fillAngle(m, P_, Math.toRadians(moonAnomaly(T)), 1.0);
+        fillAngle(m, F_, Math.toRadians(argumentOfLatitude(T)), 1.0);
+    }
+
+    /**
+     * 切比雪夫递推生成 k = 0..4 的 cos(kx)、sin(kx)，负倍数由奇偶性得到；每个 k 再乘以 scale^|k|
+     */
+    private static void fillAngle(double[] m, int base, double x, double scale) {
+        int zero = base + MAX_MULTIPLE;
+        double c1 = Math.cos(x), s1 = Math.sin(x);
+        double cPrev = 1, sPrev = 0, c = c1, s = s1;
+        double factor = 1;
+        m[zero] = 1;
+        m[SIN + zero] = 0;
+        for (int k = 1; k <= MAX_MULTIPLE; k++) {
+            factor *= scale;
+            m[zero + k] = c * factor;
+            m[SIN + zero + k] = s * factor;
+            m[zero - k] = c * factor;
+            m[SIN + zero - k] = -s * factor;
+            double cNext = 2 * c1 * c - cPrev;
+            double sNext = 2 * c1 * s - sPrev;
+            cPrev = c;
+            sPrev = s;
+            c = cNext;
+            s = sNext;
+        }
+    }
+
+    /*******************************
+     * 基本幅角（度），Meeus 式 47.1–47.5
+     *******************************/
+
+    static double meanLongitude(double T) {
+        return PlanetCalculator.normalizeDegrees(218.3164477 + 481267.88123421 * T - 0.0015786 * T * T
+                + T * T * T / 538841.0 - T * T * T * T / 65194000.0);
+    }
+
+    static double elongation(double T) {
+        return PlanetCalculator.normalizeDegrees(297.8501921 + 445267.1114034 * T - 0.0018819 * T * T
+                + T * T * T / 545868.0 - T * T * T * T / 113065000.0);
+    }
+
+    static double sunAnomaly(double T) {
+        return PlanetCalculator.normalizeDegrees(357.5291092 + 35999.0502909 * T - 0.0001536 * T * T
+                + T * T * T / 24490000.0);
+    }
+
+    static double moonAnomaly(double T) {
+        return PlanetCalculator.normalizeDegrees(134.9633964 + 477198.8675055 * T + 0.0087414 * T * T
+                + T * T * T / 69699.0 - T * T * T * T / 14712000.0);
+    }
+
+    static double argumentOfLatitude(double T) {
+        return PlanetCalculator.normalizeDegrees(93.2720950 + 483202.0175233 * T - 0.0036539 * T * T
+                - T * T * T / 3526000.0 + T * T * T * T / 863310000.0);
+    }
+
+    /**
+     * 黄经附加项（1e-6 度）：金星摄动 A1、木星摄动 A2、地球扁率 L′-F
+     */
+    private static double longitudeAdditive(double T) {
+        double a1 = Math.toRadians(119.75 + 131.849 * T);
+        double a2 = Math.toRadians(PlanetCalculator.normalizeDegrees(53.09 + 479264.290 * T));
+        double lf = Math.toRadians(meanLongitude(T) - argumentOfLatitude(T));
+        return 3958 * Math.sin(a1) + 1962 * Math.sin(lf) + 318 * Math.sin(a2);
+    }
+
+    /**
+     * 黄纬附加项（1e-6 度）
+     */
+    private static double latitudeAdditive(double T) {
+        double lp = Math.toRadians(meanLongitude(T));
+        double mp = Math.toRadians(moonAnomaly(T));
+        double f = Math.toRadians(argumentOfLatitude(T));
+        double a1 = Math.toRadians(119.75 + 131.849 * T);
+        double a3 = Math.toRadians(PlanetCalculator.normalizeDegrees(313.45 + 481266.484 * T));
+        return -2235 * Math.sin(lp) + 382 * Math.sin(a3) + 175 * Math.sin(a1 - f) + 175 * Math.sin(a1 + f)
+                + 127 * Math.sin(lp - mp) - 115 * Math.sin(lp + mp);
+    }
+
+    /**
+     * 逐项调用 Math.sin 的直接求和，与 longitudeFromT 结果相同（仅舍入误差不同），
+     * 用于与 longitudeFromT 的性能对比（见 src/jmh 中的 LunarBenchmark）
+     */
+    static double longitudeDirect(double T) {
+        double d = elongation(T), m = sunAnomaly(T), mp = moonAnomaly(T), f = argumentOfLatitude(T);
+        double e = 1 - 0.002516 * T - 0.0000074 * T * T;
+        double sl = 0;
+        for (int i = 0; i < LR.length; i += LR_STRIDE) {
+            double arg = LR[i] * d + LR[i + 1] * m + LR[i + 2] * mp + LR[i + 3] * f;
+            double term = LR[i + 4] * Math.sin(Math.toRadians(arg));
+            int em = Math.abs(LR[i + 1]);
+            if (em == 1) term *= e;
+            else if (em == 2) term *= e * e;
+            sl += term;
+        }
+        return PlanetCalculator.normalizeDegrees(meanLongitude(T) + (sl + longitudeAdditive(T)) * 1e-6);
+    }
+}
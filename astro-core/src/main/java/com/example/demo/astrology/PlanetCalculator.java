@@ -0,0 +1,722 @@
+package com.example.demo.astrology;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 主要的天文计算类（简化实现）
+ *
+ * 功能：
+ * - 计算儒略日（Julian Day，基于 Meeus）
+ * - 计算太阳与水星……冥王星的地心视黄经（VSOP87，见 Vsop87；可按 Vsop87.Accuracy 选择精度档位）
+ * - 计算月亮黄经（Meeus 第 47 章周期项，见 LunarTheory）
+ * - 计算上升点（Ascendant）、天顶与宫头（宫制可选，见 HouseSystem / HouseEngine）
+ *
+ * 时间：
+ * - 星盘接口（calculate*、calculateBatch）接收 UT 的儒略日，天体位置按 TT = UT + ΔT 计算（见 DeltaT），
+ *   恒星时与上升点按 UT 计算；eclipticLongitude 等单个天体的函数直接接收 TT 的儒略日
+ * - 当地时间按出生地的历史时区换算为 UT（见 TimeZoneTable）；不带时区的 calculateFromLocal 把输入当作 UT
+ *
+ * 提醒：
+ * - 注释中会标明公式来源与近似位置。
+ *
+ * 参考：
+ * - Jean Meeus, Astronomical Algorithms（Julian Day 等常用公式）。:contentReference[oaicite:2]{index=2}
+ */
+public class PlanetCalculator {
+
+    /**
+     * 计算结果的容器
+     *
+     * 黄经按 Body.ordinal() 存放在一个 double[] 中，不装箱、不哈希；
+     * 实例可复用：把同一个 CalcResult 反复传给 calculateFromLocal(..., out) 即可原地填充。
+     */
+    public static class CalcResult {
+        // 每个天体的黄经（0-360），下标为 Body.ordinal()
+        public final double[] longitudes = new double[Body.COUNT];
+        // 上升点黄经（0-360）——用于宫位起点；NaN 表示尚未计算
+        public double ascendant = Double.NaN;
+        // 天顶（MC）黄经（0-360）
+        public double midheaven = Double.NaN;
+        // 12 个宫头黄经（0-360），houseCusps[0] 即上升点
+        public final double[] houseCusps = new double[12];
+        // 宫头实际使用的宫制（高纬度时 Placidus/Koch 会退回 Porphyry）；null 表示尚未计算
+        public HouseSystem houseSystem;
+        // 其它可扩展字段
+        public double julianDay;
+        // calculate 内部的章动临时数组，随实例复用，避免每次计算都分配
+        final double[] nutation = new double[2];
+        // 兼容旧代码的只读视图：按 "Sun"/"Moon" 等字符串取值，读取时才装箱，迭代顺序与 Body 一致
+        public final Map<String, Double> planetLongitudes = new LongitudeMapView(longitudes);
+
+        public double get(Body body) {
+            return longitudes[body.ordinal()];
+        }
+
+        public void set(Body body, double longitude) {
+            longitudes[body.ordinal()] = longitude;
+        }
+
+        /**
+         * 清空为未计算状态，便于复用
+         */
+        public void reset() {
+            for (int i = 0; i < longitudes.length; i++) longitudes[i] = Double.NaN;
+            for (int i = 0; i < houseCusps.length; i++) houseCusps[i] = Double.NaN;
+            ascendant = Double.NaN;
+            midheaven = Double.NaN;
+            houseSystem = null;
+            julianDay = 0;
+        }
+
+        public void copyFrom(CalcResult other) {
+            System.arraycopy(other.longitudes, 0, longitudes, 0, longitudes.length);
+            System.arraycopy(other.houseCusps, 0, houseCusps, 0, houseCusps.length);
+            ascendant = other.ascendant;
+            midheaven = other.midheaven;
+            houseSystem = other.houseSystem;
+            julianDay = other.julianDay;
+        }
+    }
+
+    // 未指定精度时使用的 VSOP87 档位
+    public static final Vsop87.Accuracy DEFAULT_ACCURACY = Vsop87.Accuracy.ARCSECOND;
+
+    // 未指定宫制时使用的宫制
+    public static final HouseSystem DEFAULT_HOUSE_SYSTEM = HouseSystem.PLACIDUS;
+
+    // 星历支持的时刻范围（儒略日）：J2000 前后各 4000 年，即 Meeus 给出的截断 VSOP87 的适用范围；
+    // 超出范围时多项式项发散，结果没有意义。对外接收任意时刻的接口（如 chart-server）应先用它检查
+    public static final double MIN_JULIAN_DAY = 2451545.0 - 4000 * 365.25;
+    public static final double MAX_JULIAN_DAY = 2451545.0 + 4000 * 365.25;
+
+    // 并行批量计算时每个子任务的最小长度，低于此值直接串行（拆分开销大于收益）
+    private static final int BATCH_PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * planetLongitudes 的实现：直接读 longitudes 数组，不保存任何副本。
+     * 修改操作一律不支持（应通过 CalcResult.set 写入）。
+     */
+    private static final class LongitudeMapView extends AbstractMap<String, Double> {
+        private final double[] values;
+        private Set<Map.Entry<String, Double>> entrySet;
+
+        LongitudeMapView(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Double get(Object key) {
+            if (!(key instanceof String)) return null;
+            Body b = Body.fromKey((String) key);
+            return b == null ? null : values[b.ordinal()];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && Body.fromKey((String) key) != null;
+        }
+
+        @Override
+        public int size() {
+            return Body.COUNT;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Double>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<Map.Entry<String, Double>>() {
+                    @Override
+                    public Iterator<Map.Entry<String, Double>> iterator() {
+                        return new Iterator<Map.Entry<String, Double>>() {
+                            private int next = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < Body.COUNT;
+                            }
+
+                            @Override
+                            public Map.Entry<String, Double> next() {
+                                if (next >= Body.COUNT) throw new NoSuchElementException();
+                                Body b = Body.VALUES[next++];
+                                return new AbstractMap.SimpleImmutableEntry<>(b.key, values[b.ordinal()]);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return Body.COUNT;
+                    }
+                };
+            }
+            return entrySet;
+        }
+    }
+
+    /**
+     * 对外接口：给出日期字符串（YYYY-MM-DD）、时间（HH:MM）以及经度/纬度（度）。
+     * 返回 CalcResult
+     *
+     * 注意：不带时区的重载把输入时间当作 UT；出生地的当地时间请使用带时区的重载
+     */
+    public static CalcResult calculateFromLocal(String dateYMD, String timeHM, double lon, double lat) throws Exception {
+        return calculateFromLocal(dateYMD, timeHM, lon, lat, new CalcResult());
+    }
+
+    /**
+     * 同上，但把结果原地写入调用方提供的 out（批量计算时复用同一实例，避免每张星盘都分配新对象）
+     *
+     * @return out 本身
+     */
+    public static CalcResult calculateFromLocal(String dateYMD, String timeHM, double lon, double lat, CalcResult out) throws Exception {
+        return calculateFromLocal(dateYMD, timeHM, lon, lat, DEFAULT_HOUSE_SYSTEM, out);
+    }
+
+    /**
+     * 同上，指定宫制
+     */
+    public static CalcResult calculateFromLocal(String dateYMD, String timeHM, double lon, double lat,
+                                                HouseSystem houseSystem, CalcResult out) throws Exception {
+        return calculate(julianDayFromLocal(dateYMD, timeHM), lon, lat, houseSystem, out);
+    }
+
+    /**
+     * 出生地当地时间：按 zones 中 zoneId 的历史时区换算为 UT 后计算；解析与换算都不分配对象
+     *
+     * @param timeHMS HH:MM 或 HH:MM:SS
+     * @param zoneId  IANA 时区名，如 "Asia/Shanghai"（地名库中每个地点都带有）
+     */
+    public static CalcResult calculateFromLocal(CharSequence dateYMD, CharSequence timeHMS, String zoneId, TimeZoneTable zones,
+                                                double lon, double lat, HouseSystem houseSystem, CalcResult out) {
+        return calculate(julianDayFromLocal(dateYMD, timeHMS, zoneId, zones), lon, lat, houseSystem, out);
+    }
+
+    /**
+     * 按 UTC 纪元秒（1970-01-01T00:00Z 起）计算
+     */
+    public static CalcResult calculateFromUtc(long epochSecond, double lon, double lat, HouseSystem houseSystem, CalcResult out) {
+        return calculate(julianDayFromEpochSecond(epochSecond), lon, lat, houseSystem, out);
+    }
+
+    /**
+     * 计算星盘的核心：jd 为 UT 的儒略日；天体位置在 TT 计算，恒星时与宫位在 UT 计算。
+     * 不分配对象（章动临时数组在 out 中）。
+     *
+     * @return out 本身
+     */
+    public static CalcResult calculate(double jd, double lon, double lat, HouseSystem houseSystem, CalcResult out) {
+        double T = (jd - 2451545.0) / 36525.0;
+        double jde = DeltaT.toTt(jd);
+        double Tde = (jde - 2451545.0) / 36525.0;
+
+        CalcResult res = out;
+        res.julianDay = jd;
+
+        // 章动与真黄赤交角（黄经章动加到所有天体上，得到视黄经）
+        double[] nut = res.nutation;
+        nutation(Tde, nut);
+        double eps = obliquityFromT(Tde) + nut[1];
+
+        // 太阳与各行星（VSOP87，地球位置只算一次）；月亮那一格随后单独填写
+        Vsop87.forAccuracy(DEFAULT_ACCURACY).geocentricLongitudes(jde, res.longitudes);
+
+        // 计算月亮黄经
+        long t0 = StageTimings.start();
+        res.set(Body.MOON, LunarTheory.longitudeFromT(Tde));
+        StageTimings.stop(StageTimings.Stage.MOON, t0);
+        applyNutation(res.longitudes, nut[0]);
+
+        // 计算上升点（Ascendant）、天顶与宫头——由视恒星时与真黄赤交角得到
+        t0 = StageTimings.start();
+        double lst = normalizeDegrees(apparentSiderealTime(jd, T, nut[0], eps) + lon);
+        res.ascendant = ascendantFromLst(lst, lat, eps);
+        res.midheaven = HouseEngine.midheaven(lst, eps);
+        res.houseSystem = HouseEngine.cusps(houseSystem, lst, lat, eps, res.houseCusps);
+        StageTimings.stop(StageTimings.Stage.HOUSES, t0);
+
+        return res;
+    }
+
+    /**
+     * 解析日期字符串（YYYY-MM-DD）与时间（HH:MM），按 UT 得到儒略日
+     */
+    public static double julianDayFromLocal(String dateYMD, String timeHM) {
+        long t0 = StageTimings.start();
+        long epochSecond = localEpochSecond(dateYMD, timeHM);
+        StageTimings.stop(StageTimings.Stage.PARSE, t0);
+        t0 = StageTimings.start();
+        double jd = julianDayFromEpochSecond(epochSecond);
+        StageTimings.stop(StageTimings.Stage.JULIAN_DAY, t0);
+        return jd;
+    }
+
+    /**
+     * 出生地当地日期（YYYY-MM-DD）与时间（HH:MM 或 HH:MM:SS）按历史时区换算为 UT 的儒略日
+     *
+     * @throws IllegalArgumentException 日期时间格式不对，或时区不在表中
+     */
+    public static double julianDayFromLocal(CharSequence dateYMD, CharSequence timeHMS, String zoneId, TimeZoneTable zones) {
+        long t0 = StageTimings.start();
+        int zone = zones.indexOf(zoneId);
+        if (zone < 0) throw new IllegalArgumentException("时区表中没有 " + zoneId);
+        long local = localEpochSecond(dateYMD, timeHMS);
+        StageTimings.stop(StageTimings.Stage.PARSE, t0);
+        // 儒略日阶段包含按历史时区换算为 UT
+        t0 = StageTimings.start();
+        double jd = julianDayFromEpochSecond(zones.toUtc(zone, local));
+        StageTimings.stop(StageTimings.Stage.JULIAN_DAY, t0);
+        return jd;
+    }
+
+    /**
+     * UTC 纪元秒 → 儒略日
+     */
+    public static double julianDayFromEpochSecond(long epochSecond) {
+        return 2440587.5 + epochSecond / 86400.0;
+    }
+
+    /**
+     * 把日期（YYYY-MM-DD，年份可带负号）与时间（HH:MM 或 HH:MM:SS）按 UTC 换算为纪元秒；
+     * 逐字符解析，不使用 split / Calendar，不分配对象
+     *
+     * @throws IllegalArgumentException 格式不对或数值越界
+     */
+    public static long localEpochSecond(CharSequence dateYMD, CharSequence timeHMS) {
+        int dateLen = trimmedEnd(dateYMD);
+        int p = trimmedStart(dateYMD, dateLen);
+        boolean negative = p < dateLen && dateYMD.charAt(p) == '-';
+        if (negative) p++;
+        long f = parseField(dateYMD, p, dateLen, '-');
+        int year = (int) (f >>> 32);
+        p = (int) f;
+        f = parseField(dateYMD, p, dateLen, '-');
+        int month = (int) (f >>> 32);
+        p = (int) f;
+        f = parseField(dateYMD, p, dateLen, (char) 0);
+        int day = (int) (f >>> 32);
+        if (negative) year = -year;
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            throw new IllegalArgumentException("日期格式应为 YYYY-MM-DD: " + dateYMD);
+        }
+
+        int timeLen = trimmedEnd(timeHMS);
+        p = trimmedStart(timeHMS, timeLen);
+        f = parseField(timeHMS, p, timeLen, ':');
+        int hour = (int) (f >>> 32);
+        p = (int) f;
+        boolean hasSeconds = false;
+        for (int i = p; i < timeLen; i++) if (timeHMS.charAt(i) == ':') hasSeconds = true;
+        f = parseField(timeHMS, p, timeLen, hasSeconds ? ':' : (char) 0);
+        int minute = (int) (f >>> 32);
+        int second = hasSeconds ? (int) (parseField(timeHMS, (int) f, timeLen, (char) 0) >>> 32) : 0;
+        if (hour > 24 || minute > 59 || second > 60 || (hour == 24 && (minute | second) != 0)) {
+            throw new IllegalArgumentException("时间格式应为 HH:MM 或 HH:MM:SS: " + timeHMS);
+        }
+        return epochDay(year, month, day) * 86400L + hour * 3600L + minute * 60L + second;
+    }
+
+    /**
+     * 公历日期 → 1970-01-01 起的日数（proleptic 公历，与 java.time 一致）
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    /**
+     * 从 from 开始读一个十进制数，直到 end 或分隔符 sep（sep 为 0 表示必须读到 end）；
+     * 返回 (数值 << 32) | 分隔符之后的位置
+     */
+    private static long parseField(CharSequence s, int from, int end, char sep) {
+        int value = 0;
+        int i = from;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (c == sep && sep != 0) break;
+            if (c < '0' || c > '9' || i - from >= 9) throw new IllegalArgumentException("无法解析日期时间: " + s);
+            value = value * 10 + (c - '0');
+            i++;
+        }
+        if (i == from || (sep != 0 && i == end)) throw new IllegalArgumentException("无法解析日期时间: " + s);
+        return ((long) value << 32) | (sep != 0 ? i + 1 : i);
+    }
+
+    private static int trimmedEnd(CharSequence s) {
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) <= ' ') end--;
+        return end;
+    }
+
+    private static int trimmedStart(CharSequence s, int end) {
+        int p = 0;
+        while (p < end && s.charAt(p) <= ' ') p++;
+        return p;
+    }
+
+    /*******************************
+     * 批量计算（结构体数组 / SoA 布局）
+     *******************************/
+
+    /**
+     * 批量计算多张星盘：输入与输出都是按“列”排列的原始数组，不解析字符串、不分配 CalcResult。
+     *
+     * 各个量分成独立的简单循环（先算 T，再算月亮、太阳与行星、章动/黄赤交角、恒星时/上升点），
+     * 每个循环只读写少量连续数组，便于 JIT 展开与向量化；T、黄赤交角、GST 每个时刻只算一次，被后续循环共享。
+     * 太阳与行星按 DEFAULT_ACCURACY 计算，需要更快时使用带 accuracy 参数的重载。
+     *
+     * @param jd            儒略日（UT），长度至少为 count
+     * @param lon           地理经度（度，东经为正）
+     * @param lat           地理纬度（度，北纬为正）
+     * @param count         要计算的星盘数量
+     * @param outLongitudes outLongitudes[body.ordinal()][i] 写入第 i 张星盘该天体的黄经；整行为 null 表示不需要该天体
+     * @param outAscendant  第 i 张星盘的上升点黄经；为 null 表示不计算上升点（此时 lon/lat 可为 null）
+     */
+    public static void calculateBatch(double[] jd, double[] lon, double[] lat, int count,
+                                      double[][] outLongitudes, double[] outAscendant) {
+        calculateBatch(jd, lon, lat, count, outLongitudes, outAscendant, DEFAULT_ACCURACY);
+    }
+
+    /**
+     * 同上，指定行星计算的精度档位（例如动画、扫描等场景可用 ARCMINUTE 换取速度）
+     */
+    public static void calculateBatch(double[] jd, double[] lon, double[] lat, int count,
+                                      double[][] outLongitudes, double[] outAscendant, Vsop87.Accuracy accuracy) {
+        checkBatchArgs(jd, lon, lat, count, outLongitudes, outAscendant);
+        calculateBatchRange(jd, lon, lat, 0, count, outLongitudes, outAscendant, Vsop87.forAccuracy(accuracy));
+    }
+
+    /**
+     * calculateBatch 的并行版本：按区间二分成 fork-join 子任务，每段内部仍走同样的分循环实现。
+     * 批量较小（低于阈值）时直接串行计算。
+     *
+     * @param pool 执行用的线程池；为 null 时使用 ForkJoinPool.commonPool()
+     */
+    public static void calculateBatchParallel(double[] jd, double[] lon, double[] lat, int count,
+                                              double[][] outLongitudes, double[] outAscendant, ForkJoinPool pool) {
+        calculateBatchParallel(jd, lon, lat, count, outLongitudes, outAscendant, DEFAULT_ACCURACY, pool);
+    }
+
+    public static void calculateBatchParallel(double[] jd, double[] lon, double[] lat, int count,
+                                              double[][] outLongitudes, double[] outAscendant,
+                                              Vsop87.Accuracy accuracy, ForkJoinPool pool) {
+        checkBatchArgs(jd, lon, lat, count, outLongitudes, outAscendant);
+        Vsop87 engine = Vsop87.forAccuracy(accuracy);
+        if (count <= BATCH_PARALLEL_THRESHOLD) {
+            calculateBatchRange(jd, lon, lat, 0, count, outLongitudes, outAscendant, engine);
+            return;
+        }
+        if (pool == null) pool = ForkJoinPool.commonPool();
+        pool.invoke(new BatchTask(jd, lon, lat, 0, count, outLongitudes, outAscendant, engine));
+    }
+
+    private static void checkBatchArgs(double[] jd, double[] lon, double[] lat, int count,
+                                       double[][] outLongitudes, double[] outAscendant) {
+        if (count < 0 || jd.length < count) {
+            throw new IllegalArgumentException("jd 数组长度不足: " + jd.length + " < " + count);
+        }
+        if (outLongitudes != null) {
+            if (outLongitudes.length < Body.COUNT) {
+                throw new IllegalArgumentException("outLongitudes 至少需要 " + Body.COUNT + " 行");
+            }
+            for (double[] row : outLongitudes) {
+                if (row != null && row.length < count) {
+                    throw new IllegalArgumentException("outLongitudes 行长度不足: " + row.length + " < " + count);
+                }
+            }
+        }
+        if (outAscendant != null) {
+            if (lon == null || lat == null || lon.length < count || lat.length < count || outAscendant.length < count) {
+                throw new IllegalArgumentException("计算上升点需要长度至少为 " + count + " 的 lon/lat/outAscendant");
+            }
+        }
+    }
+
+    /**
+     * 计算 [from, to) 区间；T 放在临时数组里，供后面的循环复用
+     */
+    private static void calculateBatchRange(double[] jd, double[] lon, double[] lat, int from, int to,
+                                            double[][] outLongitudes, double[] outAscendant, Vsop87 engine) {
+        int n = to - from;
+        if (n <= 0) return;
+        double[] t = new double[n];
+        double[] jde = new double[n];
+        double[] tde = new double[n];
+
+        // 1. 儒略世纪数 T（UT，用于恒星时）与力学时 JDE、T（用于天体位置与章动）
+        for (int i = 0; i < n; i++) {
+            t[i] = (jd[from + i] - 2451545.0) / 36525.0;
+            jde[i] = DeltaT.toTt(jd[from + i]);
+            tde[i] = (jde[i] - 2451545.0) / 36525.0;
+        }
+
+        // 2. 月亮
+        double[] row = outLongitudes == null ? null : outLongitudes[Body.MOON.ordinal()];
+        if (row != null) {
+            for (int i = 0; i < n; i++) {
+                row[from + i] = LunarTheory.longitudeFromT(tde[i]);
+            }
+        }
+
+        // 3. 太阳与行星：VSOP87 每个时刻共用一次地球位置，只计算调用方需要的行
+        if (outLongitudes != null) {
+            boolean[] wanted = new boolean[Body.COUNT];
+            boolean any = false;
+            for (Body body : Body.VALUES) {
+                if (body == Body.MOON || outLongitudes[body.ordinal()] == null) continue;
+                wanted[body.ordinal()] = true;
+                any = true;
+            }
+            if (any) {
+                double[] lons = new double[Body.COUNT];
+                for (int i = 0; i < n; i++) {
+                    engine.geocentricLongitudes(jde[i], lons, wanted);
+                    for (int b = 0; b < Body.COUNT; b++) {
+                        if (wanted[b]) outLongitudes[b][from + i] = lons[b];
+                    }
+                }
+            }
+        }
+
+        // 4. 章动：黄经章动加到所有已输出的天体上
+        double[] dpsi = new double[n];
+        double[] eps = new double[n];
+        double[] nut = new double[2];
+        for (int i = 0; i < n; i++) {
+            nutation(tde[i], nut);
+            dpsi[i] = nut[0];
+            eps[i] = obliquityFromT(tde[i]) + nut[1];
+        }
+        if (outLongitudes != null) {
+            for (int b = 0; b < Body.COUNT; b++) {
+                row = outLongitudes[b];
+                if (row == null) continue;
+                for (int i = 0; i < n; i++) {
+                    row[from + i] = normalizeDegrees(row[from + i] + dpsi[i]);
+                }
+            }
+        }
+
+        // 5. 上升点：真黄赤交角与视恒星时复用同一个 T
+        if (outAscendant != null) {
+            for (int i = 0; i < n; i++) {
+                double gst = apparentSiderealTime(jd[from + i], t[i], dpsi[i], eps[i]);
+                double lst = normalizeDegrees(gst + lon[from + i]);
+                outAscendant[from + i] = ascendantFromLst(lst, lat[from + i], eps[i]);
+            }
+        }
+    }
+
+    /**
+     * 并行批量计算的 fork-join 子任务：区间长度超过阈值就对半拆分
+     */
+    private static final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] jd, lon, lat;
+        private final int from, to;
+        private final double[][] outLongitudes;
+        private final double[] outAscendant;
+        private final Vsop87 engine;
+
+        BatchTask(double[] jd, double[] lon, double[] lat, int from, int to,
+                  double[][] outLongitudes, double[] outAscendant, Vsop87 engine) {
+            this.jd = jd;
+            this.lon = lon;
+            this.lat = lat;
+            this.from = from;
+            this.to = to;
+            this.outLongitudes = outLongitudes;
+            this.outAscendant = outAscendant;
+            this.engine = engine;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_PARALLEL_THRESHOLD) {
+                calculateBatchRange(jd, lon, lat, from, to, outLongitudes, outAscendant, engine);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(jd, lon, lat, from, mid, outLongitudes, outAscendant, engine),
+                    new BatchTask(jd, lon, lat, mid, to, outLongitudes, outAscendant, engine));
+        }
+    }
+
+    /*******************************
+     * 辅助天文函数（注释解释来源）
+     *******************************/
+
+    /**
+     * 计算儒略日 JD（含小数日） - 基于 Jean Meeus。
+     * 参数 D 可带小数（例如日 + 小时/24）
+     */
+    public static double julianDay(int year, int month, double dayWithFraction) {
+        int Y = year;
+        int M = month;
+        double D = dayWithFraction;
+
+        if (M <= 2) {
+            Y -= 1;
+            M += 12;
+        }
+        int A = Y / 100;
+        int B = 2 - A + (A / 4);
+
+        double jd = Math.floor(365.25 * (Y + 4716))
+                + Math.floor(30.6001 * (M + 1))
+                + D + B - 1524.5;
+        return jd;
+    }
+
+    /**
+     * 单个天体在某一时刻的视黄经（0-360，含章动），与 calculate 中的算法一致。
+     * 供星历缓存生成器等按天体逐个采样的场景使用。jd 为 TT 的儒略日（UT 需先经 DeltaT.toTt 换算）。
+     */
+    public static double eclipticLongitude(Body body, double jd) {
+        return eclipticLongitude(body, jd, DEFAULT_ACCURACY);
+    }
+
+    public static double eclipticLongitude(Body body, double jd, Vsop87.Accuracy accuracy) {
+        double T = (jd - 2451545.0) / 36525.0;
+        double lon = body == Body.MOON
+                ? LunarTheory.longitudeFromT(T)
+                : Vsop87.forAccuracy(accuracy).geocentricLongitude(body, jd);
+        return normalizeDegrees(lon + nutationLongitude(T));
+    }
+
+    /**
+     * 太阳地心视黄经（VSOP87 地球位置取反，含光行差与章动）
+     */
+    public static double sunEclipticLongitude(double jd) {
+        return eclipticLongitude(Body.SUN, jd);
+    }
+
+    /**
+     * 月亮地心视黄经（Meeus 第 47 章完整周期项，见 LunarTheory；含章动）
+     */
+    public static double moonEclipticLongitude(double jd) {
+        return eclipticLongitude(Body.MOON, jd);
+    }
+
+    /**
+     * 近似黄赤交角（obliquity of the ecliptic）
+     */
+    public static double obliquityEcliptic(double jd) {
+        double T = (jd - 2451545.0) / 36525.0;
+        return obliquityFromT(T);
+    }
+
+    static double obliquityFromT(double T) {
+        double eps0 = 23.439291 - 0.0130042 * T - 1.64e-7 * T*T + 5.04e-7 * T*T*T;
+        return eps0;
+    }
+
+    /**
+     * 近似地方恒星时（Local Sidereal Time），单位：度（0-360）
+     * 说明：此处给出常用近似公式，来源请参考 Meeus（本函数用于计算升交点/上升点等）
+     */
+    public static double localSiderealTime(double jd, double longitude) {
+        // 计算格林威治恒星时 GST（度）
+        double T = (jd - 2451545.0) / 36525.0;
+        double GST = greenwichSiderealTime(jd, T);
+        // LST = GST + 经度（东经为正）
+        double LST = normalizeDegrees(GST + longitude);
+        return LST;
+    }
+
+    static double greenwichSiderealTime(double jd, double T) {
+        double T0 = 280.46061837 + 360.98564736629 * (jd - 2451545.0)
+                + 0.000387933 * T*T - (T*T*T) / 38710000.0;
+        return normalizeDegrees(T0);
+    }
+
+    /**
+     * 黄经章动 Δψ（度），与 nutation 的 out[0] 相同；只要 Δψ 时用它，不必分配数组
+     */
+    public static double nutationLongitude(double T) {
+        double omega = Math.toRadians(normalizeDegrees(125.04452 - 1934.136261 * T));
+        double l = Math.toRadians(normalizeDegrees(280.4665 + 36000.7698 * T));
+        double lp = Math.toRadians(normalizeDegrees(218.3165 + 481267.8813 * T));
+        return (-17.20 * Math.sin(omega) - 1.32 * Math.sin(2 * l) - 0.23 * Math.sin(2 * lp)
+                + 0.21 * Math.sin(2 * omega)) / 3600.0;
+    }
+
+    /**
+     * 章动（Meeus 第 22 章的低精度公式，误差约 0.5″）：out[0] = 黄经章动 Δψ，out[1] = 交角章动 Δε，单位为度
+     */
+    public static void nutation(double T, double[] out) {
+        double omega = Math.toRadians(normalizeDegrees(125.04452 - 1934.136261 * T));
+        double l = Math.toRadians(normalizeDegrees(280.4665 + 36000.7698 * T));
+        double lp = Math.toRadians(normalizeDegrees(218.3165 + 481267.8813 * T));
+        out[0] = (-17.20 * Math.sin(omega) - 1.32 * Math.sin(2 * l) - 0.23 * Math.sin(2 * lp)
+                + 0.21 * Math.sin(2 * omega)) / 3600.0;
+        out[1] = (9.20 * Math.cos(omega) + 0.57 * Math.cos(2 * l) + 0.10 * Math.cos(2 * lp)
+                - 0.09 * Math.cos(2 * omega)) / 3600.0;
+    }
+
+    /**
+     * 格林威治视恒星时（度）：平恒星时加上分点差 Δψ·cos(ε)
+     */
+    static double apparentSiderealTime(double jd, double T, double dpsi, double eps) {
+        return normalizeDegrees(greenwichSiderealTime(jd, T) + dpsi * Math.cos(Math.toRadians(eps)));
+    }
+
+    /**
+     * 把黄经章动加到每个天体的黄经上（NaN 保持不变）
+     */
+    static void applyNutation(double[] longitudes, double dpsi) {
+        for (int i = 0; i < longitudes.length; i++) {
+            longitudes[i] = normalizeDegrees(longitudes[i] + dpsi);
+        }
+    }
+
+    /**
+     * 等分宫：从上升点起每 30° 一个宫头
+     */
+    static void equalHouses(double ascendant, double[] cusps) {
+        for (int i = 0; i < 12; i++) {
+            cusps[i] = normalizeDegrees(ascendant + i * 30.0);
+        }
+    }
+
+    /**
+     * 由地方恒星时、地理纬度与黄赤交角（均为度）求上升点黄经（0-360）
+     * 上升点（黄道与东方地平线的交点）：asc = arctan2( cos(lst), -(sin(lst)*cos(eps) + tan(lat)*sin(eps)) )
+     * 也用于求其他“极高”下的上升点（Koch、Regiomontanus 宫头），此时 lat 传入极高
+     */
+    public static double ascendantFromLst(double lst, double lat, double eps) {
+        double lstRad = Math.toRadians(lst);
+        double latRad = Math.toRadians(lat);
+        double epsRad = Math.toRadians(eps);
+        double ascRad = Math.atan2(Math.cos(lstRad),
+                -(Math.sin(lstRad) * Math.cos(epsRad) + Math.tan(latRad) * Math.sin(epsRad)));
+        return normalizeDegrees(Math.toDegrees(ascRad));
+    }
+
+    /**
+     * 角度标准化到 0-360
+     */
+    public static double normalizeDegrees(double deg) {
+        deg = deg % 360.0;
+        if (deg < 0) deg += 360.0;
+        return deg;
+    }
+}
+
@@ -0,0 +1,425 @@
+package com.example.demo.astrology;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间拖动（scrub）动画用的插值星历
+ *
+ * 逐帧调用 calculateFromLocal 跟不上 60fps，这里改为：
+ * - 后台线程按固定步长批量采样天体黄经（calculateBatch），按块（每块 BLOCK 个采样点）缓存
+ * - 每帧在采样点之间做三次 Hermite 插值（Catmull-Rom 切线），插值前先把相邻采样“展开”，处理 360°→0° 跳变
+ * - 上升点与宫位随时间变化太快（一天转一圈），不按时间插值，每帧由恒星时查 HouseTable（宫头表在后台预先生成，生成之前直接计算）
+ *
+ * 采样分两级、两组：
+ * - 行星组（太阳、水星……冥王星）：粗级 16 天、细级 2 天
+ * - 月亮：粗级 2 天、细级 0.5 天
+ * setRange 时在后台先为整个范围生成粗级采样；拖动时只为当前时刻附近按需生成细级采样（惰性细化），
+ * 细级块就绪之前先用粗级插值，两者都没有时才直接计算（低精度档位）。
+ *
+ * 帧时间预算：evaluate 会统计每帧耗时；本帧已超出预算时不再做直接计算，沿用上一帧的位置（记为 stale），
+ * 统计结果可通过 getStats 读出。
+ *
+ * evaluate / setRange / setLocation 只应在 UI 线程调用；采样在内部的单个后台线程中进行。
+ */
+public class ScrubTimeline {
+
+    // 每块的采样点数；块内额外保存前 1 个、后 2 个点，插值时不必跨块取数据
+    static final int BLOCK = 64;
+    private static final int SAMPLES = BLOCK + 3;
+    // 每组网格最多缓存的块数（超出后淘汰最久未用的块）
+    private static final int MAX_BLOCKS = 512;
+    // 粗级网格在 setRange 时一次最多预生成的块数，范围更大时只预生成光标附近
+    private static final int MAX_PREFETCH_BLOCKS = 256;
+    // 默认帧预算：插值部分只占 60fps 一帧（16.7ms）的一小部分
+    private static final long DEFAULT_BUDGET_NANOS = 4000000L;
+
+    private final Grid planetsCoarse;
+    private final Grid planetsFine;
+    private final Grid moonCoarse;
+    private final Grid moonFine;
+    private final Grid[] grids;
+
+    private final ThreadPoolExecutor worker;
+
+    private double lon, lat;
+    private HouseSystem houseSystem = PlanetCalculator.DEFAULT_HOUSE_SYSTEM;
+    private HouseTable houseTable;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private final FrameStats stats = new FrameStats();
+
+    // 上一帧的天体黄经：超出预算时沿用
+    private final double[] lastLongitudes = new double[Body.COUNT];
+    private final double[] nut = new double[2];
+    private final double[] direct = new double[Body.COUNT];
+
+    /**
+     * 帧统计
+     */
+    public static final class FrameStats {
+        public long frames;
+        public long overBudgetFrames;
+        public long totalNanos;
+        public long maxNanos;
+        // 按天体计：细级插值 / 粗级插值 / 直接计算 / 沿用上一帧
+        public long fine;
+        public long coarse;
+        public long direct;
+        public long stale;
+
+        public void copyFrom(FrameStats o) {
+            frames = o.frames;
+            overBudgetFrames = o.overBudgetFrames;
+            totalNanos = o.totalNanos;
+            maxNanos = o.maxNanos;
+            fine = o.fine;
+            coarse = o.coarse;
+            direct = o.direct;
+            stale = o.stale;
+        }
+
+        void clear() {
+            frames = overBudgetFrames = totalNanos = maxNanos = 0;
+            fine = coarse = direct = stale = 0;
+        }
+
+        @Override
+        public String toString() {
+            double avgUs = frames == 0 ? 0 : totalNanos / 1e3 / frames;
+            return String.format(Locale.US,
+                    "帧数 %d，超预算 %d，平均 %.1f us，最大 %.1f us；细级 %d，粗级 %d，直接 %d，沿用 %d",
+                    frames, overBudgetFrames, avgUs, maxNanos / 1e3, fine, coarse, direct, stale);
+        }
+    }
+
+    public ScrubTimeline(double lon, double lat) {
+        this.lon = lon;
+        this.lat = lat;
+        boolean[] planets = new boolean[Body.COUNT];
+        for (Body b : Body.VALUES) planets[b.ordinal()] = b != Body.MOON;
+        boolean[] moon = new boolean[Body.COUNT];
+        moon[Body.MOON.ordinal()] = true;
+        planetsCoarse = new Grid(16.0, planets);
+        planetsFine = new Grid(2.0, planets);
+        moonCoarse = new Grid(2.0, moon);
+        moonFine = new Grid(0.5, moon);
+        grids = new Grid[]{planetsCoarse, planetsFine, moonCoarse, moonFine};
+
+        worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "scrub-sampler");
+                        t.setDaemon(true);
+                        t.setPriority(Thread.NORM_PRIORITY - 1);
+                        return t;
+                    }
+                });
+        for (int i = 0; i < Body.COUNT; i++) lastLongitudes[i] = Double.NaN;
+    }
+
+    /**
+     * 地点只影响上升点与宫位（每帧直接计算），不会使采样失效
+     */
+    public void setLocation(double lon, double lat) {
+        this.lon = lon;
+        this.lat = lat;
+        prepareHouses();
+    }
+
+    /**
+     * 设置宫制；宫头表在后台重新生成
+     */
+    public void setHouseSystem(HouseSystem houseSystem) {
+        if (houseSystem == this.houseSystem) return;
+        this.houseSystem = houseSystem;
+        if (houseTable != null) {
+            houseTable = new HouseTable(houseSystem, houseTable.getObliquity());
+            prepareHouses();
+        }
+    }
+
+    // 在后台生成当前纬度附近的宫头表行，避免拖动开始时的第一帧卡顿
+    private void prepareHouses() {
+        final HouseTable table = houseTable;
+        final double latitude = lat;
+        if (table == null) return;
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                table.prepare(latitude);
+            }
+        });
+    }
+
+    public void setFrameBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * 设定拖动范围：后台为整个范围生成粗级采样（范围过大时只生成中点附近）
+     */
+    public void setRange(double startJd, double endJd) {
+        double center = (startJd + endJd) * 0.5;
+        // 宫头表用范围中点的平黄赤交角（一年内变化不到 0.001°）
+        houseTable = new HouseTable(houseSystem, PlanetCalculator.obliquityFromT((center - 2451545.0) / 36525.0));
+        prepareHouses();
+        prefetchRange(planetsCoarse, startJd, endJd, center);
+        prefetchRange(moonCoarse, startJd, endJd, center);
+    }
+
+    /**
+     * 计算 jd 时刻的星盘（插值），写入 out；并在后台预取该时刻附近的细级采样
+     */
+    public PlanetCalculator.CalcResult evaluate(double jd, PlanetCalculator.CalcResult out) {
+        long t0 = System.nanoTime();
+
+        interpolateGroup(planetsFine, planetsCoarse, jd, out.longitudes, t0);
+        interpolateGroup(moonFine, moonCoarse, jd, out.longitudes, t0);
+        System.arraycopy(out.longitudes, 0, lastLongitudes, 0, Body.COUNT);
+
+        // 上升点与宫位：每帧直接算
+        double T = (jd - 2451545.0) / 36525.0;
+        PlanetCalculator.nutation(T, nut);
+        double eps = PlanetCalculator.obliquityFromT(T) + nut[1];
+        double lst = PlanetCalculator.normalizeDegrees(PlanetCalculator.apparentSiderealTime(jd, T, nut[0], eps) + lon);
+        if (houseTable == null) {
+            houseTable = new HouseTable(houseSystem, eps);
+            prepareHouses();
+        }
+        // 宫头表的行由 prepareHouses 在后台生成；还没生成好时这一帧直接计算（约 10 µs），不在调用线程上建表
+        HouseSystem used = houseTable.tryLookup(lst, lat, out.houseCusps);
+        out.houseSystem = used != null ? used : HouseEngine.cusps(houseTable.getSystem(), lst, lat, eps, out.houseCusps);
+        out.ascendant = out.houseCusps[0];
+        out.midheaven = HouseEngine.midheaven(lst, eps);
+        out.julianDay = jd;
+
+        // 惰性细化：请求光标所在块及相邻块
+        planetsFine.request(jd, 1);
+        moonFine.request(jd, 1);
+
+        long elapsed = System.nanoTime() - t0;
+        synchronized (stats) {
+            stats.frames++;
+            stats.totalNanos += elapsed;
+            if (elapsed > stats.maxNanos) stats.maxNanos = elapsed;
+            if (elapsed > budgetNanos) stats.overBudgetFrames++;
+        }
+        return out;
+    }
+
+    /**
+     * 读取帧统计（复制到 out）；reset 为 true 时同时清零
+     */
+    public void getStats(FrameStats out, boolean reset) {
+        synchronized (stats) {
+            out.copyFrom(stats);
+            if (reset) stats.clear();
+        }
+    }
+
+    /**
+     * 丢弃所有采样与后台任务
+     */
+    public void shutdown() {
+        worker.shutdownNow();
+        for (Grid g : grids) g.clear();
+    }
+
+    /**
+     * 对一组天体插值：优先细级，其次粗级，都没有时在预算内直接计算，否则沿用上一帧
+     */
+    private void interpolateGroup(Grid fine, Grid coarse, double jd, double[] out, long frameStart) {
+        Grid grid = fine;
+        double[][] block = fine.blockFor(jd);
+        if (block == null) {
+            grid = coarse;
+            block = coarse.blockFor(jd);
+            coarse.request(jd, 0);
+        }
+        int counted = 0;
+        if (block != null) {
+            grid.interpolate(block, jd, out);
+            for (int b = 0; b < Body.COUNT; b++) if (grid.bodies[b]) counted++;
+            synchronized (stats) {
+                if (grid == fine) stats.fine += counted;
+                else stats.coarse += counted;
+            }
+            return;
+        }
+
+        boolean withinBudget = System.nanoTime() - frameStart < budgetNanos;
+        for (int b = 0; b < Body.COUNT; b++) {
+            if (!fine.bodies[b]) continue;
+            counted++;
+            if (!withinBudget) {
+                out[b] = lastLongitudes[b];
+            } else if (b == Body.MOON.ordinal()) {
+                out[b] = PlanetCalculator.eclipticLongitude(Body.MOON, DeltaT.toTt(jd));
+            }
+        }
+        if (withinBudget && !fine.bodies[Body.MOON.ordinal()]) {
+            // 行星组：一次计算全部（共用地球位置），低精度档位
+            Vsop87.forAccuracy(Vsop87.Accuracy.TENTH_DEGREE).geocentricLongitudes(DeltaT.toTt(jd), direct, fine.bodies);
+            double T = (jd - 2451545.0) / 36525.0;
+            PlanetCalculator.nutation(T, nut);
+            for (int b = 0; b < Body.COUNT; b++) {
+                if (fine.bodies[b]) out[b] = PlanetCalculator.normalizeDegrees(direct[b] + nut[0]);
+            }
+        }
+        synchronized (stats) {
+            if (withinBudget) stats.direct += counted;
+            else stats.stale += counted;
+        }
+    }
+
+    private void prefetchRange(Grid grid, double startJd, double endJd, double center) {
+        long first = grid.blockIndex(Math.min(startJd, endJd));
+        long last = grid.blockIndex(Math.max(startJd, endJd));
+        if (last - first + 1 > MAX_PREFETCH_BLOCKS) {
+            long mid = grid.blockIndex(center);
+            first = mid - MAX_PREFETCH_BLOCKS / 2;
+            last = first + MAX_PREFETCH_BLOCKS - 1;
+        }
+        for (long k = first; k <= last; k++) grid.requestBlock(k);
+    }
+
+    /**
+     * 一组固定步长的采样网格：采样点 jd = k * step（k 为整数），按块缓存
+     */
+    private final class Grid {
+        final double step;
+        final boolean[] bodies;
+        // 块号 → 每个天体一行的采样（不属于本组的天体行为 null）；访问顺序 LRU
+        private final LinkedHashMap<Long, double[][]> blocks;
+        private final Set<Long> inFlight = new HashSet<>();
+        // UI 线程最近使用的块，跨块之前不用查表
+        private long lastIndex = Long.MIN_VALUE;
+        private double[][] lastBlock;
+        // UI 线程最近一次请求的中心块，光标没有跨块时不重复请求（避免每帧装箱查表）
+        private long lastRequested = Long.MIN_VALUE;
+        private int lastRadius = -1;
+
+        Grid(double step, boolean[] bodies) {
+            this.step = step;
+            this.bodies = bodies;
+            this.blocks = new LinkedHashMap<Long, double[][]>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, double[][]> eldest) {
+                    return size() > MAX_BLOCKS;
+                }
+            };
+        }
+
+        long blockIndex(double jd) {
+            return (long) Math.floor(jd / step / BLOCK);
+        }
+
+        /**
+         * 取 jd 所在的块；未就绪返回 null
+         */
+        double[][] blockFor(double jd) {
+            long k = blockIndex(jd);
+            if (k == lastIndex && lastBlock != null) return lastBlock;
+            double[][] block;
+            synchronized (this) {
+                block = blocks.get(k);
+            }
+            if (block != null) {
+                lastIndex = k;
+                lastBlock = block;
+            }
+            return block;
+        }
+
+        /**
+         * 请求 jd 所在块及前后各 radius 块
+         */
+        void request(double jd, int radius) {
+            long k = blockIndex(jd);
+            if (k == lastRequested && radius <= lastRadius) return;
+            lastRequested = k;
+            lastRadius = radius;
+            for (long i = k - radius; i <= k + radius; i++) requestBlock(i);
+        }
+
+        void requestBlock(final long k) {
+            synchronized (this) {
+                if (blocks.containsKey(k) || !inFlight.add(k)) return;
+            }
+            try {
+                worker.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        double[][] block = sample(k);
+                        synchronized (Grid.this) {
+                            blocks.put(k, block);
+                            inFlight.remove(k);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 已 shutdown：放弃请求
+                synchronized (this) {
+                    inFlight.remove(k);
+                }
+            }
+        }
+
+        /**
+         * 在后台线程中批量采样一块（含前 1、后 2 个额外点）
+         */
+        private double[][] sample(long k) {
+            double[] jds = new double[SAMPLES];
+            long firstIndex = k * BLOCK - 1;
+            for (int i = 0; i < SAMPLES; i++) jds[i] = (firstIndex + i) * step;
+            double[][] rows = new double[Body.COUNT][];
+            for (int b = 0; b < Body.COUNT; b++) {
+                if (bodies[b]) rows[b] = new double[SAMPLES];
+            }
+            PlanetCalculator.calculateBatch(jds, null, null, SAMPLES, rows, null, Vsop87.Accuracy.ARCMINUTE);
+            return rows;
+        }
+
+        /**
+         * 三次 Hermite 插值：切线取相邻采样的中心差分（Catmull-Rom），先展开再插值
+         */
+        void interpolate(double[][] block, double jd, double[] out) {
+            double x = jd / step;
+            long base = (long) Math.floor(x);
+            double u = x - base;
+            // 块内第 0 个点是 k*BLOCK - 1
+            int i = (int) (base - blockIndex(jd) * BLOCK) + 1;
+            double u2 = u * u, u3 = u2 * u;
+            double h00 = 2 * u3 - 3 * u2 + 1, h10 = u3 - 2 * u2 + u;
+            double h01 = -2 * u3 + 3 * u2, h11 = u3 - u2;
+            for (int b = 0; b < Body.COUNT; b++) {
+                double[] row = block[b];
+                if (row == null) continue;
+                double p1 = row[i];
+                double p0 = p1 + ChebyshevEphemerisWriter.wrap180(row[i - 1] - p1);
+                double p2 = p1 + ChebyshevEphemerisWriter.wrap180(row[i + 1] - p1);
+                double p3 = p2 + ChebyshevEphemerisWriter.wrap180(row[i + 2] - row[i + 1]);
+                double m1 = (p2 - p0) * 0.5;
+                double m2 = (p3 - p1) * 0.5;
+                out[b] = PlanetCalculator.normalizeDegrees(h00 * p1 + h10 * m1 + h01 * p2 + h11 * m2);
+            }
+        }
+
+        synchronized void clear() {
+            blocks.clear();
+            inFlight.clear();
+            lastIndex = Long.MIN_VALUE;
+            lastBlock = null;
+            lastRequested = Long.MIN_VALUE;
+            lastRadius = -1;
+        }
+    }
+}
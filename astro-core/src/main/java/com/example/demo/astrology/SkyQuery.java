@@ -0,0 +1,317 @@
+package com.example.demo.astrology;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 天象条件查询：在很长的时间范围内找出同时满足多个条件的时间段
+ *
+ * 例如“1950–2050 年间太阳在白羊、月亮在巨蟹、金星与木星相距 5° 以内的所有日期”：
+ * <pre>
+ *   SkyQuery.Result r = new SkyQuery()
+ *           .inSign(Body.SUN, 0)
+ *           .inSign(Body.MOON, 3)
+ *           .aspect(Body.VENUS, Body.JUPITER, 0, 5)
+ *           .search(startJd, endJd);
+ * </pre>
+ *
+ * 说明：
+ * - 条件之间是“且”的关系；支持星座、黄经区间（可跨 0°）与相位（角距 ± 容许度）三种条件
+ * - 每个条件都有一个带符号的“余量”：满足时为离边界的角距，不满足时为负的差距；
+ *   除以天体最大日行速度（EventFinder.maxSpeed）就是“至少多少天内状态不会改变”。
+ *   不满足时按最大的那个差距跳过，满足时按最小的余量前进，所以大部分不可能匹配的区间一步就跳过
+ * - 状态改变的那一步内用二分法找边界，时间精度 TIME_TOLERANCE（约 1 秒）
+ * - 时间范围切成若干段交给 fork-join 线程池并行扫描，最后把在分段点处相接的时间段合并
+ * - 与 EventFinder 相同，步长不小于 MIN_STEP（约 1 小时），短于它的满足区间可能被漏掉
+ *
+ * SkyQuery 本身不是线程安全的（添加条件时），但 search 期间不会修改它，可以在多个线程中同时 search。
+ */
+public class SkyQuery {
+
+    // 每段至少的天数；范围小于它时在调用线程中直接计算
+    static final double SEGMENT_DAYS = 180;
+    static final double TIME_TOLERANCE = 1e-5;
+    static final double MIN_STEP = 1.0 / 24;
+
+    /**
+     * 满足条件的时间段 [start, end]（儒略日）
+     */
+    public static final class Window {
+        public final double start;
+        public final double end;
+
+        Window(double start, double end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "[%.5f, %.5f]", start, end);
+        }
+    }
+
+    /**
+     * 查询结果：按时间顺序的时间段，以及总共计算了多少个时刻
+     */
+    public static final class Result {
+        public final List<Window> windows;
+        public final long evaluations;
+
+        Result(List<Window> windows, long evaluations) {
+            this.windows = Collections.unmodifiableList(windows);
+            this.evaluations = evaluations;
+        }
+    }
+
+    private static final int RANGE = 0;
+    private static final int ASPECT = 1;
+
+    /**
+     * 单个条件：RANGE 为黄经区间 [from, from + width]，ASPECT 为 |角距 - angle| ≤ orb
+     */
+    private static final class Constraint {
+        final int kind;
+        final int a, b;
+        final double p1, p2;
+        // 余量变化率的上界（度/日）
+        final double rate;
+
+        Constraint(int kind, Body a, Body b, double p1, double p2) {
+            this.kind = kind;
+            this.a = a.ordinal();
+            this.b = b == null ? -1 : b.ordinal();
+            this.p1 = p1;
+            this.p2 = p2;
+            this.rate = EventFinder.maxSpeed(a) + (b == null ? 0 : EventFinder.maxSpeed(b));
+        }
+
+        /**
+         * 余量（度）：≥ 0 表示满足
+         */
+        double slack(double[] lons) {
+            if (kind == RANGE) {
+                double x = PlanetCalculator.normalizeDegrees(lons[a] - p1);
+                return x <= p2 ? Math.min(x, p2 - x) : -Math.min(x - p2, 360 - x);
+            }
+            double separation = Math.abs(ChebyshevEphemerisWriter.wrap180(lons[a] - lons[b]));
+            return p2 - Math.abs(separation - p1);
+        }
+    }
+
+    private final List<Constraint> constraints = new ArrayList<>();
+    private final Vsop87 engine;
+
+    public SkyQuery() {
+        this(PlanetCalculator.DEFAULT_ACCURACY);
+    }
+
+    /**
+     * @param accuracy VSOP87 精度档位（条件本身以度为单位时 ARCMINUTE 通常已足够）
+     */
+    public SkyQuery(Vsop87.Accuracy accuracy) {
+        this.engine = Vsop87.forAccuracy(accuracy);
+    }
+
+    /**
+     * 天体位于某星座（下标与 ZodiacUtils.zodiacIndex 一致）
+     */
+    public SkyQuery inSign(Body body, int sign) {
+        if (sign < 0 || sign >= 12) throw new IllegalArgumentException("星座下标必须在 0-11 之间: " + sign);
+        constraints.add(new Constraint(RANGE, body, null, sign * 30, 30));
+        return this;
+    }
+
+    /**
+     * 天体黄经位于 fromDeg 顺行到 toDeg 之间（例如 350 到 10 表示跨过 0° 的 20° 区间）
+     */
+    public SkyQuery inRange(Body body, double fromDeg, double toDeg) {
+        double from = PlanetCalculator.normalizeDegrees(fromDeg);
+        double width = PlanetCalculator.normalizeDegrees(toDeg - from);
+        if (width == 0) throw new IllegalArgumentException("区间宽度必须大于 0");
+        constraints.add(new Constraint(RANGE, body, null, from, width));
+        return this;
+    }
+
+    /**
+     * 两个天体的角距与 angle 相差不超过 orb（0 即合相，180 即对分）
+     */
+    public SkyQuery aspect(Body a, Body b, double angle, double orb) {
+        if (a == b) throw new IllegalArgumentException("相位需要两个不同的天体");
+        if (angle < 0 || angle > 180) throw new IllegalArgumentException("相位角必须在 0-180 度之间: " + angle);
+        if (orb < 0) throw new IllegalArgumentException("容许度不能为负: " + orb);
+        constraints.add(new Constraint(ASPECT, a, b, angle, orb));
+        return this;
+    }
+
+    /**
+     * 在 ForkJoinPool.commonPool() 上查询 [startJd, endJd]
+     */
+    public Result search(double startJd, double endJd) {
+        return search(startJd, endJd, null);
+    }
+
+    /**
+     * @param pool 执行用的线程池；为 null 时使用 ForkJoinPool.commonPool()
+     */
+    public Result search(double startJd, double endJd, ForkJoinPool pool) {
+        if (!(endJd > startJd)) throw new IllegalArgumentException("结束时刻必须晚于开始时刻");
+        Scan scan = new Scan(constraints.toArray(new Constraint[0]), engine);
+        Segment s;
+        if (endJd - startJd <= SEGMENT_DAYS) {
+            s = scan.run(startJd, endJd);
+        } else {
+            if (pool == null) pool = ForkJoinPool.commonPool();
+            s = pool.invoke(new SegmentTask(scan, startJd, endJd));
+        }
+        return new Result(s.windows, s.evaluations);
+    }
+
+    /**
+     * 一段的扫描结果
+     */
+    private static final class Segment {
+        final List<Window> windows = new ArrayList<>();
+        long evaluations;
+
+        /**
+         * 接上右侧相邻段：左段最后一个时间段恰好止于分段点、右段第一个恰好始于分段点时合并为一个
+         */
+        Segment append(Segment right) {
+            int n = windows.size();
+            int from = 0;
+            if (n > 0 && !right.windows.isEmpty()) {
+                Window last = windows.get(n - 1);
+                Window first = right.windows.get(0);
+                if (last.end == first.start) {
+                    windows.set(n - 1, new Window(last.start, first.end));
+                    from = 1;
+                }
+            }
+            windows.addAll(right.windows.subList(from, right.windows.size()));
+            evaluations += right.evaluations;
+            return this;
+        }
+    }
+
+    private static final class SegmentTask extends RecursiveTask<Segment> {
+        private static final long serialVersionUID = 1L;
+
+        private final Scan scan;
+        private final double from, to;
+
+        SegmentTask(Scan scan, double from, double to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Segment compute() {
+            if (to - from <= SEGMENT_DAYS) {
+                return scan.run(from, to);
+            }
+            double mid = from + (to - from) * 0.5;
+            SegmentTask right = new SegmentTask(scan, mid, to);
+            right.fork();
+            Segment left = new SegmentTask(scan, from, mid).compute();
+            return left.append(right.join());
+        }
+    }
+
+    /**
+     * 不可变的扫描器：条件快照与需要计算的天体；每次 run 使用自己的临时数组，可并发调用
+     */
+    private static final class Scan {
+        private final Constraint[] constraints;
+        private final Vsop87 engine;
+        private final boolean[] wanted = new boolean[Body.COUNT];
+        private final boolean needMoon;
+
+        Scan(Constraint[] constraints, Vsop87 engine) {
+            this.constraints = constraints;
+            this.engine = engine;
+            for (Constraint c : constraints) {
+                wanted[c.a] = true;
+                if (c.b >= 0) wanted[c.b] = true;
+            }
+            needMoon = wanted[Body.MOON.ordinal()];
+        }
+
+        Segment run(double from, double to) {
+            Segment seg = new Segment();
+            double[] lons = new double[Body.COUNT];
+            double[] nut = new double[2];
+
+            double t = from;
+            double margin = margin(t, lons, nut, seg);
+            double windowStart = margin >= 0 ? t : Double.NaN;
+            while (t < to) {
+                double step = Math.max(skip(margin, lons), MIN_STEP);
+                double t1 = Math.min(t + step, to);
+                double margin1 = margin(t1, lons, nut, seg);
+                boolean inside = margin >= 0, inside1 = margin1 >= 0;
+                if (inside != inside1) {
+                    double edge = bisect(t, t1, inside, lons, nut, seg);
+                    if (inside1) {
+                        windowStart = edge;
+                    } else {
+                        seg.windows.add(new Window(windowStart, edge));
+                        windowStart = Double.NaN;
+                    }
+                    // bisect 改写了 lons，重新取 t1 处的值供下一步估算步长
+                    margin1 = margin(t1, lons, nut, seg);
+                }
+                t = t1;
+                margin = margin1;
+            }
+            if (!Double.isNaN(windowStart)) seg.windows.add(new Window(windowStart, to));
+            return seg;
+        }
+
+        /**
+         * 计算 jd 时刻各条件的最小“余量天数”（余量 / 变化率上界）；lons 中保留该时刻的黄经
+         */
+        private double margin(double jd, double[] lons, double[] nut, Segment seg) {
+            seg.evaluations++;
+            double T = (jd - 2451545.0) / 36525.0;
+            engine.geocentricLongitudes(jd, lons, wanted);
+            if (needMoon) lons[Body.MOON.ordinal()] = LunarTheory.longitudeFromT(T);
+            PlanetCalculator.nutation(T, nut);
+            PlanetCalculator.applyNutation(lons, nut[0]);
+            double m = Double.POSITIVE_INFINITY;
+            for (Constraint c : constraints) {
+                m = Math.min(m, c.slack(lons) / c.rate);
+            }
+            return m;
+        }
+
+        /**
+         * 状态至少保持不变的天数：满足时为最小余量天数，不满足时为最大的差距天数
+         */
+        private double skip(double margin, double[] lons) {
+            if (margin >= 0) return margin;
+            double s = 0;
+            for (Constraint c : constraints) {
+                s = Math.max(s, -c.slack(lons) / c.rate);
+            }
+            return s;
+        }
+
+        /**
+         * 二分查找 (lo, hi] 内状态改变的时刻，lo 处的状态为 insideAtLo
+         */
+        private double bisect(double lo, double hi, boolean insideAtLo, double[] lons, double[] nut, Segment seg) {
+            while (hi - lo > TIME_TOLERANCE) {
+                double mid = 0.5 * (lo + hi);
+                if ((margin(mid, lons, nut, seg) >= 0) == insideAtLo) lo = mid;
+                else hi = mid;
+            }
+            return 0.5 * (lo + hi);
+        }
+    }
+}
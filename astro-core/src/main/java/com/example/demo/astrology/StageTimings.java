@@ -0,0 +1,218 @@
+package com.example.demo.astrology;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 各计算阶段的耗时统计：从点击“生成”到星盘画出来，时间花在了哪里
+ *
+ * 用法（埋点处）：
+ * <pre>
+ *   long t0 = StageTimings.start();
+ *   ...                                   // 被测的一段
+ *   StageTimings.stop(Stage.HOUSES, t0);
+ * </pre>
+ * 说明：
+ * - 关闭时（默认）start 只读一个 volatile 标志并返回 0，stop 见到 0 直接返回，几乎没有开销
+ * - 每个阶段一个固定分桶的直方图（见 Histogram），记录时只做原子加，不加锁、不分配对象，可在任意线程调用
+ * - 读取（percentile、dump）可以与记录同时进行，得到的是近似一致的快照
+ */
+public final class StageTimings {
+
+    /**
+     * 被统计的阶段；SUN……PLUTO 与 Body 顺序一致（见 forBody）
+     */
+    public enum Stage {
+        PARSE("解析输入"),
+        JULIAN_DAY("儒略日"),
+        // 太阳一项包含地球日心位置与速度的计算（所有行星共用）
+        SUN("太阳"),
+        MOON("月亮"),
+        MERCURY("水星"),
+        VENUS("金星"),
+        MARS("火星"),
+        JUPITER("木星"),
+        SATURN("土星"),
+        URANUS("天王星"),
+        NEPTUNE("海王星"),
+        PLUTO("冥王星"),
+        HOUSES("上升点与宫位"),
+        INTERPRETATION("解读文本"),
+        DRAW("星盘绘制"),
+        // 点击“生成”到结果回调（含去抖等待与排队）
+        END_TO_END("点击到出结果");
+
+        public static final Stage[] VALUES = values();
+
+        public final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private static volatile boolean enabled;
+    private static final Histogram[] HISTOGRAMS = new Histogram[Stage.VALUES.length];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) HISTOGRAMS[i] = new Histogram();
+    }
+
+    private StageTimings() {
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开始计时：返回 System.nanoTime()；关闭时返回 0
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 结束计时并记入 stage；start 为 0（计时开始时处于关闭状态）时不记录
+     */
+    public static void stop(Stage stage, long start) {
+        if (start == 0) return;
+        HISTOGRAMS[stage.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * 直接记入一个耗时（纳秒），不检查开关
+     */
+    public static void record(Stage stage, long nanos) {
+        HISTOGRAMS[stage.ordinal()].record(nanos);
+    }
+
+    public static Stage forBody(Body body) {
+        return Stage.VALUES[Stage.SUN.ordinal() + body.ordinal()];
+    }
+
+    public static Histogram histogram(Stage stage) {
+        return HISTOGRAMS[stage.ordinal()];
+    }
+
+    public static void reset() {
+        for (Histogram h : HISTOGRAMS) h.reset();
+    }
+
+    /**
+     * 输出所有有数据的阶段：次数、p50、p90、p99、最大值与平均值（微秒），每阶段一行
+     */
+    public static void dump(Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "%-10s %8s %10s %10s %10s %10s %10s%n",
+                "阶段", "次数", "p50(us)", "p90(us)", "p99(us)", "最大(us)", "平均(us)"));
+        for (Stage stage : Stage.VALUES) {
+            Histogram h = HISTOGRAMS[stage.ordinal()];
+            long n = h.count();
+            if (n == 0) continue;
+            out.append(String.format(Locale.US, "%-10s %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    stage.label, n, h.percentile(0.5) / 1e3, h.percentile(0.9) / 1e3, h.percentile(0.99) / 1e3,
+                    h.max() / 1e3, h.mean() / 1e3));
+        }
+    }
+
+    /**
+     * 把纳秒数写成“12.3us”或“4.56ms”（不分配对象，供界面叠加层逐帧使用）
+     */
+    public static void appendDuration(StringBuilder sb, long nanos) {
+        if (nanos < 10000000L) {
+            long tenths = (nanos + 50) / 100;
+            sb.append(tenths / 10).append('.').append(tenths % 10).append("us");
+        } else {
+            long hundredths = (nanos + 5000) / 10000;
+            sb.append(hundredths / 100).append('.');
+            long frac = hundredths % 100;
+            if (frac < 10) sb.append('0');
+            sb.append(frac).append("ms");
+        }
+    }
+
+    /**
+     * 纳秒耗时直方图：对数分桶，每个 2 的幂次区间再等分 SUB_BUCKETS 份（相对误差不超过 1/SUB_BUCKETS），
+     * 覆盖 0 到约 68 秒，更长的记入最后一桶。桶是固定的，记录只做几次原子操作。
+     */
+    public static final class Histogram {
+
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        // 2^36 纳秒约 68.7 秒
+        private static final int MAX_EXPONENT = 36;
+        static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            counts.incrementAndGet(bucketOf(nanos));
+            total.addAndGet(nanos);
+            long m = max.get();
+            while (nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+        }
+
+        static int bucketOf(long v) {
+            if (v < SUB_BUCKETS) return (int) v;
+            int exponent = 63 - Long.numberOfLeadingZeros(v);
+            if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+            int sub = (int) (v >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * 桶的上界（不含）
+         */
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket + 1;
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            int sub = bucket % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS);
+        }
+
+        public long count() {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+            return n;
+        }
+
+        public long max() {
+            return max.get();
+        }
+
+        public double mean() {
+            long n = count();
+            return n == 0 ? 0 : (double) total.get() / n;
+        }
+
+        /**
+         * 第 q 分位（0-1）的耗时（纳秒）：取所在桶的上界，不超过记录到的最大值；没有数据时为 0
+         */
+        public long percentile(double q) {
+            long n = count();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max.get());
+            }
+            return max.get();
+        }
+
+        public void reset() {
+            for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+            total.set(0);
+            max.set(0);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.astrology;
+
+import java.io.IOException;
+
+/**
+ * 把 ChartLayout 写成 SVG 文本：边生成边写入 Appendable（Writer、StringBuilder 均可），不构建 DOM
+ *
+ * 说明：
+ * - 坐标与配色都来自 ChartLayout，与 ChartView 画出来的是同一张图
+ * - 同类的线段合并成一个 path（M x y L x y ...），样式集中写在开头的 &lt;style&gt; 中，单张约 4-5 KB
+ * - 数字按 1 位小数写出（InterpretationTemplates.appendFixed），不经过 String.format，除输出本身外不分配对象
+ * - 要转 PNG 时交给任意 SVG 光栅化工具；设备上直接用 ChartPainter 画到 Bitmap
+ */
+public final class SvgChartWriter {
+
+    private static final String FONT = "px sans-serif";
+
+    private SvgChartWriter() {
+    }
+
+    public static void write(ChartLayout layout, Appendable out) throws IOException {
+        write(layout, null, out);
+    }
+
+    /**
+     * @param title 图的标题（写入 &lt;title&gt;，供无障碍与文件预览使用），可为 null
+     */
+    public static void write(ChartLayout layout, String title, Appendable out) throws IOException {
+        int w = layout.getWidth(), h = layout.getHeight();
+        out.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        integer(out, w);
+        out.append("\" height=\"");
+        integer(out, h);
+        out.append("\" viewBox=\"0 0 ");
+        integer(out, w);
+        out.append(' ');
+        integer(out, h);
+        out.append("\">");
+        if (title != null) {
+            out.append("<title>");
+            appendEscaped(out, title);
+            out.append("</title>");
+        }
+        writeStyle(out);
+        out.append("<rect width=\"100%\" height=\"100%\" class=\"bg\"/>");
+
+        int radius = layout.getRadius();
+        if (radius > 0) {
+            float cx = layout.getCenterX(), cy = layout.getCenterY();
+            out.append("<circle class=\"c\" cx=\"");
+            fixed(out, cx);
+            out.append("\" cy=\"");
+            fixed(out, cy);
+            out.append("\" r=\"");
+            integer(out, radius);
+            out.append("\"/>");
+
+            // 星座分割线与符号
+            out.append("<path class=\"s\" d=\"");
+            for (int i = 0; i < 12; i++) segment(out, cx, cy, layout.spokeX[i], layout.spokeY[i]);
+            out.append("\"/>");
+            for (int i = 0; i < 12; i++) {
+                text(out, "st", layout.signLabelX[i], layout.signLabelY[i], ZodiacUtils.SYMBOLS[i]);
+            }
+        }
+
+        if (layout.hasChart()) {
+            writeDynamic(layout, out);
+        }
+        out.append("</svg>\n");
+    }
+
+    private static void writeDynamic(ChartLayout layout, Appendable out) throws IOException {
+        // 相位线（在行星下面），每类一个 path
+        for (int kind = ChartLayout.ASPECT_SOFT; kind <= ChartLayout.ASPECT_OTHER; kind++) {
+            boolean open = false;
+            for (int i = 0; i < layout.getLineCount(); i++) {
+                if (layout.lineKind[i] != kind) continue;
+                if (!open) {
+                    out.append("<path class=\"").append(kind == ChartLayout.ASPECT_SOFT ? "as"
+                            : kind == ChartLayout.ASPECT_HARD ? "ah" : "ao").append("\" d=\"");
+                    open = true;
+                }
+                int a = layout.lineBodyA[i], b = layout.lineBodyB[i];
+                segment(out, layout.aspectX[a], layout.aspectY[a], layout.aspectX[b], layout.aspectY[b]);
+            }
+            if (open) out.append("\"/>");
+        }
+
+        // 真实位置的刻度与被推开的行星的引线
+        out.append("<path class=\"k\" d=\"");
+        for (int b = 0; b < Body.COUNT; b++) {
+            segment(out, layout.tickOuterX[b], layout.tickOuterY[b], layout.tickInnerX[b], layout.tickInnerY[b]);
+            if (layout.planetDisplaced[b]) {
+                segment(out, layout.tickInnerX[b], layout.tickInnerY[b], layout.planetX[b], layout.planetY[b]);
+            }
+        }
+        out.append("\"/>");
+
+        // 行星：小圆点 + 名称
+        for (int b = 0; b < Body.COUNT; b++) {
+            out.append("<circle class=\"p\" cx=\"");
+            fixed(out, layout.planetX[b]);
+            out.append("\" cy=\"");
+            fixed(out, layout.planetY[b]);
+            out.append("\" r=\"");
+            fixed(out, ChartLayout.PLANET_DOT_RADIUS);
+            out.append("\"/>");
+            text(out, "pt", layout.planetX[b] + 12, layout.planetY[b] + 8, Body.VALUES[b].key);
+        }
+
+        // 宫位分隔与宫号
+        if (layout.hasHouses()) {
+            float cx = layout.getCenterX(), cy = layout.getCenterY();
+            out.append("<path class=\"h\" d=\"");
+            for (int i = 0; i < 12; i++) segment(out, cx, cy, layout.cuspX[i], layout.cuspY[i]);
+            out.append("\"/>");
+            for (int i = 0; i < 12; i++) {
+                text(out, "ht", layout.houseLabelX[i], layout.houseLabelY[i], ChartLayout.HOUSE_LABELS[i]);
+            }
+        }
+    }
+
+    private static void writeStyle(Appendable out) throws IOException {
+        out.append("<style>");
+        rule(out, ".bg{fill:", ChartLayout.COLOR_BACKGROUND, "}");
+        rule(out, ".c{fill:none;stroke-width:3;stroke:", ChartLayout.COLOR_CIRCLE, "}");
+        rule(out, ".s{stroke-width:2;stroke:", ChartLayout.COLOR_SIGN_LINE, "}");
+        rule(out, ".h{stroke-width:2;stroke:", ChartLayout.COLOR_HOUSE_LINE, "}");
+        rule(out, ".k{stroke-width:2;stroke:", ChartLayout.COLOR_PLANET, "}");
+        rule(out, ".as{stroke-width:2;stroke:", ChartLayout.COLOR_ASPECT_SOFT, "}");
+        rule(out, ".ah{stroke-width:2;stroke:", ChartLayout.COLOR_ASPECT_HARD, "}");
+        rule(out, ".ao{stroke-width:1;stroke:", ChartLayout.COLOR_ASPECT_OTHER, "}");
+        rule(out, ".p{fill:", ChartLayout.COLOR_PLANET, "}");
+        out.append("text{font:");
+        integer(out, ChartLayout.TEXT_SIZE);
+        out.append(FONT).append('}');
+        rule(out, ".st{text-anchor:middle;fill:", ChartLayout.COLOR_SIGN_TEXT, "}");
+        rule(out, ".ht{text-anchor:middle;fill:", ChartLayout.COLOR_HOUSE_TEXT, "}");
+        rule(out, ".pt{fill:", ChartLayout.COLOR_PLANET_TEXT, "}");
+        out.append("</style>");
+    }
+
+    private static void rule(Appendable out, String prefix, int argb, String suffix) throws IOException {
+        out.append(prefix).append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) out.append(Character.forDigit((argb >>> shift) & 0xF, 16));
+        out.append(suffix);
+    }
+
+    private static void segment(Appendable out, float x1, float y1, float x2, float y2) throws IOException {
+        out.append('M');
+        fixed(out, x1);
+        out.append(' ');
+        fixed(out, y1);
+        out.append('L');
+        fixed(out, x2);
+        out.append(' ');
+        fixed(out, y2);
+    }
+
+    private static void text(Appendable out, String cls, float x, float y, String s) throws IOException {
+        out.append("<text class=\"").append(cls).append("\" x=\"");
+        fixed(out, x);
+        out.append("\" y=\"");
+        fixed(out, y);
+        out.append("\">");
+        appendEscaped(out, s);
+        out.append("</text>");
+    }
+
+    private static void fixed(Appendable out, float v) throws IOException {
+        InterpretationTemplates.appendFixed(out, v, 1);
+    }
+
+    private static void integer(Appendable out, double v) throws IOException {
+        InterpretationTemplates.appendFixed(out, v, 0);
+    }
+
+    private static void appendEscaped(Appendable out, String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.demo.astrology;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 合盘匹配：一张星盘（查询方）对 ChartPopulation 中的全体星盘打分，取分数最高的 K 个
+ *
+ * 打分：查询方的每个天体 a 与对方的每个天体 b（10 × 10 对，含同名天体）之间的交叉相位，
+ * 每个落在容许度内的相位贡献 相位权重 × 天体对权重 × (1 - |偏离| / 容许度)，即越精确分越高、到容许度边缘降为 0。
+ * 相位定义与各天体容许度取自 AspectEngine（两天体容许度取平均再乘以相位比例，与单盘相同）；
+ * 和谐相位（合、六合、三分）权重为正，紧张相位（四分、对分）为负，天体对权重默认为两者“重要性”之积
+ * （太阳、月亮、金星、火星较高，外行星较低），都可以用 setter 调整。
+ *
+ * 扫描：
+ * - 查询方固定时，对方天体 b 的得分只取决于它的黄经 y：先把 F_b(y) = Σ_a 得分(a, b, y) 按 1/4 度制成表
+ *   （10 张表，共约 58 KB，常驻缓存），每张星盘只需 10 次查表加线性插值，而不是 10 × 10 × 相位数 次判断
+ * - 按列扫描：每段先逐天体把一列的贡献累加到分数数组，再把超过当前门槛的星盘放入最小堆（容量 K）
+ * - 全体按区间二分成 fork-join 子任务，每个子任务各有自己的堆，合并时只合并 K 个元素
+ * - 插值只在分数曲线的折点（容许度边缘、相位精确处）附近有误差；入选的 K 个用精确公式重新打分并排序，
+ *   所以返回的分数是精确的，只有近似分数相差极小的名次可能与精确排名不同
+ *
+ * 配置完成后 topMatches 不修改实例，可以在多个线程中同时调用。
+ */
+public class SynastryScorer {
+
+    // 表的分辨率：每度 4 格
+    static final int BINS_PER_DEGREE = 4;
+    private static final int BINS = 360 * BINS_PER_DEGREE;
+    // fork-join 叶子任务的星盘数，以及叶子内部每段的星盘数（分数数组的长度）
+    private static final int LEAF_SIZE = 16384;
+    private static final int CHUNK = 1024;
+
+    // 内置相位（合相、六合、四分、三分、对分）的默认权重，下标同 AspectEngine
+    private static final double[] DEFAULT_ASPECT_WEIGHTS = {1.0, 0.6, -0.7, 1.0, -0.5};
+    // 天体对权重 = 两者重要性之积，下标为 Body.ordinal()
+    private static final double[] DEFAULT_IMPORTANCE = {1.5, 1.5, 1.0, 1.3, 1.2, 0.8, 0.8, 0.4, 0.4, 0.4};
+
+    /**
+     * 不排除任何星盘
+     */
+    public static final long NO_EXCLUDE = Long.MIN_VALUE;
+
+    private final int aspectCount;
+    private final double[] angles;
+    private final double[] orbScales;
+    private final double[] orbs = new double[Body.COUNT];
+    private final double[] aspectWeights;
+    private final double[][] pairWeights = new double[Body.COUNT][Body.COUNT];
+
+    /**
+     * 匹配结果：按分数从高到低，第 i 名为 id(i)（ChartPopulation 中的下标为 index(i)），分数 score(i)
+     */
+    public static final class Matches {
+        private final long[] ids;
+        private final int[] indices;
+        private final double[] scores;
+        // 参与打分的星盘数与总耗时（含建表、扫描、合并与重新打分）
+        public final int scanned;
+        public final long elapsedNanos;
+
+        Matches(long[] ids, int[] indices, double[] scores, int scanned, long elapsedNanos) {
+            this.ids = ids;
+            this.indices = indices;
+            this.scores = scores;
+            this.scanned = scanned;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public long id(int i) {
+            return ids[i];
+        }
+
+        public int index(int i) {
+            return indices[i];
+        }
+
+        public double score(int i) {
+            return scores[i];
+        }
+
+        /**
+         * 吞吐量：每秒打分的星盘数
+         */
+        public double chartsPerSecond() {
+            return elapsedNanos == 0 ? 0 : scanned * 1e9 / elapsedNanos;
+        }
+    }
+
+    public SynastryScorer() {
+        this(new AspectEngine());
+    }
+
+    /**
+     * 使用 engine 的相位定义与天体容许度（此后再修改 engine 不影响本实例）；
+     * 内置相位之外的自定义相位权重默认为 0，需要用 setAspectWeight 指定
+     */
+    public SynastryScorer(AspectEngine engine) {
+        aspectCount = engine.getAspectCount();
+        angles = new double[aspectCount];
+        orbScales = new double[aspectCount];
+        aspectWeights = new double[aspectCount];
+        for (int t = 0; t < aspectCount; t++) {
+            angles[t] = engine.getAspectAngle(t);
+            orbScales[t] = engine.getOrbScale(t);
+            if (t < DEFAULT_ASPECT_WEIGHTS.length) aspectWeights[t] = DEFAULT_ASPECT_WEIGHTS[t];
+        }
+        for (Body body : Body.VALUES) orbs[body.ordinal()] = engine.getOrb(body);
+        for (int a = 0; a < Body.COUNT; a++) {
+            for (int b = 0; b < Body.COUNT; b++) pairWeights[a][b] = DEFAULT_IMPORTANCE[a] * DEFAULT_IMPORTANCE[b];
+        }
+    }
+
+    /**
+     * 设置相位权重（正为加分，负为减分）
+     */
+    public SynastryScorer setAspectWeight(int aspect, double weight) {
+        aspectWeights[aspect] = weight;
+        return this;
+    }
+
+    /**
+     * 设置天体对的权重（对称：a 对 b 与 b 对 a 相同）
+     */
+    public SynastryScorer setPairWeight(Body a, Body b, double weight) {
+        pairWeights[a.ordinal()][b.ordinal()] = weight;
+        pairWeights[b.ordinal()][a.ordinal()] = weight;
+        return this;
+    }
+
+    /**
+     * 两张星盘的精确得分（下标为 Body.ordinal() 的黄经）
+     */
+    public double score(double[] query, double[] other) {
+        double s = 0;
+        for (int a = 0; a < Body.COUNT; a++) {
+            for (int b = 0; b < Body.COUNT; b++) s += pairScore(a, b, separation(query[a], other[b]));
+        }
+        return s;
+    }
+
+    /**
+     * 天体对 (a, b) 在角距 sep（0-180 度）时的得分
+     */
+    private double pairScore(int a, int b, double sep) {
+        double s = 0;
+        double orb = (orbs[a] + orbs[b]) * 0.5;
+        for (int t = 0; t < aspectCount; t++) {
+            double allowed = orb * orbScales[t];
+            double dev = Math.abs(sep - angles[t]);
+            if (dev < allowed) s += aspectWeights[t] * (1 - dev / allowed);
+        }
+        return s * pairWeights[a][b];
+    }
+
+    private static double separation(double x, double y) {
+        double d = Math.abs(x - y) % 360.0;
+        return d > 180 ? 360 - d : d;
+    }
+
+    public Matches topMatches(double[] query, ChartPopulation population, int k, ForkJoinPool pool) {
+        return topMatches(query, population, k, NO_EXCLUDE, pool);
+    }
+
+    /**
+     * 取与 query 得分最高的 k 张星盘
+     *
+     * @param excludeId 不参与排名的星盘编号（通常是查询方本人），NO_EXCLUDE 表示不排除
+     * @param pool      为 null 时使用 ForkJoinPool.commonPool()
+     */
+    public Matches topMatches(double[] query, ChartPopulation population, int k, long excludeId, ForkJoinPool pool) {
+        if (k < 0) throw new IllegalArgumentException("k 不能为负: " + k);
+        for (int b = 0; b < Body.COUNT; b++) {
+            if (Double.isNaN(query[b]) || Double.isInfinite(query[b])) {
+                throw new IllegalArgumentException("查询星盘的黄经必须是有限数: " + Body.VALUES[b]);
+            }
+        }
+        long t0 = System.nanoTime();
+        int size = population.size();
+        float[][] tables = buildTables(query);
+
+        TopK top;
+        ScanTask task = new ScanTask(tables, population, 0, size, k, excludeId);
+        if (size <= LEAF_SIZE) {
+            top = task.compute();
+        } else {
+            top = (pool == null ? ForkJoinPool.commonPool() : pool).invoke(task);
+        }
+
+        // 入选的用精确公式重新打分，再按分数从高到低（同分按下标）排序
+        int n = top.size;
+        Integer[] order = new Integer[n];
+        final double[] exact = new double[n];
+        double[] other = new double[Body.COUNT];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            exact[i] = score(query, population.get(top.index[i], other));
+        }
+        final int[] heapIndex = top.index;
+        Arrays.sort(order, (x, y) -> {
+            int c = Double.compare(exact[y], exact[x]);
+            return c != 0 ? c : Integer.compare(heapIndex[x], heapIndex[y]);
+        });
+        long[] ids = new long[n];
+        int[] indices = new int[n];
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            int h = order[i];
+            indices[i] = heapIndex[h];
+            ids[i] = population.id(indices[i]);
+            scores[i] = exact[h];
+        }
+        return new Matches(ids, indices, scores, size, System.nanoTime() - t0);
+    }
+
+    /**
+     * 对方每个天体的得分表：tables[b][i] 为对方天体 b 位于 i / BINS_PER_DEGREE 度时，与查询方全部天体的得分之和；
+     * 多一格（等于第 0 格）供插值时不必取模
+     */
+    private float[][] buildTables(double[] query) {
+        float[][] tables = new float[Body.COUNT][BINS + 1];
+        for (int b = 0; b < Body.COUNT; b++) {
+            float[] table = tables[b];
+            for (int i = 0; i < BINS; i++) {
+                double y = (double) i / BINS_PER_DEGREE;
+                double s = 0;
+                for (int a = 0; a < Body.COUNT; a++) s += pairScore(a, b, separation(query[a], y));
+                table[i] = (float) s;
+            }
+            table[BINS] = table[0];
+        }
+        return tables;
+    }
+
+    /**
+     * 容量为 k 的最小堆（堆顶是当前入选中最差的），只存分数与下标两个原始数组
+     * “更好”指分数更高，同分时下标更小（结果与拆分方式无关）
+     */
+    private static final class TopK {
+        final float[] score;
+        final int[] index;
+        final int capacity;
+        int size;
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+            score = new float[capacity];
+            index = new int[capacity];
+        }
+
+        /**
+         * s 能否入选（堆未满，或比堆顶好）
+         */
+        boolean accepts(float s, int i) {
+            if (size < capacity) return true;
+            return capacity > 0 && (s > score[0] || (s == score[0] && i < index[0]));
+        }
+
+        void offer(float s, int i) {
+            if (!accepts(s, i)) return;
+            int p;
+            if (size < capacity) {
+                // 放到末尾后上浮
+                p = size++;
+                while (p > 0) {
+                    int parent = (p - 1) >>> 1;
+                    if (!worse(s, i, score[parent], index[parent])) break;
+                    score[p] = score[parent];
+                    index[p] = index[parent];
+                    p = parent;
+                }
+            } else {
+                // 替换堆顶后下沉
+                p = 0;
+                while (true) {
+                    int c = 2 * p + 1;
+                    if (c >= size) break;
+                    if (c + 1 < size && worse(score[c + 1], index[c + 1], score[c], index[c])) c++;
+                    if (!worse(score[c], index[c], s, i)) break;
+                    score[p] = score[c];
+                    index[p] = index[c];
+                    p = c;
+                }
+            }
+            score[p] = s;
+            index[p] = i;
+        }
+
+        void merge(TopK other) {
+            for (int j = 0; j < other.size; j++) offer(other.score[j], other.index[j]);
+        }
+
+        private static boolean worse(float s1, int i1, float s2, int i2) {
+            return s1 < s2 || (s1 == s2 && i1 > i2);
+        }
+    }
+
+    /**
+     * 扫描 [from, to) 的 fork-join 任务：区间长度超过 LEAF_SIZE 就对半拆分，子任务的堆合并后返回
+     */
+    private static final class ScanTask extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+
+        private final float[][] tables;
+        private final ChartPopulation population;
+        private final int from, to, k;
+        private final long excludeId;
+
+        ScanTask(float[][] tables, ChartPopulation population, int from, int to, int k, long excludeId) {
+            this.tables = tables;
+            this.population = population;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.excludeId = excludeId;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                ScanTask left = new ScanTask(tables, population, from, mid, k, excludeId);
+                left.fork();
+                TopK top = new ScanTask(tables, population, mid, to, k, excludeId).compute();
+                top.merge(left.join());
+                return top;
+            }
+            TopK top = new TopK(k);
+            float[] scores = new float[CHUNK];
+            for (int base = from; base < to; base += CHUNK) {
+                int n = Math.min(CHUNK, to - base);
+                Arrays.fill(scores, 0, n, 0f);
+                // 逐列累加：每个天体一列，顺序读取
+                for (int b = 0; b < Body.COUNT; b++) {
+                    float[] column = population.column(b);
+                    float[] table = tables[b];
+                    for (int j = 0; j < n; j++) {
+                        float y = column[base + j] * BINS_PER_DEGREE;
+                        int i = (int) y;
+                        float lo = table[i];
+                        scores[j] += lo + (table[i + 1] - lo) * (y - i);
+                    }
+                }
+                for (int j = 0; j < n; j++) {
+                    int index = base + j;
+                    if (top.accepts(scores[j], index) && population.id(index) != excludeId) top.offer(scores[j], index);
+                }
+            }
+            return top;
+        }
+    }
+}
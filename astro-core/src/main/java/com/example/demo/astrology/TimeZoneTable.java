@@ -0,0 +1,176 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 历史时区表：把出生地的当地钟表时间换算成 UT
+ *
+ * 数据由构建期的 TimeZoneTableBuilder（buildSrc）从 JDK 的 tzdb 生成，只包含地名库用到的时区，
+ * 覆盖 1800-2100 年的全部历史变更（地方平时、战时时间、夏令时等），打包为 assets/tzdb.bin。
+ *
+ * 文件格式（大端序）：
+ * <pre>
+ *   int MAGIC, int VERSION, int zoneCount, int setCount
+ *   zoneCount 个时区（按名称排序）：UTF 名称（DataOutput.writeUTF）, short 规则集下标
+ *   setCount 个规则集（内容相同的时区共用一个）：int 初始偏移（秒）, int n, n 个 (long 切换时刻（UTC 纪元秒）, int 切换后偏移（秒）)
+ * </pre>
+ *
+ * 说明：
+ * - 加载时一次读入几个基本类型数组；查询为二分查找，不经过 Calendar / TimeZone，不分配对象
+ * - 当地时间落在夏令时开始的“空档”里时按切换前的偏移换算（等价于向后顺延空档长度，与 java.time 相同）；
+ *   落在夏令时结束的“重叠”里时取较早的那个时刻（切换前的偏移）
+ * - 2100 年以后沿用最后一次切换后的偏移
+ *
+ * 加载后只读，可以在多个线程中同时查询。
+ */
+public class TimeZoneTable {
+
+    public static final int MAGIC = 0x545A5431; // "TZT1"
+    public static final int VERSION = 1;
+
+    private final String[] ids;
+    private final int[] zoneSet;
+    // 规则集 s 的切换记录为 [setStart[s], setStart[s + 1])
+    private final int[] setStart;
+    private final int[] setInitialOffset;
+    private final long[] transitionUtc;
+    private final int[] offsetAfter;
+    // 切换时刻的当地时间（按切换前的偏移），用于由当地时间二分查找
+    private final long[] transitionLocal;
+
+    /**
+     * 从输入流读取（通常为 assets 中的 tzdb.bin）；不关闭输入流
+     */
+    public static TimeZoneTable read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) throw new IOException("不是时区表文件");
+        int version = data.readInt();
+        if (version != VERSION) throw new IOException("不支持的时区表版本: " + version);
+        int zoneCount = data.readInt();
+        int setCount = data.readInt();
+        String[] ids = new String[zoneCount];
+        int[] zoneSet = new int[zoneCount];
+        for (int i = 0; i < zoneCount; i++) {
+            ids[i] = data.readUTF();
+            zoneSet[i] = data.readShort() & 0xFFFF;
+            if (zoneSet[i] >= setCount) throw new IOException("时区表已损坏: " + ids[i]);
+        }
+        int[] setStart = new int[setCount + 1];
+        int[] initial = new int[setCount];
+        long[] utc = new long[64];
+        int[] offsets = new int[64];
+        int n = 0;
+        for (int s = 0; s < setCount; s++) {
+            initial[s] = data.readInt();
+            int count = data.readInt();
+            setStart[s] = n;
+            if (n + count > utc.length) {
+                int capacity = Math.max(utc.length * 2, n + count);
+                utc = Arrays.copyOf(utc, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+            }
+            for (int i = 0; i < count; i++) {
+                utc[n] = data.readLong();
+                offsets[n] = data.readInt();
+                n++;
+            }
+        }
+        setStart[setCount] = n;
+        return new TimeZoneTable(ids, zoneSet, setStart, initial,
+                Arrays.copyOf(utc, n), Arrays.copyOf(offsets, n));
+    }
+
+    TimeZoneTable(String[] ids, int[] zoneSet, int[] setStart, int[] setInitialOffset,
+                  long[] transitionUtc, int[] offsetAfter) {
+        this.ids = ids;
+        this.zoneSet = zoneSet;
+        this.setStart = setStart;
+        this.setInitialOffset = setInitialOffset;
+        this.transitionUtc = transitionUtc;
+        this.offsetAfter = offsetAfter;
+        this.transitionLocal = new long[transitionUtc.length];
+        for (int s = 0; s < setInitialOffset.length; s++) {
+            int before = setInitialOffset[s];
+            for (int i = setStart[s]; i < setStart[s + 1]; i++) {
+                transitionLocal[i] = transitionUtc[i] + before;
+                before = offsetAfter[i];
+            }
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String getId(int zone) {
+        return ids[zone];
+    }
+
+    /**
+     * 时区名（如 "Asia/Shanghai"）对应的下标；表中没有时返回 -1
+     */
+    public int indexOf(String id) {
+        int lo = 0, hi = ids.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = ids[mid].compareTo(id);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * 某 UTC 时刻的偏移（秒，东为正）
+     *
+     * @param epochSecond UTC 纪元秒（1970-01-01T00:00Z 起）
+     */
+    public int offsetAtUtc(int zone, long epochSecond) {
+        int s = zoneSet[zone];
+        int k = upperBound(transitionUtc, setStart[s], setStart[s + 1], epochSecond);
+        return k == setStart[s] ? setInitialOffset[s] : offsetAfter[k - 1];
+    }
+
+    /**
+     * 某当地时间适用的偏移（秒，东为正）；空档与重叠的处理见类说明
+     *
+     * @param localEpochSecond 当地钟表时间按 UTC 计的纪元秒（即把当地日期时间当作 UTC 换算得到的秒数）
+     */
+    public int offsetAtLocal(int zone, long localEpochSecond) {
+        int s = zoneSet[zone];
+        int first = setStart[s];
+        int k = upperBound(transitionLocal, first, setStart[s + 1], localEpochSecond);
+        if (k == first) return setInitialOffset[s];
+        int t = k - 1;
+        int before = t == first ? setInitialOffset[s] : offsetAfter[t - 1];
+        int after = offsetAfter[t];
+        // 夏令时开始的空档：当地时间在 [切换时刻 + before, 切换时刻 + after) 内不存在
+        if (after > before && localEpochSecond < transitionUtc[t] + after) return before;
+        return after;
+    }
+
+    /**
+     * 当地时间换算为 UTC 纪元秒
+     */
+    public long toUtc(int zone, long localEpochSecond) {
+        return localEpochSecond - offsetAtLocal(zone, localEpochSecond);
+    }
+
+    /**
+     * 第一个大于 key 的下标（在 [from, to) 中）
+     */
+    private static int upperBound(long[] a, int from, int to, long key) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * VSOP87 行星引擎：日心坐标 → 地心黄经
+ *
+ * 说明：
+ * - 系数来自资源文件 vsop87d.txt（VSOP87D，当日黄道与分点），首次使用时加载一次，按精度档位截断后打包成原始数组
+ * - 精度档位（Accuracy）决定保留哪些项：振幅低于阈值的项直接丢弃，热路径可以用精度换速度
+ * - 同一时刻的所有天体共用一次地球日心位置与速度计算（太阳本身就是“地球的反方向”）
+ * - 光行时：先用最粗档位估算地心距离，再在 t - τ 时刻用当前档位计算行星；光行差用地球速度修正
+ * - 冥王星不在 VSOP87 中，这里使用 JPL（Standish）给出的平均轨道根数近似，1800–2050 年内误差约为角分量级
+ * - 月亮不属于本引擎，由 PlanetCalculator 中的月亮理论计算
+ *
+ * 参考：
+ * - P. Bretagnon, G. Francou, Planetary theories in rectangular and spherical variables: VSOP87 solutions
+ * - Jean Meeus, Astronomical Algorithms, 第 32、33 章与附录 III
+ */
+public final class Vsop87 {
+
+    /**
+     * 精度档位：名称表示目标精度，阈值为保留项的最小振幅（1e-8 弧度）
+     */
+    public enum Accuracy {
+        // 资源文件中的全部项（约 1 角秒）
+        ARCSECOND(0),
+        // 约 1 角分
+        ARCMINUTE(1000),
+        // 约 0.1 度
+        TENTH_DEGREE(20000);
+
+        final double minAmplitude;
+
+        Accuracy(double minAmplitude) {
+            this.minAmplitude = minAmplitude;
+        }
+    }
+
+    // 资源文件中的行星顺序，即内部下标
+    private static final String[] PLANETS = {
+            "MERCURY", "VENUS", "EARTH", "MARS", "JUPITER", "SATURN", "URANUS", "NEPTUNE"
+    };
+    private static final int EARTH = 2;
+    private static final int PLANET_COUNT = PLANETS.length;
+    private static final int MAX_POWER = 5;
+    // 每个行星 L、B、R 三个序列，每个序列最多 MAX_POWER+1 个幂次
+    private static final int SLOTS = PLANET_COUNT * 3 * (MAX_POWER + 1);
+
+    // 各行星与地球的最小距离（AU）：R 的误差按 ΔR / 距离 折算成地心角度，所以 R 的阈值按此放大
+    private static final double[] MIN_GEOCENTRIC_DISTANCE = {0.55, 0.26, 0.26, 0.37, 3.9, 8.0, 17.3, 28.8};
+    // 判断高次幂项是否可以忽略时假定的 |tau| 上限（约公元 0–4000 年）
+    private static final double TAU_LIMIT = 0.2;
+
+    // 光速对应的每 AU 光行时（天）
+    private static final double LIGHT_TIME_DAYS_PER_AU = 0.0057755183;
+    private static final double DAYS_PER_MILLENNIUM = 365250.0;
+
+    // Body.ordinal() → 内部行星下标；太阳、月亮、冥王星为 -1
+    private static final int[] PLANET_OF_BODY = new int[Body.COUNT];
+
+    static {
+        for (int i = 0; i < Body.COUNT; i++) PLANET_OF_BODY[i] = -1;
+        PLANET_OF_BODY[Body.MERCURY.ordinal()] = 0;
+        PLANET_OF_BODY[Body.VENUS.ordinal()] = 1;
+        PLANET_OF_BODY[Body.MARS.ordinal()] = 3;
+        PLANET_OF_BODY[Body.JUPITER.ordinal()] = 4;
+        PLANET_OF_BODY[Body.SATURN.ordinal()] = 5;
+        PLANET_OF_BODY[Body.URANUS.ordinal()] = 6;
+        PLANET_OF_BODY[Body.NEPTUNE.ordinal()] = 7;
+    }
+
+    // 各档位的实例，首次用到时创建；读取不加锁（calculate、eclipticLongitude 每次调用都会取）
+    private static final AtomicReferenceArray<Vsop87> INSTANCES = new AtomicReferenceArray<>(Accuracy.values().length);
+
+    private final Accuracy accuracy;
+    // 打包后的系数：第 slot 个序列的项位于 [start[slot], start[slot+1])
+    private final double[] amp;
+    private final double[] phase;
+    private final double[] freq;
+    private final int[] start;
+    // 用于估算光行时的粗档位实例（最粗档位指向自身）
+    private final Vsop87 coarse;
+
+    // 每线程一份临时数组，避免每次计算都分配
+    private final ThreadLocal<double[]> scratch = new ThreadLocal<double[]>() {
+        @Override
+        protected double[] initialValue() {
+            return new double[SCRATCH_SIZE];
+        }
+    };
+    // scratch 布局：0-2 地球位置，3-5 地球速度（AU/天），6-8 行星位置，9-11 临时
+    private static final int SCRATCH_SIZE = 12;
+
+    private Vsop87(Accuracy accuracy, Table full, Vsop87 coarse) {
+        this.accuracy = accuracy;
+        this.coarse = coarse == null ? this : coarse;
+
+        int[] counts = new int[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            double limit = threshold(accuracy, slot);
+            for (int i = full.start[slot]; i < full.start[slot + 1]; i++) {
+                if (full.amp[i] >= limit) counts[slot]++;
+            }
+        }
+        start = new int[SLOTS + 1];
+        for (int slot = 0; slot < SLOTS; slot++) start[slot + 1] = start[slot] + counts[slot];
+        amp = new double[start[SLOTS]];
+        phase = new double[start[SLOTS]];
+        freq = new double[start[SLOTS]];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            double limit = threshold(accuracy, slot);
+            int k = start[slot];
+            for (int i = full.start[slot]; i < full.start[slot + 1]; i++) {
+                if (full.amp[i] < limit) continue;
+                amp[k] = full.amp[i];
+                phase[k] = full.phase[i];
+                freq[k] = full.freq[i];
+                k++;
+            }
+        }
+    }
+
+    /**
+     * 某个序列的截断阈值（1e-8 单位）：R 按最小地心距离放大，高次幂按 TAU_LIMIT^幂次 放大
+     */
+    private static double threshold(Accuracy accuracy, int slot) {
+        if (accuracy.minAmplitude <= 0) return 0;
+        int power = slot % (MAX_POWER + 1);
+        int coord = (slot / (MAX_POWER + 1)) % 3;
+        int planet = slot / (3 * (MAX_POWER + 1));
+        double limit = accuracy.minAmplitude / Math.pow(TAU_LIMIT, power);
+        if (coord == 2) limit *= MIN_GEOCENTRIC_DISTANCE[planet];
+        return limit;
+    }
+
+    /**
+     * 取得某精度档位的引擎实例（线程安全，首次调用时加载资源；之后不加锁）
+     */
+    public static Vsop87 forAccuracy(Accuracy accuracy) {
+        Vsop87 v = INSTANCES.get(accuracy.ordinal());
+        if (v != null) return v;
+        synchronized (INSTANCES) {
+            v = INSTANCES.get(accuracy.ordinal());
+            if (v == null) {
+                Vsop87 coarse = null;
+                if (accuracy != Accuracy.TENTH_DEGREE) coarse = forAccuracy(Accuracy.TENTH_DEGREE);
+                v = new Vsop87(accuracy, Table.get(), coarse);
+                INSTANCES.set(accuracy.ordinal(), v);
+            }
+            return v;
+        }
+    }
+
+    public Accuracy getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * 当前档位保留的项数（所有行星、所有坐标合计）
+     */
+    public int termCount() {
+        return amp.length;
+    }
+
+    /**
+     * 计算 jde 时刻太阳、水星……冥王星的地心视黄经（0-360，当日平分点），写入 out[Body.ordinal()]；
+     * 月亮那一格不写。地球的日心位置与速度只计算一次，被所有天体共用。
+     */
+    public void geocentricLongitudes(double jde, double[] out) {
+        geocentricLongitudes(jde, out, null);
+    }
+
+    /**
+     * 同上，只计算 wanted[Body.ordinal()] 为 true 的天体；wanted 为 null 表示全部
+     *
+     * 打开 StageTimings 时按天体分别计时，地球状态计入第一个计算的天体（通常是太阳）。
+     */
+    public void geocentricLongitudes(double jde, double[] out, boolean[] wanted) {
+        double[] s = scratch.get();
+        long t0 = StageTimings.start();
+        earthState(jde, s);
+        for (Body body : Body.VALUES) {
+            if (body == Body.MOON || (wanted != null && !wanted[body.ordinal()])) continue;
+            out[body.ordinal()] = geocentricFromEarth(body, jde, s);
+            if (t0 != 0) {
+                long t1 = System.nanoTime();
+                StageTimings.record(StageTimings.forBody(body), t1 - t0);
+                t0 = t1;
+            }
+        }
+    }
+
+    /**
+     * 单个天体的地心视黄经（0-360）；月亮不支持
+     */
+    public double geocentricLongitude(Body body, double jde) {
+        if (body == Body.MOON) {
+            throw new IllegalArgumentException("月亮不在 VSOP87 中，请使用 PlanetCalculator.moonEclipticLongitude");
+        }
+        double[] s = scratch.get();
+        earthState(jde, s);
+        return geocentricFromEarth(body, jde, s);
+    }
+
+    /**
+     * 日心黄道球坐标：out[0] = L（弧度），out[1] = B（弧度），out[2] = R（AU）。body 不能是太阳或月亮。
+     */
+    public void heliocentric(Body body, double jde, double[] out) {
+        double[] s = scratch.get();
+        if (body == Body.PLUTO) {
+            plutoRectangular(jde, s, 9);
+        } else {
+            int p = planetIndex(body);
+            double tau = (jde - 2451545.0) / DAYS_PER_MILLENNIUM;
+            rectangular(p, tau, s, 9);
+        }
+        double x = s[9], y = s[10], z = s[11];
+        double r = Math.sqrt(x * x + y * y + z * z);
+        double l = Math.atan2(y, x);
+        if (l < 0) l += 2 * Math.PI;
+        out[0] = l;
+        out[1] = Math.asin(z / r);
+        out[2] = r;
+    }
+
+    private static int planetIndex(Body body) {
+        int p = PLANET_OF_BODY[body.ordinal()];
+        if (p < 0) throw new IllegalArgumentException("VSOP87 中没有 " + body);
+        return p;
+    }
+
+    /**
+     * 地球日心直角坐标与速度写入 s[0..5]
+     */
+    private void earthState(double jde, double[] s) {
+        double tau = (jde - 2451545.0) / DAYS_PER_MILLENNIUM;
+        int base = EARTH * 3 * (MAX_POWER + 1);
+        double l = sumWithRate(base, tau, s, 9);
+        double dl = s[9];
+        double b = sumWithRate(base + (MAX_POWER + 1), tau, s, 9);
+        double db = s[9];
+        double r = sumWithRate(base + 2 * (MAX_POWER + 1), tau, s, 9);
+        double dr = s[9];
+
+        double cl = Math.cos(l), sl = Math.sin(l), cb = Math.cos(b), sb = Math.sin(b);
+        s[0] = r * cb * cl;
+        s[1] = r * cb * sl;
+        s[2] = r * sb;
+        // 对 tau 求导后换算为 AU/天
+        s[3] = (dr * cb * cl - r * sb * db * cl - r * cb * sl * dl) / DAYS_PER_MILLENNIUM;
+        s[4] = (dr * cb * sl - r * sb * db * sl + r * cb * cl * dl) / DAYS_PER_MILLENNIUM;
+        s[5] = (dr * sb + r * cb * db) / DAYS_PER_MILLENNIUM;
+    }
+
+    /**
+     * 在已算好的地球状态 s 上求某天体的地心视黄经（度）
+     */
+    private double geocentricFromEarth(Body body, double jde, double[] s) {
+        double px, py, pz, lightTime;
+        if (body == Body.SUN) {
+            // 太阳位于日心原点：地心距离即地球日心距离
+            px = py = pz = 0;
+            lightTime = LIGHT_TIME_DAYS_PER_AU * Math.sqrt(s[0] * s[0] + s[1] * s[1] + s[2] * s[2]);
+        } else {
+            // 1. 用粗档位估计几何距离 → 光行时
+            coarse.heliocentricRectangular(body, jde, s, 6);
+            double dx = s[6] - s[0], dy = s[7] - s[1], dz = s[8] - s[2];
+            lightTime = LIGHT_TIME_DAYS_PER_AU * Math.sqrt(dx * dx + dy * dy + dz * dz);
+            // 2. 当前档位在 t - τ 时刻的行星位置
+            heliocentricRectangular(body, jde - lightTime, s, 6);
+            px = s[6];
+            py = s[7];
+            pz = s[8];
+        }
+        // 光行差：视方向 ≈ 几何方向 + τ · v_地球
+        double x = px - s[0] + lightTime * s[3];
+        double y = py - s[1] + lightTime * s[4];
+        return PlanetCalculator.normalizeDegrees(Math.toDegrees(Math.atan2(y, x)));
+    }
+
+    private void heliocentricRectangular(Body body, double jde, double[] out, int offset) {
+        if (body == Body.PLUTO) {
+            plutoRectangular(jde, out, offset);
+        } else {
+            rectangular(planetIndex(body), (jde - 2451545.0) / DAYS_PER_MILLENNIUM, out, offset);
+        }
+    }
+
+    private void rectangular(int p, double tau, double[] out, int offset) {
+        int base = p * 3 * (MAX_POWER + 1);
+        double l = sum(base, tau);
+        double b = sum(base + (MAX_POWER + 1), tau);
+        double r = sum(base + 2 * (MAX_POWER + 1), tau);
+        double rcb = r * Math.cos(b);
+        out[offset] = rcb * Math.cos(l);
+        out[offset + 1] = rcb * Math.sin(l);
+        out[offset + 2] = r * Math.sin(b);
+    }
+
+    /**
+     * 求一个坐标（L、B 或 R）的值：sum_k tau^k * sum_i A cos(B + C tau)，结果已除以 1e8
+     */
+    private double sum(int baseSlot, double tau) {
+        double total = 0, tp = 1;
+        for (int k = 0; k <= MAX_POWER; k++) {
+            int slot = baseSlot + k;
+            double s = 0;
+            for (int i = start[slot], end = start[slot + 1]; i < end; i++) {
+                s += amp[i] * Math.cos(phase[i] + freq[i] * tau);
+            }
+            total += s * tp;
+            tp *= tau;
+        }
+        return total * 1e-8;
+    }
+
+    /**
+     * 同 sum，并把对 tau 的导数写入 rate[idx]
+     */
+    private double sumWithRate(int baseSlot, double tau, double[] rate, int idx) {
+        double total = 0, derivative = 0, tp = 1, tpPrev = 0;
+        for (int k = 0; k <= MAX_POWER; k++) {
+            int slot = baseSlot + k;
+            double s = 0, ds = 0;
+            for (int i = start[slot], end = start[slot + 1]; i < end; i++) {
+                double arg = phase[i] + freq[i] * tau;
+                s += amp[i] * Math.cos(arg);
+                ds -= amp[i] * freq[i] * Math.sin(arg);
+            }
+            total += s * tp;
+            derivative += k * tpPrev * s + tp * ds;
+            tpPrev = tp;
+            tp *= tau;
+        }
+        rate[idx] = derivative * 1e-8;
+        return total * 1e-8;
+    }
+
+    /**
+     * 冥王星日心直角坐标（当日黄道）：J2000 平均轨道根数解开普勒方程，再加上黄经总岁差
+     * 根数来源：E. M. Standish, Keplerian Elements for Approximate Positions of the Major Planets（1800–2050）
+     */
+    private static void plutoRectangular(double jde, double[] out, int offset) {
+        double T = (jde - 2451545.0) / 36525.0;
+        double a = 39.48211675 - 0.00031596 * T;
+        double e = 0.24882730 + 0.00005170 * T;
+        double inc = Math.toRadians(17.14001206 + 0.00004818 * T);
+        double meanLon = 238.92903833 + 145.20780515 * T;
+        double periLon = 224.06891629 - 0.04062942 * T;
+        double node = 110.30393684 - 0.01183482 * T;
+
+        double m = Math.toRadians(PlanetCalculator.normalizeDegrees(meanLon - periLon));
+        double E = m;
+        for (int i = 0; i < 8; i++) {
+            E -= (E - e * Math.sin(E) - m) / (1 - e * Math.cos(E));
+        }
+        double xv = a * (Math.cos(E) - e);
+        double yv = a * Math.sqrt(1 - e * e) * Math.sin(E);
+
+        double w = Math.toRadians(periLon - node);
+        double om = Math.toRadians(node);
+        double cw = Math.cos(w), sw = Math.sin(w), co = Math.cos(om), so = Math.sin(om);
+        double ci = Math.cos(inc), si = Math.sin(inc);
+        double x = (cw * co - sw * so * ci) * xv + (-sw * co - cw * so * ci) * yv;
+        double y = (cw * so + sw * co * ci) * xv + (-sw * so + cw * co * ci) * yv;
+        double z = (sw * si) * xv + (cw * si) * yv;
+
+        // J2000 黄道 → 当日黄道：只做黄经方向的总岁差旋转（对冥王星的精度足够）
+        double p = Math.toRadians(1.396971 * T + 0.0003086 * T * T);
+        double cp = Math.cos(p), sp = Math.sin(p);
+        out[offset] = x * cp - y * sp;
+        out[offset + 1] = x * sp + y * cp;
+        out[offset + 2] = z;
+    }
+
+    /**
+     * 资源文件解析后的完整系数表（只加载一次）
+     */
+    private static final class Table {
+        private static Table instance;
+
+        final double[] amp;
+        final double[] phase;
+        final double[] freq;
+        final int[] start;
+
+        private Table(double[] amp, double[] phase, double[] freq, int[] start) {
+            this.amp = amp;
+            this.phase = phase;
+            this.freq = freq;
+            this.start = start;
+        }
+
+        static synchronized Table get() {
+            if (instance == null) {
+                try {
+                    instance = load();
+                } catch (IOException e) {
+                    throw new IllegalStateException("无法加载 VSOP87 系数资源", e);
+                }
+            }
+            return instance;
+        }
+
+        private static Table load() throws IOException {
+            InputStream in = Vsop87.class.getResourceAsStream("vsop87d.txt");
+            if (in == null) throw new IOException("找不到资源 vsop87d.txt");
+
+            List<double[]>[] terms = newTermLists();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charset.forName("UTF-8")))) {
+                List<double[]> current = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.charAt(0) == '#') continue;
+                    String[] f = line.split("\\s+");
+                    if (f[0].equals("@")) {
+                        current = terms[slotOf(f[1], f[2], Integer.parseInt(f[3]))];
+                    } else {
+                        if (current == null || f.length != 3) {
+                            throw new IOException("VSOP87 资源格式错误: " + line);
+                        }
+                        current.add(new double[]{
+                                Double.parseDouble(f[0]), Double.parseDouble(f[1]), Double.parseDouble(f[2])});
+                    }
+                }
+            }
+
+            int[] start = new int[SLOTS + 1];
+            for (int slot = 0; slot < SLOTS; slot++) start[slot + 1] = start[slot] + terms[slot].size();
+            int n = start[SLOTS];
+            double[] amp = new double[n], phase = new double[n], freq = new double[n];
+            for (int slot = 0; slot < SLOTS; slot++) {
+                int k = start[slot];
+                for (double[] t : terms[slot]) {
+                    amp[k] = t[0];
+                    phase[k] = t[1];
+                    freq[k] = t[2];
+                    k++;
+                }
+            }
+            return new Table(amp, phase, freq, start);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static List<double[]>[] newTermLists() {
+            List<double[]>[] lists = new List[SLOTS];
+            for (int i = 0; i < SLOTS; i++) lists[i] = new ArrayList<>();
+            return lists;
+        }
+
+        private static int slotOf(String planet, String coord, int power) throws IOException {
+            int p = -1;
+            for (int i = 0; i < PLANET_COUNT; i++) {
+                if (PLANETS[i].equals(planet)) p = i;
+            }
+            int c = "LBR".indexOf(coord);
+            if (p < 0 || c < 0 || coord.length() != 1 || power < 0 || power > MAX_POWER) {
+                throw new IOException("VSOP87 资源段头错误: " + planet + " " + coord + " " + power);
+            }
+            return (p * 3 + c) * (MAX_POWER + 1) + power;
+        }
+    }
+}
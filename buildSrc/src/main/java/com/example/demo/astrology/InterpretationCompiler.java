@@ -0,0 +1,291 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 构建期工具：把解读文案 astro-core/interpretation/&lt;语言&gt;.txt 编译成 interp/&lt;语言&gt;.bin（格式见 InterpretationFormat）
+ *
+ * 源文件为 UTF-8 文本，# 开头的行为注释，分三节，每行“键 = 内容”：
+ * - [names]：body.SUN、sign.ARIES、aspect.SQUARE、system.PLACIDUS 等名称（全部必填）
+ * - [messages]：header、body、aspect 等固定文案（全部必填，键见 InterpretationFormat.MESSAGE_KEYS）
+ * - [bodies]：天体在星座、宫位中的解读，键的写法与优先级：
+ *     SUN.ARIES.1（天体 + 星座 + 宫位，完整的一段）
+ *     SUN.ARIES、SUN、*（天体在星座中的一段，依次退回）
+ *     SUN.*.1、*.*.1（天体在某宫的一段，接在星座那一段后面；没有则不输出）
+ * 内容中可使用 {name}、{body}、{sign}、{lon} 等占位符（见 InterpretationFormat.PLACEHOLDERS），
+ * \n 表示换行，\{ 与 \\ 分别表示字面的 { 与 \。
+ *
+ * 编译时把 天体 × 星座 × 宫位 的每一格按上面的优先级展开成模板（星座段与宫位段拼接操作序列），
+ * 内容相同的模板与文字片段只保存一份。
+ */
+public class InterpretationCompiler {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: InterpretationCompiler <源文件目录> <输出目录>");
+            System.exit(2);
+        }
+        compileAll(new File(args[0]), new File(args[1]));
+    }
+
+    /**
+     * 编译目录下全部 .txt，输出为同名 .bin
+     */
+    public static void compileAll(File sourceDir, File outDir) throws IOException {
+        File[] files = sourceDir.listFiles();
+        if (files == null) throw new IOException("无法读取目录: " + sourceDir);
+        Arrays.sort(files);
+        for (File f : files) {
+            String name = f.getName();
+            if (!name.endsWith(".txt")) continue;
+            compile(f, new File(outDir, name.substring(0, name.length() - 4) + ".bin"));
+        }
+    }
+
+    public static void compile(File source, File out) throws IOException {
+        Map<String, Map<String, String>> sections = read(source);
+        Map<String, String> nameSection = section(sections, "names", source);
+        Map<String, String> messageSection = section(sections, "messages", source);
+        Map<String, String> bodySection = section(sections, "bodies", source);
+
+        Pools pools = new Pools(source);
+        int[] names = new int[InterpretationFormat.NAME_KEYS.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = pools.literal(required(nameSection, InterpretationFormat.NAME_KEYS[i], source));
+        }
+        checkUnknown(nameSection, InterpretationFormat.NAME_KEYS, "names", source);
+
+        int[] messages = new int[InterpretationFormat.MESSAGE_KEYS.length];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = pools.template(required(messageSection, InterpretationFormat.MESSAGE_KEYS[i], source));
+        }
+        checkUnknown(messageSection, InterpretationFormat.MESSAGE_KEYS, "messages", source);
+
+        checkBodyKeys(bodySection, source);
+        int cells = InterpretationFormat.cell(InterpretationFormat.BODY_KEYS.length, 0, 0);
+        int[] table = new int[cells];
+        for (int b = 0; b < InterpretationFormat.BODY_KEYS.length; b++) {
+            String body = InterpretationFormat.BODY_KEYS[b];
+            for (int s = 0; s < InterpretationFormat.SIGN_KEYS.length; s++) {
+                String sign = InterpretationFormat.SIGN_KEYS[s];
+                for (int h = 0; h < InterpretationFormat.HOUSE_SLOTS; h++) {
+                    String full = h > 0 ? bodySection.get(body + "." + sign + "." + h) : null;
+                    int t;
+                    if (full != null) {
+                        t = pools.template(full);
+                    } else {
+                        String text = first(bodySection, body + "." + sign, body, "*");
+                        if (text == null) throw new IOException(source + ": [bodies] 缺少 " + body + "." + sign + " 的解读（可用 * 兜底）");
+                        t = pools.template(text);
+                        String house = h > 0 ? first(bodySection, body + ".*." + h, "*.*." + h) : null;
+                        // 星座段与宫位段各自编译后再拼接操作序列，两段的文字片段分别共享
+                        if (house != null) t = pools.concat(t, pools.template(house));
+                    }
+                    table[InterpretationFormat.cell(b, s, h)] = t;
+                }
+            }
+        }
+
+        File dir = out.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建目录: " + dir);
+        DataOutputStream o = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(out)));
+        try {
+            o.writeInt(InterpretationFormat.MAGIC);
+            o.writeInt(InterpretationFormat.VERSION);
+            o.writeInt(pools.literals.size());
+            for (String s : pools.literals) o.writeUTF(s);
+            o.writeInt(pools.templates.size());
+            for (int[] ops : pools.templates) {
+                o.writeInt(ops.length);
+                for (int op : ops) o.writeInt(op);
+            }
+            for (int i : names) o.writeInt(i);
+            for (int i : messages) o.writeInt(i);
+            for (int i : table) o.writeInt(i);
+        } finally {
+            o.close();
+        }
+        System.out.println("interpretation: " + source.getName() + " -> " + out + "（" + pools.templates.size()
+                + " 个模板，" + out.length() / 1024 + " KB）");
+    }
+
+    /**
+     * 文字片段池与模板池（都按内容去重）
+     */
+    private static final class Pools {
+        final File source;
+        final List<String> literals = new ArrayList<>();
+        final Map<String, Integer> literalIndex = new HashMap<>();
+        final List<int[]> templates = new ArrayList<>();
+        final Map<String, Integer> templateIndex = new HashMap<>();
+
+        Pools(File source) {
+            this.source = source;
+        }
+
+        int literal(String s) throws IOException {
+            if (s.getBytes(UTF8).length > 65535) throw new IOException(source + ": 文字片段太长");
+            Integer i = literalIndex.get(s);
+            if (i == null) {
+                i = literals.size();
+                literals.add(s);
+                literalIndex.put(s, i);
+            }
+            return i;
+        }
+
+        int concat(int a, int b) {
+            String key = "\u0000" + a + "+" + b;
+            Integer i = templateIndex.get(key);
+            if (i != null) return i;
+            int[] x = templates.get(a), y = templates.get(b);
+            int[] ops = Arrays.copyOf(x, x.length + y.length);
+            System.arraycopy(y, 0, ops, x.length, y.length);
+            i = templates.size();
+            templates.add(ops);
+            templateIndex.put(key, i);
+            return i;
+        }
+
+        int template(String text) throws IOException {
+            Integer i = templateIndex.get(text);
+            if (i != null) return i;
+            List<Integer> ops = new ArrayList<>();
+            StringBuilder lit = new StringBuilder();
+            int p = 0;
+            while (p < text.length()) {
+                char c = text.charAt(p);
+                if (c == '\\' && p + 1 < text.length()) {
+                    char e = text.charAt(p + 1);
+                    lit.append(e == 'n' ? '\n' : e);
+                    p += 2;
+                } else if (c == '{') {
+                    int end = text.indexOf('}', p);
+                    if (end < 0) throw new IOException(source + ": 占位符缺少 }: " + text);
+                    int code = Arrays.asList(InterpretationFormat.PLACEHOLDERS).indexOf(text.substring(p + 1, end));
+                    if (code < 0) throw new IOException(source + ": 未知的占位符 " + text.substring(p, end + 1));
+                    if (lit.length() > 0) {
+                        ops.add(literal(lit.toString()));
+                        lit.setLength(0);
+                    }
+                    ops.add(-(code + 1));
+                    p = end + 1;
+                } else {
+                    lit.append(c);
+                    p++;
+                }
+            }
+            if (lit.length() > 0) ops.add(literal(lit.toString()));
+            int[] a = new int[ops.size()];
+            for (int k = 0; k < a.length; k++) a[k] = ops.get(k);
+            i = templates.size();
+            templates.add(a);
+            templateIndex.put(text, i);
+            return i;
+        }
+    }
+
+    private static Map<String, Map<String, String>> read(File source) throws IOException {
+        Map<String, Map<String, String>> sections = new HashMap<>();
+        Map<String, String> current = null;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), UTF8));
+        try {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+                if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+                    String name = trimmed.substring(1, trimmed.length() - 1);
+                    current = sections.get(name);
+                    if (current == null) {
+                        current = new HashMap<>();
+                        sections.put(name, current);
+                    }
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (current == null || eq < 0) throw new IOException(source + ":" + lineNo + ": 无法解析: " + line);
+                String key = line.substring(0, eq).trim();
+                // 内容只去掉等号后的一个空格，保留有意义的首尾空白
+                String value = line.substring(eq + 1);
+                if (value.startsWith(" ")) value = value.substring(1);
+                if (current.put(key, value) != null) throw new IOException(source + ":" + lineNo + ": 重复的键 " + key);
+            }
+        } finally {
+            reader.close();
+        }
+        return sections;
+    }
+
+    private static Map<String, String> section(Map<String, Map<String, String>> sections, String name, File source)
+            throws IOException {
+        Map<String, String> s = sections.get(name);
+        if (s == null) throw new IOException(source + ": 缺少 [" + name + "]");
+        return s;
+    }
+
+    private static String required(Map<String, String> section, String key, File source) throws IOException {
+        String v = section.get(key);
+        if (v == null) throw new IOException(source + ": 缺少 " + key);
+        return v;
+    }
+
+    private static void checkUnknown(Map<String, String> section, String[] keys, String name, File source)
+            throws IOException {
+        for (String key : section.keySet()) {
+            if (!Arrays.asList(keys).contains(key)) throw new IOException(source + ": [" + name + "] 中有未知的键 " + key);
+        }
+    }
+
+    /**
+     * [bodies] 的键必须是 天体/* [. 星座/* [. 宫位]]，拼错的键直接报错而不是悄悄不生效
+     */
+    private static void checkBodyKeys(Map<String, String> section, File source) throws IOException {
+        List<String> bodies = Arrays.asList(InterpretationFormat.BODY_KEYS);
+        List<String> signs = Arrays.asList(InterpretationFormat.SIGN_KEYS);
+        for (String key : section.keySet()) {
+            String[] parts = key.split("\\.", -1);
+            boolean ok = parts.length <= 3
+                    && (parts[0].equals("*") || bodies.contains(parts[0]))
+                    && (parts.length < 2 || parts[1].equals("*") || signs.contains(parts[1]));
+            if (ok && parts.length == 3) {
+                try {
+                    int h = Integer.parseInt(parts[2]);
+                    ok = h >= 1 && h <= 12;
+                } catch (NumberFormatException e) {
+                    ok = false;
+                }
+            }
+            // 没有宫位时星座不能写 *（SUN.* 与 SUN 含义相同）
+            if (ok && parts.length == 2 && parts[1].equals("*")) ok = false;
+            // *.ARIES 之类（不分天体的星座段）没有对应的查找顺序
+            if (ok && parts[0].equals("*") && parts.length >= 2 && !parts[1].equals("*")) ok = false;
+            if (!ok) throw new IOException(source + ": [bodies] 中无法识别的键 " + key);
+        }
+    }
+
+    private static String first(Map<String, String> section, String... keys) {
+        for (String k : keys) {
+            String v = section.get(k);
+            if (v != null) return v;
+        }
+        return null;
+    }
+}
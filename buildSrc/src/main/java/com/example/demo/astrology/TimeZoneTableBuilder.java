@@ -0,0 +1,130 @@
+package com.example.demo.astrology;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 构建期工具：从构建所用 JDK 的 tzdb 生成 tzdb.bin（格式见 TimeZoneTable）
+ *
+ * 只收录给定的时区（地名库用到的时区，外加 UTC），展开 START 到 END 之间的全部切换；
+ * 切换记录完全相同的时区（例如互为别名的时区）共用一个规则集。
+ *
+ * 由 app/build.gradle 的 buildGazetteer 任务在生成地名库后调用。
+ */
+public class TimeZoneTableBuilder {
+
+    // 1800-01-01T00:00Z 与 2100-01-01T00:00Z
+    static final Instant START = Instant.ofEpochSecond(-5364662400L);
+    static final Instant END = Instant.ofEpochSecond(4102444800L);
+
+    private static final class RuleSet {
+        final int initialOffset;
+        final long[] utc;
+        final int[] offsets;
+
+        RuleSet(int initialOffset, long[] utc, int[] offsets) {
+            this.initialOffset = initialOffset;
+            this.utc = utc;
+            this.offsets = offsets;
+        }
+
+        String key() {
+            return initialOffset + ":" + Arrays.toString(utc) + Arrays.toString(offsets);
+        }
+    }
+
+    public static void build(Iterable<String> zoneIds, File out) throws IOException {
+        TreeSet<String> ids = new TreeSet<>();
+        ids.add("UTC");
+        for (String id : zoneIds) ids.add(id);
+
+        List<RuleSet> sets = new ArrayList<>();
+        Map<String, Integer> setIndex = new HashMap<>();
+        int[] zoneSet = new int[ids.size()];
+        int z = 0;
+        int transitions = 0;
+        for (String id : ids) {
+            RuleSet set;
+            try {
+                set = expand(ZoneId.of(id).getRules());
+            } catch (RuntimeException e) {
+                throw new IOException("未知时区: " + id, e);
+            }
+            String key = set.key();
+            Integer index = setIndex.get(key);
+            if (index == null) {
+                index = sets.size();
+                setIndex.put(key, index);
+                sets.add(set);
+                transitions += set.utc.length;
+            }
+            zoneSet[z++] = index;
+        }
+        if (sets.size() > 0xFFFF) throw new IOException("规则集太多: " + sets.size());
+
+        File dir = out.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建目录: " + dir);
+        DataOutputStream o = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(out)));
+        try {
+            o.writeInt(TimeZoneTable.MAGIC);
+            o.writeInt(TimeZoneTable.VERSION);
+            o.writeInt(ids.size());
+            o.writeInt(sets.size());
+            z = 0;
+            for (String id : ids) {
+                o.writeUTF(id);
+                o.writeShort(zoneSet[z++]);
+            }
+            for (RuleSet set : sets) {
+                o.writeInt(set.initialOffset);
+                o.writeInt(set.utc.length);
+                for (int i = 0; i < set.utc.length; i++) {
+                    o.writeLong(set.utc[i]);
+                    o.writeInt(set.offsets[i]);
+                }
+            }
+        } finally {
+            o.close();
+        }
+        System.out.println("tzdb: " + ids.size() + " 个时区，" + sets.size() + " 个规则集，" + transitions
+                + " 次切换 -> " + out + "（" + out.length() / 1024 + " KB）");
+    }
+
+    private static RuleSet expand(ZoneRules rules) throws IOException {
+        List<ZoneOffsetTransition> list = new ArrayList<>();
+        ZoneOffsetTransition t = rules.nextTransition(START);
+        while (t != null && t.getInstant().isBefore(END)) {
+            list.add(t);
+            t = rules.nextTransition(t.getInstant());
+        }
+        int initial = rules.getOffset(START).getTotalSeconds();
+        long[] utc = new long[list.size()];
+        int[] offsets = new int[list.size()];
+        int before = initial;
+        long lastLocal = Long.MIN_VALUE;
+        for (int i = 0; i < utc.length; i++) {
+            ZoneOffsetTransition tr = list.get(i);
+            utc[i] = tr.getInstant().getEpochSecond();
+            offsets[i] = tr.getOffsetAfter().getTotalSeconds();
+            // TimeZoneTable 按“切换时刻 + 切换前偏移”二分查找，要求它严格递增
+            long local = utc[i] + before;
+            if (local <= lastLocal) throw new IOException("切换时刻的当地时间不递增: " + tr);
+            lastLocal = local;
+            before = offsets[i];
+        }
+        return new RuleSet(initial, utc, offsets);
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.demo.gazetteer;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 构建期工具：把文本地名表编译成 gazetteer.bin（格式见 GazetteerFormat）
+ *
+ * 支持两种输入（按每行的列数自动识别，# 开头的行为注释）：
+ * - GeoNames 的 cities*.txt（制表符分隔、19 列）：用 name、asciiname 作检索键，
+ *   alternatenames 中只保留含汉字的别名（其余语言的别名太多，会让文件膨胀数倍），显示名为“汉名 Name”
+ *   cities1000.txt 约 15 万个地点，生成的文件约 12 MB
+ * - 仓库自带的简表（制表符分隔、7 列）：名称、别名（逗号分隔）、纬度、经度、国家代码、人口、时区
+ *
+ * 由 app/build.gradle 的 buildGazetteer 任务调用，也可以单独运行：
+ * GazetteerBuilder <输入文件> <输出文件>
+ */
+public class GazetteerBuilder {
+
+    private static final class Entry {
+        String name;
+        final Set<String> keys = new LinkedHashSet<>();
+        int lat;
+        int lon;
+        int population;
+        String country;
+        String zone;
+    }
+
+    private static final class Key {
+        final byte[] bytes;
+        final int offset;
+        final int place;
+
+        Key(byte[] bytes, int offset, int place) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.place = place;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: GazetteerBuilder <输入文件> <输出文件>");
+            System.exit(2);
+        }
+        build(new File(args[0]), new File(args[1]));
+    }
+
+    /**
+     * @return 地名库用到的全部时区名（用于生成时区表）
+     */
+    public static List<String> build(File source, File out) throws IOException {
+        List<Entry> entries = read(source);
+        // 人口降序，相同人口按名称，保证输出稳定
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                if (a.population != b.population) return a.population > b.population ? -1 : 1;
+                return a.name.compareTo(b.name);
+            }
+        });
+        List<String> zones = write(entries, out);
+        System.out.println("gazetteer: " + entries.size() + " 个地点 -> " + out + "（" + out.length() / 1024 + " KB）");
+        return zones;
+    }
+
+    private static List<Entry> read(File source) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), GazetteerFormat.UTF8));
+        try {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] c = line.split("\t", -1);
+                try {
+                    Entry e;
+                    if (c.length >= 18) e = geoNames(c);
+                    else if (c.length == 7) e = simple(c);
+                    else throw new IllegalArgumentException("列数不对: " + c.length);
+                    if (!e.keys.isEmpty()) entries.add(e);
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException(source + ":" + lineNo + ": " + ex.getMessage(), ex);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return entries;
+    }
+
+    private static Entry geoNames(String[] c) {
+        Entry e = new Entry();
+        String han = null;
+        for (String alt : c[3].split(",")) {
+            if (containsHan(alt)) {
+                if (han == null) han = alt;
+                addKey(e, alt);
+            }
+        }
+        e.name = han != null ? han + " " + c[1] : c[1];
+        addKey(e, c[1]);
+        addKey(e, c[2]);
+        e.lat = coord(c[4], 90);
+        e.lon = coord(c[5], 180);
+        e.country = c[8];
+        e.population = c[14].isEmpty() ? 0 : (int) Math.min(Integer.MAX_VALUE, Long.parseLong(c[14]));
+        e.zone = c[17];
+        return e;
+    }
+
+    private static Entry simple(String[] c) {
+        Entry e = new Entry();
+        e.name = c[0];
+        // 显示名为“汉名 Name”时，汉名和外文名分别作检索键
+        int space = c[0].indexOf(' ');
+        if (space > 0 && containsHan(c[0].substring(0, space))) {
+            addKey(e, c[0].substring(0, space));
+            addKey(e, c[0].substring(space + 1));
+        } else {
+            addKey(e, c[0]);
+        }
+        for (String alias : c[1].split(",")) addKey(e, alias);
+        e.lat = coord(c[2], 90);
+        e.lon = coord(c[3], 180);
+        e.country = c[4];
+        e.population = Integer.parseInt(c[5]);
+        e.zone = c[6];
+        return e;
+    }
+
+    private static void addKey(Entry e, String s) {
+        String key = GazetteerFormat.normalize(s.trim());
+        if (!key.isEmpty() && key.getBytes(GazetteerFormat.UTF8).length <= GazetteerFormat.MAX_KEY_BYTES) e.keys.add(key);
+    }
+
+    private static int coord(String s, double max) {
+        double v = Double.parseDouble(s);
+        if (!(Math.abs(v) <= max)) throw new IllegalArgumentException("坐标超出范围: " + s);
+        return (int) Math.round(v * GazetteerFormat.COORD_SCALE);
+    }
+
+    private static boolean containsHan(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.UnicodeScript.of(s.charAt(i)) == Character.UnicodeScript.HAN) return true;
+        }
+        return false;
+    }
+
+    private static List<String> write(List<Entry> entries, File out) throws IOException {
+        // 时区表
+        Map<String, Integer> zoneIndex = new HashMap<>();
+        List<String> zones = new ArrayList<>();
+        // 名称池、键池（相同的键只存一份）
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        ByteArrayOutputStream keyPool = new ByteArrayOutputStream();
+        Map<String, Integer> keyOffsets = new HashMap<>();
+        List<Key> keys = new ArrayList<>();
+        int[] nameOffsets = new int[entries.size()];
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            if (e.country.length() != 2) throw new IOException(e.name + ": 国家代码必须是两个字母: " + e.country);
+            Integer z = zoneIndex.get(e.zone);
+            if (z == null) {
+                z = zones.size();
+                zoneIndex.put(e.zone, z);
+                zones.add(e.zone);
+            }
+            nameOffsets[i] = names.size();
+            writeString(names, e.name.getBytes(GazetteerFormat.UTF8), 2);
+            for (String k : e.keys) {
+                byte[] b = k.getBytes(GazetteerFormat.UTF8);
+                Integer off = keyOffsets.get(k);
+                if (off == null) {
+                    off = keyPool.size();
+                    keyOffsets.put(k, off);
+                    writeString(keyPool, b, 1);
+                }
+                keys.add(new Key(b, off, i));
+            }
+        }
+        if (zones.size() > 0xFFFF) throw new IOException("时区太多: " + zones.size());
+
+        Collections.sort(keys, new Comparator<Key>() {
+            @Override
+            public int compare(Key a, Key b) {
+                int c = compareUnsigned(a.bytes, b.bytes);
+                return c != 0 ? c : Integer.compare(a.place, b.place);
+            }
+        });
+
+        // 前缀索引：prefix[s] = 第一个槽位 >= s 的键
+        int[] prefix = new int[GazetteerFormat.PREFIX_SLOTS + 1];
+        int k = 0;
+        for (int s = 0; s <= GazetteerFormat.PREFIX_SLOTS; s++) {
+            while (k < keys.size() && GazetteerFormat.prefixSlot(keys.get(k).bytes, keys.get(k).bytes.length) < s) k++;
+            prefix[s] = k;
+        }
+
+        ByteArrayOutputStream zoneBytes = new ByteArrayOutputStream();
+        for (String zone : zones) writeString(zoneBytes, zone.getBytes(GazetteerFormat.UTF8), 2);
+
+        int placesOffset = GazetteerFormat.HEADER_SIZE;
+        int keysOffset = placesOffset + entries.size() * GazetteerFormat.PLACE_SIZE;
+        int prefixOffset = keysOffset + keys.size() * GazetteerFormat.KEY_SIZE;
+        int keyPoolOffset = prefixOffset + prefix.length * 4;
+        int namePoolOffset = keyPoolOffset + keyPool.size();
+        int zonesOffset = namePoolOffset + names.size();
+
+        File dir = out.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建目录: " + dir);
+        DataOutputStream o = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(out)));
+        try {
+            o.writeInt(GazetteerFormat.MAGIC);
+            o.writeInt(GazetteerFormat.VERSION);
+            o.writeInt(entries.size());
+            o.writeInt(keys.size());
+            o.writeInt(zones.size());
+            o.writeInt(placesOffset);
+            o.writeInt(keysOffset);
+            o.writeInt(prefixOffset);
+            o.writeInt(keyPoolOffset);
+            o.writeInt(namePoolOffset);
+            o.writeInt(zonesOffset);
+            for (int i = 0; i < entries.size(); i++) {
+                Entry e = entries.get(i);
+                o.writeInt(e.lat);
+                o.writeInt(e.lon);
+                o.writeInt(e.population);
+                o.writeInt(nameOffsets[i]);
+                o.writeShort(zoneIndex.get(e.zone));
+                o.writeByte(e.country.charAt(0));
+                o.writeByte(e.country.charAt(1));
+            }
+            for (Key key : keys) {
+                o.writeInt(key.offset);
+                o.writeInt(key.place);
+            }
+            for (int p : prefix) o.writeInt(p);
+            keyPool.writeTo(o);
+            names.writeTo(o);
+            zoneBytes.writeTo(o);
+        } finally {
+            o.close();
+        }
+        return zones;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, byte[] b, int lengthBytes) throws IOException {
+        if (lengthBytes == 1) {
+            out.write(b.length);
+        } else {
+            if (b.length > 0xFFFF) throw new IOException("名称太长");
+            out.write(b.length >>> 8);
+            out.write(b.length);
+        }
+        out.write(b);
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int d = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (d != 0) return d;
+        }
+        return a.length - b.length;
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.demo.server;
+
+import com.example.demo.astrology.StageTimings;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * chart-server 的压测客户端：多个连接并发地发送批量请求，报告吞吐量与尾延迟
+ *
+ * 每个连接一个线程，循环“发送一批 → 逐行读取结果”（请求之间不停顿，即闭环压测）。统计三种延迟：
+ * - 批次：开始发送到最后一行到达
+ * - 首行：开始发送到第一行到达（流式输出的效果）
+ * - 单张：开始发送到该星盘那一行到达
+ * 被拒绝（503）的请求按 Retry-After 稍后重试，单独计数，不计入延迟。预热期间的数据不计入结果。
+ *
+ * 请求内容由固定种子随机生成：1900–2050 年的时刻、全球范围的地点，约一半按当地时间 + 时区给出，其余给 jd。
+ *
+ * 用法：LoadTestClient [--url http://localhost:8080] [--connections 8] [--batch 100] [--duration 30]
+ *                     [--warmup 5] [--text 1] [--lang zh]
+ */
+public class LoadTestClient {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    // 每个连接预先生成的不同请求体个数（循环使用，避免客户端自身的开销影响测量）
+    private static final int BODIES_PER_CONNECTION = 8;
+    private static final String[][] ZONES = {
+            {"Asia/Shanghai", "121.47", "31.23"},
+            {"Europe/London", "-0.13", "51.51"},
+            {"America/New_York", "-74.01", "40.71"},
+            {"Australia/Sydney", "151.21", "-33.87"},
+            {"Asia/Kolkata", "77.21", "28.61"},
+            {"America/Sao_Paulo", "-46.63", "-23.55"},
+    };
+
+    private final URL url;
+    private final int connections;
+    private final int batch;
+    private final long durationNanos;
+    private final long warmupNanos;
+
+    private final StageTimings.Histogram batchLatency = new StageTimings.Histogram();
+    private final StageTimings.Histogram firstLineLatency = new StageTimings.Histogram();
+    private final StageTimings.Histogram chartLatency = new StageTimings.Histogram();
+    private final AtomicLong charts = new AtomicLong();
+    private final AtomicLong errorLines = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile boolean measuring;
+    private volatile boolean stopping;
+
+    private LoadTestClient(URL url, int connections, int batch, long durationNanos, long warmupNanos) {
+        this.url = url;
+        this.connections = connections;
+        this.batch = batch;
+        this.durationNanos = durationNanos;
+        this.warmupNanos = warmupNanos;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String base = "http://localhost:8080";
+        int connections = 8;
+        int batch = 100;
+        int duration = 30;
+        int warmup = 5;
+        String text = "1";
+        String lang = "zh";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+            switch (args[i]) {
+                case "--url":
+                    base = v;
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(v);
+                    break;
+                case "--batch":
+                    batch = Integer.parseInt(v);
+                    break;
+                case "--duration":
+                    duration = Integer.parseInt(v);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(v);
+                    break;
+                case "--text":
+                    text = v;
+                    break;
+                case "--lang":
+                    lang = v;
+                    break;
+                default:
+                    System.err.println("未知的参数 " + args[i]);
+                    System.exit(2);
+            }
+        }
+        URL url = new URL(base + "/charts?text=" + text + "&lang=" + lang);
+        System.out.printf(Locale.US, "压测 %s：%d 个连接，每批 %d 张，预热 %d 秒，测量 %d 秒%n",
+                url, connections, batch, warmup, duration);
+        new LoadTestClient(url, connections, batch, duration * 1000000000L, warmup * 1000000000L).run();
+    }
+
+    private void run() throws InterruptedException {
+        Thread[] threads = new Thread[connections];
+        for (int c = 0; c < connections; c++) {
+            final byte[][] bodies = bodies(c);
+            threads[c] = new Thread(() -> connectionLoop(bodies), "load-" + c);
+            threads[c].start();
+        }
+
+        Thread.sleep(warmupNanos / 1000000L);
+        reset();
+        measuring = true;
+        long t0 = System.nanoTime();
+        long lastCharts = 0;
+        long lastReport = t0;
+        while (System.nanoTime() - t0 < durationNanos) {
+            Thread.sleep(Math.min(5000L, Math.max(1L, (durationNanos - (System.nanoTime() - t0)) / 1000000L)));
+            long now = System.nanoTime();
+            long n = charts.get();
+            System.out.printf(Locale.US, "  %5.1fs  %10.0f 张/秒  单张 p99 %s%n", (now - t0) / 1e9,
+                    (n - lastCharts) * 1e9 / (now - lastReport), millis(chartLatency.percentile(0.99)));
+            lastCharts = n;
+            lastReport = now;
+        }
+        measuring = false;
+        long elapsed = System.nanoTime() - t0;
+        stopping = true;
+        for (Thread t : threads) t.join();
+
+        System.out.println();
+        System.out.printf(Locale.US, "吞吐量：%.0f 张/秒，%.1f 批/秒%n",
+                charts.get() * 1e9 / elapsed, batchLatency.count() * 1e9 / elapsed);
+        System.out.printf(Locale.US, "%-6s %10s %10s %10s %10s %10s %10s%n", "延迟", "p50", "p90", "p99", "p99.9", "最大", "平均");
+        report("批次", batchLatency);
+        report("首行", firstLineLatency);
+        report("单张", chartLatency);
+        System.out.printf(Locale.US, "错误行 %d，被拒绝（503）%d，请求失败 %d%n", errorLines.get(), rejected.get(), failures.get());
+    }
+
+    private void connectionLoop(byte[][] bodies) {
+        int next = 0;
+        while (!stopping) {
+            try {
+                if (!sendBatch(bodies[next])) Thread.sleep(1000);
+            } catch (IOException e) {
+                if (measuring) failures.incrementAndGet();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            next = (next + 1) % bodies.length;
+        }
+    }
+
+    /**
+     * 发送一批并读完结果；被拒绝时返回 false
+     */
+    private boolean sendBatch(byte[] body) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        conn.setFixedLengthStreamingMode(body.length);
+        conn.setRequestProperty("Content-Type", "application/x-ndjson");
+        OutputStream out = conn.getOutputStream();
+        out.write(body);
+        out.close();
+        int status = conn.getResponseCode();
+        if (status == 503) {
+            if (measuring) rejected.incrementAndGet();
+            conn.getErrorStream().close();
+            return false;
+        }
+        if (status != 200) throw new IOException("HTTP " + status);
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream(), UTF8));
+        try {
+            String line;
+            int lines = 0;
+            while ((line = in.readLine()) != null) {
+                long t = System.nanoTime() - start;
+                if (lines++ == 0 && measuring) firstLineLatency.record(t);
+                if (measuring) {
+                    chartLatency.record(t);
+                    charts.incrementAndGet();
+                    if (line.contains("\"error\":")) errorLines.incrementAndGet();
+                }
+            }
+            if (lines != batch) throw new IOException("应收到 " + batch + " 行，实际 " + lines);
+        } finally {
+            in.close();
+        }
+        if (measuring) batchLatency.record(System.nanoTime() - start);
+        return true;
+    }
+
+    private byte[][] bodies(int connection) {
+        Random random = new Random(20240101L + connection);
+        byte[][] bodies = new byte[BODIES_PER_CONNECTION][];
+        StringBuilder sb = new StringBuilder(batch * 160);
+        for (int b = 0; b < bodies.length; b++) {
+            sb.setLength(0);
+            for (int i = 0; i < batch; i++) {
+                sb.append("{\"id\":\"c").append(connection).append('-').append(b).append('-').append(i).append("\",");
+                if (random.nextBoolean()) {
+                    String[] zone = ZONES[random.nextInt(ZONES.length)];
+                    sb.append(String.format(Locale.US, "\"date\":\"%04d-%02d-%02d\",\"time\":\"%02d:%02d\",\"zone\":\"%s\",\"lon\":%s,\"lat\":%s",
+                            1900 + random.nextInt(151), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                            random.nextInt(24), random.nextInt(60), zone[0], zone[1], zone[2]));
+                } else {
+                    // 1900–2050 年
+                    double jd = 2415020.5 + random.nextDouble() * 54787;
+                    sb.append(String.format(Locale.US, "\"jd\":%.6f,\"lon\":%.4f,\"lat\":%.4f",
+                            jd, random.nextDouble() * 360 - 180, random.nextDouble() * 120 - 60));
+                }
+                sb.append(",\"name\":\"测试").append(i).append("\"}\n");
+            }
+            bodies[b] = sb.toString().getBytes(UTF8);
+        }
+        return bodies;
+    }
+
+    private void reset() {
+        batchLatency.reset();
+        firstLineLatency.reset();
+        chartLatency.reset();
+        charts.set(0);
+        errorLines.set(0);
+        rejected.set(0);
+        failures.set(0);
+    }
+
+    private static void report(String name, StageTimings.Histogram h) {
+        System.out.printf(Locale.US, "%-6s %10s %10s %10s %10s %10s %10s%n", name,
+                millis(h.percentile(0.5)), millis(h.percentile(0.9)), millis(h.percentile(0.99)),
+                millis(h.percentile(0.999)), millis(h.max()), millis((long) h.mean()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.2fms", nanos / 1e6);
+    }
+}
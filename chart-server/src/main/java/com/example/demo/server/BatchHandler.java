@@ -0,0 +1,216 @@
+package com.example.demo.server;
+
+import com.example.demo.astrology.InterpretationTemplates;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * POST /charts：一批星盘，请求体每行一个 JSON 对象（格式见 ChartRequest），响应为 NDJSON，按请求的顺序逐行输出
+ *
+ * 查询参数：lang（解读语言，默认 zh）、text（0 表示不要解读文本，默认 1）、
+ * svg（每行附带边长为该像素数的星盘图 SVG，MIN_SVG_SIZE 到 MAX_SVG_SIZE，默认不附带）
+ *
+ * 流程：
+ * - 同时处理的批次数有上限（Config.maxBatches），超出时立即回 503 + Retry-After，不排队
+ * - 请求体先整体读入（行数上限 Config.maxLines，超出回 413），再逐行提交到工作线程池；
+ *   全局的计算许可（Config.queueCapacity）用完时提交方阻塞，直到有星盘算完——这就是背压，
+ *   排队中的星盘总数因此有界，多个批次按公平顺序分享工作线程
+ * - 每批最多 Config.window 张星盘在途；队首算完就写出，先算完的后面几张在窗口里等待，保证输出顺序
+ * - 即将阻塞等待（队首未完成或没有许可）前先把已写的行 flush 出去，客户端边算边收到结果
+ * - 客户端断开时取消本批尚未开始的计算
+ */
+final class BatchHandler implements HttpHandler {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    static final int MIN_SVG_SIZE = 100;
+    static final int MAX_SVG_SIZE = 4096;
+
+    private final ChartServer server;
+
+    BatchHandler(ChartServer server) {
+        this.server = server;
+    }
+
+    /**
+     * 一张星盘的计算任务；真正结束时归还计算许可，只归还一次
+     *
+     * 已在工作线程上运行的任务被 cancel(false) 时 FutureTask 立即调用 done()，计算却还在继续，
+     * 所以运行过的任务在 run 结束时归还，done() 只负责开始之前就被取消（run 不会再计算）的任务。
+     */
+    private final class ChartTask extends FutureTask<String> {
+        final ChartRequest request;
+        private volatile boolean started;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ChartTask(final ChartRequest request, final InterpretationTemplates templates, final int svgSize) {
+            super(() -> request.compute(server.zones, templates, svgSize));
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            try {
+                super.run();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (!started) release();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) server.permits.release();
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                ChartServer.sendText(exchange, 405, "只接受 POST");
+                return;
+            }
+            if (!server.batchSlots.tryAcquire()) {
+                server.rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                ChartServer.sendText(exchange, 503, "服务繁忙，请稍后重试");
+                return;
+            }
+            try {
+                process(exchange);
+            } finally {
+                server.batchSlots.release();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void process(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        InterpretationTemplates templates = null;
+        if (!"0".equals(query.get("text"))) {
+            String lang = query.get("lang");
+            templates = InterpretationTemplates.forLocale(
+                    lang == null ? new Locale(InterpretationTemplates.DEFAULT_LANGUAGE) : Locale.forLanguageTag(lang));
+        }
+        int svgSize = 0;
+        String svg = query.get("svg");
+        if (svg != null) {
+            try {
+                svgSize = Integer.parseInt(svg);
+            } catch (NumberFormatException e) {
+                svgSize = -1;
+            }
+            if (svgSize < MIN_SVG_SIZE || svgSize > MAX_SVG_SIZE) {
+                ChartServer.sendText(exchange, 400, "svg 应为 " + MIN_SVG_SIZE + " 到 " + MAX_SVG_SIZE + " 之间的像素数");
+                return;
+            }
+        }
+
+        List<ChartRequest> requests = new ArrayList<>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), UTF8));
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.trim().isEmpty()) continue;
+            if (requests.size() == server.config.maxLines) {
+                ChartServer.sendText(exchange, 413, "一批最多 " + server.config.maxLines + " 张星盘");
+                return;
+            }
+            requests.add(ChartRequest.parse(line, lineNo));
+        }
+        server.batches.incrementAndGet();
+
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        // 长度 0：分块传输，边算边写
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), UTF8), 64 * 1024);
+
+        ArrayDeque<ChartTask> window = new ArrayDeque<>();
+        try {
+            for (ChartRequest request : requests) {
+                while (window.size() >= server.config.window) writeHead(window, out);
+                ChartTask task = new ChartTask(request, templates, svgSize);
+                if (!server.permits.tryAcquire()) {
+                    out.flush();
+                    server.permits.acquire();
+                }
+                window.addLast(task);
+                server.execute(task);
+                // 已经算完的队首顺手写出
+                boolean wrote = false;
+                while (!window.isEmpty() && window.peekFirst().isDone()) {
+                    writeHead(window, out);
+                    wrote = true;
+                }
+                if (wrote) out.flush();
+            }
+            while (!window.isEmpty()) writeHead(window, out);
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 客户端断开（写出时 IOException）或服务关闭时，剩下的不再计算
+            for (ChartTask task : window) task.cancel(false);
+        }
+    }
+
+    /**
+     * 取出队首并写出一行；队首尚未完成时先 flush 已写的行再等待
+     */
+    private void writeHead(ArrayDeque<ChartTask> window, Writer out) throws IOException, InterruptedException {
+        ChartTask head = window.peekFirst();
+        if (!head.isDone()) out.flush();
+        String line;
+        try {
+            line = head.get();
+        } catch (CancellationException e) {
+            line = head.request.error("服务正在关闭，未计算");
+        } catch (ExecutionException e) {
+            line = head.request.error(String.valueOf(e.getCause()));
+        }
+        window.removeFirst();
+        server.charts.incrementAndGet();
+        if (head.request.failed) server.errors.incrementAndGet();
+        out.write(line);
+        out.write('\n');
+    }
+
+    private static Map<String, String> parseQuery(String raw) throws IOException {
+        Map<String, String> map = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return map;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            map.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return map;
+    }
+}
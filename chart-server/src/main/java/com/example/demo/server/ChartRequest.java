@@ -0,0 +1,264 @@
+package com.example.demo.server;
+
+import com.example.demo.astrology.AstrologyInterpreter;
+import com.example.demo.astrology.Body;
+import com.example.demo.astrology.ChartLayout;
+import com.example.demo.astrology.ChartPipeline;
+import com.example.demo.astrology.HouseSystem;
+import com.example.demo.astrology.InterpretationTemplates;
+import com.example.demo.astrology.PlanetCalculator;
+import com.example.demo.astrology.SvgChartWriter;
+import com.example.demo.astrology.TimeZoneTable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 批量请求中的一行：一张星盘的输入，以及把它算成一行 NDJSON 输出
+ *
+ * 输入（一行一个 JSON 对象）：
+ * <pre>
+ *   {"id":"u1","date":"1990-04-12","time":"08:30","zone":"Asia/Shanghai","lon":121.47,"lat":31.23,
+ *    "system":"PLACIDUS","name":"小明"}
+ *   {"id":"u2","jd":2448000.5,"lon":0,"lat":51.48}
+ * </pre>
+ * - 时刻二选一：jd（UT 儒略日），或 date + time（当地时间，HH:MM 或 HH:MM:SS）+ zone（IANA 时区名，省略时按 UT）；
+ *   时刻须在星历支持的范围内（PlanetCalculator.MIN_JULIAN_DAY – MAX_JULIAN_DAY，约公元前 2000 年至公元 6000 年）
+ * - lon、lat 必填（度，东经、北纬为正）；system 为 HouseSystem 名，默认 PLACIDUS；id、name 可省略
+ *
+ * 输出：
+ * <pre>
+ *   {"id":"u1","jd":2447994.520833,"system":"PLACIDUS","asc":..,"mc":..,
+ *    "bodies":{"Sun":..,"Moon":..,...},"cusps":[..12 个..],"text":"...","svg":"&lt;svg ...&gt;"}
+ *   {"id":"u3","line":3,"error":"..."}
+ * </pre>
+ * 角度为度，保留 6 位小数；text 为解读文本（请求 text=0 时省略）；svg 为星盘图（请求带 svg=像素数 时才有，
+ * 与 App 中 ChartView 画的是同一版面，见 SvgChartWriter）；system 为实际使用的宫制（高纬度可能退回 PORPHYRY）。
+ */
+final class ChartRequest {
+
+    /**
+     * 每个工作线程一份的计算状态（ChartPipeline 不是线程安全的）
+     */
+    static final class Worker {
+        final ChartPipeline pipeline = new ChartPipeline();
+        final PlanetCalculator.CalcResult result = new PlanetCalculator.CalcResult();
+        final StringBuilder json = new StringBuilder(4096);
+        final StringBuilder text = new StringBuilder(2048);
+        final ChartLayout layout = new ChartLayout();
+        final StringBuilder svg = new StringBuilder(8192);
+    }
+
+    private static final ThreadLocal<Worker> WORKERS = new ThreadLocal<Worker>() {
+        @Override
+        protected Worker initialValue() {
+            return new Worker();
+        }
+    };
+
+    final int line;
+    final String id;
+    // 解析失败时为错误信息，其余字段无意义
+    final String parseError;
+    // 输出的是错误行（在工作线程中写，调用方在 Future.get 之后读）
+    boolean failed;
+    double jd = Double.NaN;
+    String date;
+    String time;
+    String zone;
+    double lon = Double.NaN;
+    double lat = Double.NaN;
+    HouseSystem system = PlanetCalculator.DEFAULT_HOUSE_SYSTEM;
+    String name;
+
+    private ChartRequest(int line, String id, String parseError) {
+        this.line = line;
+        this.id = id;
+        this.parseError = parseError;
+    }
+
+    /**
+     * 解析一行；格式错误不抛出，而是在输出中对这一行报错，不影响同一批的其他星盘
+     */
+    static ChartRequest parse(String text, int line) {
+        Map<String, Object> map;
+        try {
+            map = Json.parseObject(text);
+        } catch (IllegalArgumentException e) {
+            return new ChartRequest(line, null, e.getMessage());
+        }
+        String id = idOf(map.get("id"));
+        try {
+            ChartRequest r = new ChartRequest(line, id, null);
+            if (map.containsKey("jd")) {
+                r.jd = number(map, "jd");
+                checkRange(r.jd);
+            } else {
+                r.date = string(map, "date", true);
+                r.time = string(map, "time", true);
+                r.zone = string(map, "zone", false);
+            }
+            r.lon = number(map, "lon");
+            r.lat = number(map, "lat");
+            if (Math.abs(r.lat) > 90 || Math.abs(r.lon) > 180) throw new IllegalArgumentException("经纬度超出范围");
+            String system = string(map, "system", false);
+            if (system != null) {
+                try {
+                    r.system = HouseSystem.valueOf(system);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("未知的宫制 " + system);
+                }
+            }
+            r.name = string(map, "name", false);
+            return r;
+        } catch (IllegalArgumentException e) {
+            return new ChartRequest(line, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 在当前（工作）线程中计算，返回一行 JSON（不含换行）；计算出错时返回错误行
+     *
+     * @param templates 解读模板；为 null 时不输出 text
+     * @param svgSize   星盘图的边长（像素）；为 0 时不输出 svg
+     */
+    String compute(TimeZoneTable zones, InterpretationTemplates templates, int svgSize) {
+        Worker w = WORKERS.get();
+        StringBuilder sb = w.json;
+        sb.setLength(0);
+        if (parseError != null) return error(sb, parseError);
+        try {
+            double ut = jd;
+            if (date != null) {
+                if (zone != null && zones == null) throw new IllegalStateException("服务没有加载时区表，请改用 UT 或 jd");
+                ut = zone == null
+                        ? PlanetCalculator.julianDayFromLocal(date, time)
+                        : PlanetCalculator.julianDayFromLocal(date, time, zone, zones);
+                checkRange(ut);
+            }
+            PlanetCalculator.CalcResult result = w.pipeline.setTime(ut).setLocation(lon, lat)
+                    .setHouseSystem(system).compute(w.result);
+
+            sb.append('{');
+            appendId(sb);
+            sb.append("\"jd\":");
+            appendFixed(sb, result.julianDay);
+            sb.append(",\"system\":\"").append(result.houseSystem.name()).append('"');
+            sb.append(",\"asc\":");
+            appendFixed(sb, result.ascendant);
+            sb.append(",\"mc\":");
+            appendFixed(sb, result.midheaven);
+            sb.append(",\"bodies\":{");
+            for (Body body : Body.VALUES) {
+                if (body.ordinal() > 0) sb.append(',');
+                sb.append('"').append(body.key).append("\":");
+                appendFixed(sb, result.get(body));
+            }
+            sb.append("},\"cusps\":[");
+            for (int i = 0; i < 12; i++) {
+                if (i > 0) sb.append(',');
+                appendFixed(sb, result.houseCusps[i]);
+            }
+            sb.append(']');
+            if (templates != null) {
+                w.text.setLength(0);
+                AstrologyInterpreter.interpret(result, name, templates, w.text);
+                sb.append(",\"text\":");
+                Json.appendString(sb, w.text);
+            }
+            if (svgSize > 0) {
+                if (w.layout.getWidth() != svgSize) w.layout.setSize(svgSize, svgSize);
+                w.layout.setResult(result);
+                w.svg.setLength(0);
+                SvgChartWriter.write(w.layout, name, w.svg);
+                sb.append(",\"svg\":");
+                Json.appendString(sb, w.svg);
+            }
+            sb.append('}');
+            return sb.toString();
+        } catch (IOException | RuntimeException e) {
+            sb.setLength(0);
+            return error(sb, e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+    }
+
+    /**
+     * 请求未被计算（服务关闭、客户端断开等）时的错误行
+     */
+    String error(String message) {
+        return error(new StringBuilder(128), message);
+    }
+
+    private String error(StringBuilder sb, String message) {
+        failed = true;
+        sb.append('{');
+        appendId(sb);
+        sb.append("\"line\":").append(line).append(",\"error\":");
+        Json.appendString(sb, message);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private void appendId(StringBuilder sb) {
+        if (id == null) return;
+        sb.append("\"id\":");
+        Json.appendString(sb, id);
+        sb.append(',');
+    }
+
+    /**
+     * 时刻超出星历支持的范围时报错（否则算出的黄经没有意义，见 PlanetCalculator.MIN_JULIAN_DAY）
+     */
+    private static void checkRange(double jd) {
+        if (jd < PlanetCalculator.MIN_JULIAN_DAY || jd > PlanetCalculator.MAX_JULIAN_DAY) {
+            throw new IllegalArgumentException("时刻超出支持的范围（jd 应在 " + PlanetCalculator.MIN_JULIAN_DAY
+                    + " 与 " + PlanetCalculator.MAX_JULIAN_DAY + " 之间）");
+        }
+    }
+
+    /**
+     * 按 6 位小数写出；共享的 appendFixed 写不出的值（NaN、无穷、|v| ≥ 9e8）写为 null，保证输出是合法 JSON
+     */
+    private static void appendFixed(StringBuilder sb, double v) {
+        if (Double.isNaN(v) || Double.isInfinite(v) || Math.abs(v) >= InterpretationTemplates.MAX_FIXED) {
+            sb.append("null");
+            return;
+        }
+        try {
+            InterpretationTemplates.appendFixed(sb, v, 6);
+        } catch (IOException e) {
+            // 写入 StringBuilder 不会出错
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * id 原样回显；数字 id 写成整数形式（1 而不是 1.0）
+     */
+    private static String idOf(Object v) {
+        if (v == null) return null;
+        if (v instanceof Double) {
+            double d = (Double) v;
+            if (d == Math.rint(d) && Math.abs(d) < 1e15) return Long.toString((long) d);
+        }
+        return v.toString();
+    }
+
+    private static double number(Map<String, Object> map, String key) {
+        Object v = map.get(key);
+        if (!(v instanceof Double)) throw new IllegalArgumentException(v == null ? "缺少 " + key : key + " 应为数字");
+        double d = (Double) v;
+        if (Double.isNaN(d) || Double.isInfinite(d)) throw new IllegalArgumentException(key + " 不是有限数");
+        return d;
+    }
+
+    private static String string(Map<String, Object> map, String key, boolean required) {
+        Object v = map.get(key);
+        if (v == null) {
+            if (required) throw new IllegalArgumentException("缺少 " + key + "（或改用 jd）");
+            return null;
+        }
+        if (!(v instanceof String)) throw new IllegalArgumentException(key + " 应为字符串");
+        return (String) v;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.demo.server;
+
+import com.example.demo.astrology.StageTimings;
+import com.example.demo.astrology.TimeZoneTable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 星盘计算的 HTTP 服务：不依赖 Android，只用 JDK 自带的 com.sun.net.httpserver
+ *
+ * 接口：
+ * - POST /charts：批量计算，响应为逐行输出的 NDJSON（见 BatchHandler、ChartRequest）
+ * - GET /health：存活检查
+ * - GET /stats：计数与当前负载（JSON）
+ * - GET /timings：各阶段耗时分布（StageTimings，需以 --timings 启动）
+ *
+ * 线程：
+ * - HTTP 线程（chart-http）：每个连接一个，负责读请求、按顺序写结果；同时处理的批次数由 batchSlots 限制
+ * - 工作线程（chart-worker，固定 workers 个）：只做计算与格式化，每个线程一份 ChartPipeline（见 ChartRequest.Worker）
+ * - permits：在途（排队 + 计算中）的星盘总数上限，用完时提交方阻塞（背压）
+ *
+ * 用法：ChartServer [--port 8080] [--workers N] [--queue N] [--max-batches N] [--max-lines N] [--window N] [--timings]
+ */
+public class ChartServer {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * 服务参数；setter 返回自身，可以链式调用
+     */
+    public static final class Config {
+        int port = 8080;
+        int workers = Runtime.getRuntime().availableProcessors();
+        // 在途星盘总数上限（0 表示 workers × 4）
+        int queueCapacity;
+        int maxBatches = 16;
+        int maxLines = 10000;
+        int window = 256;
+
+        public Config setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Config setWorkers(int workers) {
+            if (workers < 1) throw new IllegalArgumentException("workers 必须至少为 1");
+            this.workers = workers;
+            return this;
+        }
+
+        public Config setQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 0) throw new IllegalArgumentException("queueCapacity 不能为负");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Config setMaxBatches(int maxBatches) {
+            if (maxBatches < 1) throw new IllegalArgumentException("maxBatches 必须至少为 1");
+            this.maxBatches = maxBatches;
+            return this;
+        }
+
+        public Config setMaxLines(int maxLines) {
+            if (maxLines < 1) throw new IllegalArgumentException("maxLines 必须至少为 1");
+            this.maxLines = maxLines;
+            return this;
+        }
+
+        public Config setWindow(int window) {
+            if (window < 1) throw new IllegalArgumentException("window 必须至少为 1");
+            this.window = window;
+            return this;
+        }
+
+        int permits() {
+            return queueCapacity > 0 ? queueCapacity : workers * 4;
+        }
+    }
+
+    final Config config;
+    // 可为 null：没有时区表时只接受 UT 时间（jd，或不带 zone 的 date/time）
+    final TimeZoneTable zones;
+    final Semaphore batchSlots;
+    final Semaphore permits;
+
+    final AtomicLong batches = new AtomicLong();
+    final AtomicLong rejected = new AtomicLong();
+    final AtomicLong charts = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+
+    private final HttpServer http;
+    private final ExecutorService httpThreads;
+    // 队列本身不设上限：在途数量由 permits 控制，这样 execute 永远不会被拒绝
+    private final ThreadPoolExecutor workers;
+
+    public ChartServer(Config config, TimeZoneTable zones) throws IOException {
+        this.config = config;
+        this.zones = zones;
+        this.batchSlots = new Semaphore(config.maxBatches);
+        this.permits = new Semaphore(config.permits(), true);
+        this.workers = new ThreadPoolExecutor(config.workers, config.workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory("chart-worker"));
+        // 超出 maxBatches 的请求在 HTTP 线程里立即回 503，所以这里不需要限制线程数
+        this.httpThreads = Executors.newCachedThreadPool(threadFactory("chart-http"));
+
+        http = HttpServer.create(new InetSocketAddress(config.port), 0);
+        http.setExecutor(httpThreads);
+        http.createContext("/charts", new BatchHandler(this));
+        http.createContext("/health", exchange -> {
+            try {
+                sendText(exchange, 200, "ok");
+            } finally {
+                exchange.close();
+            }
+        });
+        http.createContext("/stats", exchange -> {
+            try {
+                sendJson(exchange, stats());
+            } finally {
+                exchange.close();
+            }
+        });
+        http.createContext("/timings", exchange -> {
+            try {
+                if (!StageTimings.isEnabled()) {
+                    sendText(exchange, 404, "未开启阶段计时（以 --timings 启动）");
+                    return;
+                }
+                StringBuilder sb = new StringBuilder(2048);
+                StageTimings.dump(sb);
+                sendText(exchange, 200, sb.toString());
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    /**
+     * 停止服务：不再接受连接，等待进行中的交换最多 delaySeconds 秒；尚未开始的计算取消（对应行输出错误）
+     */
+    public void stop(int delaySeconds) {
+        http.stop(delaySeconds);
+        for (Runnable r : workers.shutdownNow()) {
+            if (r instanceof Future) ((Future<?>) r).cancel(false);
+        }
+        httpThreads.shutdown();
+    }
+
+    /**
+     * 实际监听的端口（port 为 0 时由系统分配）
+     */
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    void execute(Runnable task) {
+        workers.execute(task);
+    }
+
+    String stats() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"batches\":").append(batches.get())
+                .append(",\"rejected\":").append(rejected.get())
+                .append(",\"charts\":").append(charts.get())
+                .append(",\"errors\":").append(errors.get())
+                .append(",\"activeBatches\":").append(config.maxBatches - batchSlots.availablePermits())
+                .append(",\"inFlight\":").append(config.permits() - permits.availablePermits())
+                .append(",\"queued\":").append(workers.getQueue().size())
+                .append(",\"workers\":").append(config.workers)
+                .append('}');
+        return sb.toString();
+    }
+
+    static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, (text + "\n").getBytes(UTF8));
+    }
+
+    private static void sendJson(HttpExchange exchange, String json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        send(exchange, 200, (json + "\n").getBytes(UTF8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private static ThreadFactory threadFactory(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 时区表：classpath 资源 /tzdb.bin（构建时由 generateTimeZones 从 JDK 的 tzdb 生成，收录全部时区）
+     */
+    static TimeZoneTable loadTimeZones() throws IOException {
+        InputStream in = ChartServer.class.getResourceAsStream("/tzdb.bin");
+        if (in == null) return null;
+        try {
+            return TimeZoneTable.read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Config config = new Config();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--timings")) {
+                StageTimings.setEnabled(true);
+                continue;
+            }
+            if (i + 1 >= args.length) usage("缺少 " + a + " 的值");
+            int v;
+            try {
+                v = Integer.parseInt(args[++i]);
+            } catch (NumberFormatException e) {
+                usage(a + " 应为整数");
+                return;
+            }
+            switch (a) {
+                case "--port":
+                    config.setPort(v);
+                    break;
+                case "--workers":
+                    config.setWorkers(v);
+                    break;
+                case "--queue":
+                    config.setQueueCapacity(v);
+                    break;
+                case "--max-batches":
+                    config.setMaxBatches(v);
+                    break;
+                case "--max-lines":
+                    config.setMaxLines(v);
+                    break;
+                case "--window":
+                    config.setWindow(v);
+                    break;
+                default:
+                    usage("未知的参数 " + a);
+            }
+        }
+
+        TimeZoneTable zones = loadTimeZones();
+        if (zones == null) System.err.println("chart-server: 没有 /tzdb.bin，带 zone 的请求将报错");
+        final ChartServer server = new ChartServer(config, zones);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(2)));
+        System.out.println("chart-server: 监听端口 " + server.getPort() + "，" + config.workers + " 个工作线程，在途上限 "
+                + config.permits() + "，同时处理 " + config.maxBatches + " 批");
+        Thread.currentThread().join();
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("用法: ChartServer [--port 8080] [--workers N] [--queue N] [--max-batches N]"
+                + " [--max-lines N] [--window N] [--timings]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 最小的 JSON 读写：只支持服务用到的部分，免得为此引入第三方库
+ *
+ * - 读：一行一个扁平对象，值为字符串、数字、true/false 或 null（不支持嵌套对象与数组）
+ * - 写：字符串转义；数字由调用方按需要的精度写出
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * 解析一个扁平对象：字符串值为 String，数字为 Double，布尔为 Boolean，null 为 null
+     *
+     * @throws IllegalArgumentException 不是合法的扁平 JSON 对象
+     */
+    static Map<String, Object> parseObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, Object> map = new LinkedHashMap<>();
+        p.skipSpace();
+        p.expect('{');
+        p.skipSpace();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipSpace();
+                String key = p.string();
+                p.skipSpace();
+                p.expect(':');
+                p.skipSpace();
+                map.put(key, p.value());
+                p.skipSpace();
+                char c = p.next();
+                if (c == '}') break;
+                if (c != ',') throw p.error("应为 , 或 }");
+            }
+        }
+        p.skipSpace();
+        if (p.pos < text.length()) throw p.error("对象之后有多余的内容");
+        return map;
+    }
+
+    /**
+     * 写出带引号的字符串（按 JSON 规则转义）
+     */
+    static void appendString(StringBuilder sb, CharSequence s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00");
+                        sb.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static final class Parser {
+        final String text;
+        int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            if (pos >= text.length()) throw error("意外的结尾");
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void expect(char c) {
+            if (next() != c) throw error("应为 " + c);
+        }
+
+        void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        Object value() {
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw error("不支持嵌套的对象或数组");
+            if (text.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) pos++;
+            if (start == pos) throw error("无法识别的值");
+            try {
+                return Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("无法识别的数字");
+            }
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = next();
+                switch (e) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw error("\\u 转义不完整");
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("\\u 转义不合法");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(e);
+                }
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSON 第 " + (pos + 1) + " 个字符: " + message);
+        }
+    }
+}